@@ -6,6 +6,8 @@ import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonObject;
 import lombok.extern.log4j.Log4j2;
+import za.co.ai.experiment.libcoreconfig.ConfigKey;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
 
 import java.util.logging.Level;
 
@@ -17,6 +19,8 @@ public class Main {
     private static Vertx vertx;
     private static HttpServer server;
     private static final int DEFAULT_PORT = 8080;
+    private static final ConfigKey<Integer> PORT = ConfigKey.intKey("PORT", DEFAULT_PORT);
+    private static final ConfigManager CONFIG = new ConfigManager().loadFromEnvironment("PORT");
 
     /**
      * Application entry point.
@@ -97,14 +101,12 @@ public class Main {
      * @return The port number
      */
     private static int getPort() {
-        String portEnv = System.getenv("PORT");
-        if (portEnv != null && !portEnv.isEmpty()) {
-            try {
-                return Integer.parseInt(portEnv);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid PORT environment variable value: {}, using default: {}", portEnv, DEFAULT_PORT);
-            }
+        try {
+            return CONFIG.get(PORT);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid PORT environment variable value: {}, using default: {}",
+                    CONFIG.getOrDefault("PORT", ""), DEFAULT_PORT);
+            return DEFAULT_PORT;
         }
-        return DEFAULT_PORT;
     }
 }
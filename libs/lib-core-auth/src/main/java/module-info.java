@@ -4,9 +4,14 @@
  * This module provides OAuth2, JWT, and JWKS handling for the AI Experiment platform.
  */
 module za.co.ai.experiment.libcoreauth {
+    // Required dependencies
+    requires java.logging;
+    requires java.net.http;
+    requires com.fasterxml.jackson.databind;
+    
     // Export the API packages
     exports za.co.ai.experiment.libcoreauth;
-
+    
     // For testing
     opens za.co.ai.experiment.libcoreauth to org.junit.platform.commons;
 }
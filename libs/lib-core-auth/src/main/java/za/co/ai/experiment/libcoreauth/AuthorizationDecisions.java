@@ -0,0 +1,33 @@
+package za.co.ai.experiment.libcoreauth;
+
+/**
+ * The permissions granted to one token, as a bitset indexed by permission.
+ */
+public final class AuthorizationDecisions {
+    
+    private final Authorizer authorizer;
+    private final long[] granted;
+    
+    AuthorizationDecisions(Authorizer authorizer, long[] granted) {
+        this.authorizer = authorizer;
+        this.granted = granted;
+    }
+    
+    /**
+     * Checks if a permission was granted.
+     * 
+     * @param permission The permission, from the Authorizer that made these decisions
+     * @return true if the token holds the permission
+     * @throws IllegalArgumentException if the permission belongs to another Authorizer
+     */
+    public boolean isPermitted(Permission permission) {
+        if (permission.authorizer != authorizer) {
+            throw new IllegalArgumentException("Permission " + permission + " belongs to another authorizer");
+        }
+        return (granted[permission.id >>> 6] & (1L << permission.id)) != 0;
+    }
+    
+    Authorizer getAuthorizer() {
+        return authorizer;
+    }
+}
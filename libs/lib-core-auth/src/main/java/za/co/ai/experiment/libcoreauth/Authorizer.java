@@ -0,0 +1,264 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps a verified token's roles and scopes to named permissions.
+ * 
+ * Every role and scope named by a policy is interned into one dense ID space when the
+ * Authorizer is built, and each policy is compiled into bitsets over that space. Deciding
+ * a token turns its roles and scopes into a grant bitset once and tests every policy
+ * against it, producing an {@link AuthorizationDecisions} bitset indexed by permission
+ * that is cached on the token's {@link JwtClaims}. Since the verified token cache hands
+ * back the same claims for a repeat token, later checks cost one bitwise AND.
+ * 
+ * A permission is granted when the token holds every role and scope it requires and,
+ * if it accepts any alternatives, at least one of them.
+ */
+public final class Authorizer {
+    
+    private final Map<String, Integer> roleIds;
+    private final Map<String, Integer> scopeIds;
+    private final int grantWords;
+    private final Map<String, Permission> permissions;
+    private final long[][] anyMasks;
+    private final long[][] allMasks;
+    
+    private Authorizer(Builder builder) {
+        this.roleIds = new HashMap<>();
+        this.scopeIds = new HashMap<>();
+        for (Policy policy : builder.policies.values()) {
+            intern(roleIds, policy.anyRoles, policy.allRoles);
+        }
+        for (Policy policy : builder.policies.values()) {
+            intern(scopeIds, policy.anyScopes, policy.allScopes);
+        }
+        this.grantWords = words(roleIds.size() + scopeIds.size());
+        
+        int count = builder.policies.size();
+        this.permissions = new HashMap<>();
+        this.anyMasks = new long[count][];
+        this.allMasks = new long[count][];
+        int id = 0;
+        for (Map.Entry<String, Policy> entry : builder.policies.entrySet()) {
+            Policy policy = entry.getValue();
+            permissions.put(entry.getKey(), new Permission(this, id, entry.getKey()));
+            long[] any = new long[grantWords];
+            mark(any, policy.anyRoles, roleIds, 0);
+            mark(any, policy.anyScopes, scopeIds, roleIds.size());
+            long[] all = new long[grantWords];
+            mark(all, policy.allRoles, roleIds, 0);
+            mark(all, policy.allScopes, scopeIds, roleIds.size());
+            anyMasks[id] = policy.anyRoles.isEmpty() && policy.anyScopes.isEmpty() ? null : any;
+            allMasks[id] = all;
+            id++;
+        }
+    }
+    
+    /**
+     * Creates a new authorizer builder.
+     * 
+     * @return A new authorizer builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Gets the handle of a permission.
+     * 
+     * @param name The permission name
+     * @return The permission
+     * @throws IllegalArgumentException if no policy defines the permission
+     */
+    public Permission permission(String name) {
+        Permission permission = permissions.get(name);
+        if (permission == null) {
+            throw new IllegalArgumentException("Unknown permission " + name);
+        }
+        return permission;
+    }
+    
+    /**
+     * Decides every permission for a token, reusing the decisions cached on its claims.
+     * 
+     * @param claims The verified claims of the token
+     * @return The decisions for the token
+     */
+    public AuthorizationDecisions decide(JwtClaims claims) {
+        AuthorizationDecisions cached = claims.decisions;
+        if (cached != null && cached.getAuthorizer() == this) {
+            return cached;
+        }
+        long[] grants = new long[grantWords];
+        grant(grants, claims.getRoles(), roleIds, 0);
+        grant(grants, claims.getScopes(), scopeIds, roleIds.size());
+        
+        long[] granted = new long[words(anyMasks.length)];
+        for (int id = 0; id < anyMasks.length; id++) {
+            if (matches(grants, anyMasks[id], allMasks[id])) {
+                granted[id >>> 6] |= 1L << id;
+            }
+        }
+        AuthorizationDecisions decisions = new AuthorizationDecisions(this, granted);
+        claims.decisions = decisions;
+        return decisions;
+    }
+    
+    /**
+     * Checks if a token holds a permission.
+     * 
+     * @param claims The verified claims of the token
+     * @param permission The permission
+     * @return true if the token holds the permission
+     * @throws IllegalArgumentException if the permission belongs to another Authorizer
+     */
+    public boolean isPermitted(JwtClaims claims, Permission permission) {
+        return decide(claims).isPermitted(permission);
+    }
+    
+    private static boolean matches(long[] grants, long[] any, long[] all) {
+        boolean anyMatched = any == null;
+        for (int i = 0; i < grants.length; i++) {
+            if ((grants[i] & all[i]) != all[i]) {
+                return false;
+            }
+            if (any != null && (grants[i] & any[i]) != 0) {
+                anyMatched = true;
+            }
+        }
+        return anyMatched;
+    }
+    
+    private static void grant(long[] grants, List<String> names, Map<String, Integer> ids, int offset) {
+        for (int i = 0; i < names.size(); i++) {
+            Integer id = ids.get(names.get(i));
+            if (id != null) {
+                int bit = offset + id;
+                grants[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+    
+    private static void intern(Map<String, Integer> ids, Set<String> first, Set<String> second) {
+        for (String name : first) {
+            ids.putIfAbsent(name, ids.size());
+        }
+        for (String name : second) {
+            ids.putIfAbsent(name, ids.size());
+        }
+    }
+    
+    private static void mark(long[] mask, Set<String> names, Map<String, Integer> ids, int offset) {
+        for (String name : names) {
+            int bit = offset + ids.get(name);
+            mask[bit >>> 6] |= 1L << bit;
+        }
+    }
+    
+    private static int words(int bits) {
+        return Math.max(1, (bits + 63) >>> 6);
+    }
+    
+    /**
+     * The roles and scopes a permission requires or accepts.
+     */
+    private static final class Policy {
+        private final Set<String> anyRoles = new LinkedHashSet<>();
+        private final Set<String> anyScopes = new LinkedHashSet<>();
+        private final Set<String> allRoles = new LinkedHashSet<>();
+        private final Set<String> allScopes = new LinkedHashSet<>();
+    }
+    
+    /**
+     * Builder for Authorizer.
+     */
+    public static class Builder {
+        private final Map<String, Policy> policies = new LinkedHashMap<>();
+        
+        private Builder() {
+        }
+        
+        /**
+         * Grants a permission to tokens holding any of the given roles.
+         * 
+         * @param permission The permission name
+         * @param roles The accepted roles
+         * @return This builder
+         * @throws IllegalArgumentException if the permission is blank or no roles are given
+         */
+        public Builder anyRole(String permission, String... roles) {
+            policy(permission, roles).anyRoles.addAll(Arrays.asList(roles));
+            return this;
+        }
+        
+        /**
+         * Grants a permission to tokens holding any of the given scopes.
+         * 
+         * @param permission The permission name
+         * @param scopes The accepted scopes
+         * @return This builder
+         * @throws IllegalArgumentException if the permission is blank or no scopes are given
+         */
+        public Builder anyScope(String permission, String... scopes) {
+            policy(permission, scopes).anyScopes.addAll(Arrays.asList(scopes));
+            return this;
+        }
+        
+        /**
+         * Requires tokens to hold all of the given roles for a permission.
+         * 
+         * @param permission The permission name
+         * @param roles The required roles
+         * @return This builder
+         * @throws IllegalArgumentException if the permission is blank or no roles are given
+         */
+        public Builder allRoles(String permission, String... roles) {
+            policy(permission, roles).allRoles.addAll(Arrays.asList(roles));
+            return this;
+        }
+        
+        /**
+         * Requires tokens to hold all of the given scopes for a permission.
+         * 
+         * @param permission The permission name
+         * @param scopes The required scopes
+         * @return This builder
+         * @throws IllegalArgumentException if the permission is blank or no scopes are given
+         */
+        public Builder allScopes(String permission, String... scopes) {
+            policy(permission, scopes).allScopes.addAll(Arrays.asList(scopes));
+            return this;
+        }
+        
+        /**
+         * Builds the Authorizer, compiling every policy.
+         * 
+         * @return The built Authorizer
+         */
+        public Authorizer build() {
+            return new Authorizer(this);
+        }
+        
+        private Policy policy(String permission, String... names) {
+            if (permission == null || permission.isBlank()) {
+                throw new IllegalArgumentException("Permission name cannot be null or blank");
+            }
+            if (names.length == 0) {
+                throw new IllegalArgumentException("At least one role or scope is required");
+            }
+            for (String name : names) {
+                if (name == null || name.isBlank()) {
+                    throw new IllegalArgumentException("Role and scope names cannot be null or blank");
+                }
+            }
+            return policies.computeIfAbsent(permission, key -> new Policy());
+        }
+    }
+}
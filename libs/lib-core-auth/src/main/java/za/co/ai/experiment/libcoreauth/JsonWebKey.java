@@ -0,0 +1,148 @@
+package za.co.ai.experiment.libcoreauth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A single verification key taken from a JWKS document.
+ * 
+ * The JCA key is built once when the JWKS document is loaded, so signature
+ * verification never has to decode key material.
+ */
+final class JsonWebKey {
+    
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final String kid;
+    private final String algorithm;
+    private final JwtAlgorithm.KeyFamily family;
+    private final String curve;
+    private final Key key;
+    
+    private JsonWebKey(String kid, String algorithm, JwtAlgorithm.KeyFamily family, String curve, Key key) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.family = family;
+        this.curve = curve;
+        this.key = key;
+    }
+    
+    /**
+     * Parses a JWK from its JSON representation.
+     * 
+     * @param node The JWK JSON object
+     * @return The parsed key, or null if the key is not a supported signature key
+     * @throws GeneralSecurityException if the key material is invalid
+     */
+    static JsonWebKey parse(JsonNode node) throws GeneralSecurityException {
+        String use = text(node, "use");
+        if (use != null && !"sig".equals(use)) {
+            return null;
+        }
+        String kid = text(node, "kid");
+        String algorithm = text(node, "alg");
+        String kty = text(node, "kty");
+        if ("RSA".equals(kty)) {
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(integer(node, "n"), integer(node, "e"));
+            Key key = KeyFactory.getInstance("RSA").generatePublic(spec);
+            return new JsonWebKey(kid, algorithm, JwtAlgorithm.KeyFamily.RSA, null, key);
+        }
+        if ("EC".equals(kty)) {
+            String curve = text(node, "crv");
+            String stdName = curveName(curve);
+            if (stdName == null) {
+                return null;
+            }
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(stdName));
+            ECParameterSpec ecSpec = parameters.getParameterSpec(ECParameterSpec.class);
+            ECPoint point = new ECPoint(integer(node, "x"), integer(node, "y"));
+            Key key = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, ecSpec));
+            return new JsonWebKey(kid, algorithm, JwtAlgorithm.KeyFamily.EC, curve, key);
+        }
+        if ("oct".equals(kty)) {
+            byte[] secret = bytes(node, "k");
+            return new JsonWebKey(kid, algorithm, JwtAlgorithm.KeyFamily.HMAC, null, new SecretKeySpec(secret, "HMAC"));
+        }
+        return null;
+    }
+    
+    /**
+     * Checks whether this key may be used to verify a token signed with the given algorithm.
+     * 
+     * @param jwtAlgorithm The token's signature algorithm
+     * @return true if the key family, curve and declared algorithm all match
+     */
+    boolean supports(JwtAlgorithm jwtAlgorithm) {
+        if (jwtAlgorithm.getFamily() != family) {
+            return false;
+        }
+        if (algorithm != null && !algorithm.equals(jwtAlgorithm.name())) {
+            return false;
+        }
+        return jwtAlgorithm.getCurve() == null || jwtAlgorithm.getCurve().equals(curve);
+    }
+    
+    /**
+     * Gets the key ID.
+     * 
+     * @return The key ID, or null if the JWK has none
+     */
+    String getKid() {
+        return kid;
+    }
+    
+    /**
+     * Gets the JCA key.
+     * 
+     * @return The verification key
+     */
+    Key getKey() {
+        return key;
+    }
+    
+    private static String curveName(String curve) {
+        if (curve == null) {
+            return null;
+        }
+        return switch (curve) {
+            case "P-256" -> "secp256r1";
+            case "P-384" -> "secp384r1";
+            case "P-521" -> "secp521r1";
+            default -> null;
+        };
+    }
+    
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+    
+    private static byte[] bytes(JsonNode node, String field) throws GeneralSecurityException {
+        String value = text(node, field);
+        if (value == null) {
+            throw new GeneralSecurityException("JWK is missing member " + field);
+        }
+        try {
+            return DECODER.decode(value);
+        } catch (IllegalArgumentException e) {
+            throw new GeneralSecurityException("JWK member " + field + " is not base64url", e);
+        }
+    }
+    
+    private static BigInteger integer(JsonNode node, String field) throws GeneralSecurityException {
+        return new BigInteger(1, bytes(node, field));
+    }
+}
@@ -0,0 +1,241 @@
+package za.co.ai.experiment.libcoreauth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory cache of JWKS verification keys indexed by key ID.
+ * 
+ * The key set is replaced as a whole on every fetch and read without locks.
+ * Fetches are single-flight: concurrent callers share one in-flight request.
+ * Once the key set is older than the refresh interval it is refreshed in the
+ * background while the cached keys keep being served, and an unknown key ID
+ * triggers a refetch. Both start at most one fetch per minimum refetch interval,
+ * counted from the last attempt whether or not it succeeded, so an unreachable
+ * endpoint is not retried on every request. Without usable keys, requests within
+ * that interval of a failed fetch fail straight away with its error.
+ */
+final class JwksKeyCache {
+    
+    private static final Logger LOGGER = Logger.getLogger(JwksKeyCache.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final URI jwksUri;
+    private final HttpClient httpClient;
+    private final Executor executor;
+    private final Clock clock;
+    private final Duration refreshInterval;
+    private final Duration maxKeyAge;
+    private final Duration minRefetchInterval;
+    private final Duration fetchTimeout;
+    
+    private final AtomicReference<CompletableFuture<KeySet>> inFlight = new AtomicReference<>();
+    private volatile KeySet keySet;
+    private volatile Instant lastAttempt;
+    private volatile Throwable lastFailure;
+    
+    JwksKeyCache(URI jwksUri, Executor executor, Clock clock, Duration refreshInterval,
+                 Duration maxKeyAge, Duration minRefetchInterval, Duration fetchTimeout) {
+        this.jwksUri = jwksUri;
+        this.executor = executor;
+        this.clock = clock;
+        this.refreshInterval = refreshInterval;
+        this.maxKeyAge = maxKeyAge;
+        this.minRefetchInterval = minRefetchInterval;
+        this.fetchTimeout = fetchTimeout;
+        this.httpClient = "file".equalsIgnoreCase(jwksUri.getScheme()) ? null : HttpClient.newBuilder()
+                .connectTimeout(fetchTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+    
+    /**
+     * Finds the verification key for a key ID, fetching the JWKS document if required.
+     * 
+     * A null key ID matches the only key of a single-key JWKS document.
+     * 
+     * @param kid The key ID from the token header
+     * @return The key, or null if the JWKS document does not contain it
+     * @throws IOException if the JWKS document had to be fetched and could not be
+     */
+    JsonWebKey findKey(String kid) throws IOException {
+        KeySet current = keySet;
+        Instant now = clock.instant();
+        if (current == null || current.isOlderThan(now, maxKeyAge)) {
+            Throwable failure = lastFailure;
+            if (failure != null && !mayAttempt(now) && inFlight.get() == null) {
+                throw new IOException("JWKS from " + jwksUri + " is unavailable, retrying after "
+                        + minRefetchInterval, failure);
+            }
+            current = await(refresh());
+            return current.find(kid);
+        }
+        if (current.isOlderThan(now, refreshInterval) && mayAttempt(now)) {
+            refresh();
+        }
+        JsonWebKey key = current.find(kid);
+        if (key == null && mayAttempt(now)) {
+            key = await(refresh()).find(kid);
+        }
+        return key;
+    }
+    
+    /**
+     * Checks whether the minimum refetch interval has passed since the last fetch was
+     * started, successful or not.
+     */
+    private boolean mayAttempt(Instant now) {
+        Instant attempted = lastAttempt;
+        return attempted == null || !attempted.plus(minRefetchInterval).isAfter(now);
+    }
+    
+    /**
+     * Starts a JWKS fetch, or joins the one already in flight.
+     * 
+     * @return A future completed with the freshly loaded key set
+     */
+    CompletableFuture<KeySet> refresh() {
+        while (true) {
+            CompletableFuture<KeySet> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<KeySet> fetch = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, fetch)) {
+                lastAttempt = clock.instant();
+                try {
+                    executor.execute(() -> load(fetch));
+                } catch (RejectedExecutionException e) {
+                    LOGGER.log(Level.WARNING, "JWKS fetch from " + jwksUri + " was rejected by the executor", e);
+                    lastFailure = e;
+                    inFlight.compareAndSet(fetch, null);
+                    fetch.completeExceptionally(e);
+                }
+                return fetch;
+            }
+        }
+    }
+    
+    private void load(CompletableFuture<KeySet> fetch) {
+        try {
+            KeySet loaded = new KeySet(parse(download()), clock.instant());
+            keySet = loaded;
+            lastFailure = null;
+            inFlight.compareAndSet(fetch, null);
+            fetch.complete(loaded);
+        } catch (Throwable e) {
+            LOGGER.log(Level.WARNING, "Failed to load JWKS from " + jwksUri, e);
+            lastFailure = e;
+            inFlight.compareAndSet(fetch, null);
+            fetch.completeExceptionally(e);
+        }
+    }
+    
+    private String download() throws IOException {
+        if (httpClient == null) {
+            return Files.readString(Path.of(jwksUri));
+        }
+        HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                .timeout(fetchTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("JWKS endpoint " + jwksUri + " returned HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching JWKS from " + jwksUri);
+        }
+    }
+    
+    private static Map<String, JsonWebKey> parse(String document) throws IOException {
+        JsonNode keys = MAPPER.readTree(document).get("keys");
+        if (keys == null || !keys.isArray()) {
+            throw new IOException("JWKS document has no keys array");
+        }
+        Map<String, JsonWebKey> byKid = new HashMap<>();
+        for (JsonNode node : keys) {
+            try {
+                JsonWebKey key = JsonWebKey.parse(node);
+                if (key != null) {
+                    byKid.put(key.getKid() != null ? key.getKid() : "", key);
+                }
+            } catch (GeneralSecurityException e) {
+                LOGGER.log(Level.WARNING, "Skipping invalid JWK " + node.path("kid").asText(), e);
+            }
+        }
+        return Map.copyOf(byKid);
+    }
+    
+    private KeySet await(CompletableFuture<KeySet> fetch) throws IOException {
+        try {
+            return fetch.get(fetchTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for JWKS from " + jwksUri);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for JWKS from " + jwksUri, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Failed to load JWKS", e.getCause());
+        }
+    }
+    
+    /**
+     * An immutable snapshot of the keys published in one JWKS document.
+     */
+    static final class KeySet {
+        private final Map<String, JsonWebKey> keys;
+        private final Instant fetchedAt;
+        
+        KeySet(Map<String, JsonWebKey> keys, Instant fetchedAt) {
+            this.keys = keys;
+            this.fetchedAt = fetchedAt;
+        }
+        
+        /**
+         * Finds a key by key ID.
+         * 
+         * @param kid The key ID, or null to select the only key of the set
+         * @return The key, or null if not present
+         */
+        JsonWebKey find(String kid) {
+            if (kid == null) {
+                return keys.size() == 1 ? keys.values().iterator().next() : null;
+            }
+            return keys.get(kid);
+        }
+        
+        boolean isOlderThan(Instant now, Duration age) {
+            return !fetchedAt.plus(age).isAfter(now);
+        }
+    }
+}
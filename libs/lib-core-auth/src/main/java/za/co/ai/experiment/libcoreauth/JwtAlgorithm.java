@@ -0,0 +1,125 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.Signature;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+/**
+ * JWS signature algorithms supported by the JWT validator.
+ * 
+ * Each algorithm knows its key family and how to verify a signature over the
+ * JWS signing input with a key published in the JWKS document.
+ */
+enum JwtAlgorithm {
+    
+    HS256("HmacSHA256", KeyFamily.HMAC, null, 0),
+    HS384("HmacSHA384", KeyFamily.HMAC, null, 0),
+    HS512("HmacSHA512", KeyFamily.HMAC, null, 0),
+    RS256("SHA256withRSA", KeyFamily.RSA, null, 0),
+    RS384("SHA384withRSA", KeyFamily.RSA, null, 0),
+    RS512("SHA512withRSA", KeyFamily.RSA, null, 0),
+    ES256("SHA256withECDSAinP1363Format", KeyFamily.EC, "P-256", 64),
+    ES384("SHA384withECDSAinP1363Format", KeyFamily.EC, "P-384", 96),
+    ES512("SHA512withECDSAinP1363Format", KeyFamily.EC, "P-521", 132);
+    
+    /**
+     * The key families a JWK can belong to.
+     */
+    enum KeyFamily {
+        HMAC,
+        RSA,
+        EC
+    }
+    
+    private static final JwtAlgorithm[] VALUES = values();
+    
+    private final String jcaName;
+    private final KeyFamily family;
+    private final String curve;
+    private final int signatureLength;
+    
+    JwtAlgorithm(String jcaName, KeyFamily family, String curve, int signatureLength) {
+        this.jcaName = jcaName;
+        this.family = family;
+        this.curve = curve;
+        this.signatureLength = signatureLength;
+    }
+    
+    /**
+     * Looks up an algorithm by its JWS {@code alg} name given as ASCII bytes.
+     * 
+     * @param bytes The buffer holding the name
+     * @param offset The offset of the name
+     * @param length The length of the name
+     * @return The algorithm, or null if it is not supported
+     */
+    static JwtAlgorithm fromAscii(byte[] bytes, int offset, int length) {
+        if (length != 5) {
+            return null;
+        }
+        for (JwtAlgorithm algorithm : VALUES) {
+            String name = algorithm.name();
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++) {
+                matches = bytes[offset + i] == name.charAt(i);
+            }
+            if (matches) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the key family this algorithm requires.
+     * 
+     * @return The key family
+     */
+    KeyFamily getFamily() {
+        return family;
+    }
+    
+    /**
+     * Gets the JWK curve name this algorithm requires, for EC algorithms.
+     * 
+     * @return The curve name, or null for non-EC algorithms
+     */
+    String getCurve() {
+        return curve;
+    }
+    
+    /**
+     * Verifies a signature over the signing input.
+     * 
+     * @param key The verification key
+     * @param data The buffer holding the signing input, starting at offset 0
+     * @param length The length of the signing input
+     * @param signature The buffer holding the decoded signature, starting at offset 0
+     * @param signatureLength The length of the decoded signature
+     * @return true if the signature is valid, false otherwise
+     * @throws GeneralSecurityException if the key cannot be used for verification
+     */
+    boolean verify(Key key, byte[] data, int length, byte[] signature, int signatureLength) throws GeneralSecurityException {
+        if (family == KeyFamily.HMAC) {
+            Mac mac = Mac.getInstance(jcaName);
+            mac.init((SecretKey) key);
+            mac.update(data, 0, length);
+            byte[] expected = mac.doFinal();
+            int difference = expected.length ^ signatureLength;
+            for (int i = 0; i < expected.length; i++) {
+                difference |= expected[i] ^ signature[i < signatureLength ? i : 0];
+            }
+            return difference == 0;
+        }
+        if (this.signatureLength > 0 && signatureLength != this.signatureLength) {
+            return false;
+        }
+        Signature verifier = Signature.getInstance(jcaName);
+        verifier.initVerify((PublicKey) key);
+        verifier.update(data, 0, length);
+        return verifier.verify(signature, 0, signatureLength);
+    }
+}
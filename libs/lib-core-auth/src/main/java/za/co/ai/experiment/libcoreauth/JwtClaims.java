@@ -0,0 +1,127 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.util.List;
+
+/**
+ * Compact view of the JWT claims that take part in validation and authorization.
+ * 
+ * Only the registered claims needed to validate a token, plus its roles and scopes,
+ * are decoded; the rest of the payload is skipped by {@link JwtParser}.
+ */
+public final class JwtClaims {
+    
+    private final String issuer;
+    private final List<String> audience;
+    private final long expiresAt;
+    private final long notBefore;
+    private final String jwtId;
+    private final List<String> roles;
+    private final List<String> scopes;
+    
+    /** The decisions last computed for this token, cached by {@link Authorizer#decide(JwtClaims)}. */
+    volatile AuthorizationDecisions decisions;
+    
+    /**
+     * Creates a new claims view.
+     * 
+     * @param issuer The {@code iss} claim, or null
+     * @param audience The {@code aud} claim values
+     * @param expiresAt The {@code exp} claim in epoch seconds, or {@link Long#MIN_VALUE} if absent
+     * @param notBefore The {@code nbf} claim in epoch seconds, or {@link Long#MIN_VALUE} if absent
+     * @param jwtId The {@code jti} claim, or null
+     * @param roles The roles from the {@code roles} and {@code realm_access.roles} claims
+     * @param scopes The scopes from the {@code scope} and {@code scp} claims
+     */
+    JwtClaims(String issuer, List<String> audience, long expiresAt, long notBefore, String jwtId,
+              List<String> roles, List<String> scopes) {
+        this.issuer = issuer;
+        this.audience = audience;
+        this.expiresAt = expiresAt;
+        this.notBefore = notBefore;
+        this.jwtId = jwtId;
+        this.roles = roles;
+        this.scopes = scopes;
+    }
+    
+    /**
+     * Gets the issuer.
+     * 
+     * @return The {@code iss} claim, or null if absent
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+    
+    /**
+     * Gets the audience.
+     * 
+     * @return The {@code aud} claim values, empty if absent
+     */
+    public List<String> getAudience() {
+        return audience;
+    }
+    
+    /**
+     * Gets the expiry time.
+     * 
+     * @return The {@code exp} claim in epoch seconds, or {@link Long#MIN_VALUE} if absent
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    /**
+     * Gets the not-before time.
+     * 
+     * @return The {@code nbf} claim in epoch seconds, or {@link Long#MIN_VALUE} if absent
+     */
+    public long getNotBefore() {
+        return notBefore;
+    }
+    
+    /**
+     * Gets the token ID.
+     * 
+     * @return The {@code jti} claim, or null if absent
+     */
+    public String getJwtId() {
+        return jwtId;
+    }
+    
+    /**
+     * Gets the granted roles.
+     * 
+     * @return The roles from the {@code roles} and {@code realm_access.roles} claims, empty if absent
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+    
+    /**
+     * Gets the granted scopes.
+     * 
+     * @return The scopes from the space-separated {@code scope} claim and the {@code scp} claim,
+     *         empty if absent
+     */
+    public List<String> getScopes() {
+        return scopes;
+    }
+    
+    /**
+     * Checks if the token has an expiry time.
+     * 
+     * @return true if the {@code exp} claim is present
+     */
+    public boolean hasExpiresAt() {
+        return expiresAt != Long.MIN_VALUE;
+    }
+    
+    /**
+     * Checks if the token has a not-before time.
+     * 
+     * @return true if the {@code nbf} claim is present
+     */
+    public boolean hasNotBefore() {
+        return notBefore != Long.MIN_VALUE;
+    }
+}
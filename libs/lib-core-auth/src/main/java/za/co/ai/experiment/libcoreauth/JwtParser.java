@@ -0,0 +1,581 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocation-light parser for compact JWS tokens.
+ * 
+ * Each segment is base64url-decoded straight from the token characters into a
+ * per-thread scratch buffer and the JSON is scanned in place as UTF-8 bytes. Only the members
+ * validation needs are materialised ({@code alg}, {@code kid}, {@code exp},
+ * {@code nbf}, {@code iss}, {@code aud}, {@code jti}, the roles in {@code roles} and
+ * {@code realm_access.roles}, and the scopes in {@code scope} and {@code scp}); every other member is skipped without
+ * building strings or trees.
+ */
+public final class JwtParser {
+    
+    private static final ThreadLocal<JwtParser> PARSERS = ThreadLocal.withInitial(JwtParser::new);
+    private static final byte[] BASE64URL = new byte[128];
+    
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] KID = ascii("kid");
+    private static final byte[] ISS = ascii("iss");
+    private static final byte[] AUD = ascii("aud");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] NBF = ascii("nbf");
+    private static final byte[] JTI = ascii("jti");
+    private static final byte[] ROLES = ascii("roles");
+    private static final byte[] REALM_ACCESS = ascii("realm_access");
+    private static final byte[] SCOPE = ascii("scope");
+    private static final byte[] SCP = ascii("scp");
+    
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+    
+    private byte[] buf = new byte[1024];
+    private int pos;
+    private int end;
+    
+    private JwtAlgorithm algorithm;
+    private String kid;
+    private String issuer;
+    private List<String> audience;
+    private long expiresAt;
+    private long notBefore;
+    private String jwtId;
+    private List<String> roles;
+    private List<String> scopes;
+    
+    private JwtParser() {
+    }
+    
+    /**
+     * Decodes the claims of a token without verifying its signature.
+     * 
+     * The result must not be trusted for authentication or authorization; use
+     * {@link JwtValidator} for that. It is intended for routing, logging and diagnostics.
+     * 
+     * @param token The compact JWS
+     * @return The unverified claims
+     * @throws IllegalArgumentException if the token is not a well-formed JWS
+     */
+    public static JwtClaims decodeUnverified(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Token cannot be null");
+        }
+        try {
+            return parse(token).getClaims();
+        } catch (JwtValidationException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Parses a compact JWS into its header fields, claims and signing input.
+     * 
+     * @param token The compact JWS
+     * @return The parsed token
+     * @throws JwtValidationException if the token is malformed
+     */
+    static ParsedJwt parse(String token) throws JwtValidationException {
+        return PARSERS.get().parseToken(token);
+    }
+    
+    private ParsedJwt parseToken(String token) throws JwtValidationException {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new JwtValidationException("Token is not a compact JWS");
+        }
+        
+        algorithm = null;
+        kid = null;
+        decodeSegment(token, 0, firstDot);
+        parseObject(true);
+        
+        issuer = null;
+        audience = List.of();
+        expiresAt = Long.MIN_VALUE;
+        notBefore = Long.MIN_VALUE;
+        jwtId = null;
+        roles = List.of();
+        scopes = List.of();
+        decodeSegment(token, firstDot + 1, secondDot);
+        parseObject(false);
+        
+        return new ParsedJwt(token, secondDot, algorithm, kid,
+                new JwtClaims(issuer, audience, expiresAt, notBefore, jwtId, roles, scopes));
+    }
+    
+    /**
+     * Decodes unpadded base64url from a range of a string.
+     * 
+     * @param src The encoded text
+     * @param from The start of the encoded range, inclusive
+     * @param to The end of the encoded range, exclusive
+     * @param dst The destination buffer, at least {@link #decodedLength(int)} long
+     * @return The number of decoded bytes, or -1 if the input is not base64url
+     */
+    static int decodeBase64Url(String src, int from, int to, byte[] dst) {
+        int out = 0;
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            int bits = sextet(src.charAt(i)) << 18 | sextet(src.charAt(i + 1)) << 12
+                    | sextet(src.charAt(i + 2)) << 6 | sextet(src.charAt(i + 3));
+            if (bits < 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 16);
+            dst[out++] = (byte) (bits >> 8);
+            dst[out++] = (byte) bits;
+        }
+        int remaining = to - i;
+        if (remaining == 2) {
+            int bits = sextet(src.charAt(i)) << 18 | sextet(src.charAt(i + 1)) << 12;
+            if (bits < 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 16);
+        } else if (remaining == 3) {
+            int bits = sextet(src.charAt(i)) << 18 | sextet(src.charAt(i + 1)) << 12 | sextet(src.charAt(i + 2)) << 6;
+            if (bits < 0) {
+                return -1;
+            }
+            dst[out++] = (byte) (bits >> 16);
+            dst[out++] = (byte) (bits >> 8);
+        } else if (remaining == 1) {
+            return -1;
+        }
+        return out;
+    }
+    
+    /**
+     * Gets the maximum decoded length of an unpadded base64url range.
+     * 
+     * @param encodedLength The encoded length
+     * @return The decoded length upper bound
+     */
+    static int decodedLength(int encodedLength) {
+        return encodedLength / 4 * 3 + 2;
+    }
+    
+    private static int sextet(char c) {
+        return c < 128 ? BASE64URL[c] : -1;
+    }
+    
+    private void decodeSegment(String src, int from, int to) throws JwtValidationException {
+        int required = decodedLength(to - from);
+        if (buf.length < required) {
+            buf = new byte[Math.max(required, buf.length * 2)];
+        }
+        int length = decodeBase64Url(src, from, to, buf);
+        if (length < 0) {
+            throw new JwtValidationException("Token segment is not base64url");
+        }
+        pos = 0;
+        end = length;
+    }
+    
+    private void parseObject(boolean header) throws JwtValidationException {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+        } else {
+            while (true) {
+                skipWhitespace();
+                expect('"');
+                int keyStart = pos;
+                int keyEnd = scanString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (header) {
+                    readHeaderMember(keyStart, keyEnd);
+                } else {
+                    readClaimMember(keyStart, keyEnd);
+                }
+                skipWhitespace();
+                byte next = next();
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw malformed();
+                }
+            }
+        }
+        skipWhitespace();
+        if (pos != end) {
+            throw malformed();
+        }
+    }
+    
+    private void readHeaderMember(int keyStart, int keyEnd) throws JwtValidationException {
+        if (keyEquals(keyStart, keyEnd, ALG)) {
+            if (peek() != '"') {
+                throw new JwtValidationException("Header alg is not a string");
+            }
+            pos++;
+            int valueStart = pos;
+            int valueEnd = scanString();
+            algorithm = JwtAlgorithm.fromAscii(buf, valueStart, valueEnd - valueStart);
+        } else if (keyEquals(keyStart, keyEnd, KID)) {
+            kid = readNullableString();
+        } else {
+            skipValue();
+        }
+    }
+    
+    private void readClaimMember(int keyStart, int keyEnd) throws JwtValidationException {
+        if (keyEquals(keyStart, keyEnd, EXP)) {
+            expiresAt = readNumericDate();
+        } else if (keyEquals(keyStart, keyEnd, NBF)) {
+            notBefore = readNumericDate();
+        } else if (keyEquals(keyStart, keyEnd, ISS)) {
+            issuer = readNullableString();
+        } else if (keyEquals(keyStart, keyEnd, AUD)) {
+            audience = readStringOrArray();
+        } else if (keyEquals(keyStart, keyEnd, JTI)) {
+            jwtId = readNullableString();
+        } else if (keyEquals(keyStart, keyEnd, ROLES)) {
+            roles = concat(roles, readStringOrArray());
+        } else if (keyEquals(keyStart, keyEnd, REALM_ACCESS)) {
+            roles = concat(roles, readRealmRoles());
+        } else if (keyEquals(keyStart, keyEnd, SCOPE)) {
+            String scope = readNullableString();
+            scopes = concat(scopes, scope == null || scope.isBlank() ? List.of() : List.of(scope.strip().split(" +")));
+        } else if (keyEquals(keyStart, keyEnd, SCP)) {
+            scopes = concat(scopes, readStringOrArray());
+        } else {
+            skipValue();
+        }
+    }
+    
+    private boolean keyEquals(int start, int endExclusive, byte[] name) {
+        int length = endExclusive - start;
+        if (length != name.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[start + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private long readNumericDate() throws JwtValidationException {
+        if (peek() == 'n') {
+            skipLiteral("null");
+            return Long.MIN_VALUE;
+        }
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            pos++;
+        }
+        int digitsStart = pos;
+        long value = 0;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            if (value > (Long.MAX_VALUE - 9) / 10) {
+                throw new JwtValidationException("NumericDate is out of range");
+            }
+            value = value * 10 + (buf[pos++] - '0');
+        }
+        if (pos == digitsStart) {
+            throw new JwtValidationException("Claim is not a NumericDate");
+        }
+        if (pos < end && buf[pos] == '.') {
+            pos++;
+            while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+                pos++;
+            }
+        }
+        if (pos < end && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            throw new JwtValidationException("NumericDate exponents are not supported");
+        }
+        return negative ? -value : value;
+    }
+    
+    private String readNullableString() throws JwtValidationException {
+        if (peek() == 'n') {
+            skipLiteral("null");
+            return null;
+        }
+        if (peek() != '"') {
+            skipValue();
+            return null;
+        }
+        pos++;
+        int start = pos;
+        int stringEnd = scanString();
+        return decodeString(start, stringEnd);
+    }
+    
+    private List<String> readStringOrArray() throws JwtValidationException {
+        byte first = peek();
+        if (first == '"') {
+            return List.of(readNullableString());
+        }
+        if (first != '[') {
+            skipValue();
+            return List.of();
+        }
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(2);
+        while (true) {
+            skipWhitespace();
+            String value = readNullableString();
+            if (value != null) {
+                values.add(value);
+            }
+            skipWhitespace();
+            byte next = next();
+            if (next == ']') {
+                return List.copyOf(values);
+            }
+            if (next != ',') {
+                throw malformed();
+            }
+        }
+    }
+    
+    /**
+     * Reads the {@code roles} member of a {@code realm_access} object, skipping the rest.
+     * 
+     * @return The realm roles, empty if absent
+     */
+    private List<String> readRealmRoles() throws JwtValidationException {
+        if (peek() != '{') {
+            skipValue();
+            return List.of();
+        }
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return List.of();
+        }
+        List<String> found = List.of();
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = scanString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (keyEquals(keyStart, keyEnd, ROLES)) {
+                found = readStringOrArray();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            byte next = next();
+            if (next == '}') {
+                return found;
+            }
+            if (next != ',') {
+                throw malformed();
+            }
+        }
+    }
+    
+    private static List<String> concat(List<String> first, List<String> second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (second.isEmpty()) {
+            return first;
+        }
+        List<String> joined = new ArrayList<>(first.size() + second.size());
+        joined.addAll(first);
+        joined.addAll(second);
+        return List.copyOf(joined);
+    }
+    
+    /**
+     * Scans to the end of a string whose opening quote has been consumed.
+     * 
+     * @return The index of the closing quote; the position is left just after it
+     */
+    private int scanString() throws JwtValidationException {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b == '"') {
+                return pos++;
+            }
+            if (b == '\\') {
+                pos += 2;
+            } else if (b >= 0 && b < 0x20) {
+                throw malformed();
+            } else {
+                pos++;
+            }
+        }
+        throw malformed();
+    }
+    
+    private String decodeString(int start, int stringEnd) throws JwtValidationException {
+        int escape = -1;
+        for (int i = start; i < stringEnd; i++) {
+            if (buf[i] == '\\') {
+                escape = i;
+                break;
+            }
+        }
+        if (escape < 0) {
+            return new String(buf, start, stringEnd - start, StandardCharsets.UTF_8);
+        }
+        StringBuilder value = new StringBuilder(stringEnd - start);
+        value.append(new String(buf, start, escape - start, StandardCharsets.UTF_8));
+        int i = escape;
+        while (i < stringEnd) {
+            byte b = buf[i];
+            if (b != '\\') {
+                int runEnd = i;
+                while (runEnd < stringEnd && buf[runEnd] != '\\') {
+                    runEnd++;
+                }
+                value.append(new String(buf, i, runEnd - i, StandardCharsets.UTF_8));
+                i = runEnd;
+                continue;
+            }
+            byte escaped = buf[i + 1];
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append((char) escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (i + 6 > stringEnd) {
+                        throw malformed();
+                    }
+                    value.append((char) hex(i + 2));
+                    i += 4;
+                }
+                default -> throw malformed();
+            }
+            i += 2;
+        }
+        return value.toString();
+    }
+    
+    private int hex(int offset) throws JwtValidationException {
+        int value = 0;
+        for (int i = offset; i < offset + 4; i++) {
+            int digit = Character.digit(buf[i], 16);
+            if (digit < 0) {
+                throw malformed();
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+    
+    private void skipValue() throws JwtValidationException {
+        byte first = peek();
+        if (first == '"') {
+            pos++;
+            scanString();
+        } else if (first == '{' || first == '[') {
+            int depth = 0;
+            while (pos < end) {
+                byte b = buf[pos++];
+                if (b == '"') {
+                    scanString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw malformed();
+        } else if (first == 't') {
+            skipLiteral("true");
+        } else if (first == 'f') {
+            skipLiteral("false");
+        } else if (first == 'n') {
+            skipLiteral("null");
+        } else {
+            int start = pos;
+            while (pos < end && isNumberByte(buf[pos])) {
+                pos++;
+            }
+            if (pos == start) {
+                throw malformed();
+            }
+        }
+    }
+    
+    private static boolean isNumberByte(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+    
+    private void skipLiteral(String literal) throws JwtValidationException {
+        if (pos + literal.length() > end) {
+            throw malformed();
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                throw malformed();
+            }
+        }
+        pos += literal.length();
+    }
+    
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+    
+    private byte peek() throws JwtValidationException {
+        if (pos >= end) {
+            throw malformed();
+        }
+        return buf[pos];
+    }
+    
+    private byte next() throws JwtValidationException {
+        if (pos >= end) {
+            throw malformed();
+        }
+        return buf[pos++];
+    }
+    
+    private void expect(char expected) throws JwtValidationException {
+        if (next() != expected) {
+            throw malformed();
+        }
+    }
+    
+    private static JwtValidationException malformed() {
+        return new JwtValidationException("Token segment is not a valid JSON object");
+    }
+    
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,26 @@
+package za.co.ai.experiment.libcoreauth;
+
+/**
+ * Signals that a token failed parsing, signature verification or claim checks.
+ */
+final class JwtValidationException extends Exception {
+    
+    /**
+     * Creates a new validation exception.
+     * 
+     * @param message The reason the token was rejected
+     */
+    JwtValidationException(String message) {
+        super(message, null, false, false);
+    }
+    
+    /**
+     * Creates a new validation exception with a cause.
+     * 
+     * @param message The reason the token was rejected
+     * @param cause The underlying failure
+     */
+    JwtValidationException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
@@ -1,24 +1,87 @@
 package za.co.ai.experiment.libcoreauth;
 
+import java.io.IOException;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
 /**
  * JWT validation utility for the AI Experiment platform.
  * 
- * This class provides functionality to validate JWT tokens using JWKS.
+ * This class validates JWT tokens by verifying their RS256, ES256 or HS256 family
+ * signature against the keys published at a JWKS endpoint, then checking the
+ * {@code exp}, {@code nbf}, {@code iss} and {@code aud} claims. Keys are held in a
+ * kid-indexed cache, so the JWKS endpoint is only contacted on a cold cache, for
+ * background refreshes and when a token names an unknown key ID. When a
+ * {@link RevocationList} is configured, tokens whose {@code jti} it contains are
+ * rejected, including tokens already held in the verified token cache.
+ * 
+ * {@link #validateTokenAsync(String)} never blocks its caller, so it can be used
+ * from a Vert.x event loop; {@link #validateToken(String)} may block on a JWKS fetch.
  */
 public class JwtValidator {
     
+    private static final Logger LOGGER = Logger.getLogger(JwtValidator.class.getName());
+    
     private final String jwksUri;
+    private final JwksKeyCache keyCache;
+    private final String issuer;
+    private final Set<String> audiences;
+    private final long clockSkewSeconds;
+    private final Clock clock;
+    private final VerifiedTokenCache tokenCache;
+    private final Executor verificationExecutor;
+    private final RevocationList revocations;
     
     /**
-     * Creates a new JWT validator with the specified JWKS URI.
+     * Creates a new JWT validator with the specified JWKS URI and default settings.
      * 
      * @param jwksUri The URI of the JWKS endpoint
      */
     public JwtValidator(String jwksUri) {
-        if (jwksUri == null || jwksUri.isBlank()) {
-            throw new IllegalArgumentException("JWKS URI cannot be null or blank");
-        }
-        this.jwksUri = jwksUri;
+        this(builder(jwksUri));
+    }
+    
+    private JwtValidator(Builder builder) {
+        this.jwksUri = builder.jwksUri;
+        this.issuer = builder.issuer;
+        this.audiences = Set.copyOf(builder.audiences);
+        this.clockSkewSeconds = builder.clockSkew.toSeconds();
+        this.clock = builder.clock;
+        this.tokenCache = builder.verifiedTokenCacheSize > 0
+                ? new VerifiedTokenCache(builder.verifiedTokenCacheSize, clockSkewSeconds) : null;
+        this.revocations = builder.revocations;
+        this.verificationExecutor = builder.verificationExecutor != null
+                ? builder.verificationExecutor : virtualThreadExecutor("jwt-verify-");
+        Executor executor = builder.executor != null ? builder.executor : virtualThreadExecutor("jwks-fetch-");
+        this.keyCache = new JwksKeyCache(URI.create(builder.jwksUri), executor, builder.clock,
+                builder.refreshInterval, builder.maxKeyAge, builder.minRefetchInterval, builder.fetchTimeout);
+    }
+    
+    /**
+     * Creates a new JWT validator builder.
+     * 
+     * @param jwksUri The URI of the JWKS endpoint, either http(s) or file
+     * @return A new JWT validator builder
+     * @throws IllegalArgumentException if the URI is null, blank or not an http(s) or file URI
+     */
+    public static Builder builder(String jwksUri) {
+        return new Builder(jwksUri);
     }
     
     /**
@@ -31,16 +94,158 @@ public class JwtValidator {
         if (token == null || token.isBlank()) {
             return false;
         }
+        try {
+            verify(token);
+            return true;
+        } catch (JwtValidationException e) {
+            LOGGER.log(Level.FINE, "Rejected token: {0}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Validates a JWT token and returns its claims, for example to authorize the
+     * request with an {@link Authorizer}.
+     * 
+     * @param token The JWT token to validate
+     * @return The verified claims, or empty if the token is not valid
+     */
+    public Optional<JwtClaims> verifyToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(verify(token));
+        } catch (JwtValidationException e) {
+            LOGGER.log(Level.FINE, "Rejected token: {0}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Validates a JWT token without blocking the calling thread.
+     * 
+     * A token held in the verified token cache completes the returned future before
+     * this method returns. Anything else, including signature checks and any JWKS
+     * fetch they wait on, runs on the verification executor and completes the future
+     * on that executor's thread; Vert.x callers should hop back to their context,
+     * for example with {@code Future.fromCompletionStage(stage, context)}.
+     * 
+     * @param token The JWT token to validate
+     * @return A future completed with true if the token is valid, false otherwise, or
+     *         completed exceptionally with a RejectedExecutionException if the
+     *         verification executor is saturated
+     */
+    public CompletableFuture<Boolean> validateTokenAsync(String token) {
+        if (token == null || token.isBlank()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        VerifiedTokenCache.TokenDigest digest = null;
+        if (tokenCache != null) {
+            digest = VerifiedTokenCache.digest(token);
+            JwtClaims claims = tokenCache.get(digest, clock.instant().getEpochSecond());
+            if (claims != null) {
+                return CompletableFuture.completedFuture(!isRevoked(claims));
+            }
+        }
+        VerifiedTokenCache.TokenDigest missed = digest;
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    verifyAndCache(token, missed);
+                    return true;
+                } catch (JwtValidationException e) {
+                    LOGGER.log(Level.FINE, "Rejected token: {0}", e.getMessage());
+                    return false;
+                }
+            }, verificationExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Validates a batch of JWT tokens.
+     * 
+     * Each distinct token is validated once however often it repeats, tokens are
+     * grouped by key ID so each key is looked up once per batch, and signatures are
+     * verified in parallel on the common fork-join pool. Like
+     * {@link #validateToken(String)}, this may block on a JWKS fetch.
+     * 
+     * @param tokens The JWT tokens to validate
+     * @return One result per token, in iteration order: true if the token is valid, false otherwise
+     */
+    public List<Boolean> validateTokens(Collection<String> tokens) {
+        int[] slotOf = new int[tokens.size()];
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int index = 0;
+        for (String token : tokens) {
+            if (token == null || token.isBlank()) {
+                slotOf[index++] = -1;
+                continue;
+            }
+            Integer slot = slots.putIfAbsent(token, distinct.size());
+            if (slot == null) {
+                slot = distinct.size();
+                distinct.add(token);
+            }
+            slotOf[index++] = slot;
+        }
         
-        // In a real implementation, this would:
-        // 1. Fetch the JWKS from the jwksUri
-        // 2. Extract the key ID (kid) from the token header
-        // 3. Find the corresponding public key in the JWKS
-        // 4. Verify the token signature using the public key
-        // 5. Validate the token claims (exp, iat, iss, etc.)
+        int count = distinct.size();
+        boolean[] valid = new boolean[count];
+        ParsedJwt[] parsed = new ParsedJwt[count];
+        VerifiedTokenCache.TokenDigest[] digests = new VerifiedTokenCache.TokenDigest[count];
+        Map<String, List<Integer>> byKid = new HashMap<>();
+        long now = clock.instant().getEpochSecond();
+        for (int slot = 0; slot < count; slot++) {
+            String token = distinct.get(slot);
+            if (tokenCache != null) {
+                digests[slot] = VerifiedTokenCache.digest(token);
+                JwtClaims claims = tokenCache.get(digests[slot], now);
+                if (claims != null) {
+                    valid[slot] = !isRevoked(claims);
+                    continue;
+                }
+            }
+            try {
+                parsed[slot] = parseAndCheck(token);
+                byKid.computeIfAbsent(parsed[slot].getKid(), kid -> new ArrayList<>()).add(slot);
+            } catch (JwtValidationException e) {
+                LOGGER.log(Level.FINE, "Rejected token: {0}", e.getMessage());
+            }
+        }
+        
+        JsonWebKey[] keys = new JsonWebKey[count];
+        for (Map.Entry<String, List<Integer>> group : byKid.entrySet()) {
+            try {
+                JsonWebKey key = findKey(group.getKey());
+                for (int slot : group.getValue()) {
+                    keys[slot] = key;
+                }
+            } catch (JwtValidationException e) {
+                LOGGER.log(Level.FINE, "Rejected {0} tokens: {1}", new Object[] {group.getValue().size(), e.getMessage()});
+            }
+        }
+        
+        IntStream.range(0, count).parallel().filter(slot -> keys[slot] != null).forEach(slot -> {
+            try {
+                verifySignature(parsed[slot], keys[slot]);
+                valid[slot] = true;
+                if (digests[slot] != null) {
+                    tokenCache.put(digests[slot], parsed[slot].getClaims(), now);
+                }
+            } catch (JwtValidationException e) {
+                LOGGER.log(Level.FINE, "Rejected token: {0}", e.getMessage());
+            }
+        });
         
-        // This is a placeholder implementation
-        return token.contains(".");
+        List<Boolean> results = new ArrayList<>(slotOf.length);
+        for (int slot : slotOf) {
+            results.add(slot >= 0 && valid[slot]);
+        }
+        return results;
     }
     
     /**
@@ -51,4 +256,314 @@ public class JwtValidator {
     public String getJwksUri() {
         return jwksUri;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Gets the verified token cache, if one was configured.
+     * 
+     * @return The verified token cache, or empty if caching is disabled
+     */
+    public Optional<VerifiedTokenCache> getVerifiedTokenCache() {
+        return Optional.ofNullable(tokenCache);
+    }
+    
+    /**
+     * Validates a token, answering from the verified token cache when possible.
+     * 
+     * @param token The JWT token
+     * @return The verified claims
+     * @throws JwtValidationException if the token is not valid
+     */
+    JwtClaims verify(String token) throws JwtValidationException {
+        if (tokenCache == null) {
+            return verifyUncached(token);
+        }
+        VerifiedTokenCache.TokenDigest digest = VerifiedTokenCache.digest(token);
+        JwtClaims claims = tokenCache.get(digest, clock.instant().getEpochSecond());
+        if (claims == null) {
+            return verifyAndCache(token, digest);
+        }
+        if (isRevoked(claims)) {
+            throw new JwtValidationException("Token revoked");
+        }
+        return claims;
+    }
+    
+    /**
+     * Validates a token that missed the verified token cache and caches the result.
+     * 
+     * @param token The JWT token
+     * @param digest The token digest, or null if caching is disabled
+     * @return The verified claims
+     * @throws JwtValidationException if the token is not valid
+     */
+    private JwtClaims verifyAndCache(String token, VerifiedTokenCache.TokenDigest digest) throws JwtValidationException {
+        JwtClaims claims = verifyUncached(token);
+        if (digest != null) {
+            tokenCache.put(digest, claims, clock.instant().getEpochSecond());
+        }
+        return claims;
+    }
+    
+    /**
+     * Parses a compact JWS, verifies its signature and checks its claims.
+     * 
+     * @param token The JWT token
+     * @return The verified claims
+     * @throws JwtValidationException if the token is not valid
+     */
+    JwtClaims verifyUncached(String token) throws JwtValidationException {
+        ParsedJwt jwt = parseAndCheck(token);
+        verifySignature(jwt, findKey(jwt.getKid()));
+        return jwt.getClaims();
+    }
+    
+    private ParsedJwt parseAndCheck(String token) throws JwtValidationException {
+        ParsedJwt jwt = JwtParser.parse(token);
+        if (jwt.getAlgorithm() == null) {
+            throw new JwtValidationException("Unsupported algorithm");
+        }
+        checkClaims(jwt.getClaims());
+        return jwt;
+    }
+    
+    private JsonWebKey findKey(String kid) throws JwtValidationException {
+        JsonWebKey key;
+        try {
+            key = keyCache.findKey(kid);
+        } catch (IOException e) {
+            throw new JwtValidationException("JWKS unavailable", e);
+        }
+        if (key == null) {
+            throw new JwtValidationException("No JWKS key for kid " + kid);
+        }
+        return key;
+    }
+    
+    private static void verifySignature(ParsedJwt jwt, JsonWebKey key) throws JwtValidationException {
+        try {
+            if (!jwt.verifySignature(key)) {
+                throw new JwtValidationException("Signature mismatch");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new JwtValidationException("Signature could not be verified", e);
+        }
+    }
+    
+    private void checkClaims(JwtClaims claims) throws JwtValidationException {
+        long now = clock.instant().getEpochSecond();
+        if (!claims.hasExpiresAt()) {
+            throw new JwtValidationException("Token has no exp claim");
+        }
+        if (now - clockSkewSeconds >= claims.getExpiresAt()) {
+            throw new JwtValidationException("Token expired");
+        }
+        if (claims.hasNotBefore() && now + clockSkewSeconds < claims.getNotBefore()) {
+            throw new JwtValidationException("Token not yet valid");
+        }
+        if (issuer != null && !issuer.equals(claims.getIssuer())) {
+            throw new JwtValidationException("Unexpected issuer " + claims.getIssuer());
+        }
+        if (!audiences.isEmpty() && !hasAcceptedAudience(claims.getAudience())) {
+            throw new JwtValidationException("Unexpected audience " + claims.getAudience());
+        }
+        if (isRevoked(claims)) {
+            throw new JwtValidationException("Token revoked");
+        }
+    }
+    
+    private boolean isRevoked(JwtClaims claims) {
+        return revocations != null && revocations.isRevoked(claims.getJwtId());
+    }
+    
+    private boolean hasAcceptedAudience(List<String> tokenAudience) {
+        for (int i = 0; i < tokenAudience.size(); i++) {
+            if (audiences.contains(tokenAudience.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    static Executor virtualThreadExecutor(String namePrefix) {
+        ThreadFactory factory = Thread.ofVirtual().name(namePrefix, 0).factory();
+        return task -> factory.newThread(task).start();
+    }
+    
+    /**
+     * Builder for JwtValidator.
+     */
+    public static class Builder {
+        private final String jwksUri;
+        private String issuer;
+        private final List<String> audiences = new ArrayList<>();
+        private Duration clockSkew = Duration.ofSeconds(60);
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        private Duration maxKeyAge = Duration.ofHours(24);
+        private Duration minRefetchInterval = Duration.ofSeconds(30);
+        private Duration fetchTimeout = Duration.ofSeconds(5);
+        private Clock clock = Clock.systemUTC();
+        private Executor executor;
+        private Executor verificationExecutor;
+        private RevocationList revocations;
+        private int verifiedTokenCacheSize;
+        
+        private Builder(String jwksUri) {
+            if (jwksUri == null || jwksUri.isBlank()) {
+                throw new IllegalArgumentException("JWKS URI cannot be null or blank");
+            }
+            String scheme = URI.create(jwksUri).getScheme();
+            if (scheme == null || !Set.of("http", "https", "file").contains(scheme.toLowerCase())) {
+                throw new IllegalArgumentException("JWKS URI must be an http, https or file URI");
+            }
+            this.jwksUri = jwksUri;
+        }
+        
+        /**
+         * Sets the required token issuer.
+         * 
+         * @param issuer The expected {@code iss} claim, or null to accept any issuer
+         * @return This builder
+         */
+        public Builder issuer(String issuer) {
+            this.issuer = issuer;
+            return this;
+        }
+        
+        /**
+         * Adds an accepted audience. A token must name at least one accepted audience
+         * when any are configured.
+         * 
+         * @param audience An accepted {@code aud} value
+         * @return This builder
+         */
+        public Builder audience(String audience) {
+            this.audiences.add(audience);
+            return this;
+        }
+        
+        /**
+         * Sets the tolerance applied to the {@code exp} and {@code nbf} checks.
+         * 
+         * @param clockSkew The clock skew tolerance
+         * @return This builder
+         */
+        public Builder clockSkew(Duration clockSkew) {
+            this.clockSkew = clockSkew;
+            return this;
+        }
+        
+        /**
+         * Sets the age after which cached keys are refreshed in the background.
+         * 
+         * @param refreshInterval The refresh-ahead interval
+         * @return This builder
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+        
+        /**
+         * Sets the age after which cached keys are no longer trusted without a successful refetch.
+         * 
+         * @param maxKeyAge The maximum key set age
+         * @return This builder
+         */
+        public Builder maxKeyAge(Duration maxKeyAge) {
+            this.maxKeyAge = maxKeyAge;
+            return this;
+        }
+        
+        /**
+         * Sets the minimum time between JWKS fetches triggered by unknown key IDs or stale
+         * keys, counted from the last attempt, including failed ones.
+         * 
+         * @param minRefetchInterval The minimum refetch interval
+         * @return This builder
+         */
+        public Builder minRefetchInterval(Duration minRefetchInterval) {
+            this.minRefetchInterval = minRefetchInterval;
+            return this;
+        }
+        
+        /**
+         * Sets how long a validation waits for a JWKS fetch.
+         * 
+         * @param fetchTimeout The fetch timeout
+         * @return This builder
+         */
+        public Builder fetchTimeout(Duration fetchTimeout) {
+            this.fetchTimeout = fetchTimeout;
+            return this;
+        }
+        
+        /**
+         * Sets the clock used for claim checks and key ages.
+         * 
+         * @param clock The clock
+         * @return This builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+        
+        /**
+         * Sets the executor that performs JWKS fetches. Defaults to virtual threads.
+         * 
+         * @param executor The fetch executor
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Sets the executor that runs {@link JwtValidator#validateTokenAsync(String)} verifications.
+         * Defaults to virtual threads, whose CPU use is bounded by the carrier pool; pass a
+         * bounded pool to cap queued work as well, since saturation fails the returned future.
+         * 
+         * @param verificationExecutor The verification executor
+         * @return This builder
+         */
+        public Builder verificationExecutor(Executor verificationExecutor) {
+            this.verificationExecutor = verificationExecutor;
+            return this;
+        }
+        
+        /**
+         * Sets the list of revoked token IDs checked against each token's {@code jti} claim.
+         * 
+         * @param revocations The revocation list, or null to skip revocation checks
+         * @return This builder
+         */
+        public Builder revocationList(RevocationList revocations) {
+            this.revocations = revocations;
+            return this;
+        }
+        
+        /**
+         * Enables the verified token cache, so repeat tokens skip parsing and signature checks.
+         * 
+         * @param maxEntries The maximum number of verified tokens to hold, or 0 to disable the cache
+         * @return This builder
+         */
+        public Builder verifiedTokenCache(int maxEntries) {
+            if (maxEntries < 0) {
+                throw new IllegalArgumentException("Verified token cache size cannot be negative");
+            }
+            this.verifiedTokenCacheSize = maxEntries;
+            return this;
+        }
+        
+        /**
+         * Builds the JwtValidator.
+         * 
+         * @return The built JwtValidator
+         */
+        public JwtValidator build() {
+            return new JwtValidator(this);
+        }
+    }
+}
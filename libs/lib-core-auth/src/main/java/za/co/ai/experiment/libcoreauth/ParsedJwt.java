@@ -0,0 +1,86 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * A parsed but not yet verified compact JWS.
+ * 
+ * The raw token is kept so that the signing input and the signature are only
+ * converted to bytes when the signature is actually verified.
+ */
+final class ParsedJwt {
+    
+    private static final ThreadLocal<byte[][]> BUFFERS = ThreadLocal.withInitial(() -> new byte[][] {new byte[1024], new byte[256]});
+    
+    private final String token;
+    private final int signingInputLength;
+    private final JwtAlgorithm algorithm;
+    private final String kid;
+    private final JwtClaims claims;
+    
+    ParsedJwt(String token, int signingInputLength, JwtAlgorithm algorithm, String kid, JwtClaims claims) {
+        this.token = token;
+        this.signingInputLength = signingInputLength;
+        this.algorithm = algorithm;
+        this.kid = kid;
+        this.claims = claims;
+    }
+    
+    /**
+     * Verifies the token signature with a JWKS key.
+     * 
+     * @param key The key named by the token header
+     * @return true if the key may be used with the token's algorithm and the signature matches
+     * @throws GeneralSecurityException if the key cannot be used for verification
+     */
+    boolean verifySignature(JsonWebKey key) throws GeneralSecurityException {
+        if (algorithm == null || !key.supports(algorithm)) {
+            return false;
+        }
+        byte[][] buffers = BUFFERS.get();
+        if (buffers[0].length < signingInputLength) {
+            buffers[0] = new byte[signingInputLength];
+        }
+        int encodedLength = token.length() - signingInputLength - 1;
+        if (buffers[1].length < JwtParser.decodedLength(encodedLength)) {
+            buffers[1] = new byte[JwtParser.decodedLength(encodedLength)];
+        }
+        byte[] signingInput = buffers[0];
+        for (int i = 0; i < signingInputLength; i++) {
+            signingInput[i] = (byte) token.charAt(i);
+        }
+        byte[] signature = buffers[1];
+        int signatureLength = JwtParser.decodeBase64Url(token, signingInputLength + 1, token.length(), signature);
+        if (signatureLength <= 0) {
+            return false;
+        }
+        return algorithm.verify(key.getKey(), signingInput, signingInputLength, signature, signatureLength);
+    }
+    
+    /**
+     * Gets the signature algorithm named in the header.
+     * 
+     * @return The algorithm, or null if the header names an unsupported one
+     */
+    JwtAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+    
+    /**
+     * Gets the key ID named in the header.
+     * 
+     * @return The key ID, or null if absent
+     */
+    String getKid() {
+        return kid;
+    }
+    
+    /**
+     * Gets the token claims.
+     * 
+     * @return The claims
+     */
+    JwtClaims getClaims() {
+        return claims;
+    }
+}
@@ -0,0 +1,34 @@
+package za.co.ai.experiment.libcoreauth;
+
+/**
+ * A permission compiled by an {@link Authorizer}, identified by its dense index.
+ * 
+ * Look permissions up once with {@link Authorizer#permission(String)} and keep the
+ * handle, so that checking it against {@link AuthorizationDecisions} needs no name lookup.
+ */
+public final class Permission {
+    
+    final Authorizer authorizer;
+    final int id;
+    private final String name;
+    
+    Permission(Authorizer authorizer, int id, String name) {
+        this.authorizer = authorizer;
+        this.id = id;
+        this.name = name;
+    }
+    
+    /**
+     * Gets the permission name.
+     * 
+     * @return The permission name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,535 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Set of revoked token IDs ({@code jti} claims) tuned for the common case of a live token.
+ * 
+ * A bloom filter sized for the expected number of revocations answers almost every
+ * lookup for a token that is not revoked from one 64-bit hash and a few bit probes,
+ * without locks or allocation. Only filter hits consult the exact set, so false
+ * positives never reject a token. The exact set holds the same 64-bit hash of each
+ * revoked ID in an open-addressing table of longs rather than the IDs themselves; a
+ * live token is wrongly rejected only if its hash collides with a revoked one, about
+ * one lookup in 2<sup>64</sup> per revocation.
+ * 
+ * Memory per revoked ID is about 1.2 bytes of filter bits at the default 1%
+ * false-positive rate plus 11 to 21 bytes of exact table, depending on how full the
+ * table is since it last doubled: roughly 12 to 22 MB per million revocations. IDs
+ * revoked with {@link #revoke(String)} take a second table slot each, since they are
+ * kept apart from the file's contents. {@link #getFilterSizeBytes()} and
+ * {@link #getExactSizeBytes()} report the actual sizes.
+ * 
+ * Revocations are added with {@link #revoke(String)} or read from a local file with
+ * one {@code jti} per line, blank lines and lines starting with {@code #} ignored.
+ * The file is treated as append-only: {@link #refresh()} reads only the complete lines
+ * added since the previous read, and a file that has shrunk is reloaded from the start.
+ * IDs revoked with {@link #revoke(String)} stay revoked across reloads. Once the
+ * refresh interval has passed, a lookup triggers a refresh in the background.
+ * 
+ * The filter starts at the expected number of entries and doubles as often as needed
+ * to hold them all at the target false-positive rate. Before reading the file it is
+ * sized from the number of bytes to read, so loading a large file builds it once.
+ */
+public final class RevocationList {
+    
+    private static final Logger LOGGER = Logger.getLogger(RevocationList.class.getName());
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAX_CAPACITY = 1 << 30;
+    // A UUID jti and its newline; reads grow the filter afterwards if lines are shorter
+    private static final int ESTIMATED_LINE_BYTES = 32;
+    
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final Path file;
+    private final long refreshIntervalMillis;
+    private final Clock clock;
+    private final Executor executor;
+    
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final DigestSet revoked = new DigestSet();
+    
+    private volatile Filter filter;
+    private volatile long lastRefreshMillis;
+    private long fileOffset;
+    
+    private RevocationList(Builder builder) {
+        this.expectedEntries = builder.expectedEntries;
+        this.falsePositiveRate = builder.falsePositiveRate;
+        this.file = builder.file;
+        this.refreshIntervalMillis = builder.refreshInterval.toMillis();
+        this.clock = builder.clock;
+        this.executor = builder.executor != null ? builder.executor : JwtValidator.virtualThreadExecutor("jti-revocation-");
+        this.filter = new Filter(expectedEntries, falsePositiveRate, new DigestSet());
+    }
+    
+    /**
+     * Creates a new revocation list builder.
+     * 
+     * @return A new revocation list builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Checks if a token ID has been revoked.
+     * 
+     * @param jwtId The {@code jti} claim, or null
+     * @return true if the token ID is revoked, false if it is not or is null
+     */
+    public boolean isRevoked(String jwtId) {
+        if (jwtId == null) {
+            return false;
+        }
+        lookups.increment();
+        refreshIfStale();
+        long digest = hash(jwtId);
+        Filter current = filter;
+        if (!current.mightContain(digest)) {
+            return false;
+        }
+        filterHits.increment();
+        if (current.exact.contains(digest)) {
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+    
+    /**
+     * Revokes a token ID. It stays revoked when the revocation file is reloaded.
+     * 
+     * @param jwtId The {@code jti} claim to revoke
+     * @throws IllegalArgumentException if the token ID is null or blank
+     */
+    public synchronized void revoke(String jwtId) {
+        if (jwtId == null || jwtId.isBlank()) {
+            throw new IllegalArgumentException("Token ID cannot be null or blank");
+        }
+        long digest = hash(jwtId);
+        revoked.add(digest);
+        filter.add(digest);
+        growIfFull();
+    }
+    
+    /**
+     * Reads the revocations appended to the revocation file since the last read.
+     * 
+     * @return The number of token IDs newly revoked
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if the list is not backed by a file
+     */
+    public synchronized int refresh() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("Revocation list is not backed by a file");
+        }
+        lastRefreshMillis = clock.millis();
+        long fileSize = Files.size(file);
+        if (fileSize < fileOffset) {
+            Filter reloaded = new Filter(capacityFor(revoked.size + fileSize / ESTIMATED_LINE_BYTES),
+                    falsePositiveRate, new DigestSet());
+            // Revocations made at runtime are not in the file, so carry them over
+            revoked.forEach(reloaded::add);
+            fileOffset = 0;
+            int added = readFile(reloaded);
+            filter = reloaded;
+            growIfFull();
+            LOGGER.log(Level.INFO, "Reloaded {0} revocations from {1}", new Object[] {added, file});
+            return added;
+        }
+        growFor(filter.size() + (fileSize - fileOffset) / ESTIMATED_LINE_BYTES);
+        int added = readFile(filter);
+        growIfFull();
+        return added;
+    }
+    
+    /**
+     * Gets the number of revoked token IDs.
+     * 
+     * @return The number of revoked token IDs
+     */
+    public int size() {
+        return filter.size();
+    }
+    
+    /**
+     * Gets the memory held by the bloom filter bits.
+     * 
+     * @return The filter size in bytes
+     */
+    public long getFilterSizeBytes() {
+        return filter.words.length * (long) Long.BYTES;
+    }
+    
+    /**
+     * Gets the memory held by the exact tables of revoked ID hashes, including the
+     * table of IDs revoked at runtime.
+     * 
+     * @return The exact table size in bytes
+     */
+    public long getExactSizeBytes() {
+        return (filter.exact.slots.length + (long) revoked.slots.length) * Long.BYTES;
+    }
+    
+    /**
+     * Gets the false-positive rate the bloom filter is expected to have at its current fill.
+     * 
+     * @return The expected probability that a token ID that is not revoked hits the filter
+     */
+    public double getExpectedFalsePositiveRate() {
+        Filter current = filter;
+        double fill = 1 - Math.exp(-(double) current.hashCount * current.size() / current.bits);
+        return Math.pow(fill, current.hashCount);
+    }
+    
+    /**
+     * Gets the false-positive rate observed by lookups so far.
+     * 
+     * @return The fraction of lookups for token IDs that are not revoked which hit the
+     *         filter and had to consult the exact set, or 0 if there were none
+     */
+    public double getObservedFalsePositiveRate() {
+        long falseHits = falsePositives.sum();
+        long negatives = lookups.sum() - (filterHits.sum() - falseHits);
+        return negatives <= 0 ? 0 : (double) falseHits / negatives;
+    }
+    
+    private void refreshIfStale() {
+        if (file == null || clock.millis() - lastRefreshMillis < refreshIntervalMillis) {
+            return;
+        }
+        if (refreshing.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    refresh();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Revocation file refresh failed for " + file, e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+    
+    private void growIfFull() {
+        growFor(filter.size());
+    }
+    
+    /**
+     * Replaces the filter with one sized for a number of entries if it holds fewer,
+     * keeping its exact set.
+     */
+    private void growFor(long entries) {
+        Filter current = filter;
+        if (entries > current.capacity && current.capacity < MAX_CAPACITY) {
+            Filter grown = new Filter(capacityFor(entries), falsePositiveRate, current.exact);
+            current.exact.forEach(grown::set);
+            filter = grown;
+        }
+    }
+    
+    /**
+     * Gets the filter capacity for a number of entries: the expected number of entries,
+     * doubled until it holds them.
+     */
+    private int capacityFor(long entries) {
+        long capacity = expectedEntries;
+        while (capacity < entries && capacity < MAX_CAPACITY) {
+            capacity *= 2;
+        }
+        return (int) Math.min(capacity, MAX_CAPACITY);
+    }
+    
+    private int readFile(Filter target) throws IOException {
+        int added = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(fileOffset);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            byte[] line = new byte[128];
+            int length = 0;
+            long consumed = fileOffset;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) b;
+                    continue;
+                }
+                consumed += length + 1;
+                String jwtId = new String(line, 0, length, StandardCharsets.UTF_8).strip();
+                length = 0;
+                if (!jwtId.isEmpty() && jwtId.charAt(0) != '#' && target.add(hash(jwtId))) {
+                    added++;
+                }
+            }
+            fileOffset = consumed;
+        }
+        return added;
+    }
+    
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        // Never 0, which marks an empty exact set slot
+        h = mix(h);
+        return h == 0 ? 1 : h;
+    }
+    
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+    
+    /**
+     * A bloom filter and the exact set it summarises, replaced together on reload.
+     * Both are keyed by the 64-bit hash of the token ID.
+     */
+    private static final class Filter {
+        private final int capacity;
+        private final long bits;
+        private final int hashCount;
+        private final long[] words;
+        private final DigestSet exact;
+        
+        Filter(int capacity, double falsePositiveRate, DigestSet exact) {
+            double ln2 = Math.log(2);
+            long wanted = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.capacity = capacity;
+            this.words = new long[(int) Math.max(1, (wanted + 63) / 64)];
+            this.bits = words.length * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+            this.exact = exact;
+        }
+        
+        boolean mightContain(long h1) {
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bits);
+                if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        boolean add(long digest) {
+            if (!exact.add(digest)) {
+                return false;
+            }
+            set(digest);
+            return true;
+        }
+        
+        void set(long h1) {
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bits);
+                WORDS.getAndBitwiseOrRelease(words, (int) (bit >>> 6), 1L << bit);
+            }
+        }
+        
+        int size() {
+            return exact.size;
+        }
+    }
+    
+    /**
+     * An open-addressing set of 64-bit hashes with linear probing, where 0 marks an empty
+     * slot. Adds are serialized by the list's lock and publish each slot with a release
+     * write; lookups read without locking. The table doubles at three quarters full,
+     * and lookups still holding the old table see every hash added before the switch.
+     */
+    private static final class DigestSet {
+        private volatile long[] slots = new long[64];
+        private volatile int size;
+        
+        boolean contains(long key) {
+            long[] table = slots;
+            int mask = table.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                long slot = (long) WORDS.getAcquire(table, i);
+                if (slot == key) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+            }
+        }
+        
+        boolean add(long key) {
+            if (!insert(slots, key)) {
+                return false;
+            }
+            size++;
+            if (size > slots.length / 4 * 3) {
+                long[] grown = new long[slots.length * 2];
+                for (long slot : slots) {
+                    if (slot != 0) {
+                        insert(grown, slot);
+                    }
+                }
+                slots = grown;
+            }
+            return true;
+        }
+        
+        void forEach(LongConsumer action) {
+            for (long slot : slots) {
+                if (slot != 0) {
+                    action.accept(slot);
+                }
+            }
+        }
+        
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            int i = (int) key & mask;
+            while (table[i] != 0) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            WORDS.setRelease(table, i, key);
+            return true;
+        }
+    }
+    
+    /**
+     * Builder for RevocationList.
+     */
+    public static class Builder {
+        private int expectedEntries = 10_000;
+        private double falsePositiveRate = 0.01;
+        private Path file;
+        private Duration refreshInterval = Duration.ofSeconds(30);
+        private Clock clock = Clock.systemUTC();
+        private Executor executor;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Sets the number of revocations the bloom filter is sized for. The filter
+         * doubles as often as needed when it holds more.
+         * 
+         * @param expectedEntries The expected number of revoked token IDs
+         * @return This builder
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder expectedEntries(int expectedEntries) {
+            if (expectedEntries <= 0) {
+                throw new IllegalArgumentException("Expected entries must be positive");
+            }
+            this.expectedEntries = expectedEntries;
+            return this;
+        }
+        
+        /**
+         * Sets the target false-positive rate of the bloom filter.
+         * 
+         * @param falsePositiveRate The target rate, between 0 and 1 exclusive
+         * @return This builder
+         * @throws IllegalArgumentException if the rate is not between 0 and 1 exclusive
+         */
+        public Builder falsePositiveRate(double falsePositiveRate) {
+            if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+                throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+            }
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+        
+        /**
+         * Sets the append-only revocation file, one {@code jti} per line.
+         * 
+         * @param file The revocation file
+         * @return This builder
+         */
+        public Builder file(Path file) {
+            this.file = file;
+            return this;
+        }
+        
+        /**
+         * Sets how often lookups trigger a background read of the revocation file.
+         * 
+         * @param refreshInterval The refresh interval
+         * @return This builder
+         */
+        public Builder refreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+        
+        /**
+         * Sets the clock used to schedule refreshes.
+         * 
+         * @param clock The clock
+         * @return This builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+        
+        /**
+         * Sets the executor that performs background refreshes. Defaults to virtual threads.
+         * 
+         * @param executor The refresh executor
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Builds the RevocationList, reading the revocation file if one was set.
+         * 
+         * @return The built RevocationList
+         * @throws UncheckedIOException if the revocation file cannot be read
+         */
+        public RevocationList build() {
+            RevocationList list = new RevocationList(this);
+            if (file != null) {
+                try {
+                    list.refresh();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Revocation file could not be read: " + file, e);
+                }
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package za.co.ai.experiment.libcoreauth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * OAuth 2.0 token introspection client (RFC 7662) for opaque access tokens.
+ * 
+ * Active responses are cached until the token's {@code exp} and inactive responses
+ * for a short negative TTL, both keyed by a digest of the token. Concurrent lookups
+ * of the same uncached token share one introspection call, and all calls go through
+ * a single {@link HttpClient}, which keeps its connections pooled between calls.
+ * Active responses are returned as {@link JwtClaims}, so opaque and JWT access tokens
+ * can be authorized by the same {@link Authorizer}.
+ */
+public class TokenIntrospector {
+    
+    private static final Logger LOGGER = Logger.getLogger(TokenIntrospector.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final URI introspectionUri;
+    private final String authorization;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final long negativeTtlMillis;
+    private final int maxNegativeEntries;
+    private final Clock clock;
+    private final VerifiedTokenCache activeCache;
+    private final Map<VerifiedTokenCache.TokenDigest, Long> inactiveUntil = new ConcurrentHashMap<>();
+    private final Map<VerifiedTokenCache.TokenDigest, CompletableFuture<Optional<JwtClaims>>> inFlight =
+            new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    
+    private TokenIntrospector(Builder builder) {
+        this.introspectionUri = URI.create(builder.introspectionUri);
+        this.authorization = builder.clientId == null ? null : "Basic " + Base64.getEncoder().encodeToString(
+                (formEncode(builder.clientId) + ":" + formEncode(builder.clientSecret)).getBytes(StandardCharsets.UTF_8));
+        this.requestTimeout = builder.requestTimeout;
+        this.negativeTtlMillis = builder.negativeTtl.toMillis();
+        this.maxNegativeEntries = builder.maxEntries;
+        this.clock = builder.clock;
+        this.activeCache = new VerifiedTokenCache(builder.maxEntries, 0);
+        Executor executor = builder.executor != null
+                ? builder.executor : JwtValidator.virtualThreadExecutor("token-introspection-");
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(builder.requestTimeout)
+                .executor(executor)
+                .build();
+    }
+    
+    /**
+     * Creates a new token introspector builder.
+     * 
+     * @param introspectionUri The URI of the introspection endpoint
+     * @return A new token introspector builder
+     * @throws IllegalArgumentException if the URI is null, blank or not an http(s) URI
+     */
+    public static Builder builder(String introspectionUri) {
+        return new Builder(introspectionUri);
+    }
+    
+    /**
+     * Introspects a token without blocking the calling thread. Cached responses
+     * complete the returned future before this method returns.
+     * 
+     * @param token The opaque access token
+     * @return A future completed with the token's claims if it is active, empty if it is
+     *         not, or completed exceptionally if the introspection endpoint failed
+     */
+    public CompletableFuture<Optional<JwtClaims>> introspectAsync(String token) {
+        if (token == null || token.isBlank()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        VerifiedTokenCache.TokenDigest digest = VerifiedTokenCache.digest(token);
+        long nowMillis = clock.millis();
+        JwtClaims claims = activeCache.get(digest, nowMillis / 1000);
+        if (claims != null) {
+            return CompletableFuture.completedFuture(Optional.of(claims));
+        }
+        Long until = inactiveUntil.get(digest);
+        if (until != null) {
+            if (nowMillis < until) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            inactiveUntil.remove(digest, until);
+        }
+        
+        CompletableFuture<Optional<JwtClaims>> started = new CompletableFuture<>();
+        CompletableFuture<Optional<JwtClaims>> existing = inFlight.putIfAbsent(digest, started);
+        if (existing != null) {
+            return existing;
+        }
+        call(token).whenComplete((result, error) -> {
+            if (error == null) {
+                cache(digest, result);
+            }
+            inFlight.remove(digest, started);
+            if (error != null) {
+                started.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                started.complete(result);
+            }
+        });
+        return started;
+    }
+    
+    /**
+     * Introspects a token and returns its claims if it is active.
+     * 
+     * @param token The opaque access token
+     * @return The token's claims, or empty if the token is not active or could not be introspected
+     */
+    public Optional<JwtClaims> verifyToken(String token) {
+        try {
+            return introspectAsync(token).join();
+        } catch (CompletionException e) {
+            LOGGER.log(Level.WARNING, "Token introspection failed", e.getCause());
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * Checks if a token is active.
+     * 
+     * @param token The opaque access token
+     * @return true if the introspection endpoint reports the token active, false otherwise
+     */
+    public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+    
+    /**
+     * Gets the cache of active responses.
+     * 
+     * @return The active response cache
+     */
+    public VerifiedTokenCache getActiveCache() {
+        return activeCache;
+    }
+    
+    /**
+     * Gets the number of calls made to the introspection endpoint.
+     * 
+     * @return The number of introspection calls
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+    
+    private CompletableFuture<Optional<JwtClaims>> call(String token) {
+        calls.increment();
+        HttpRequest.Builder request = HttpRequest.newBuilder(introspectionUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "token=" + formEncode(token) + "&token_type_hint=access_token"));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new CompletionException(new IOException(
+                        "Introspection endpoint returned HTTP " + response.statusCode()));
+            }
+            try {
+                return parse(MAPPER.readTree(response.body()));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+    
+    private void cache(VerifiedTokenCache.TokenDigest digest, Optional<JwtClaims> result) {
+        long nowMillis = clock.millis();
+        if (result.isPresent()) {
+            if (result.get().hasExpiresAt()) {
+                activeCache.put(digest, result.get(), nowMillis / 1000);
+            }
+            return;
+        }
+        if (inactiveUntil.size() >= maxNegativeEntries) {
+            Iterator<Long> iterator = inactiveUntil.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() <= nowMillis) {
+                    iterator.remove();
+                }
+            }
+            if (inactiveUntil.size() >= maxNegativeEntries) {
+                inactiveUntil.clear();
+            }
+        }
+        inactiveUntil.put(digest, nowMillis + negativeTtlMillis);
+    }
+    
+    private Optional<JwtClaims> parse(JsonNode response) {
+        if (!response.path("active").asBoolean(false)) {
+            return Optional.empty();
+        }
+        long expiresAt = response.path("exp").canConvertToLong() ? response.path("exp").asLong() : Long.MIN_VALUE;
+        if (expiresAt != Long.MIN_VALUE && clock.millis() / 1000 >= expiresAt) {
+            return Optional.empty();
+        }
+        long notBefore = response.path("nbf").canConvertToLong() ? response.path("nbf").asLong() : Long.MIN_VALUE;
+        List<String> roles = new ArrayList<>(strings(response.path("roles")));
+        roles.addAll(strings(response.path("realm_access").path("roles")));
+        String scope = response.path("scope").asText("");
+        List<String> scopes = scope.isBlank() ? List.of() : List.of(scope.strip().split(" +"));
+        return Optional.of(new JwtClaims(text(response.path("iss")), strings(response.path("aud")), expiresAt,
+                notBefore, text(response.path("jti")), List.copyOf(roles), scopes));
+    }
+    
+    private static String text(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+    
+    private static List<String> strings(JsonNode node) {
+        if (node.isTextual()) {
+            return List.of(node.asText());
+        }
+        List<String> values = new ArrayList<>();
+        for (JsonNode entry : node) {
+            if (entry.isTextual()) {
+                values.add(entry.asText());
+            }
+        }
+        return List.copyOf(values);
+    }
+    
+    private static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Builder for TokenIntrospector.
+     */
+    public static class Builder {
+        private final String introspectionUri;
+        private String clientId;
+        private String clientSecret;
+        private Duration negativeTtl = Duration.ofSeconds(10);
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private int maxEntries = 10_000;
+        private Clock clock = Clock.systemUTC();
+        private Executor executor;
+        
+        private Builder(String introspectionUri) {
+            if (introspectionUri == null || introspectionUri.isBlank()) {
+                throw new IllegalArgumentException("Introspection URI cannot be null or blank");
+            }
+            String scheme = URI.create(introspectionUri).getScheme();
+            if (scheme == null || !Set.of("http", "https").contains(scheme.toLowerCase())) {
+                throw new IllegalArgumentException("Introspection URI must be an http or https URI");
+            }
+            this.introspectionUri = introspectionUri;
+        }
+        
+        /**
+         * Sets the client credentials sent with HTTP Basic authentication.
+         * 
+         * @param clientId The client ID
+         * @param clientSecret The client secret
+         * @return This builder
+         */
+        public Builder clientCredentials(String clientId, String clientSecret) {
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+            return this;
+        }
+        
+        /**
+         * Sets how long inactive responses are cached.
+         * 
+         * @param negativeTtl The negative cache TTL
+         * @return This builder
+         */
+        public Builder negativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+            return this;
+        }
+        
+        /**
+         * Sets the connect and response timeout of introspection calls.
+         * 
+         * @param requestTimeout The request timeout
+         * @return This builder
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+        
+        /**
+         * Sets the maximum number of active and of inactive responses cached.
+         * 
+         * @param maxEntries The maximum number of cached responses of each kind
+         * @return This builder
+         * @throws IllegalArgumentException if the number is not positive
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("Maximum entries must be positive");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+        
+        /**
+         * Sets the clock used for cache expiry.
+         * 
+         * @param clock The clock
+         * @return This builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+        
+        /**
+         * Sets the executor used by the HTTP client. Defaults to virtual threads.
+         * 
+         * @param executor The HTTP client executor
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Builds the TokenIntrospector.
+         * 
+         * @return The built TokenIntrospector
+         */
+        public TokenIntrospector build() {
+            return new TokenIntrospector(this);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package za.co.ai.experiment.libcoreauth;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of tokens that have already passed signature and claim checks, or
+ * that an introspection endpoint reported active.
+ * 
+ * Entries are keyed by a 128-bit SHA-256 prefix of the token, so the cache never
+ * holds raw bearer tokens, and are served until the token's {@code exp} plus the
+ * configured clock skew. When the cache is full, expired entries are dropped
+ * first and then entries that have not been read since the last sweep, which
+ * approximates LRU without taking a lock on reads.
+ */
+public final class VerifiedTokenCache {
+    
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+    
+    private final int maxEntries;
+    private final int sweepTarget;
+    private final long clockSkewSeconds;
+    private final Map<TokenDigest, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    /**
+     * Creates a new verified token cache.
+     * 
+     * @param maxEntries The maximum number of tokens to hold
+     * @param clockSkewSeconds The tolerance added to each token's expiry
+     */
+    VerifiedTokenCache(int maxEntries, long clockSkewSeconds) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Verified token cache size must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.sweepTarget = Math.max(1, maxEntries - Math.max(1, maxEntries / 10));
+        this.clockSkewSeconds = clockSkewSeconds;
+    }
+    
+    /**
+     * Computes the cache key for a token.
+     * 
+     * @param token The raw token
+     * @return The token digest
+     */
+    static TokenDigest digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenDigest((long) LONG_VIEW.get(hash, 0), (long) LONG_VIEW.get(hash, 8));
+    }
+    
+    /**
+     * Looks up a verified token.
+     * 
+     * @param digest The token digest
+     * @param nowSeconds The current time in epoch seconds
+     * @return The cached claims, or null if the token is not cached or has expired
+     */
+    JwtClaims get(TokenDigest digest, long nowSeconds) {
+        Entry entry = entries.get(digest);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (nowSeconds - clockSkewSeconds >= entry.claims.getExpiresAt()) {
+            entries.remove(digest, entry);
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.claims;
+    }
+    
+    /**
+     * Stores a verified token, evicting older entries when the cache is full.
+     * 
+     * @param digest The token digest
+     * @param claims The verified claims
+     * @param nowSeconds The current time in epoch seconds
+     */
+    void put(TokenDigest digest, JwtClaims claims, long nowSeconds) {
+        if (entries.size() >= maxEntries) {
+            evict(nowSeconds);
+        }
+        entries.put(digest, new Entry(claims));
+    }
+    
+    private void evict(long nowSeconds) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long cutoff = nowSeconds - clockSkewSeconds;
+            entries.values().removeIf(entry -> cutoff >= entry.claims.getExpiresAt() && countEviction());
+            Iterator<Entry> iterator = entries.values().iterator();
+            int budget = 2 * entries.size();
+            while (entries.size() > sweepTarget && budget-- > 0) {
+                if (!iterator.hasNext()) {
+                    iterator = entries.values().iterator();
+                }
+                Entry entry = iterator.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    private boolean countEviction() {
+        evictions.increment();
+        return true;
+    }
+    
+    /**
+     * Gets the number of lookups served from the cache.
+     * 
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * Gets the number of lookups that required full verification.
+     * 
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * Gets the number of entries removed to keep the cache within its bound.
+     * 
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    /**
+     * Gets the number of cached tokens.
+     * 
+     * @return The current size
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Gets the maximum number of cached tokens.
+     * 
+     * @return The maximum size
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    /**
+     * Removes all cached tokens.
+     */
+    public void clear() {
+        entries.clear();
+    }
+    
+    /**
+     * A 128-bit token digest used as the cache key.
+     */
+    static final class TokenDigest {
+        private final long high;
+        private final long low;
+        
+        TokenDigest(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TokenDigest digest && digest.high == high && digest.low == low;
+        }
+        
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+    }
+    
+    private static final class Entry {
+        private final JwtClaims claims;
+        private volatile boolean referenced;
+        
+        private Entry(JwtClaims claims) {
+            this.claims = claims;
+        }
+    }
+}
@@ -6,12 +6,15 @@
 module za.co.ai.experiment.libcoreauth.tests {
     // Required dependencies
     requires za.co.ai.experiment.libcoreauth;
-
+    requires jdk.httpserver;
+    
     // Test dependencies
     requires org.junit.jupiter.api;
     requires org.junit.platform.commons;
     requires org.assertj.core;
-
+    requires jmh.core;
+    requires com.fasterxml.jackson.databind;
+    
     // Export test package to JUnit platform
     exports za.co.ai.experiment.libcoreauth.tests to org.junit.platform.commons;
     opens za.co.ai.experiment.libcoreauth.tests to org.junit.platform.commons;
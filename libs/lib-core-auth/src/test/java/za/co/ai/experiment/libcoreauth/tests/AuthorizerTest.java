@@ -0,0 +1,98 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreauth.AuthorizationDecisions;
+import za.co.ai.experiment.libcoreauth.Authorizer;
+import za.co.ai.experiment.libcoreauth.JwtClaims;
+import za.co.ai.experiment.libcoreauth.JwtParser;
+import za.co.ai.experiment.libcoreauth.JwtValidator;
+import za.co.ai.experiment.libcoreauth.Permission;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.MutableClock;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.TestKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Authorizer class.
+ */
+public class AuthorizerTest {
+    
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    
+    private final Authorizer authorizer = Authorizer.builder()
+            .anyRole("calculator:use", "calculator-user", "admin")
+            .anyScope("calculator:use", "calculator")
+            .allRoles("calculator:admin", "admin", "operator")
+            .allScopes("profile:read", "openid", "profile")
+            .anyScope("profile:read", "profile")
+            .build();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    @DisplayName("Permissions should follow the any-of and all-of rules")
+    void testDecide() {
+        Permission use = authorizer.permission("calculator:use");
+        Permission admin = authorizer.permission("calculator:admin");
+        Permission profile = authorizer.permission("profile:read");
+        
+        AuthorizationDecisions user = authorizer.decide(claims("[\"calculator-user\"]", "openid email"));
+        assertTrue(user.isPermitted(use), "Any accepted role should grant the permission");
+        assertFalse(user.isPermitted(admin), "Missing required roles should deny the permission");
+        assertFalse(user.isPermitted(profile), "Missing required scopes should deny the permission");
+        
+        AuthorizationDecisions operator = authorizer.decide(claims("[\"admin\",\"operator\",\"unknown\"]", "openid profile"));
+        assertTrue(operator.isPermitted(use), "An alternative role should grant the permission");
+        assertTrue(operator.isPermitted(admin), "All required roles should grant the permission");
+        assertTrue(operator.isPermitted(profile), "All required scopes should grant the permission");
+        
+        AuthorizationDecisions scoped = authorizer.decide(claims("[]", "calculator"));
+        assertTrue(scoped.isPermitted(use), "An accepted scope should grant the permission");
+        assertFalse(authorizer.isPermitted(claims("[\"operator\"]", ""), admin), "Partial roles should be denied");
+    }
+    
+    @Test
+    @DisplayName("Decisions should be cached per token")
+    void testDecisionsCached() throws Exception {
+        TestKey rsaKey = JwtTestSupport.rsaKey("rsa-1");
+        Path jwks = Files.createTempFile(tempDir, "jwks", ".json");
+        Files.writeString(jwks, JwtTestSupport.jwks(rsaKey));
+        JwtValidator validator = JwtValidator.builder(jwks.toUri().toString())
+                .clock(new MutableClock(NOW))
+                .verifiedTokenCache(100)
+                .build();
+        String token = rsaKey.sign("{\"exp\":" + (NOW.getEpochSecond() + 300) + ",\"realm_access\":{\"roles\":[\"admin\"]}}");
+        
+        AuthorizationDecisions first = authorizer.decide(validator.verifyToken(token).orElseThrow());
+        AuthorizationDecisions second = authorizer.decide(validator.verifyToken(token).orElseThrow());
+        
+        assertSame(first, second, "A cached token should reuse its decisions");
+        assertTrue(second.isPermitted(authorizer.permission("calculator:use")), "Admin should use the calculator");
+        assertTrue(validator.verifyToken("not-a-token").isEmpty(), "Invalid tokens should have no claims");
+    }
+    
+    @Test
+    @DisplayName("Unknown permissions and foreign permission handles should be rejected")
+    void testRejectsUnknownPermissions() {
+        Authorizer other = Authorizer.builder().anyRole("calculator:use", "admin").build();
+        AuthorizationDecisions decisions = authorizer.decide(claims("[\"admin\"]", ""));
+        
+        assertThrows(IllegalArgumentException.class, () -> authorizer.permission("missing"), "Unknown permission");
+        assertThrows(IllegalArgumentException.class, () -> decisions.isPermitted(other.permission("calculator:use")),
+                "Foreign permission handle");
+        assertThrows(IllegalArgumentException.class, () -> Authorizer.builder().anyRole("x"), "Policy without roles");
+        assertThrows(IllegalArgumentException.class, () -> Authorizer.builder().anyRole(" ", "admin"), "Blank permission");
+    }
+    
+    private static JwtClaims claims(String roles, String scope) {
+        return JwtParser.decodeUnverified(JwtTestSupport.encode("{\"alg\":\"RS256\"}") + "."
+                + JwtTestSupport.encode("{\"realm_access\":{\"roles\":" + roles + "},\"scope\":\"" + scope + "\"}") + ".c2ln");
+    }
+}
@@ -0,0 +1,76 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import za.co.ai.experiment.libcoreauth.JwtClaims;
+import za.co.ai.experiment.libcoreauth.JwtParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte-level JwtParser with a String-splitting, Jackson tree baseline
+ * on a Keycloak-shaped access token.
+ * 
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main JwtParserBenchmark -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParserBenchmark {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final String token = JwtTestSupport.encode("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"Yh3kQ2b9Zp0t5d_rS1xvV7\"}")
+            + "." + JwtTestSupport.encode("{\"exp\":1767226000,\"iat\":1767225700,\"auth_time\":1767225690,"
+            + "\"jti\":\"6c3f7b8e-2a1d-4c5e-9f0a-1b2c3d4e5f60\",\"iss\":\"https://auth.gedmarc.co.za/realms/ai-experiment\","
+            + "\"aud\":[\"ai-app\",\"account\"],\"sub\":\"f1e2d3c4-b5a6-4978-8695-a4b3c2d1e0f9\",\"typ\":\"Bearer\","
+            + "\"azp\":\"ai-front\",\"sid\":\"0a1b2c3d-4e5f-4a6b-8c7d-9e0f1a2b3c4d\",\"acr\":\"1\","
+            + "\"allowed-origins\":[\"https://ai.gedmarc.co.za\"],"
+            + "\"realm_access\":{\"roles\":[\"offline_access\",\"uma_authorization\",\"calculator-user\"]},"
+            + "\"resource_access\":{\"account\":{\"roles\":[\"manage-account\",\"view-profile\"]}},"
+            + "\"scope\":\"openid email profile\",\"email_verified\":true,\"name\":\"Test User\","
+            + "\"preferred_username\":\"test.user\",\"given_name\":\"Test\",\"family_name\":\"User\","
+            + "\"email\":\"test.user@example.com\"}")
+            + "." + "A".repeat(342);
+    
+    @Benchmark
+    public JwtClaims compactParser() {
+        return JwtParser.decodeUnverified(token);
+    }
+    
+    @Benchmark
+    public void jacksonTree(Blackhole blackhole) throws IOException {
+        String[] parts = token.split("\\.", -1);
+        JsonNode header = MAPPER.readTree(new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8));
+        JsonNode payload = MAPPER.readTree(new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8));
+        blackhole.consume(header.path("alg").asText());
+        blackhole.consume(header.path("kid").asText());
+        blackhole.consume(payload.path("iss").asText());
+        blackhole.consume(payload.path("exp").asLong());
+        blackhole.consume(payload.path("nbf").asLong());
+        List<String> audience = new ArrayList<>();
+        for (JsonNode entry : payload.path("aud")) {
+            audience.add(entry.asText());
+        }
+        blackhole.consume(audience);
+    }
+}
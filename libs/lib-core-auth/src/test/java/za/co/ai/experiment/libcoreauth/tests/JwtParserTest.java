@@ -0,0 +1,100 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreauth.JwtClaims;
+import za.co.ai.experiment.libcoreauth.JwtParser;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the JwtParser class.
+ */
+public class JwtParserTest {
+    
+    private static final String HEADER = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"rsa-1\"}";
+    
+    @Test
+    @DisplayName("decodeUnverified should read the validation claims")
+    void testDecodeClaims() {
+        JwtClaims claims = decode("{\"iss\":\"https://issuer.test\",\"aud\":[\"ai-app\",\"other\"],"
+                + "\"exp\":1767226000,\"nbf\":1767225000,\"sub\":\"user-1\"}");
+        
+        assertEquals("https://issuer.test", claims.getIssuer(), "Issuer should match");
+        assertEquals(List.of("ai-app", "other"), claims.getAudience(), "Audience should match");
+        assertEquals(1767226000L, claims.getExpiresAt(), "Expiry should match");
+        assertEquals(1767225000L, claims.getNotBefore(), "Not-before should match");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should accept a single string audience and missing time claims")
+    void testDecodeSingleAudience() {
+        JwtClaims claims = decode("{\"aud\":\"ai-app\"}");
+        
+        assertEquals(List.of("ai-app"), claims.getAudience(), "Single audience should be wrapped in a list");
+        assertFalse(claims.hasExpiresAt(), "Expiry should be absent");
+        assertFalse(claims.hasNotBefore(), "Not-before should be absent");
+        assertNull(claims.getIssuer(), "Issuer should be absent");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should skip unrelated nested members and whitespace")
+    void testDecodeSkipsNestedMembers() {
+        JwtClaims claims = decode(" { \"realm_access\" : {\"roles\":[\"admin\",\"x\\\"}]\"]}, \"scope\":\"a b\","
+                + " \"email_verified\":true, \"ratio\":-1.5e3, \"extra\":null,\n \"exp\" : 1767226000.75 } ");
+        
+        assertEquals(1767226000L, claims.getExpiresAt(), "Expiry should be read after skipped members");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should decode escaped strings")
+    void testDecodeEscapes() {
+        JwtClaims claims = decode("{\"iss\":\"https:\\/\\/issuer.test\\u002Frealm \\\"q\\\" \\u00e9\"}");
+        assertEquals("https://issuer.test/realm \"q\" \u00e9", claims.getIssuer(), "Escapes should be decoded");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should decode UTF-8 strings")
+    void testDecodeUtf8() {
+        JwtClaims claims = decode("{\"iss\":\"t\u00ebst-\u4e2d\"}");
+        assertEquals("t\u00ebst-\u4e2d", claims.getIssuer(), "UTF-8 should be decoded");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should read roles and scopes")
+    void testDecodeRolesAndScopes() {
+        JwtClaims claims = decode("{\"realm_access\":{\"other\":[1],\"roles\":[\"user\",\"admin\"]},"
+                + "\"roles\":\"writer\",\"scope\":\" openid  email\",\"scp\":[\"api\"],"
+                + "\"resource_access\":{\"account\":{\"roles\":[\"view-profile\"]}}}");
+        
+        assertEquals(List.of("user", "admin", "writer"), claims.getRoles(), "Realm and top-level roles should be read");
+        assertEquals(List.of("openid", "email", "api"), claims.getScopes(), "Scope and scp should be read");
+        assertTrue(decode("{}").getRoles().isEmpty(), "Roles should be empty when absent");
+    }
+    
+    @Test
+    @DisplayName("decodeUnverified should reject malformed tokens")
+    void testDecodeRejectsMalformed() {
+        String header = JwtTestSupport.encode(HEADER);
+        assertThrows(IllegalArgumentException.class, () -> JwtParser.decodeUnverified(null), "Null token");
+        assertThrows(IllegalArgumentException.class, () -> JwtParser.decodeUnverified("abc"), "No dots");
+        assertThrows(IllegalArgumentException.class, () -> JwtParser.decodeUnverified("a.b.c.d"), "Too many segments");
+        assertThrows(IllegalArgumentException.class, () -> JwtParser.decodeUnverified(header + ".#!.sig"), "Not base64url");
+        assertThrows(IllegalArgumentException.class,
+                () -> JwtParser.decodeUnverified(header + "." + JwtTestSupport.encode("[1,2]") + ".sig"), "Not an object");
+        assertThrows(IllegalArgumentException.class,
+                () -> JwtParser.decodeUnverified(header + "." + JwtTestSupport.encode("{\"exp\":1") + ".sig"), "Truncated");
+        assertThrows(IllegalArgumentException.class,
+                () -> JwtParser.decodeUnverified(header + "." + JwtTestSupport.encode("{\"exp\":\"soon\"}") + ".sig"),
+                "String exp");
+        assertThrows(IllegalArgumentException.class,
+                () -> JwtParser.decodeUnverified(header + "." + JwtTestSupport.encode("{\"exp\":1} x") + ".sig"),
+                "Trailing content");
+    }
+    
+    private static JwtClaims decode(String payload) {
+        return JwtParser.decodeUnverified(JwtTestSupport.encode(HEADER) + "." + JwtTestSupport.encode(payload) + ".c2ln");
+    }
+}
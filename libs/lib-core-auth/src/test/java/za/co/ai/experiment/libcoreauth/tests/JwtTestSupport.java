@@ -0,0 +1,234 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Key material, token signing and a loopback JWKS endpoint for validator tests.
+ */
+final class JwtTestSupport {
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    
+    private JwtTestSupport() {
+    }
+    
+    /**
+     * A signing key together with its public JWK.
+     */
+    static final class TestKey {
+        final String kid;
+        final String alg;
+        final PrivateKey privateKey;
+        final byte[] secret;
+        final String jwk;
+        
+        private TestKey(String kid, String alg, PrivateKey privateKey, byte[] secret, String jwk) {
+            this.kid = kid;
+            this.alg = alg;
+            this.privateKey = privateKey;
+            this.secret = secret;
+            this.jwk = jwk;
+        }
+        
+        /**
+         * Signs a token with the given payload JSON.
+         * 
+         * @param payload The claims JSON
+         * @return The compact JWS
+         */
+        String sign(String payload) {
+            return signWithHeader("{\"alg\":\"" + alg + "\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}", payload);
+        }
+        
+        String signWithHeader(String header, String payload) {
+            String signingInput = encode(header) + "." + encode(payload);
+            byte[] input = signingInput.getBytes(StandardCharsets.US_ASCII);
+            try {
+                byte[] signature;
+                if (secret != null) {
+                    Mac mac = Mac.getInstance("HmacSHA256");
+                    mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+                    signature = mac.doFinal(input);
+                } else {
+                    String jca = alg.startsWith("RS") ? "SHA256withRSA" : "SHA256withECDSAinP1363Format";
+                    Signature signer = Signature.getInstance(jca);
+                    signer.initSign(privateKey);
+                    signer.update(input);
+                    signature = signer.sign();
+                }
+                return signingInput + "." + ENCODER.encodeToString(signature);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    static TestKey rsaKey(String kid) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) pair.getPublic();
+        String jwk = "{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"" + kid + "\",\"n\":\""
+                + unsigned(publicKey.getModulus(), 0) + "\",\"e\":\"" + unsigned(publicKey.getPublicExponent(), 0) + "\"}";
+        return new TestKey(kid, "RS256", pair.getPrivate(), null, jwk);
+    }
+    
+    static TestKey ecKey(String kid) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair pair = generator.generateKeyPair();
+        ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+        String jwk = "{\"kty\":\"EC\",\"crv\":\"P-256\",\"kid\":\"" + kid + "\",\"x\":\""
+                + unsigned(publicKey.getW().getAffineX(), 32) + "\",\"y\":\""
+                + unsigned(publicKey.getW().getAffineY(), 32) + "\"}";
+        return new TestKey(kid, "ES256", pair.getPrivate(), null, jwk);
+    }
+    
+    static TestKey hmacKey(String kid) {
+        byte[] secret = new byte[32];
+        Arrays.fill(secret, (byte) 7);
+        String jwk = "{\"kty\":\"oct\",\"alg\":\"HS256\",\"kid\":\"" + kid + "\",\"k\":\"" + ENCODER.encodeToString(secret) + "\"}";
+        return new TestKey(kid, "HS256", null, secret, jwk);
+    }
+    
+    static String jwks(TestKey... keys) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        for (int i = 0; i < keys.length; i++) {
+            json.append(i > 0 ? "," : "").append(keys[i].jwk);
+        }
+        return json.append("]}").toString();
+    }
+    
+    static String claims(long exp) {
+        return "{\"sub\":\"user-1\",\"iss\":\"https://issuer.test\",\"aud\":[\"ai-app\",\"other\"],\"exp\":" + exp + "}";
+    }
+    
+    static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return ENCODER.encodeToString(bytes);
+    }
+    
+    /**
+     * A clock that only moves when told to.
+     */
+    static final class MutableClock extends Clock {
+        private volatile Instant instant;
+        
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+        
+        void advanceSeconds(long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+    
+    /**
+     * A loopback HTTP endpoint serving a JWKS document and counting fetches.
+     */
+    static final class StubJwksServer implements AutoCloseable {
+        private final HttpServer server;
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile String document;
+        private volatile long delayMillis;
+        private volatile int status = 200;
+        
+        StubJwksServer(String document) throws IOException {
+            this.document = document;
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/certs", exchange -> {
+                fetches.incrementAndGet();
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = this.document.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+        
+        String uri() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+        }
+        
+        int fetches() {
+            return fetches.get();
+        }
+        
+        void setDocument(String document) {
+            this.document = document;
+        }
+        
+        void setDelayMillis(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+        
+        void setStatus(int status) {
+            this.status = status;
+        }
+        
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+}
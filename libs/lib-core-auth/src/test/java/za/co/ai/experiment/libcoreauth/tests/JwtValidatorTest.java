@@ -1,8 +1,30 @@
 package za.co.ai.experiment.libcoreauth.tests;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 import za.co.ai.experiment.libcoreauth.JwtValidator;
+import za.co.ai.experiment.libcoreauth.VerifiedTokenCache;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.MutableClock;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.StubJwksServer;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.TestKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -12,6 +34,21 @@ import static org.junit.jupiter.api.Assertions.*;
 public class JwtValidatorTest {
     
     private static final String VALID_JWKS_URI = "https://auth.gedmarc.co.za/realms/ai-experiment/protocol/openid-connect/certs";
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    
+    private static TestKey rsaKey;
+    private static TestKey ecKey;
+    private static TestKey hmacKey;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        rsaKey = JwtTestSupport.rsaKey("rsa-1");
+        ecKey = JwtTestSupport.ecKey("ec-1");
+        hmacKey = JwtTestSupport.hmacKey("hmac-1");
+    }
     
     @Test
     @DisplayName("Constructor should accept valid JWKS URI")
@@ -34,6 +71,13 @@ public class JwtValidatorTest {
                 "Constructor should throw IllegalArgumentException for blank JWKS URI");
     }
     
+    @Test
+    @DisplayName("Constructor should reject JWKS URI without a supported scheme")
+    void testConstructorWithUnsupportedScheme() {
+        assertThrows(IllegalArgumentException.class, () -> new JwtValidator("ftp://example.com/certs"),
+                "Constructor should throw IllegalArgumentException for a non http/file JWKS URI");
+    }
+    
     @Test
     @DisplayName("validateToken should reject null token")
     void testValidateNullToken() {
@@ -49,10 +93,343 @@ public class JwtValidatorTest {
     }
     
     @Test
-    @DisplayName("validateToken should accept token with at least one dot")
-    void testValidateTokenWithDot() {
-        JwtValidator validator = new JwtValidator(VALID_JWKS_URI);
-        assertTrue(validator.validateToken("header.payload.signature"), 
-                "Token with dots should be considered valid in this placeholder implementation");
+    @DisplayName("validateToken should reject a token that is not a signed JWT")
+    void testValidateTokenWithDot() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey).build();
+        assertFalse(validator.validateToken("header.payload.signature"),
+                "Token with dots but no valid signature should be invalid");
+    }
+    
+    @Test
+    @DisplayName("validateToken should accept RS256, ES256 and HS256 tokens signed by JWKS keys")
+    void testValidateSignedTokens() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey, ecKey, hmacKey).build();
+        String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 300);
+        
+        assertTrue(validator.validateToken(rsaKey.sign(claims)), "RS256 token should be valid");
+        assertTrue(validator.validateToken(ecKey.sign(claims)), "ES256 token should be valid");
+        assertTrue(validator.validateToken(hmacKey.sign(claims)), "HS256 token should be valid");
+    }
+    
+    @Test
+    @DisplayName("validateToken should reject a token whose payload was tampered with")
+    void testValidateTamperedToken() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey).build();
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + JwtTestSupport.encode(JwtTestSupport.claims(NOW.getEpochSecond() + 99999)) + "." + parts[2];
+        
+        assertFalse(validator.validateToken(forged), "Tampered token should be invalid");
+    }
+    
+    @Test
+    @DisplayName("validateToken should reject alg none and algorithm confusion")
+    void testValidateRejectsAlgorithmConfusion() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey).build();
+        String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 300);
+        String unsigned = JwtTestSupport.encode("{\"alg\":\"none\",\"kid\":\"rsa-1\"}") + "." + JwtTestSupport.encode(claims) + ".";
+        String hsWithRsaKid = hmacKey.signWithHeader("{\"alg\":\"HS256\",\"kid\":\"rsa-1\"}", claims);
+        
+        assertFalse(validator.validateToken(unsigned), "Unsigned token should be invalid");
+        assertFalse(validator.validateToken(hsWithRsaKid), "HS256 token naming an RSA key should be invalid");
+    }
+    
+    @Test
+    @DisplayName("validateToken should enforce exp and nbf with clock skew tolerance")
+    void testValidateTimeClaims() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey).clockSkew(Duration.ofSeconds(30)).build();
+        long now = NOW.getEpochSecond();
+        
+        assertTrue(validator.validateToken(rsaKey.sign(JwtTestSupport.claims(now - 10))), "Token within skew should be valid");
+        assertFalse(validator.validateToken(rsaKey.sign(JwtTestSupport.claims(now - 60))), "Expired token should be invalid");
+        assertFalse(validator.validateToken(rsaKey.sign("{\"sub\":\"user-1\"}")), "Token without exp should be invalid");
+        assertFalse(validator.validateToken(rsaKey.sign("{\"exp\":" + (now + 300) + ",\"nbf\":" + (now + 120) + "}")),
+                "Token used before nbf should be invalid");
+    }
+    
+    @Test
+    @DisplayName("validateToken should enforce configured issuer and audience")
+    void testValidateIssuerAndAudience() throws Exception {
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        
+        assertTrue(fileValidator(rsaKey).issuer("https://issuer.test").audience("ai-app").build().validateToken(token),
+                "Token with matching issuer and audience should be valid");
+        assertFalse(fileValidator(rsaKey).issuer("https://other.test").build().validateToken(token),
+                "Token from another issuer should be invalid");
+        assertFalse(fileValidator(rsaKey).audience("billing").build().validateToken(token),
+                "Token for another audience should be invalid");
+    }
+    
+    @Test
+    @DisplayName("A burst of validations on a cold cache should fetch the JWKS only once")
+    void testSingleFlightFetch() throws Exception {
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            server.setDelayMillis(200);
+            JwtValidator validator = JwtValidator.builder(server.uri()).clock(new MutableClock(NOW)).build();
+            String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+            
+            ExecutorService pool = Executors.newFixedThreadPool(16);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return validator.validateToken(token);
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(), "Every concurrent validation should succeed");
+            }
+            pool.shutdown();
+            
+            assertEquals(1, server.fetches(), "JWKS should be fetched exactly once");
+        }
+    }
+    
+    @Test
+    @DisplayName("An unknown kid should trigger a refetch that picks up rotated keys")
+    void testUnknownKidRefetch() throws Exception {
+        TestKey rotated = JwtTestSupport.rsaKey("rsa-2");
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            MutableClock clock = new MutableClock(NOW);
+            JwtValidator validator = JwtValidator.builder(server.uri())
+                    .clock(clock)
+                    .minRefetchInterval(Duration.ofSeconds(30))
+                    .build();
+            String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 3600);
+            
+            assertTrue(validator.validateToken(rsaKey.sign(claims)), "Token with known kid should be valid");
+            server.setDocument(JwtTestSupport.jwks(rsaKey, rotated));
+            
+            assertFalse(validator.validateToken(rotated.sign(claims)), "Refetch should be rate limited");
+            assertEquals(1, server.fetches(), "Unknown kid within the refetch interval should not fetch");
+            
+            clock.advanceSeconds(31);
+            assertTrue(validator.validateToken(rotated.sign(claims)), "Token with rotated kid should be valid after refetch");
+            assertEquals(2, server.fetches(), "Unknown kid should trigger exactly one refetch");
+        }
+    }
+    
+    @Test
+    @DisplayName("A fetch rejected by the executor should fail fast rather than stay in flight")
+    void testRejectedFetch() throws Exception {
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            MutableClock clock = new MutableClock(NOW);
+            AtomicInteger rejections = new AtomicInteger(1);
+            JwtValidator validator = JwtValidator.builder(server.uri())
+                    .clock(clock)
+                    .minRefetchInterval(Duration.ofSeconds(30))
+                    .fetchTimeout(Duration.ofSeconds(30))
+                    .executor(task -> {
+                        if (rejections.getAndDecrement() > 0) {
+                            throw new RejectedExecutionException("Saturated");
+                        }
+                        task.run();
+                    })
+                    .build();
+            String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 3600));
+            
+            long started = System.nanoTime();
+            assertFalse(validator.validateToken(token), "A rejected fetch should fail validation");
+            assertTrue(System.nanoTime() - started < Duration.ofSeconds(10).toNanos(),
+                    "A rejected fetch should not wait for the fetch timeout");
+            assertEquals(0, server.fetches(), "The rejected fetch should not reach the endpoint");
+            
+            clock.advanceSeconds(31);
+            assertTrue(validator.validateToken(token), "The next attempt should fetch the keys");
+            assertEquals(1, server.fetches(), "One fetch should load the keys");
+        }
+    }
+    
+    @Test
+    @DisplayName("Failed fetches should count towards the refetch interval")
+    void testFailedFetchRateLimit() throws Exception {
+        TestKey rotated = JwtTestSupport.rsaKey("rsa-2");
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            MutableClock clock = new MutableClock(NOW);
+            JwtValidator validator = JwtValidator.builder(server.uri())
+                    .clock(clock)
+                    .refreshInterval(Duration.ofMinutes(5))
+                    .maxKeyAge(Duration.ofMinutes(10))
+                    .minRefetchInterval(Duration.ofSeconds(30))
+                    .build();
+            String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 3600);
+            assertTrue(validator.validateToken(rsaKey.sign(claims)), "Token with known kid should be valid");
+            
+            server.setStatus(503);
+            clock.advanceSeconds(31);
+            assertFalse(validator.validateToken(rotated.sign(claims)), "Unknown kid should fail while the endpoint is down");
+            assertEquals(2, server.fetches(), "The first unknown kid should attempt one refetch");
+            
+            clock.advanceSeconds(270);
+            for (int i = 0; i < 20; i++) {
+                assertTrue(validator.validateToken(rsaKey.sign(claims)), "Stale keys should still be served");
+                assertFalse(validator.validateToken(rotated.sign(claims)), "Unknown kid should still fail");
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.fetches() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, server.fetches(), "Requests within the interval of an attempt should not fetch again");
+            
+            clock.advanceSeconds(300);
+            for (int i = 0; i < 5; i++) {
+                assertFalse(validator.validateToken(rsaKey.sign(claims)), "Expired keys should not be trusted");
+            }
+            assertEquals(4, server.fetches(), "Without usable keys, a recent failure should fail fast");
+            
+            server.setStatus(200);
+            clock.advanceSeconds(31);
+            assertTrue(validator.validateToken(rsaKey.sign(claims)), "Keys should be fetched once the interval passes");
+            assertEquals(5, server.fetches(), "One fetch should recover the keys");
+        }
+    }
+    
+    @Test
+    @DisplayName("Stale keys should be served while a background refresh runs")
+    void testRefreshAhead() throws Exception {
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            MutableClock clock = new MutableClock(NOW);
+            JwtValidator validator = JwtValidator.builder(server.uri())
+                    .clock(clock)
+                    .refreshInterval(Duration.ofMinutes(5))
+                    .build();
+            String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 3600));
+            assertTrue(validator.validateToken(token), "Token should be valid");
+            
+            server.setDelayMillis(500);
+            clock.advanceSeconds(301);
+            long started = System.nanoTime();
+            assertTrue(validator.validateToken(token), "Token should be valid from stale keys");
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 400,
+                    "Validation should not wait for the background refresh");
+            
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.fetches() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, server.fetches(), "A background refresh should have been started");
+        }
+    }
+    
+    @Test
+    @DisplayName("validateTokenAsync should accept valid tokens and reject invalid ones")
+    void testValidateAsync() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey).build();
+        String valid = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        String expired = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() - 3600));
+        
+        assertTrue(validator.validateTokenAsync(valid).join(), "Valid token should be accepted");
+        assertFalse(validator.validateTokenAsync(expired).join(), "Expired token should be rejected");
+        assertFalse(validator.validateTokenAsync(null).join(), "Null token should be rejected");
+    }
+    
+    @Test
+    @DisplayName("validateTokenAsync should answer cache hits inline")
+    void testValidateAsyncCacheHitInline() throws Exception {
+        AtomicInteger submitted = new AtomicInteger();
+        JwtValidator validator = fileValidator(rsaKey)
+                .verifiedTokenCache(100)
+                .verificationExecutor(task -> {
+                    submitted.incrementAndGet();
+                    task.run();
+                })
+                .build();
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        
+        assertTrue(validator.validateTokenAsync(token).join(), "First validation should succeed");
+        assertEquals(1, submitted.get(), "A cache miss should run on the verification executor");
+        
+        CompletableFuture<Boolean> hit = validator.validateTokenAsync(token);
+        assertTrue(hit.isDone(), "A cache hit should complete before returning");
+        assertTrue(hit.join(), "A cache hit should be valid");
+        assertEquals(1, submitted.get(), "A cache hit should not use the verification executor");
+    }
+    
+    @Test
+    @DisplayName("validateTokenAsync should not block the caller during a JWKS fetch")
+    void testValidateAsyncDoesNotBlock() throws Exception {
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey))) {
+            server.setDelayMillis(500);
+            JwtValidator validator = JwtValidator.builder(server.uri()).clock(new MutableClock(NOW)).build();
+            String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+            
+            long started = System.nanoTime();
+            CompletableFuture<Boolean> result = validator.validateTokenAsync(token);
+            assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 400,
+                    "validateTokenAsync should return before the JWKS fetch completes");
+            assertTrue(result.get(), "Token should be valid once the keys are fetched");
+        }
+    }
+    
+    @Test
+    @DisplayName("validateTokenAsync should fail the future when the verification executor is saturated")
+    void testValidateAsyncRejected() throws Exception {
+        JwtValidator validator = fileValidator(rsaKey)
+                .verificationExecutor(task -> {
+                    throw new RejectedExecutionException("full");
+                })
+                .build();
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        
+        CompletionException e = assertThrows(CompletionException.class, () -> validator.validateTokenAsync(token).join(),
+                "A saturated executor should fail the future");
+        assertInstanceOf(RejectedExecutionException.class, e.getCause(), "The rejection should be the cause");
+    }
+    
+    @Test
+    @DisplayName("validateTokens should return one result per token in order")
+    void testValidateTokens() throws Exception {
+        TestKey unknown = JwtTestSupport.rsaKey("unknown");
+        JwtValidator validator = fileValidator(rsaKey, ecKey, hmacKey).build();
+        String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 300);
+        String rsa = rsaKey.sign(claims);
+        String ec = ecKey.sign(claims);
+        String hmac = hmacKey.sign(claims);
+        String expired = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() - 3600));
+        String unknownKid = unknown.sign(claims);
+        String forged = rsa.substring(0, rsa.lastIndexOf('.') + 1) + ec.substring(ec.lastIndexOf('.') + 1);
+        
+        List<Boolean> results = validator.validateTokens(Arrays.asList(rsa, ec, expired, null, hmac, unknownKid, rsa, forged, ""));
+        
+        assertEquals(List.of(true, true, false, false, true, false, true, false, false), results,
+                "Each token should get its own result in input order");
+        assertEquals(List.of(), validator.validateTokens(List.of()), "An empty batch should give no results");
+    }
+    
+    @Test
+    @DisplayName("validateTokens should verify duplicate tokens once and fetch keys once")
+    void testValidateTokensDeduplicates() throws Exception {
+        try (StubJwksServer server = new StubJwksServer(JwtTestSupport.jwks(rsaKey, ecKey))) {
+            JwtValidator validator = JwtValidator.builder(server.uri())
+                    .clock(new MutableClock(NOW))
+                    .verifiedTokenCache(100)
+                    .build();
+            VerifiedTokenCache cache = validator.getVerifiedTokenCache().orElseThrow();
+            List<String> distinct = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String claims = JwtTestSupport.claims(NOW.getEpochSecond() + 300 + i);
+                distinct.add(i % 2 == 0 ? rsaKey.sign(claims) : ecKey.sign(claims));
+            }
+            List<String> tokens = new ArrayList<>(distinct);
+            tokens.addAll(distinct);
+            
+            List<Boolean> results = validator.validateTokens(tokens);
+            
+            assertTrue(results.stream().allMatch(Boolean::booleanValue), "Every token should be valid");
+            assertEquals(10, cache.getMissCount(), "Each distinct token should be looked up once");
+            assertEquals(10, cache.size(), "Each distinct token should be verified and cached once");
+            assertEquals(1, server.fetches(), "The JWKS should be fetched once for the batch");
+            
+            assertEquals(results, validator.validateTokens(tokens), "A repeated batch should give the same results");
+            assertEquals(10, cache.getHitCount(), "A repeated batch should be served from the cache");
+        }
+    }
+    
+    private JwtValidator.Builder fileValidator(TestKey... keys) throws Exception {
+        Path jwks = Files.createTempFile(tempDir, "jwks", ".json");
+        Files.writeString(jwks, JwtTestSupport.jwks(keys));
+        return JwtValidator.builder(jwks.toUri().toString()).clock(new MutableClock(NOW));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreauth.JwtValidator;
+import za.co.ai.experiment.libcoreauth.RevocationList;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.MutableClock;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.TestKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the RevocationList class.
+ */
+public class RevocationListTest {
+    
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    @DisplayName("Revoked token IDs should be reported and others should not")
+    void testRevoke() {
+        RevocationList revocations = RevocationList.builder().build();
+        revocations.revoke("jti-1");
+        
+        assertTrue(revocations.isRevoked("jti-1"), "Revoked ID should be revoked");
+        assertFalse(revocations.isRevoked("jti-2"), "Other ID should not be revoked");
+        assertFalse(revocations.isRevoked(null), "Missing jti should not be revoked");
+        assertThrows(IllegalArgumentException.class, () -> revocations.revoke(" "), "Blank ID should be rejected");
+    }
+    
+    @Test
+    @DisplayName("refresh should read only complete lines appended since the last read")
+    void testIncrementalFile() throws Exception {
+        Path file = tempDir.resolve("revoked.txt");
+        Files.writeString(file, "# revoked tokens\njti-1\n\njti-2\n");
+        RevocationList revocations = RevocationList.builder().file(file).build();
+        
+        assertEquals(2, revocations.size(), "Initial load should read every listed ID");
+        assertTrue(revocations.isRevoked("jti-2"), "Listed ID should be revoked");
+        
+        Files.writeString(file, "jti-3\njti-1\njti-4", StandardOpenOption.APPEND);
+        assertEquals(1, revocations.refresh(), "Only the new complete line should be added");
+        assertTrue(revocations.isRevoked("jti-3"), "Appended ID should be revoked");
+        assertFalse(revocations.isRevoked("jti-4"), "A partial line should not be read yet");
+        
+        Files.writeString(file, "\n", StandardOpenOption.APPEND);
+        assertEquals(1, revocations.refresh(), "The completed line should be added");
+        assertTrue(revocations.isRevoked("jti-4"), "Completed ID should be revoked");
+    }
+    
+    @Test
+    @DisplayName("A shrunk revocation file should be reloaded from the start")
+    void testTruncatedFileReloads() throws Exception {
+        Path file = tempDir.resolve("revoked.txt");
+        Files.writeString(file, "jti-1\njti-2\njti-3\n");
+        RevocationList revocations = RevocationList.builder().file(file).build();
+        
+        Files.writeString(file, "jti-9\n");
+        assertEquals(1, revocations.refresh(), "Rewritten file should be reloaded");
+        assertTrue(revocations.isRevoked("jti-9"), "New ID should be revoked");
+        assertFalse(revocations.isRevoked("jti-1"), "IDs no longer listed should not be revoked");
+    }
+    
+    @Test
+    @DisplayName("IDs revoked at runtime should stay revoked when the file is reloaded")
+    void testRuntimeRevocationsSurviveReload() throws Exception {
+        Path file = tempDir.resolve("revoked.txt");
+        Files.writeString(file, "jti-1\njti-2\njti-3\n");
+        RevocationList revocations = RevocationList.builder().file(file).build();
+        revocations.revoke("x");
+        
+        Files.writeString(file, "jti-9\n");
+        assertEquals(1, revocations.refresh(), "Rewritten file should be reloaded");
+        assertTrue(revocations.isRevoked("x"), "Runtime revocation should survive the reload");
+        assertTrue(revocations.isRevoked("jti-9"), "New ID should be revoked");
+        assertFalse(revocations.isRevoked("jti-2"), "IDs no longer listed should not be revoked");
+        assertEquals(2, revocations.size(), "The reloaded list should hold the file and runtime IDs");
+    }
+    
+    @Test
+    @DisplayName("Lookups should trigger a background refresh once the interval has passed")
+    void testBackgroundRefresh() throws Exception {
+        Path file = tempDir.resolve("revoked.txt");
+        Files.writeString(file, "jti-1\n");
+        MutableClock clock = new MutableClock(NOW);
+        RevocationList revocations = RevocationList.builder()
+                .file(file)
+                .clock(clock)
+                .refreshInterval(Duration.ofSeconds(30))
+                .executor(Runnable::run)
+                .build();
+        
+        Files.writeString(file, "jti-2\n", StandardOpenOption.APPEND);
+        assertFalse(revocations.isRevoked("jti-2"), "Lookups within the interval should not refresh");
+        clock.advanceSeconds(31);
+        revocations.isRevoked("jti-1");
+        assertTrue(revocations.isRevoked("jti-2"), "A lookup after the interval should refresh");
+    }
+    
+    @Test
+    @DisplayName("The filter should stay compact and report its false-positive rate")
+    void testFalsePositiveRate() {
+        RevocationList revocations = RevocationList.builder()
+                .expectedEntries(100_000)
+                .falsePositiveRate(0.01)
+                .build();
+        for (int i = 0; i < 100_000; i++) {
+            revocations.revoke("revoked-" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertFalse(revocations.isRevoked("live-" + i), "Live ID should never be reported revoked");
+        }
+        
+        assertTrue(revocations.getFilterSizeBytes() < 200_000, "Filter should take about 1.2 bytes per entry");
+        assertTrue(revocations.getExactSizeBytes() <= 2 * 22 * 100_000,
+                "Exact tables should take at most 22 bytes per entry for each copy");
+        assertEquals(0.01, revocations.getExpectedFalsePositiveRate(), 0.002, "Expected rate should match the target");
+        assertTrue(revocations.getObservedFalsePositiveRate() > 0, "Some live IDs should hit the filter");
+        assertTrue(revocations.getObservedFalsePositiveRate() < 0.02, "Observed rate should be near the target");
+    }
+    
+    @Test
+    @DisplayName("The filter should grow past its expected size without losing entries")
+    void testGrowth() {
+        RevocationList revocations = RevocationList.builder().expectedEntries(100).build();
+        for (int i = 0; i < 1000; i++) {
+            revocations.revoke("revoked-" + i);
+        }
+        
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(revocations.isRevoked("revoked-" + i), "ID " + i + " should be revoked");
+        }
+        assertTrue(revocations.getExpectedFalsePositiveRate() < 0.02, "Growth should keep the rate near the target");
+    }
+    
+    @Test
+    @DisplayName("Loading a file far beyond the expected size should keep the rate near the target")
+    void testBulkFileGrowth() throws Exception {
+        Path file = tempDir.resolve("revoked.txt");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            lines.append("revoked-").append(i).append('\n');
+        }
+        Files.writeString(file, lines);
+        RevocationList revocations = RevocationList.builder().file(file).build();
+        
+        assertEquals(200_000, revocations.size(), "Every listed ID should be loaded");
+        assertTrue(revocations.getExpectedFalsePositiveRate() < 0.02, "The initial load should size the filter");
+        
+        Files.writeString(file, lines.toString().replace("revoked-", "r-"));
+        assertEquals(200_000, revocations.refresh(), "Rewritten file should be reloaded");
+        assertTrue(revocations.getExpectedFalsePositiveRate() < 0.02, "The reload should size the filter");
+        
+        for (int i = 0; i < 100_000; i++) {
+            assertFalse(revocations.isRevoked("live-" + i), "Live ID should never be reported revoked");
+        }
+        assertTrue(revocations.isRevoked("r-199999"), "Reloaded ID should be revoked");
+        assertTrue(revocations.getObservedFalsePositiveRate() < 0.02, "Observed rate should be near the target");
+    }
+    
+    @Test
+    @DisplayName("JwtValidator should reject revoked tokens even when cached")
+    void testValidatorRejectsRevoked() throws Exception {
+        TestKey rsaKey = JwtTestSupport.rsaKey("rsa-1");
+        Path jwks = Files.createTempFile(tempDir, "jwks", ".json");
+        Files.writeString(jwks, JwtTestSupport.jwks(rsaKey));
+        RevocationList revocations = RevocationList.builder().build();
+        JwtValidator validator = JwtValidator.builder(jwks.toUri().toString())
+                .clock(new MutableClock(NOW))
+                .verifiedTokenCache(100)
+                .revocationList(revocations)
+                .build();
+        String token = rsaKey.sign("{\"jti\":\"jti-1\",\"exp\":" + (NOW.getEpochSecond() + 300) + "}");
+        String other = rsaKey.sign("{\"jti\":\"jti-2\",\"exp\":" + (NOW.getEpochSecond() + 300) + "}");
+        
+        assertTrue(validator.validateToken(token), "Token should be valid before revocation");
+        revocations.revoke("jti-1");
+        assertFalse(validator.validateToken(token), "Cached token should be rejected once revoked");
+        assertFalse(validator.validateTokenAsync(token).join(), "Async validation should reject it too");
+        assertTrue(validator.validateToken(other), "Other tokens should stay valid");
+    }
+}
@@ -0,0 +1,167 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreauth.JwtClaims;
+import za.co.ai.experiment.libcoreauth.TokenIntrospector;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.MutableClock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the TokenIntrospector class.
+ */
+public class TokenIntrospectorTest {
+    
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final String CREDENTIALS = "Basic " + Base64.getEncoder()
+            .encodeToString("ai-app:s3cret".getBytes(StandardCharsets.UTF_8));
+    
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile long delayMillis;
+    private volatile int status = 200;
+    private HttpServer server;
+    private MutableClock clock;
+    
+    @BeforeEach
+    void startServer() throws IOException {
+        clock = new MutableClock(NOW);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/introspect", exchange -> {
+            calls.incrementAndGet();
+            String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String token = URLDecoder.decode(form.substring("token=".length(), form.indexOf('&')), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int code = CREDENTIALS.equals(exchange.getRequestHeaders().getFirst("Authorization")) ? status : 401;
+            byte[] body = responses.getOrDefault(token, "{\"active\":false}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+    
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+    
+    @Test
+    @DisplayName("Builder should reject non-http introspection URIs")
+    void testBuilderRejectsInvalidUri() {
+        assertThrows(IllegalArgumentException.class, () -> TokenIntrospector.builder(" "), "Blank URI");
+        assertThrows(IllegalArgumentException.class, () -> TokenIntrospector.builder("file:///introspect"), "File URI");
+    }
+    
+    @Test
+    @DisplayName("Active responses should be mapped to claims and cached until exp")
+    void testActiveCachedUntilExp() {
+        responses.put("opaque-1", "{\"active\":true,\"iss\":\"https://issuer.test\",\"aud\":\"ai-app\",\"exp\":"
+                + (NOW.getEpochSecond() + 60) + ",\"jti\":\"j-1\",\"scope\":\"openid email\","
+                + "\"realm_access\":{\"roles\":[\"calculator-user\"]}}");
+        TokenIntrospector introspector = introspector();
+        
+        JwtClaims claims = introspector.verifyToken("opaque-1").orElseThrow();
+        assertEquals("https://issuer.test", claims.getIssuer(), "Issuer should be mapped");
+        assertEquals(List.of("ai-app"), claims.getAudience(), "Audience should be mapped");
+        assertEquals("j-1", claims.getJwtId(), "Token ID should be mapped");
+        assertEquals(List.of("calculator-user"), claims.getRoles(), "Roles should be mapped");
+        assertEquals(List.of("openid", "email"), claims.getScopes(), "Scopes should be mapped");
+        
+        assertSame(claims, introspector.verifyToken("opaque-1").orElseThrow(), "Repeat lookups should be cached");
+        assertEquals(1, calls.get(), "The endpoint should be called once while the token is cached");
+        
+        clock.advanceSeconds(61);
+        assertFalse(introspector.validateToken("opaque-1"), "Expired tokens should not be served from the cache");
+        assertEquals(2, calls.get(), "An expired entry should be introspected again");
+    }
+    
+    @Test
+    @DisplayName("Inactive responses should be cached for the negative TTL")
+    void testInactiveCachedBriefly() {
+        TokenIntrospector introspector = introspector();
+        
+        assertFalse(introspector.validateToken("revoked"), "Inactive token should be invalid");
+        assertFalse(introspector.validateToken("revoked"), "Inactive token should stay invalid");
+        assertEquals(1, calls.get(), "Inactive responses should be cached");
+        
+        clock.advanceSeconds(11);
+        responses.put("revoked", "{\"active\":true,\"exp\":" + (NOW.getEpochSecond() + 600) + "}");
+        assertTrue(introspector.validateToken("revoked"), "The negative entry should expire");
+        assertEquals(2, calls.get(), "An expired negative entry should be introspected again");
+    }
+    
+    @Test
+    @DisplayName("Concurrent lookups of one token should share a single call")
+    void testCoalescing() {
+        responses.put("opaque-1", "{\"active\":true,\"exp\":" + (NOW.getEpochSecond() + 60) + "}");
+        delayMillis = 200;
+        TokenIntrospector introspector = introspector();
+        
+        List<CompletableFuture<Optional<JwtClaims>>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(introspector.introspectAsync("opaque-1"));
+        }
+        for (CompletableFuture<Optional<JwtClaims>> result : results) {
+            assertTrue(result.join().isPresent(), "Every lookup should see the active response");
+        }
+        assertEquals(1, calls.get(), "Concurrent lookups should be coalesced");
+        assertEquals(1, introspector.getCallCount(), "The introspector should count one call");
+    }
+    
+    @Test
+    @DisplayName("Endpoint failures should reject the token without being cached")
+    void testFailuresNotCached() {
+        responses.put("opaque-1", "{\"active\":true,\"exp\":" + (NOW.getEpochSecond() + 60) + "}");
+        status = 503;
+        TokenIntrospector introspector = introspector();
+        
+        assertFalse(introspector.validateToken("opaque-1"), "A failed call should reject the token");
+        status = 200;
+        assertTrue(introspector.validateToken("opaque-1"), "The failure should not be cached");
+        assertEquals(2, calls.get(), "The endpoint should be called again after a failure");
+        assertFalse(TokenIntrospector.builder(uri()).clock(clock).build().validateToken("opaque-1"),
+                "Missing client credentials should be rejected by the endpoint");
+    }
+    
+    private TokenIntrospector introspector() {
+        return TokenIntrospector.builder(uri())
+                .clientCredentials("ai-app", "s3cret")
+                .negativeTtl(Duration.ofSeconds(10))
+                .clock(clock)
+                .build();
+    }
+    
+    private String uri() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/introspect";
+    }
+}
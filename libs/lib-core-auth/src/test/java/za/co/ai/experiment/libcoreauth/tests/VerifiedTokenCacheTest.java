@@ -0,0 +1,110 @@
+package za.co.ai.experiment.libcoreauth.tests;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreauth.JwtValidator;
+import za.co.ai.experiment.libcoreauth.VerifiedTokenCache;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.MutableClock;
+import za.co.ai.experiment.libcoreauth.tests.JwtTestSupport.TestKey;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the VerifiedTokenCache class.
+ */
+public class VerifiedTokenCacheTest {
+    
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    
+    private static TestKey rsaKey;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        rsaKey = JwtTestSupport.rsaKey("rsa-1");
+    }
+    
+    @Test
+    @DisplayName("The cache should be disabled unless configured")
+    void testDisabledByDefault() throws Exception {
+        JwtValidator validator = validator(new MutableClock(NOW), 0);
+        assertTrue(validator.getVerifiedTokenCache().isEmpty(), "Cache should be disabled by default");
+    }
+    
+    @Test
+    @DisplayName("A repeated token should be served from the cache")
+    void testRepeatTokenHits() throws Exception {
+        JwtValidator validator = validator(new MutableClock(NOW), 100);
+        VerifiedTokenCache cache = validator.getVerifiedTokenCache().orElseThrow();
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300));
+        
+        assertTrue(validator.validateToken(token), "First validation should succeed");
+        assertTrue(validator.validateToken(token), "Second validation should succeed");
+        assertTrue(validator.validateToken(token), "Third validation should succeed");
+        
+        assertEquals(1, cache.getMissCount(), "Only the first validation should miss");
+        assertEquals(2, cache.getHitCount(), "Repeat validations should hit");
+        assertEquals(1, cache.size(), "One token should be cached");
+    }
+    
+    @Test
+    @DisplayName("Invalid tokens should not be cached")
+    void testInvalidTokenNotCached() throws Exception {
+        JwtValidator validator = validator(new MutableClock(NOW), 100);
+        VerifiedTokenCache cache = validator.getVerifiedTokenCache().orElseThrow();
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() - 3600));
+        
+        assertFalse(validator.validateToken(token), "Expired token should be invalid");
+        assertFalse(validator.validateToken(token), "Expired token should stay invalid");
+        assertEquals(0, cache.size(), "Invalid tokens should not be cached");
+        assertEquals(0, cache.getHitCount(), "Invalid tokens should never hit");
+    }
+    
+    @Test
+    @DisplayName("Cached tokens should expire at exp plus clock skew")
+    void testCachedTokenExpires() throws Exception {
+        MutableClock clock = new MutableClock(NOW);
+        JwtValidator validator = validator(clock, 100);
+        String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 60));
+        
+        assertTrue(validator.validateToken(token), "Token should be valid before exp");
+        clock.advanceSeconds(60 + 20);
+        assertTrue(validator.validateToken(token), "Token should be valid within the clock skew");
+        clock.advanceSeconds(15);
+        assertFalse(validator.validateToken(token), "Token should be invalid after exp plus skew");
+    }
+    
+    @Test
+    @DisplayName("The cache should stay within its bound")
+    void testSizeBound() throws Exception {
+        JwtValidator validator = validator(new MutableClock(NOW), 10);
+        VerifiedTokenCache cache = validator.getVerifiedTokenCache().orElseThrow();
+        
+        for (int i = 0; i < 50; i++) {
+            String token = rsaKey.sign(JwtTestSupport.claims(NOW.getEpochSecond() + 300 + i));
+            assertTrue(validator.validateToken(token), "Token " + i + " should be valid");
+        }
+        
+        assertTrue(cache.size() <= cache.getMaxEntries(), "Cache should not grow beyond its bound");
+        assertTrue(cache.getEvictionCount() >= 40, "Older entries should have been evicted");
+    }
+    
+    private JwtValidator validator(MutableClock clock, int cacheSize) throws Exception {
+        Path jwks = Files.createTempFile(tempDir, "jwks", ".json");
+        Files.writeString(jwks, JwtTestSupport.jwks(rsaKey));
+        return JwtValidator.builder(jwks.toUri().toString())
+                .clock(clock)
+                .clockSkew(Duration.ofSeconds(30))
+                .verifiedTokenCache(cacheSize)
+                .build();
+    }
+}
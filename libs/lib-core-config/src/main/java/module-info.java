@@ -4,6 +4,9 @@
  * This module provides shared environment and configuration parsing utilities for the AI Experiment platform.
  */
 module za.co.ai.experiment.libcoreconfig {
+    // Required dependencies
+    requires java.logging;
+    
     // Export the API packages
     exports za.co.ai.experiment.libcoreconfig;
     
@@ -0,0 +1,397 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Compiles configuration into a compact binary snapshot and opens it again without parsing.
+ * 
+ * The snapshot is meant to be produced at build time from the default properties, for
+ * example from a build step running
+ * <pre>{@code
+ * java -cp lib-core-config.jar za.co.ai.experiment.libcoreconfig.CompiledConfig defaults.properties defaults.cfg
+ * }</pre>
+ * and loaded at startup with {@link ConfigManager#loadCompiledDefaults(Path)}. Opening a
+ * snapshot memory-maps the file, reads its header and checks every entry offset and
+ * length against the file size, without decoding any key or value; a lookup binary
+ * searches the sorted key index in place and decodes just the value it finds, so startup
+ * cost barely grows with the number of defaults.
+ * 
+ * To ship the snapshot inside an application jar, compile it into the build output
+ * directory before packaging, for example with the exec-maven-plugin in the application
+ * module, which must depend on this library:
+ * <pre>{@code
+ * <plugin>
+ *     <groupId>org.codehaus.mojo</groupId>
+ *     <artifactId>exec-maven-plugin</artifactId>
+ *     <executions>
+ *         <execution>
+ *             <id>compile-config</id>
+ *             <phase>process-classes</phase>
+ *             <goals>
+ *                 <goal>java</goal>
+ *             </goals>
+ *             <configuration>
+ *                 <mainClass>za.co.ai.experiment.libcoreconfig.CompiledConfig</mainClass>
+ *                 <arguments>
+ *                     <argument>${project.basedir}/src/main/config/defaults.properties</argument>
+ *                     <argument>${project.build.outputDirectory}/defaults.cfg</argument>
+ *                 </arguments>
+ *             </configuration>
+ *         </execution>
+ *     </executions>
+ * </plugin>
+ * }</pre>
+ * and load it with {@link ConfigManager#loadCompiledDefaults(ClassLoader, String)}. A
+ * class path resource cannot be memory-mapped, so it is read into memory once instead.
+ * 
+ * The format is a magic number and entry count, a table of entry offsets sorted by the
+ * unsigned UTF-8 bytes of the keys, and then each entry as a length-prefixed UTF-8 key
+ * followed by a length-prefixed UTF-8 value.
+ */
+public final class CompiledConfig {
+    
+    /** "CFG1" */
+    static final int MAGIC = 0x43464731;
+    
+    private CompiledConfig() {
+    }
+    
+    /**
+     * Compiles a properties file into a binary snapshot.
+     * 
+     * @param args The properties file and the snapshot file to write
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompiledConfig <input.properties> <output>");
+            System.exit(2);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name));
+        }
+        compile(values, Path.of(args[1]));
+    }
+    
+    /**
+     * Writes configuration values as a binary snapshot. The file is replaced atomically
+     * where the file system supports it.
+     * 
+     * @param values The configuration values
+     * @param output The snapshot file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void compile(Map<String, String> values, Path output) throws IOException {
+        byte[][] keys = new byte[values.size()][];
+        int count = 0;
+        for (String key : values.keySet()) {
+            keys[count++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(keys, Arrays::compareUnsigned);
+        
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream entries = new DataOutputStream(data);
+        int[] offsets = new int[count];
+        int base = 8 + 4 * count;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = base + entries.size();
+            byte[] value = values.get(new String(keys[i], StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            entries.writeInt(keys[i].length);
+            entries.write(keys[i]);
+            entries.writeInt(value.length);
+            entries.write(value);
+        }
+        
+        ByteArrayOutputStream file = new ByteArrayOutputStream(base + data.size());
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeInt(count);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        data.writeTo(out);
+        
+        Path parent = output.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, output.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, file.toByteArray());
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Opens a binary snapshot by memory-mapping it.
+     * 
+     * @param file The snapshot file
+     * @return An unmodifiable map reading keys and values from the mapped file on demand
+     * @throws IOException if the file cannot be read or is not a compiled snapshot
+     */
+    public static Map<String, String> open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return open(buffer, file.toString());
+    }
+    
+    /**
+     * Opens a binary snapshot packaged as a class path resource, such as one compiled into
+     * the application jar. The resource is read into a heap buffer, since it may not be a
+     * file that can be mapped; lookups then work as they do on a mapped file.
+     * 
+     * @param loader The class loader to find the resource with
+     * @param resource The resource name, such as {@code defaults.cfg}
+     * @return An unmodifiable map reading keys and values from the buffer on demand
+     * @throws IOException if the resource cannot be found or read, or is not a compiled snapshot
+     */
+    public static Map<String, String> open(ClassLoader loader, String resource) throws IOException {
+        try (InputStream in = loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new FileNotFoundException("Compiled configuration resource not found: " + resource);
+            }
+            return open(ByteBuffer.wrap(in.readAllBytes()), resource);
+        }
+    }
+    
+    /**
+     * Checks the header and that every entry lies within the buffer, so lookups cannot
+     * read past its end.
+     */
+    private static Map<String, String> open(ByteBuffer buffer, String name) throws IOException {
+        if (buffer.capacity() < 8 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled configuration snapshot: " + name);
+        }
+        int count = buffer.getInt(4);
+        long size = buffer.capacity();
+        long entries = 8L + 4L * count;
+        if (count < 0 || entries > size) {
+            throw new IOException("Corrupt compiled configuration snapshot: " + name);
+        }
+        for (int i = 0; i < count; i++) {
+            long offset = buffer.getInt(8 + 4 * i);
+            if (offset < entries || offset + 4 > size) {
+                throw new IOException("Corrupt compiled configuration snapshot: " + name);
+            }
+            int keyLength = buffer.getInt((int) offset);
+            long valueOffset = offset + 4 + keyLength;
+            if (keyLength < 0 || valueOffset + 4 > size) {
+                throw new IOException("Corrupt compiled configuration snapshot: " + name);
+            }
+            int valueLength = buffer.getInt((int) valueOffset);
+            if (valueLength < 0 || valueOffset + 4 + valueLength > size) {
+                throw new IOException("Corrupt compiled configuration snapshot: " + name);
+            }
+        }
+        return new View(buffer, count);
+    }
+    
+    /**
+     * Gets the keys of an opened snapshot whose values hold placeholders, found by
+     * scanning the value bytes without decoding them.
+     * 
+     * @param values A map that may be an opened snapshot
+     * @return The keys, or null if the map is not an opened snapshot
+     */
+    static Set<String> placeholderKeys(Map<String, String> values) {
+        return values instanceof View view ? view.placeholderKeys() : null;
+    }
+    
+    /**
+     * Map view over a mapped snapshot. Decoded keys and values are kept so each entry is
+     * decoded at most once; racing decodes produce equal strings, so the caches need no locks.
+     */
+    private static final class View extends AbstractMap<String, String> {
+        
+        private final ByteBuffer buffer;
+        private final int count;
+        private final String[] keys;
+        private final String[] values;
+        private Set<Entry<String, String>> entries;
+        
+        private View(ByteBuffer buffer, int count) {
+            this.buffer = buffer;
+            this.count = count;
+            this.keys = new String[count];
+            this.values = new String[count];
+        }
+        
+        @Override
+        public String get(Object key) {
+            int index = key instanceof String name ? find(name) : -1;
+            return index >= 0 ? value(index) : null;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && find(name) >= 0;
+        }
+        
+        @Override
+        public int size() {
+            return count;
+        }
+        
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, String>> iterator() {
+                        return new Iterator<>() {
+                            private int next;
+                            
+                            @Override
+                            public boolean hasNext() {
+                                return next < count;
+                            }
+                            
+                            @Override
+                            public Entry<String, String> next() {
+                                if (next >= count) {
+                                    throw new NoSuchElementException();
+                                }
+                                int index = next++;
+                                return new SimpleImmutableEntry<>(key(index), value(index));
+                            }
+                        };
+                    }
+                    
+                    @Override
+                    public int size() {
+                        return count;
+                    }
+                };
+            }
+            return entries;
+        }
+        
+        private int find(String key) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(key, buffer.getInt(8 + 4 * middle));
+                if (comparison > 0) {
+                    low = middle + 1;
+                } else if (comparison < 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * Compares a key with a stored key in unsigned UTF-8 byte order, comparing ASCII
+         * in place and encoding the key only when either side has other characters.
+         */
+        private int compare(String key, int offset) {
+            int length = buffer.getInt(offset);
+            int start = offset + 4;
+            int shared = Math.min(key.length(), length);
+            for (int i = 0; i < shared; i++) {
+                int c = key.charAt(i);
+                int b = buffer.get(start + i) & 0xFF;
+                if (c >= 0x80 || b >= 0x80) {
+                    return compareEncoded(key.getBytes(StandardCharsets.UTF_8), start, length);
+                }
+                if (c != b) {
+                    return c - b;
+                }
+            }
+            if (key.length() > length) {
+                for (int i = shared; i < key.length(); i++) {
+                    if (key.charAt(i) >= 0x80) {
+                        return compareEncoded(key.getBytes(StandardCharsets.UTF_8), start, length);
+                    }
+                }
+            }
+            return key.length() - length;
+        }
+        
+        private int compareEncoded(byte[] key, int start, int length) {
+            int shared = Math.min(key.length, length);
+            for (int i = 0; i < shared; i++) {
+                int difference = (key[i] & 0xFF) - (buffer.get(start + i) & 0xFF);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return key.length - length;
+        }
+        
+        private Set<String> placeholderKeys() {
+            Set<String> found = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                int offset = buffer.getInt(8 + 4 * i);
+                int valueOffset = offset + 4 + buffer.getInt(offset);
+                int end = valueOffset + 4 + buffer.getInt(valueOffset);
+                for (int position = valueOffset + 4; position < end - 1; position++) {
+                    if (buffer.get(position) == '$' && buffer.get(position + 1) == '{') {
+                        found.add(key(i));
+                        break;
+                    }
+                }
+            }
+            return Set.copyOf(found);
+        }
+        
+        private String key(int index) {
+            String key = keys[index];
+            if (key == null) {
+                int offset = buffer.getInt(8 + 4 * index);
+                key = string(offset + 4, buffer.getInt(offset));
+                keys[index] = key;
+            }
+            return key;
+        }
+        
+        private String value(int index) {
+            String value = values[index];
+            if (value == null) {
+                int offset = buffer.getInt(8 + 4 * index);
+                int valueOffset = offset + 4 + buffer.getInt(offset);
+                value = string(valueOffset + 4, buffer.getInt(valueOffset));
+                values[index] = value;
+            }
+            return value;
+        }
+        
+        private String string(int offset, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describes a published configuration change: the snapshots before and after it and
+ * the keys whose values differ between them.
+ */
+public final class ConfigChangeEvent {
+    
+    private final ConfigSnapshot previous;
+    private final ConfigSnapshot current;
+    private final Set<String> changedKeys;
+    
+    private ConfigChangeEvent(ConfigSnapshot previous, ConfigSnapshot current, Set<String> changedKeys) {
+        this.previous = previous;
+        this.current = current;
+        this.changedKeys = changedKeys;
+    }
+    
+    /**
+     * Compares two snapshots. Only layers that were replaced are scanned, and a key is
+     * reported if its effective value changed, including through a placeholder. The keys
+     * holding placeholders are indexed once per layer, and a replaced environment view is
+     * compared by the variable names its new prefixes add, without reading the others.
+     * 
+     * @param previous The snapshot before the change
+     * @param current The snapshot after the change
+     * @return The change event, or null if no value differs
+     */
+    static ConfigChangeEvent diff(ConfigSnapshot previous, ConfigSnapshot current) {
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < current.layers().size(); i++) {
+            Map<String, String> before = previous.layers().get(i);
+            Map<String, String> after = current.layers().get(i);
+            if (before != after && after instanceof EnvironmentView environment) {
+                // Variables do not change, so only the names newly matched can differ
+                candidates.addAll(environment.namesAddedTo(before));
+            } else if (before != after) {
+                collect(candidates, before, after);
+                collect(candidates, after, before);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        // Values with placeholders may change when any key they refer to does
+        for (int i = 0; i < current.layers().size(); i++) {
+            if (i != ConfigLayer.ENVIRONMENT.ordinal()) {
+                candidates.addAll(current.placeholderKeys(i));
+            }
+        }
+        Set<String> changed = new HashSet<>();
+        for (String key : candidates) {
+            if (!Objects.equals(value(previous, key), value(current, key))) {
+                changed.add(key);
+            }
+        }
+        return changed.isEmpty() ? null : new ConfigChangeEvent(previous, current, Set.copyOf(changed));
+    }
+    
+    private static void collect(Set<String> candidates, Map<String, String> from, Map<String, String> other) {
+        from.forEach((key, value) -> {
+            if (!value.equals(other.get(key))) {
+                candidates.add(key);
+            }
+        });
+    }
+    
+    private static String value(ConfigSnapshot snapshot, String key) {
+        try {
+            return snapshot.get(key);
+        } catch (IllegalArgumentException e) {
+            return snapshot.raw(key);
+        }
+    }
+    
+    /**
+     * Gets the snapshot that was replaced.
+     * 
+     * @return The previous snapshot
+     */
+    public ConfigSnapshot getPrevious() {
+        return previous;
+    }
+    
+    /**
+     * Gets the snapshot that was published.
+     * 
+     * @return The current snapshot
+     */
+    public ConfigSnapshot getCurrent() {
+        return current;
+    }
+    
+    /**
+     * Gets the keys that were added, removed or given a different value.
+     * 
+     * @return An unmodifiable set of the changed keys
+     */
+    public Set<String> getChangedKeys() {
+        return changedKeys;
+    }
+    
+    /**
+     * Checks if a key changed.
+     * 
+     * @param key The configuration key
+     * @return true if the key was added, removed or given a different value
+     */
+    public boolean isChanged(String key) {
+        return changedKeys.contains(key);
+    }
+    
+    /**
+     * Checks if a typed key changed.
+     * 
+     * @param key The typed key
+     * @return true if the key was added, removed or given a different value
+     */
+    public boolean isChanged(ConfigKey<?> key) {
+        return changedKeys.contains(key.getName());
+    }
+}
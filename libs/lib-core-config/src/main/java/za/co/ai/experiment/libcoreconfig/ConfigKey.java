@@ -0,0 +1,221 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A typed handle for a configuration key.
+ * 
+ * Once a key is registered with a {@link ConfigManager}, its value is parsed and
+ * validated whenever a snapshot is built, and {@link ConfigManager#get(ConfigKey)}
+ * reads the parsed value by array index with no parsing, boxing or Optional.
+ * Keys are meant to be created once, typically as constants:
+ * 
+ * <pre>{@code
+ * static final ConfigKey<Integer> PORT = ConfigKey.intKey("PORT", 8080);
+ * }</pre>
+ * 
+ * @param <T> The value type
+ */
+public final class ConfigKey<T> {
+    
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+    
+    private final String name;
+    private final T defaultValue;
+    private final Function<String, T> parser;
+    private final boolean blankIsUnset;
+    private final int index;
+    
+    private ConfigKey(String name, T defaultValue, Function<String, T> parser) {
+        this(name, defaultValue, parser, true);
+    }
+    
+    private ConfigKey(String name, T defaultValue, Function<String, T> parser, boolean blankIsUnset) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Configuration key name cannot be null or blank");
+        }
+        this.name = name;
+        this.defaultValue = defaultValue;
+        this.parser = parser;
+        this.blankIsUnset = blankIsUnset;
+        this.index = NEXT_INDEX.getAndIncrement();
+    }
+    
+    /**
+     * Creates a string key.
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set, or null
+     * @return A new string key
+     */
+    public static ConfigKey<String> stringKey(String name, String defaultValue) {
+        return new ConfigKey<>(name, defaultValue, Function.identity(), false);
+    }
+    
+    /**
+     * Creates an int key.
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set
+     * @return A new int key
+     */
+    public static ConfigKey<Integer> intKey(String name, int defaultValue) {
+        return new ConfigKey<>(name, defaultValue, value -> Integer.valueOf(value.strip()));
+    }
+    
+    /**
+     * Creates a long key.
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set
+     * @return A new long key
+     */
+    public static ConfigKey<Long> longKey(String name, long defaultValue) {
+        return new ConfigKey<>(name, defaultValue, value -> Long.valueOf(value.strip()));
+    }
+    
+    /**
+     * Creates a boolean key accepting {@code true} or {@code false} in any case.
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set
+     * @return A new boolean key
+     */
+    public static ConfigKey<Boolean> booleanKey(String name, boolean defaultValue) {
+        return new ConfigKey<>(name, defaultValue, ConfigKey::parseBoolean);
+    }
+    
+    /**
+     * Creates a duration key accepting ISO-8601 durations ({@code PT30S}) or a whole
+     * number with a {@code ms}, {@code s}, {@code m}, {@code h} or {@code d} unit ({@code 30s}).
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set, or null
+     * @return A new duration key
+     */
+    public static ConfigKey<Duration> durationKey(String name, Duration defaultValue) {
+        return new ConfigKey<>(name, defaultValue, ConfigKey::parseDuration);
+    }
+    
+    /**
+     * Creates an enum key matching constant names case-insensitively, with {@code -} read as {@code _}.
+     * 
+     * @param name The configuration key name
+     * @param type The enum type
+     * @param defaultValue The value used when the key is not set, or null
+     * @param <E> The enum type
+     * @return A new enum key
+     */
+    public static <E extends Enum<E>> ConfigKey<E> enumKey(String name, Class<E> type, E defaultValue) {
+        return new ConfigKey<>(name, defaultValue,
+                value -> Enum.valueOf(type, value.strip().replace('-', '_').toUpperCase(Locale.ROOT)));
+    }
+    
+    /**
+     * Creates a list key reading comma-separated values, trimmed, with empty entries dropped.
+     * 
+     * @param name The configuration key name
+     * @param defaultValue The value used when the key is not set
+     * @return A new list key
+     */
+    public static ConfigKey<List<String>> listKey(String name, List<String> defaultValue) {
+        return new ConfigKey<>(name, List.copyOf(defaultValue), ConfigKey::parseList);
+    }
+    
+    /**
+     * Gets the configuration key name.
+     * 
+     * @return The key name
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets the value used when the key is not set.
+     * 
+     * @return The default value, or null
+     */
+    public T getDefaultValue() {
+        return defaultValue;
+    }
+    
+    /**
+     * Parses a raw value for this key.
+     * 
+     * @param raw The raw value, or null if the key is not set
+     * @return The parsed value, or the default value if the key is not set or, for
+     *         keys other than string keys, is blank
+     * @throws IllegalArgumentException if the raw value is not valid for this key
+     */
+    public T parse(String raw) {
+        if (raw == null || blankIsUnset && raw.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(raw);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + raw, e);
+        }
+    }
+    
+    int index() {
+        return index;
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    private static Boolean parseBoolean(String value) {
+        String trimmed = value.strip();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return Boolean.TRUE;
+        }
+        if (trimmed.equalsIgnoreCase("false")) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Expected true or false");
+    }
+    
+    private static Duration parseDuration(String value) {
+        String trimmed = value.strip();
+        if (trimmed.startsWith("P") || trimmed.startsWith("p")) {
+            return Duration.parse(trimmed);
+        }
+        int unit = 0;
+        while (unit < trimmed.length() && Character.isDigit(trimmed.charAt(unit))) {
+            unit++;
+        }
+        if (unit == 0) {
+            throw new IllegalArgumentException("Expected a duration such as 30s or PT30S");
+        }
+        long amount = Long.parseLong(trimmed.substring(0, unit));
+        return switch (trimmed.substring(unit).strip().toLowerCase(Locale.ROOT)) {
+            case "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            case "d" -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Expected a duration such as 30s or PT30S");
+        };
+    }
+    
+    private static List<String> parseList(String value) {
+        List<String> values = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            String trimmed = entry.strip();
+            if (!trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+        return List.copyOf(values);
+    }
+}
@@ -0,0 +1,30 @@
+package za.co.ai.experiment.libcoreconfig;
+
+/**
+ * The layers a {@link ConfigManager} composes, in increasing order of precedence.
+ * A key set in a layer hides the same key in every layer before it.
+ */
+public enum ConfigLayer {
+    
+    /**
+     * Built-in defaults.
+     */
+    DEFAULTS,
+    
+    /**
+     * Values loaded from a properties file, see {@link FileConfigSource}.
+     */
+    FILE,
+    
+    /**
+     * Environment variables, read from the process environment on demand.
+     * This layer is read-only.
+     */
+    ENVIRONMENT,
+    
+    /**
+     * Values set at runtime through {@link ConfigManager#set(String, String)} and
+     * {@link ConfigManager#update(java.util.function.Consumer)}.
+     */
+    OVERRIDES
+}
@@ -1,17 +1,47 @@
 package za.co.ai.experiment.libcoreconfig;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Configuration manager for the AI Experiment platform.
  * 
  * This class provides functionality to manage environment variables and configuration properties.
+ * Values come from ordered {@link ConfigLayer}s: defaults, a properties file, the environment
+ * and overrides set at runtime, with later layers taking precedence. The environment is read
+ * one key at a time as keys are looked up rather than copied in, and {@code ${other.key}}
+ * placeholders are resolved on first read and memoized per snapshot.
+ * 
+ * Values are held in an immutable {@link ConfigSnapshot} published through a single volatile
+ * field, so reads take no locks and never see a half-applied change. Writers are serialized,
+ * and each write builds and publishes a new snapshot; use {@link #update(Consumer)} to apply
+ * several changes as one snapshot.
+ * 
+ * Typed {@link ConfigKey} handles are parsed and validated when a snapshot is built, so
+ * {@link #get(ConfigKey)} is an array read. A change that leaves a registered key with an
+ * invalid value is rejected and the current snapshot stays in place.
+ * 
+ * Listeners added with {@link #addListener(Consumer)} are told which keys changed each
+ * time a snapshot with different values is published, and {@link FileConfigSource}
+ * publishes a properties file's contents whenever the file changes.
  */
 public class ConfigManager {
     
-    private final Map<String, String> configValues = new HashMap<>();
+    private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
+    
+    private final Object writeLock = new Object();
+    private final List<Consumer<ConfigChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
     
     /**
      * Creates a new configuration manager with default values.
@@ -27,7 +57,7 @@ public class ConfigManager {
      */
     public ConfigManager(Map<String, String> initialValues) {
         if (initialValues != null) {
-            configValues.putAll(initialValues);
+            update(batch -> batch.setAll(initialValues));
         }
     }
     
@@ -38,68 +68,357 @@ public class ConfigManager {
      * @return The configuration value, or empty if not found
      */
     public Optional<String> get(String key) {
-        return Optional.ofNullable(configValues.get(key));
+        return Optional.ofNullable(snapshot.get(key));
+    }
+    
+    /**
+     * Gets the parsed value of a typed key, registering the key on first use.
+     * 
+     * @param key The typed key
+     * @param <T> The value type
+     * @return The parsed value, or the key's default if the key is not set
+     * @throws IllegalArgumentException if the key is being registered and its value is not valid
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ConfigKey<T> key) {
+        Object value = snapshot.typed(key);
+        if (value == null) {
+            register(key);
+            value = snapshot.typed(key);
+        }
+        return (T) ConfigSnapshot.unwrap(value);
     }
     
     /**
-     * Gets a configuration value with a default.
+     * Registers typed keys so their values are parsed and validated with every snapshot.
+     * Registering keys at startup surfaces invalid values before they are first read.
+     * 
+     * @param keys The typed keys
+     * @return This configuration manager
+     * @throws IllegalArgumentException if a key's current value is not valid
+     */
+    public ConfigManager register(ConfigKey<?>... keys) {
+        synchronized (writeLock) {
+            ConfigSnapshot current = snapshot;
+            List<ConfigKey<?>> registered = new ArrayList<>(current.keys());
+            for (ConfigKey<?> key : keys) {
+                if (current.typed(key) == null && !registered.contains(key)) {
+                    registered.add(key);
+                }
+            }
+            if (registered.size() != current.keys().size()) {
+                snapshot = new ConfigSnapshot(current.layers(), current.getVersion(), List.copyOf(registered),
+                        current);
+            }
+        }
+        return this;
+    }
+    
+    /**
+     * Gets a configuration value with a default. This does not allocate.
      * 
      * @param key The configuration key
      * @param defaultValue The default value to return if the key is not found
      * @return The configuration value, or the default if not found
      */
     public String getOrDefault(String key, String defaultValue) {
-        return configValues.getOrDefault(key, defaultValue);
+        String value = snapshot.get(key);
+        return value != null ? value : defaultValue;
     }
     
     /**
      * Sets a configuration value.
      * 
      * @param key The configuration key
-     * @param value The configuration value
+     * @param value The configuration value, or null to remove the key
      */
     public void set(String key, String value) {
-        configValues.put(key, value);
+        update(batch -> batch.set(key, value));
     }
     
     /**
-     * Loads configuration from environment variables.
+     * Applies a batch of changes to the overrides layer and publishes them as one snapshot.
+     * If any value changed, listeners are notified before this method returns.
      * 
+     * @param changes The changes to apply
+     * @return The published snapshot
+     * @throws IllegalArgumentException if the changes leave a registered key with an invalid value
+     */
+    public ConfigSnapshot update(Consumer<Batch> changes) {
+        return update(ConfigLayer.OVERRIDES, changes);
+    }
+    
+    /**
+     * Applies a batch of changes to one layer and publishes them as one snapshot.
+     * If any value changed, listeners are notified before this method returns.
+     * 
+     * @param layer The layer to change
+     * @param changes The changes to apply
+     * @return The published snapshot
+     * @throws IllegalArgumentException if the layer is the environment, or the changes leave a
+     *         registered key with an invalid value
+     */
+    public ConfigSnapshot update(ConfigLayer layer, Consumer<Batch> changes) {
+        if (layer == ConfigLayer.ENVIRONMENT) {
+            throw new IllegalArgumentException("The environment layer is read-only");
+        }
+        synchronized (writeLock) {
+            Batch batch = new Batch(snapshot.getLayer(layer));
+            changes.accept(batch);
+            return publish(layer, Map.copyOf(batch.values));
+        }
+    }
+    
+    /**
+     * Sets the default values, replacing any defaults set before.
+     * 
+     * @param defaults The default values
      * @return This configuration manager
      */
-    public ConfigManager loadFromEnvironment() {
-        System.getenv().forEach(configValues::put);
+    public ConfigManager setDefaults(Map<String, String> defaults) {
+        update(ConfigLayer.DEFAULTS, batch -> batch.clear().setAll(defaults));
+        return this;
+    }
+    
+    /**
+     * Uses a binary snapshot written by {@link CompiledConfig} as the default values,
+     * replacing any defaults set before. The snapshot is memory-mapped and read on demand
+     * rather than parsed, and the environment and overrides layers still take precedence.
+     * 
+     * @param file The compiled snapshot file
+     * @return This configuration manager
+     * @throws UncheckedIOException if the snapshot cannot be read
+     * @throws IllegalArgumentException if the defaults leave a registered key with an invalid value
+     */
+    public ConfigManager loadCompiledDefaults(Path file) {
+        Map<String, String> defaults;
+        try {
+            defaults = CompiledConfig.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load compiled configuration " + file, e);
+        }
+        synchronized (writeLock) {
+            publish(ConfigLayer.DEFAULTS, defaults);
+        }
+        return this;
+    }
+    
+    /**
+     * Uses a binary snapshot packaged as a class path resource as the default values,
+     * replacing any defaults set before. The resource is read into memory once, then read
+     * on demand like a mapped snapshot.
+     * 
+     * @param loader The class loader to find the resource with
+     * @param resource The resource name, such as {@code defaults.cfg}
+     * @return This configuration manager
+     * @throws UncheckedIOException if the resource cannot be found or read
+     * @throws IllegalArgumentException if the defaults leave a registered key with an invalid value
+     */
+    public ConfigManager loadCompiledDefaults(ClassLoader loader, String resource) {
+        Map<String, String> defaults;
+        try {
+            defaults = CompiledConfig.open(loader, resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load compiled configuration " + resource, e);
+        }
+        synchronized (writeLock) {
+            publish(ConfigLayer.DEFAULTS, defaults);
+        }
+        return this;
+    }
+    
+    private ConfigSnapshot publish(ConfigLayer layer, Map<String, String> values) {
+        ConfigSnapshot previous = snapshot;
+        List<Map<String, String>> layers = new ArrayList<>(previous.layers());
+        layers.set(layer.ordinal(), values);
+        return publish(previous, List.copyOf(layers));
+    }
+    
+    private ConfigSnapshot publish(ConfigSnapshot previous, List<Map<String, String>> layers) {
+        ConfigSnapshot next = new ConfigSnapshot(layers, previous.getVersion() + 1, previous.keys(), previous);
+        snapshot = next;
+        if (!listeners.isEmpty()) {
+            notifyListeners(previous, next);
+        }
+        return next;
+    }
+    
+    /**
+     * Adds a listener notified with the changed keys whenever a snapshot with different
+     * values is published. Listeners run on the writing thread, in publication order, and
+     * should hand slow work off to another thread.
+     * 
+     * @param listener The listener
+     * @return This configuration manager
+     */
+    public ConfigManager addListener(Consumer<ConfigChangeEvent> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
         return this;
     }
     
     /**
-     * Loads configuration from environment variables with a prefix.
+     * Removes a listener.
+     * 
+     * @param listener The listener
+     * @return true if the listener was registered
+     */
+    public boolean removeListener(Consumer<ConfigChangeEvent> listener) {
+        return listeners.remove(listener);
+    }
+    
+    private void notifyListeners(ConfigSnapshot previous, ConfigSnapshot next) {
+        ConfigChangeEvent event = ConfigChangeEvent.diff(previous, next);
+        if (event == null) {
+            return;
+        }
+        for (Consumer<ConfigChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Configuration listener failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Gets the current configuration snapshot.
+     * 
+     * @return The current snapshot
+     */
+    public ConfigSnapshot snapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Loads configuration from environment variables. Variables are not copied; each key
+     * is read from the environment when it is first looked up.
+     * 
+     * @return This configuration manager
+     */
+    public ConfigManager loadFromEnvironment() {
+        return loadFromEnvironment("");
+    }
+    
+    /**
+     * Loads configuration from environment variables with a prefix. Variables are not copied;
+     * each key is read from the environment when it is first looked up.
      * 
      * @param prefix The prefix to filter environment variables
      * @return This configuration manager
+     * @throws IllegalArgumentException if the prefix is null
      */
     public ConfigManager loadFromEnvironment(String prefix) {
-        System.getenv().forEach((key, value) -> {
-            if (key.startsWith(prefix)) {
-                configValues.put(key, value);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Environment prefix cannot be null");
+        }
+        synchronized (writeLock) {
+            Map<String, String> current = snapshot.getLayer(ConfigLayer.ENVIRONMENT);
+            EnvironmentView environment = current instanceof EnvironmentView view
+                    ? view.with(prefix) : new EnvironmentView(List.of(prefix));
+            if (environment != current) {
+                publish(ConfigLayer.ENVIRONMENT, environment);
             }
-        });
+        }
         return this;
     }
     
     /**
-     * Gets all configuration values.
+     * Gets all configuration values merged across layers, with placeholders resolved.
+     * The merged map is built once per snapshot and not copied on later calls.
      * 
      * @return An unmodifiable view of the configuration values
      */
     public Map<String, String> getAll() {
-        return Map.copyOf(configValues);
+        return snapshot.getAll();
+    }
+    
+    /**
+     * Creates a live view of the keys that start with a prefix. The view reads the current
+     * snapshot on every call, so it reflects later changes and reloads.
+     * 
+     * @param prefix The key prefix
+     * @return The scoped view
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public ConfigScope scope(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Scope prefix cannot be null");
+        }
+        return new ConfigScope(this, prefix);
     }
     
     /**
-     * Clears all configuration values.
+     * Clears all configuration values in every layer and stops reading the environment.
      */
     public void clear() {
-        configValues.clear();
+        synchronized (writeLock) {
+            publish(snapshot, ConfigSnapshot.emptyLayers());
+        }
+    }
+    
+    /**
+     * A set of changes applied together by {@link ConfigManager#update(Consumer)}.
+     */
+    public static final class Batch {
+        private final Map<String, String> values;
+        
+        private Batch(Map<String, String> current) {
+            this.values = new HashMap<>(current);
+        }
+        
+        /**
+         * Sets a configuration value.
+         * 
+         * @param key The configuration key
+         * @param value The configuration value, or null to remove the key
+         * @return This batch
+         * @throws IllegalArgumentException if the key is null
+         */
+        public Batch set(String key, String value) {
+            if (key == null) {
+                throw new IllegalArgumentException("Configuration key cannot be null");
+            }
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+            return this;
+        }
+        
+        /**
+         * Sets several configuration values.
+         * 
+         * @param entries The configuration values
+         * @return This batch
+         */
+        public Batch setAll(Map<String, String> entries) {
+            entries.forEach(this::set);
+            return this;
+        }
+        
+        /**
+         * Removes a configuration value.
+         * 
+         * @param key The configuration key
+         * @return This batch
+         */
+        public Batch remove(String key) {
+            values.remove(key);
+            return this;
+        }
+        
+        /**
+         * Removes all configuration values.
+         * 
+         * @return This batch
+         */
+        public Batch clear() {
+            values.clear();
+            return this;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Live view of the configuration keys that start with a prefix.
+ * 
+ * A scope holds no values of its own: every call reads the manager's current snapshot,
+ * so a scope created at startup keeps seeing reloaded values. Keys are found through the
+ * snapshot's sorted key index, so iterating a scope touches only its own keys and never
+ * copies the configuration. Keys are always the full configuration keys, prefix included.
+ */
+public final class ConfigScope {
+    
+    private final ConfigManager manager;
+    private final String prefix;
+    
+    ConfigScope(ConfigManager manager, String prefix) {
+        this.manager = manager;
+        this.prefix = prefix;
+    }
+    
+    /**
+     * Gets the prefix of this scope.
+     * 
+     * @return The key prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+    
+    /**
+     * Gets a configuration value in this scope.
+     * 
+     * @param key The full configuration key
+     * @return The configuration value, or empty if not found or outside this scope
+     */
+    public Optional<String> get(String key) {
+        return key.startsWith(prefix) ? Optional.ofNullable(manager.snapshot().get(key)) : Optional.empty();
+    }
+    
+    /**
+     * Gets a configuration value in this scope with a default.
+     * 
+     * @param key The full configuration key
+     * @param defaultValue The default value to return if the key is not found
+     * @return The configuration value, or the default if not found or outside this scope
+     */
+    public String getOrDefault(String key, String defaultValue) {
+        String value = key.startsWith(prefix) ? manager.snapshot().get(key) : null;
+        return value != null ? value : defaultValue;
+    }
+    
+    /**
+     * Gets the keys in this scope, in sorted order, from the current snapshot.
+     * 
+     * @return An unmodifiable list of the keys
+     */
+    public List<String> keys() {
+        return manager.snapshot().keys(prefix);
+    }
+    
+    /**
+     * Gets the number of keys in this scope.
+     * 
+     * @return The number of keys
+     */
+    public int size() {
+        return keys().size();
+    }
+    
+    /**
+     * Passes every key in this scope and its value to an action, in sorted order.
+     * All values are read from one snapshot.
+     * 
+     * @param action The action
+     */
+    public void forEach(BiConsumer<String, String> action) {
+        ConfigSnapshot current = manager.snapshot();
+        List<String> keys = current.keys(prefix);
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            action.accept(key, current.get(key));
+        }
+    }
+    
+    /**
+     * Creates a narrower scope within this one.
+     * 
+     * @param prefix The prefix appended to this scope's prefix
+     * @return The narrower scope
+     */
+    public ConfigScope scope(String prefix) {
+        return manager.scope(this.prefix + prefix);
+    }
+    
+    @Override
+    public String toString() {
+        return "ConfigScope[" + prefix + "]";
+    }
+}
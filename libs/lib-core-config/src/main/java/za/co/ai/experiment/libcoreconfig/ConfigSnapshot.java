@@ -0,0 +1,324 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable point-in-time view of the configuration.
+ * 
+ * A snapshot is never modified after it is published, so it can be read from any
+ * thread without locks. Callers that need several values to be consistent with each
+ * other should read them all from one snapshot.
+ * 
+ * A snapshot holds one map per {@link ConfigLayer}, and a lookup returns the value from
+ * the highest layer that sets the key. Values may refer to other keys as
+ * {@code ${other.key}}, or {@code ${other.key:fallback}} for a fallback used when the
+ * other key is not set. Placeholders are resolved when a value is first read, and the
+ * result is memoized for the life of the snapshot. A placeholder naming an unset key
+ * with no fallback is left as written.
+ */
+public final class ConfigSnapshot {
+    
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(emptyLayers(), 0, List.of(), null);
+    
+    /** Marks a registered key whose parsed value is null, as distinct from an unregistered key. */
+    private static final Object NULL_VALUE = new Object();
+    
+    private final List<Map<String, String>> layers;
+    private final long version;
+    private final List<ConfigKey<?>> keys;
+    private final Object[] typed;
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Set<String>> placeholders;
+    private volatile Map<String, String> all;
+    private volatile List<String> sortedKeys;
+    
+    /**
+     * Creates a snapshot, parsing the value of every registered key.
+     * 
+     * @param layers The immutable values of each layer, indexed by {@link ConfigLayer#ordinal()}
+     * @param version The snapshot version
+     * @param keys The registered typed keys
+     * @param previous The snapshot this one replaces, whose per-layer indexes are kept for
+     *        the layers the two share, or null
+     * @throws IllegalArgumentException if a value is not valid for its registered key
+     */
+    ConfigSnapshot(List<Map<String, String>> layers, long version, List<ConfigKey<?>> keys,
+            ConfigSnapshot previous) {
+        this.layers = layers;
+        this.version = version;
+        this.keys = keys;
+        this.placeholders = new AtomicReferenceArray<>(layers.size());
+        if (previous != null) {
+            for (int i = 0; i < layers.size(); i++) {
+                if (layers.get(i) == previous.layers.get(i)) {
+                    placeholders.set(i, previous.placeholders.get(i));
+                }
+            }
+        }
+        int size = 0;
+        for (ConfigKey<?> key : keys) {
+            size = Math.max(size, key.index() + 1);
+        }
+        this.typed = new Object[size];
+        for (ConfigKey<?> key : keys) {
+            Object value = key.parse(get(key.getName()));
+            typed[key.index()] = value != null ? value : NULL_VALUE;
+        }
+    }
+    
+    static List<Map<String, String>> emptyLayers() {
+        List<Map<String, String>> layers = new ArrayList<>();
+        for (int i = 0; i < ConfigLayer.values().length; i++) {
+            layers.add(Map.of());
+        }
+        return List.copyOf(layers);
+    }
+    
+    /**
+     * Gets the parsed value of a typed key. Registered keys are read from an array
+     * without parsing; other keys are parsed on every call.
+     * 
+     * @param key The typed key
+     * @param <T> The value type
+     * @return The parsed value, or the key's default if the key is not set
+     * @throws IllegalArgumentException if the value is not valid for an unregistered key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ConfigKey<T> key) {
+        Object value = typed(key);
+        if (value == null) {
+            return key.parse(get(key.getName()));
+        }
+        return value == NULL_VALUE ? null : (T) value;
+    }
+    
+    /**
+     * Gets the parsed value slot of a key.
+     * 
+     * @param key The typed key
+     * @return The parsed value, the null marker, or null if the key is not registered
+     */
+    Object typed(ConfigKey<?> key) {
+        int index = key.index();
+        return index < typed.length ? typed[index] : null;
+    }
+    
+    static Object unwrap(Object value) {
+        return value == NULL_VALUE ? null : value;
+    }
+    
+    List<ConfigKey<?>> keys() {
+        return keys;
+    }
+    
+    List<Map<String, String>> layers() {
+        return layers;
+    }
+    
+    /**
+     * Gets the keys of a layer whose values hold placeholders. The layer is scanned on
+     * first use, and later snapshots sharing the layer keep the result, so a layer is
+     * scanned once however many changes are published over it. A compiled snapshot is
+     * scanned without decoding its values.
+     * 
+     * @param layer The layer index, {@link ConfigLayer#ordinal()}
+     * @return An unmodifiable set of the keys
+     */
+    Set<String> placeholderKeys(int layer) {
+        Set<String> result = placeholders.get(layer);
+        if (result == null) {
+            Map<String, String> values = layers.get(layer);
+            result = CompiledConfig.placeholderKeys(values);
+            if (result == null) {
+                Set<String> found = new HashSet<>();
+                values.forEach((key, value) -> {
+                    if (value.contains("${")) {
+                        found.add(key);
+                    }
+                });
+                result = Set.copyOf(found);
+            }
+            placeholders.set(layer, result);
+        }
+        return result;
+    }
+    
+    /**
+     * Gets a configuration value from the highest layer that sets it, with placeholders resolved.
+     * 
+     * @param key The configuration key
+     * @return The configuration value, or null if not found
+     * @throws IllegalArgumentException if the value's placeholders refer back to the key
+     */
+    public String get(String key) {
+        String value = raw(key);
+        if (value == null || value.indexOf("${") < 0) {
+            return value;
+        }
+        String memo = resolved.get(key);
+        return memo != null ? memo : resolve(key, value, new ArrayDeque<>());
+    }
+    
+    /**
+     * Gets the values set in one layer, without placeholders resolved.
+     * 
+     * @param layer The layer
+     * @return An unmodifiable map of the layer's values
+     */
+    public Map<String, String> getLayer(ConfigLayer layer) {
+        return layers.get(layer.ordinal());
+    }
+    
+    /**
+     * Gets all configuration values merged across layers, with placeholders resolved.
+     * The merged map is built on first use and then reused for the life of the snapshot.
+     * When the environment layer is loaded, this reads every matching environment variable.
+     * 
+     * @return An unmodifiable map of the configuration values
+     * @throws IllegalArgumentException if placeholders refer to each other in a cycle
+     */
+    public Map<String, String> getAll() {
+        Map<String, String> result = all;
+        if (result == null) {
+            Map<String, String> merged = new HashMap<>();
+            for (Map<String, String> layer : layers) {
+                merged.putAll(layer);
+            }
+            merged.replaceAll((key, value) -> get(key));
+            result = Map.copyOf(merged);
+            all = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the keys that start with a prefix, in sorted order. The keys of all layers are
+     * sorted into an index on first use, and each call returns a range of that index
+     * without copying.
+     * 
+     * @param prefix The key prefix; the empty prefix matches every key
+     * @return An unmodifiable list of the matching keys
+     */
+    public List<String> keys(String prefix) {
+        List<String> index = sortedKeys();
+        int from = lowerBound(index, prefix);
+        // Keys with the prefix sort together, right after the prefix itself
+        int low = from;
+        int high = index.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.get(middle).startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return index.subList(from, low);
+    }
+    
+    private List<String> sortedKeys() {
+        List<String> result = sortedKeys;
+        if (result == null) {
+            Set<String> names = new HashSet<>();
+            for (Map<String, String> layer : layers) {
+                names.addAll(layer.keySet());
+            }
+            String[] sorted = names.toArray(new String[0]);
+            Arrays.sort(sorted);
+            result = Collections.unmodifiableList(Arrays.asList(sorted));
+            sortedKeys = result;
+        }
+        return result;
+    }
+    
+    private static int lowerBound(List<String> index, String key) {
+        int low = 0;
+        int high = index.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.get(middle).compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Gets a configuration value from the highest layer that sets it, without placeholders resolved.
+     * 
+     * @param key The configuration key
+     * @return The raw configuration value, or null if not found
+     */
+    String raw(String key) {
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            String value = layers.get(i).get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+    
+    private String resolve(String key, String value, Deque<String> resolving) {
+        if (resolving.contains(key)) {
+            resolving.addLast(key);
+            throw new IllegalArgumentException("Circular configuration reference: " + String.join(" -> ", resolving));
+        }
+        resolving.addLast(key);
+        StringBuilder result = new StringBuilder(value.length());
+        int position = 0;
+        int start;
+        while ((start = value.indexOf("${", position)) >= 0) {
+            int end = value.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            result.append(value, position, start);
+            String reference = value.substring(start + 2, end);
+            int colon = reference.indexOf(':');
+            String name = colon < 0 ? reference : reference.substring(0, colon);
+            String replacement = lookup(name, resolving);
+            if (replacement == null && colon >= 0) {
+                replacement = reference.substring(colon + 1);
+            }
+            result.append(replacement != null ? replacement : value.substring(start, end + 1));
+            position = end + 1;
+        }
+        result.append(value, position, value.length());
+        resolving.removeLast();
+        String text = result.toString();
+        String existing = resolved.putIfAbsent(key, text);
+        return existing != null ? existing : text;
+    }
+    
+    private String lookup(String name, Deque<String> resolving) {
+        String value = raw(name);
+        if (value == null || value.indexOf("${") < 0) {
+            return value;
+        }
+        String memo = resolved.get(name);
+        return memo != null ? memo : resolve(name, value, resolving);
+    }
+    
+    /**
+     * Gets the snapshot version, which increases with every published change.
+     * 
+     * @return The snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
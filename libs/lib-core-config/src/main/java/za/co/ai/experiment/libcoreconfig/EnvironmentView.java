@@ -0,0 +1,118 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-only view of the environment variables matching a set of prefixes.
+ * 
+ * The first lookup of a key goes to {@link System#getenv(String)}, so only keys that are
+ * read are touched. The result, including a missing variable, is memoized for the life
+ * of the view, since the process environment does not change; later lookups of the key,
+ * such as reads of lower layers that pass through this one, do not allocate. The
+ * matching variables are only enumerated, once, if the whole view is iterated.
+ */
+final class EnvironmentView extends AbstractMap<String, String> {
+    
+    /** Marks a variable that is not set, compared by identity. */
+    private static final String MISSING = new String();
+    
+    private final List<String> prefixes;
+    private final Map<String, String> looked;
+    private volatile Set<Entry<String, String>> entries;
+    
+    EnvironmentView(List<String> prefixes) {
+        this(prefixes, new ConcurrentHashMap<>());
+    }
+    
+    private EnvironmentView(List<String> prefixes, Map<String, String> looked) {
+        this.prefixes = prefixes;
+        this.looked = looked;
+    }
+    
+    /**
+     * Creates a view that also matches another prefix, sharing the variables already
+     * looked up.
+     * 
+     * @param prefix The prefix to add; the empty prefix matches every variable
+     * @return The new view
+     */
+    EnvironmentView with(String prefix) {
+        if (prefixes.contains(prefix)) {
+            return this;
+        }
+        List<String> next = new ArrayList<>(prefixes);
+        next.add(prefix);
+        return new EnvironmentView(List.copyOf(next), looked);
+    }
+    
+    /**
+     * Gets the names of the variables this view matches that an earlier view of the
+     * environment did not, reading only the names.
+     * 
+     * @param earlier The earlier view, or an empty map if the environment was not loaded
+     * @return The added variable names
+     */
+    Set<String> namesAddedTo(Map<String, String> earlier) {
+        List<String> before = earlier instanceof EnvironmentView view ? view.prefixes : List.of();
+        Set<String> added = new HashSet<>();
+        for (String name : System.getenv().keySet()) {
+            if (matches(name, prefixes) && !matches(name, before)) {
+                added.add(name);
+            }
+        }
+        return added;
+    }
+    
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String name) || !matches(name, prefixes)) {
+            return null;
+        }
+        String value = looked.get(name);
+        if (value == null) {
+            value = System.getenv(name);
+            if (value == null) {
+                value = MISSING;
+            }
+            looked.put(name, value);
+        }
+        return value == MISSING ? null : value;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+    
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        Set<Entry<String, String>> result = entries;
+        if (result == null) {
+            Map<String, String> matching = new HashMap<>();
+            System.getenv().forEach((name, value) -> {
+                if (matches(name, prefixes)) {
+                    matching.put(name, value);
+                }
+            });
+            result = Map.copyOf(matching).entrySet();
+            entries = result;
+        }
+        return result;
+    }
+    
+    private static boolean matches(String name, List<String> prefixes) {
+        for (int i = 0; i < prefixes.size(); i++) {
+            if (name.startsWith(prefixes.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
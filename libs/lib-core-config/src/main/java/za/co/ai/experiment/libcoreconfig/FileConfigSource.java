@@ -0,0 +1,231 @@
+package za.co.ai.experiment.libcoreconfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads a properties file into the {@link ConfigLayer#FILE} layer of a {@link ConfigManager}
+ * and reloads it when it changes.
+ * 
+ * The file's directory is watched with a {@link WatchService}. A burst of changes, such
+ * as an editor writing a file in several steps, is debounced into one reload once the
+ * directory has been quiet for the debounce interval. Each reload publishes the file's
+ * contents as one snapshot, removing keys that were dropped from the file, so listeners
+ * see a single {@link ConfigChangeEvent} naming only the keys that changed. A reload that
+ * finds the file unchanged publishes nothing.
+ * 
+ * Any event in the directory triggers a reload check rather than only events naming the
+ * file, since a Kubernetes ConfigMap volume updates files by swapping a symlinked
+ * directory. If the file cannot be read or leaves a registered key with an invalid value,
+ * the reload is logged and the current values stay in place.
+ */
+public final class FileConfigSource implements AutoCloseable {
+    
+    private static final Logger LOGGER = Logger.getLogger(FileConfigSource.class.getName());
+    
+    private final Path file;
+    private final long debounceMillis;
+    private final AtomicLong reloads = new AtomicLong();
+    private ConfigManager manager;
+    private Map<String, String> loaded = Map.of();
+    private WatchService watchService;
+    private Thread watcher;
+    
+    private FileConfigSource(Builder builder) {
+        this.file = builder.file.toAbsolutePath();
+        this.debounceMillis = builder.debounce.toMillis();
+    }
+    
+    /**
+     * Creates a new file configuration source builder.
+     * 
+     * @param file The properties file
+     * @return A new file configuration source builder
+     * @throws IllegalArgumentException if the file is null
+     */
+    public static Builder builder(Path file) {
+        return new Builder(file);
+    }
+    
+    /**
+     * Loads the file into a configuration manager and starts watching it for changes.
+     * 
+     * @param manager The configuration manager to publish to
+     * @return This source
+     * @throws IllegalStateException if the source has already been started
+     * @throws UncheckedIOException if the file cannot be read or watched
+     * @throws IllegalArgumentException if the file leaves a registered key with an invalid value
+     */
+    public synchronized FileConfigSource start(ConfigManager manager) {
+        if (this.manager != null) {
+            throw new IllegalStateException("File configuration source already started");
+        }
+        this.manager = manager;
+        try {
+            publish(read());
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load configuration file " + file, e);
+        }
+        watcher = new Thread(this::watch, "config-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return this;
+    }
+    
+    /**
+     * Reloads the file now, publishing its contents if they changed.
+     * 
+     * @return true if a new snapshot was published
+     * @throws IllegalStateException if the source has not been started
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file leaves a registered key with an invalid value
+     */
+    public synchronized boolean reload() {
+        if (manager == null) {
+            throw new IllegalStateException("File configuration source not started");
+        }
+        try {
+            return publish(read());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reload configuration file " + file, e);
+        }
+    }
+    
+    /**
+     * Gets the number of reloads that published a new snapshot, including the initial load.
+     * 
+     * @return The reload count
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+    
+    /**
+     * Stops watching the file. Values already published stay in place.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close the configuration file watch", e);
+            }
+        }
+    }
+    
+    private void watch() {
+        try {
+            while (true) {
+                drain(watchService.take());
+                // Wait for the directory to go quiet before reloading
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key);
+                }
+                try {
+                    reload();
+                } catch (UncheckedIOException | IllegalArgumentException e) {
+                    LOGGER.log(Level.WARNING, "Keeping current configuration; reload of " + file + " failed", e);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static void drain(WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+    
+    private Map<String, String> read() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name));
+        }
+        return values;
+    }
+    
+    private boolean publish(Map<String, String> values) {
+        if (values.equals(loaded)) {
+            return false;
+        }
+        Map<String, String> previous = loaded;
+        manager.update(ConfigLayer.FILE, batch -> {
+            for (String key : previous.keySet()) {
+                if (!values.containsKey(key)) {
+                    batch.remove(key);
+                }
+            }
+            batch.setAll(values);
+        });
+        loaded = values;
+        reloads.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Builder for FileConfigSource.
+     */
+    public static class Builder {
+        private final Path file;
+        private Duration debounce = Duration.ofMillis(250);
+        
+        private Builder(Path file) {
+            if (file == null) {
+                throw new IllegalArgumentException("Configuration file cannot be null");
+            }
+            this.file = file;
+        }
+        
+        /**
+         * Sets how long the file's directory must be quiet before a change is reloaded.
+         * 
+         * @param debounce The debounce interval
+         * @return This builder
+         * @throws IllegalArgumentException if the interval is null or negative
+         */
+        public Builder debounce(Duration debounce) {
+            if (debounce == null || debounce.isNegative()) {
+                throw new IllegalArgumentException("Debounce interval cannot be null or negative");
+            }
+            this.debounce = debounce;
+            return this;
+        }
+        
+        /**
+         * Builds the FileConfigSource.
+         * 
+         * @return The built FileConfigSource
+         */
+        public FileConfigSource build() {
+            return new FileConfigSource(this);
+        }
+    }
+}
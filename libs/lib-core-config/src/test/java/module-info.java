@@ -6,12 +6,13 @@
 module za.co.ai.experiment.libcoreconfig.tests {
     // Required dependencies
     requires za.co.ai.experiment.libcoreconfig;
-
+    
     // Test dependencies
     requires org.junit.jupiter.api;
     requires org.junit.platform.commons;
     requires org.assertj.core;
-
+    requires jmh.core;
+    
     // Export test package to JUnit platform
     exports za.co.ai.experiment.libcoreconfig.tests to org.junit.platform.commons;
     opens za.co.ai.experiment.libcoreconfig.tests to org.junit.platform.commons;
@@ -0,0 +1,151 @@
+package za.co.ai.experiment.libcoreconfig.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreconfig.CompiledConfig;
+import za.co.ai.experiment.libcoreconfig.ConfigChangeEvent;
+import za.co.ai.experiment.libcoreconfig.ConfigKey;
+import za.co.ai.experiment.libcoreconfig.ConfigLayer;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CompiledConfig class.
+ */
+public class CompiledConfigTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("A compiled snapshot should return every value it was compiled from")
+    void testRoundTrip() throws IOException {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            values.put("KEY_" + i, "value-" + i);
+        }
+        values.put("currency.symbol.€", "euro");
+        values.put("currency.symbol.R", "rand");
+        values.put("greeting", "héllo wörld");
+        values.put("empty", "");
+        Path file = directory.resolve("defaults.cfg");
+        
+        CompiledConfig.compile(values, file);
+        Map<String, String> compiled = CompiledConfig.open(file);
+        
+        assertEquals(values.size(), compiled.size(), "Every entry should be compiled");
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            assertEquals(entry.getValue(), compiled.get(entry.getKey()), "Value for " + entry.getKey());
+        }
+        assertNull(compiled.get("KEY_500"), "Missing keys should not be found");
+        assertNull(compiled.get("currency.symbol.$"), "Missing non-ASCII keys should not be found");
+        assertFalse(compiled.containsKey(42), "Non-string keys should not be found");
+        assertEquals(values, Map.copyOf(compiled), "Iteration should return every entry");
+        assertThrows(UnsupportedOperationException.class, () -> compiled.put("x", "y"), "Snapshots are read-only");
+    }
+    
+    @Test
+    @DisplayName("Files that are not compiled snapshots should be rejected")
+    void testRejectsOtherFiles() throws IOException {
+        Path file = Files.writeString(directory.resolve("defaults.properties"), "KEY=value\n");
+        assertThrows(IOException.class, () -> CompiledConfig.open(file), "Text files should be rejected");
+        assertThrows(UncheckedIOException.class, () -> new ConfigManager().loadCompiledDefaults(file),
+                "ConfigManager should report unreadable snapshots");
+    }
+    
+    @Test
+    @DisplayName("Truncated or corrupt snapshots should be rejected when opened")
+    void testRejectsCorruptSnapshots() throws IOException {
+        Path file = directory.resolve("defaults.cfg");
+        CompiledConfig.compile(Map.of("a", "1", "b", "2", "name", "ai-app"), file);
+        byte[] bytes = Files.readAllBytes(file);
+        
+        Path truncated = Files.write(directory.resolve("truncated.cfg"), Arrays.copyOf(bytes, bytes.length - 3));
+        IOException e = assertThrows(IOException.class, () -> CompiledConfig.open(truncated), "Truncated snapshots");
+        assertTrue(e.getMessage().startsWith("Corrupt compiled configuration snapshot"), "Message: " + e.getMessage());
+        
+        byte[] badOffset = bytes.clone();
+        ByteBuffer.wrap(badOffset).putInt(12, bytes.length);
+        Path offset = Files.write(directory.resolve("offset.cfg"), badOffset);
+        assertThrows(IOException.class, () -> CompiledConfig.open(offset), "Offsets past the end of the file");
+        
+        byte[] badLength = bytes.clone();
+        ByteBuffer wrapped = ByteBuffer.wrap(badLength);
+        wrapped.putInt(wrapped.getInt(8), Integer.MAX_VALUE);
+        Path length = Files.write(directory.resolve("length.cfg"), badLength);
+        assertThrows(IOException.class, () -> CompiledConfig.open(length), "Lengths past the end of the file");
+    }
+    
+    @Test
+    @DisplayName("Snapshots packaged as class path resources should be loadable")
+    void testClassPathResource() throws IOException {
+        CompiledConfig.compile(Map.of("pool.size", "4", "name", "ai-app"), directory.resolve("config/defaults.cfg"));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, null)) {
+            ConfigManager configManager = new ConfigManager().loadCompiledDefaults(loader, "config/defaults.cfg");
+            assertEquals("ai-app", configManager.getOrDefault("name", null), "Resource defaults should be read");
+            assertEquals(4, configManager.get(ConfigKey.intKey("pool.size", 1)), "Typed keys should read defaults");
+            assertThrows(UncheckedIOException.class,
+                    () -> new ConfigManager().loadCompiledDefaults(loader, "config/missing.cfg"),
+                    "Missing resources should be reported");
+        }
+    }
+    
+    @Test
+    @DisplayName("Compiled defaults should sit below the environment and overrides")
+    void testCompiledDefaults() throws IOException {
+        Path properties = Files.writeString(directory.resolve("defaults.properties"),
+                "pool.size=4\nname=ai-app\norigins=https://a.test,https://b.test\n");
+        Path file = directory.resolve("out/defaults.cfg");
+        CompiledConfig.main(new String[] {properties.toString(), file.toString()});
+        
+        ConfigManager configManager = new ConfigManager().loadCompiledDefaults(file);
+        configManager.set("name", "override");
+        
+        assertEquals(4, configManager.get(ConfigKey.intKey("pool.size", 1)), "Typed keys should read defaults");
+        assertEquals(List.of("https://a.test", "https://b.test"),
+                configManager.get(ConfigKey.listKey("origins", List.of())), "List defaults should parse");
+        assertEquals("override", configManager.getOrDefault("name", null), "Overrides should win");
+        assertEquals("ai-app", configManager.snapshot().getLayer(ConfigLayer.DEFAULTS).get("name"),
+                "The defaults layer should keep the compiled value");
+        assertEquals(List.of("name", "origins", "pool.size"), configManager.scope("").keys(),
+                "Compiled keys should be indexed");
+    }
+    
+    @Test
+    @DisplayName("Listeners should see placeholders in compiled defaults and new environment variables")
+    void testCompiledDefaultsChanges() throws IOException {
+        Path file = directory.resolve("defaults.cfg");
+        CompiledConfig.compile(Map.of("host", "a.test", "url", "https://${host}/api", "name", "ai-app"), file);
+        ConfigManager configManager = new ConfigManager().loadCompiledDefaults(file);
+        List<ConfigChangeEvent> events = new ArrayList<>();
+        configManager.addListener(events::add);
+        
+        configManager.set("host", "b.test");
+        configManager.set("other", "1");
+        assertEquals(Set.of("host", "url"), events.get(0).getChangedKeys(),
+                "Compiled values with placeholders should be reported");
+        assertEquals(Set.of("other"), events.get(1).getChangedKeys(), "Only the changed key should be reported");
+        
+        String name = System.getenv().keySet().iterator().next();
+        configManager.loadFromEnvironment(name);
+        assertTrue(events.get(2).isChanged(name), "Newly matched variables should be reported");
+        configManager.loadFromEnvironment(name);
+        assertEquals(3, events.size(), "Loading the same prefix again should not notify");
+    }
+}
@@ -0,0 +1,86 @@
+package za.co.ai.experiment.libcoreconfig.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreconfig.ConfigKey;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ConfigKey class.
+ */
+public class ConfigKeyTest {
+    
+    private static final ConfigKey<Integer> PORT = ConfigKey.intKey("PORT", 8080);
+    private static final ConfigKey<Long> MAX_BYTES = ConfigKey.longKey("MAX_BYTES", 1024L);
+    private static final ConfigKey<Boolean> NATIVE = ConfigKey.booleanKey("NATIVE", false);
+    private static final ConfigKey<Duration> TIMEOUT = ConfigKey.durationKey("TIMEOUT", Duration.ofSeconds(5));
+    private static final ConfigKey<TimeUnit> UNIT = ConfigKey.enumKey("UNIT", TimeUnit.class, TimeUnit.SECONDS);
+    private static final ConfigKey<List<String>> ORIGINS = ConfigKey.listKey("ORIGINS", List.of());
+    private static final ConfigKey<String> NAME = ConfigKey.stringKey("NAME", null);
+    
+    @Test
+    @DisplayName("Typed keys should parse their values")
+    void testTypedValues() {
+        ConfigManager configManager = new ConfigManager(Map.of(
+                "PORT", " 9090 ",
+                "MAX_BYTES", "10000000000",
+                "NATIVE", "TRUE",
+                "TIMEOUT", "250ms",
+                "UNIT", "milliseconds",
+                "ORIGINS", "https://a.test, ,https://b.test",
+                "NAME", ""));
+        
+        assertEquals(9090, configManager.get(PORT), "Int should be parsed");
+        assertEquals(10_000_000_000L, configManager.get(MAX_BYTES), "Long should be parsed");
+        assertTrue(configManager.get(NATIVE), "Boolean should be parsed");
+        assertEquals(Duration.ofMillis(250), configManager.get(TIMEOUT), "Duration should be parsed");
+        assertEquals(TimeUnit.MILLISECONDS, configManager.get(UNIT), "Enum should be parsed");
+        assertEquals(List.of("https://a.test", "https://b.test"), configManager.get(ORIGINS), "List should be parsed");
+        assertEquals("", configManager.get(NAME), "Blank strings should be kept");
+    }
+    
+    @Test
+    @DisplayName("Typed keys should fall back to defaults when unset or blank")
+    void testDefaults() {
+        ConfigManager configManager = new ConfigManager(Map.of("PORT", " "));
+        
+        assertEquals(8080, configManager.get(PORT), "Blank int should use the default");
+        assertEquals(Duration.ofSeconds(5), configManager.get(TIMEOUT), "Unset duration should use the default");
+        assertNull(configManager.get(NAME), "Null defaults should be returned");
+        assertEquals(Duration.ofMinutes(2), ConfigKey.durationKey("X", null).parse("PT2M"), "ISO durations should parse");
+    }
+    
+    @Test
+    @DisplayName("Parsed values should be reused until the snapshot changes")
+    void testParsedOncePerSnapshot() {
+        ConfigManager configManager = new ConfigManager(Map.of("TIMEOUT", "30s"));
+        Duration first = configManager.get(TIMEOUT);
+        
+        assertSame(first, configManager.get(TIMEOUT), "Reads should return the parsed instance");
+        configManager.set("TIMEOUT", "45s");
+        assertEquals(Duration.ofSeconds(45), configManager.get(TIMEOUT), "A new snapshot should be parsed again");
+    }
+    
+    @Test
+    @DisplayName("Invalid values should be rejected when registered or written")
+    void testValidation() {
+        ConfigManager configManager = new ConfigManager(Map.of("NATIVE", "yes"));
+        assertThrows(IllegalArgumentException.class, () -> configManager.register(NATIVE), "Invalid boolean");
+        assertThrows(IllegalArgumentException.class, () -> configManager.get(NATIVE), "Invalid boolean on read");
+        
+        configManager.register(PORT, UNIT);
+        long version = configManager.snapshot().getVersion();
+        assertThrows(IllegalArgumentException.class, () -> configManager.set("PORT", "http"), "Invalid int");
+        assertThrows(IllegalArgumentException.class, () -> configManager.set("UNIT", "fortnights"), "Invalid enum");
+        assertEquals(version, configManager.snapshot().getVersion(), "Rejected writes should not publish");
+        assertEquals(8080, configManager.get(PORT), "The previous value should remain");
+        assertThrows(IllegalArgumentException.class, () -> TIMEOUT.parse("soon"), "Invalid duration");
+    }
+}
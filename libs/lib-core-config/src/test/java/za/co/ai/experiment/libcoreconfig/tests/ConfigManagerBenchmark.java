@@ -0,0 +1,74 @@
+package za.co.ai.experiment.libcoreconfig.tests;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures read throughput of the snapshot-based ConfigManager against a
+ * synchronized map, which is what making the old HashMap thread-safe would cost.
+ * 
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main ConfigManagerBenchmark -t 1 -prof gc}
+ * and again with more threads ({@code -t 2}, {@code -t 4}, ...) to compare reader scaling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigManagerBenchmark {
+    
+    private ConfigManager configManager;
+    private Map<String, String> synchronizedMap;
+    private int counter;
+    
+    @Setup
+    public void setUp() {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < 64; i++) {
+            values.put("KEY_" + i, "value-" + i);
+        }
+        configManager = new ConfigManager(values);
+        synchronizedMap = Collections.synchronizedMap(new HashMap<>(values));
+    }
+    
+    @Benchmark
+    public String snapshotRead() {
+        return configManager.getOrDefault("KEY_42", "default");
+    }
+    
+    @Benchmark
+    public String synchronizedMapRead() {
+        return synchronizedMap.getOrDefault("KEY_42", "default");
+    }
+    
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(3)
+    public String reader() {
+        return configManager.getOrDefault("KEY_42", "default");
+    }
+    
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public void writer() {
+        configManager.set("KEY_7", Integer.toString(counter++));
+    }
+}
@@ -2,11 +2,22 @@ package za.co.ai.experiment.libcoreconfig.tests;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreconfig.ConfigChangeEvent;
+import za.co.ai.experiment.libcoreconfig.ConfigLayer;
 import za.co.ai.experiment.libcoreconfig.ConfigManager;
+import za.co.ai.experiment.libcoreconfig.ConfigSnapshot;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,4 +123,161 @@ public class ConfigManagerTest {
         
         assertTrue(configManager.getAll().isEmpty(), "Config should be empty after clear");
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("update should publish a batch of changes as one snapshot")
+    void testUpdateBatch() {
+        ConfigManager configManager = new ConfigManager(Map.of("keep", "1", "drop", "2"));
+        ConfigSnapshot before = configManager.snapshot();
+        
+        ConfigSnapshot after = configManager.update(batch -> batch.set("a", "x").set("b", "y").remove("drop"));
+        
+        assertSame(after, configManager.snapshot(), "The published snapshot should be current");
+        assertEquals(before.getVersion() + 1, after.getVersion(), "A batch should publish exactly one version");
+        assertEquals(Map.of("keep", "1", "a", "x", "b", "y"), configManager.getAll(), "All changes should apply");
+        assertEquals(Map.of("keep", "1", "drop", "2"), before.getAll(), "Earlier snapshots should not change");
+    }
+    
+    @Test
+    @DisplayName("getAll should return the snapshot without copying")
+    void testGetAllDoesNotCopy() {
+        ConfigManager configManager = new ConfigManager(Map.of("key", "value"));
+        assertSame(configManager.getAll(), configManager.getAll(), "getAll should return the snapshot map");
+        assertThrows(UnsupportedOperationException.class, () -> configManager.getAll().put("x", "y"),
+                "The snapshot map should be unmodifiable");
+    }
+    
+    @Test
+    @DisplayName("set with a null value should remove the key")
+    void testSetNullRemoves() {
+        ConfigManager configManager = new ConfigManager(Map.of("key", "value"));
+        configManager.set("key", null);
+        assertTrue(configManager.get("key").isEmpty(), "Key should be removed");
+    }
+    
+    @Test
+    @DisplayName("Readers should always see a complete batch while writers run concurrently")
+    void testConcurrentReadersSeeConsistentSnapshots() throws Exception {
+        ConfigManager configManager = new ConfigManager(Map.of("left", "0", "right", "0"));
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    ConfigSnapshot snapshot = configManager.snapshot();
+                    if (!snapshot.get("left").equals(snapshot.get("right"))) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        Future<?> writer = pool.submit(() -> {
+            start.await();
+            for (int i = 1; i <= 2_000; i++) {
+                String value = Integer.toString(i);
+                configManager.update(batch -> batch.set("left", value).set("right", value));
+            }
+            return null;
+        });
+        start.countDown();
+        writer.get();
+        for (Future<Boolean> reader : readers) {
+            assertTrue(reader.get(), "Readers should never see half of a batch");
+        }
+        pool.shutdown();
+        assertEquals("2000", configManager.getOrDefault("left", null), "The last batch should win");
+    }
+    
+    @Test
+    @DisplayName("Listeners should receive only the keys that changed")
+    void testListenersReceiveChangedKeys() {
+        ConfigManager configManager = new ConfigManager(Map.of("a", "1", "b", "2", "c", "3"));
+        List<ConfigChangeEvent> events = new ArrayList<>();
+        Consumer<ConfigChangeEvent> listener = events::add;
+        configManager.addListener(listener);
+        configManager.addListener(event -> {
+            throw new IllegalStateException("Broken listener");
+        });
+        
+        configManager.update(batch -> batch.set("a", "1").set("b", "20").remove("c").set("d", "4"));
+        configManager.set("a", "1");
+        
+        assertEquals(1, events.size(), "Unchanged values should not notify listeners");
+        ConfigChangeEvent event = events.get(0);
+        assertEquals(Set.of("b", "c", "d"), event.getChangedKeys(), "Changed, removed and added keys");
+        assertFalse(event.isChanged("a"), "Rewritten equal value should not be reported");
+        assertEquals("2", event.getPrevious().get("b"), "Previous snapshot should hold the old value");
+        assertEquals("20", event.getCurrent().get("b"), "Current snapshot should hold the new value");
+        
+        assertTrue(configManager.removeListener(listener), "The listener should be removed");
+        configManager.set("a", "10");
+        assertEquals(1, events.size(), "Removed listeners should not be notified");
+    }
+    
+    @Test
+    @DisplayName("Later layers should take precedence over earlier ones")
+    void testLayerPrecedence() {
+        ConfigManager configManager = new ConfigManager()
+                .setDefaults(Map.of("pool.size", "4", "name", "default", "region", "af-south-1"));
+        configManager.update(ConfigLayer.FILE, batch -> batch.set("pool.size", "8").set("name", "file"));
+        configManager.set("name", "override");
+        
+        assertEquals("af-south-1", configManager.getOrDefault("region", null), "Defaults should apply");
+        assertEquals("8", configManager.getOrDefault("pool.size", null), "The file should override defaults");
+        assertEquals("override", configManager.getOrDefault("name", null), "Overrides should win");
+        assertEquals(Map.of("name", "override"), configManager.snapshot().getLayer(ConfigLayer.OVERRIDES),
+                "Each layer should keep its own values");
+        
+        configManager.set("name", null);
+        assertEquals("file", configManager.getOrDefault("name", null), "Removing an override should reveal the file");
+        assertThrows(IllegalArgumentException.class,
+                () -> configManager.update(ConfigLayer.ENVIRONMENT, batch -> batch.set("x", "y")),
+                "The environment layer should be read-only");
+    }
+    
+    @Test
+    @DisplayName("Environment variables should be read on demand and sit below overrides")
+    void testLazyEnvironment() {
+        String name = System.getenv().keySet().iterator().next();
+        ConfigManager configManager = new ConfigManager().loadFromEnvironment(name);
+        
+        assertEquals(System.getenv(name), configManager.getOrDefault(name, null), "Variables should be readable");
+        assertEquals(System.getenv(name), configManager.snapshot().getLayer(ConfigLayer.ENVIRONMENT).get(name),
+                "The environment layer should serve the variable");
+        assertNull(configManager.getOrDefault(name + "_NOT_SET_" + System.nanoTime(), null),
+                "Unset variables should not be found");
+        configManager.set(name, "override");
+        assertEquals("override", configManager.getOrDefault(name, null), "Overrides should hide the environment");
+        configManager.clear();
+        assertNull(configManager.getOrDefault(name, null), "clear should stop reading the environment");
+    }
+    
+    @Test
+    @DisplayName("Placeholders should be resolved across layers and memoized per snapshot")
+    void testInterpolation() {
+        ConfigManager configManager = new ConfigManager()
+                .setDefaults(Map.of("db.host", "localhost", "db.port", "5432"));
+        configManager.update(batch -> batch
+                .set("db.url", "jdbc:postgresql://${db.host}:${db.port}/${db.name:ai}")
+                .set("greeting", "hello ${missing}")
+                .set("a", "${b}")
+                .set("b", "${a}"));
+        
+        ConfigSnapshot snapshot = configManager.snapshot();
+        String url = snapshot.get("db.url");
+        assertEquals("jdbc:postgresql://localhost:5432/ai", url, "Placeholders and fallbacks should resolve");
+        assertSame(url, snapshot.get("db.url"), "Resolved values should be memoized");
+        assertEquals("hello ${missing}", snapshot.get("greeting"), "Unknown placeholders should be kept");
+        assertThrows(IllegalArgumentException.class, () -> snapshot.get("a"), "Cycles should be rejected");
+        
+        List<ConfigChangeEvent> events = new ArrayList<>();
+        configManager.addListener(events::add);
+        configManager.update(batch -> batch.remove("a").remove("b").set("db.host", "db.internal"));
+        assertEquals("jdbc:postgresql://db.internal:5432/ai", configManager.getOrDefault("db.url", null),
+                "A new snapshot should resolve again");
+        assertTrue(events.get(0).isChanged("db.url"), "Values depending on a changed key should be reported");
+    }
+}
@@ -0,0 +1,57 @@
+package za.co.ai.experiment.libcoreconfig.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreconfig.ConfigLayer;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
+import za.co.ai.experiment.libcoreconfig.ConfigScope;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ConfigScope class.
+ */
+public class ConfigScopeTest {
+    
+    @Test
+    @DisplayName("A scope should list only its keys, in sorted order, across layers")
+    void testKeys() {
+        ConfigManager configManager = new ConfigManager()
+                .setDefaults(Map.of("CURRENCY_BASE", "ZAR", "VERTX_POOL", "8", "CURRENCY", "none"));
+        configManager.update(batch -> batch.set("CURRENCY_API_URL", "https://fx.test").set("CURRENCZ", "x"));
+        ConfigScope currency = configManager.scope("CURRENCY_");
+        
+        assertEquals(List.of("CURRENCY_API_URL", "CURRENCY_BASE"), currency.keys(), "Only prefixed keys, sorted");
+        assertEquals(2, currency.size(), "Size should match the keys");
+        assertEquals("ZAR", currency.getOrDefault("CURRENCY_BASE", null), "Scoped values should be readable");
+        assertTrue(currency.get("VERTX_POOL").isEmpty(), "Keys outside the scope should not be visible");
+        assertEquals(List.of("CURRENCY_API_URL"), currency.scope("API").keys(), "Nested scopes should narrow");
+        assertEquals(5, configManager.scope("").size(), "The empty prefix should match every key");
+        assertTrue(configManager.scope("ZZZ").keys().isEmpty(), "Unknown prefixes should be empty");
+    }
+    
+    @Test
+    @DisplayName("A scope should stay live across changes and read each pass from one snapshot")
+    void testLive() {
+        ConfigManager configManager = new ConfigManager(Map.of("VERTX_POOL", "8"));
+        ConfigScope vertx = configManager.scope("VERTX_");
+        
+        configManager.update(ConfigLayer.FILE, batch -> batch.set("VERTX_EVENT_LOOPS", "2"));
+        configManager.set("VERTX_POOL", "16");
+        
+        Map<String, String> seen = new LinkedHashMap<>();
+        vertx.forEach(seen::put);
+        assertEquals(Map.of("VERTX_EVENT_LOOPS", "2", "VERTX_POOL", "16"), seen, "Changes should be visible");
+        assertEquals(List.of("VERTX_EVENT_LOOPS", "VERTX_POOL"), List.copyOf(seen.keySet()), "Sorted order");
+        
+        List<String> before = configManager.snapshot().keys("VERTX_");
+        configManager.set("VERTX_POOL", null);
+        assertEquals(List.of("VERTX_EVENT_LOOPS"), vertx.keys(), "Removed keys should disappear");
+        assertEquals(2, before.size(), "Key lists from an earlier snapshot should not change");
+        assertThrows(UnsupportedOperationException.class, () -> vertx.keys().clear(), "Keys should be unmodifiable");
+    }
+}
@@ -0,0 +1,102 @@
+package za.co.ai.experiment.libcoreconfig.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreconfig.ConfigChangeEvent;
+import za.co.ai.experiment.libcoreconfig.ConfigKey;
+import za.co.ai.experiment.libcoreconfig.ConfigManager;
+import za.co.ai.experiment.libcoreconfig.FileConfigSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the FileConfigSource class.
+ */
+public class FileConfigSourceTest {
+    
+    private static final ConfigKey<Integer> POOL_SIZE = ConfigKey.intKey("pool.size", 4);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("start should load the file and fail if it cannot be read")
+    void testStart() throws IOException {
+        Path file = write("app.properties", "pool.size=8\nname=ai-app\n");
+        ConfigManager configManager = new ConfigManager(Map.of("OTHER", "kept"));
+        
+        try (FileConfigSource source = FileConfigSource.builder(file).build().start(configManager)) {
+            assertEquals(8, configManager.get(POOL_SIZE), "File values should be loaded");
+            assertEquals("kept", configManager.getOrDefault("OTHER", null), "Other values should be kept");
+            assertEquals(1, source.getReloadCount(), "The initial load should count as a reload");
+            assertThrows(IllegalStateException.class, () -> source.start(configManager), "Started twice");
+        }
+        FileConfigSource missing = FileConfigSource.builder(directory.resolve("missing.properties")).build();
+        assertThrows(UncheckedIOException.class, () -> missing.start(new ConfigManager()), "Missing file");
+    }
+    
+    @Test
+    @DisplayName("Changes to the file should be published with only the changed keys")
+    void testWatchPublishesChanges() throws Exception {
+        Path file = write("app.properties", "pool.size=8\nname=ai-app\nregion=af-south-1\n");
+        ConfigManager configManager = new ConfigManager();
+        BlockingQueue<ConfigChangeEvent> events = new LinkedBlockingQueue<>();
+        
+        try (FileConfigSource source = FileConfigSource.builder(file)
+                .debounce(Duration.ofMillis(100))
+                .build()
+                .start(configManager)) {
+            configManager.addListener(events::add);
+            // Replace the file the way editors and ConfigMap updates do
+            Path next = write("app.properties.tmp", "pool.size=16\nname=ai-app\n");
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            ConfigChangeEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "A change event should be published");
+            assertEquals(Set.of("pool.size", "region"), event.getChangedKeys(), "Only changed keys should be reported");
+            assertTrue(event.isChanged(POOL_SIZE), "Typed keys should be reported");
+            assertEquals(16, configManager.get(POOL_SIZE), "The new value should be published");
+            assertFalse(configManager.get("region").isPresent(), "Keys dropped from the file should be removed");
+            assertNull(events.poll(300, TimeUnit.MILLISECONDS), "The burst of events should publish once");
+            assertEquals(2, source.getReloadCount(), "The initial load and the change should be counted");
+        }
+    }
+    
+    @Test
+    @DisplayName("Invalid or unchanged files should not publish a snapshot")
+    void testReloadKeepsValues() throws IOException {
+        Path file = write("app.properties", "pool.size=8\n");
+        ConfigManager configManager = new ConfigManager().register(POOL_SIZE);
+        
+        try (FileConfigSource source = FileConfigSource.builder(file).build().start(configManager)) {
+            long version = configManager.snapshot().getVersion();
+            assertFalse(source.reload(), "An unchanged file should not publish");
+            
+            write("app.properties", "pool.size=lots\n");
+            assertThrows(IllegalArgumentException.class, source::reload, "Invalid values should be rejected");
+            assertEquals(version, configManager.snapshot().getVersion(), "No snapshot should be published");
+            assertEquals(8, configManager.get(POOL_SIZE), "The previous value should remain");
+            
+            write("app.properties", "pool.size=12\n");
+            assertTrue(source.reload(), "A corrected file should publish");
+            assertEquals(12, configManager.get(POOL_SIZE), "The corrected value should be published");
+        }
+    }
+    
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
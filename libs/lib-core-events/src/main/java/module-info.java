@@ -4,6 +4,11 @@
  * This module provides CloudEvents format and routing for the AI Experiment platform.
  */
 module za.co.ai.experiment.libcoreevents {
+    // Required dependencies
+    requires com.fasterxml.jackson.core;
+    requires java.logging;
+    requires static io.vertx.core;
+    
     // Export the API packages
     exports za.co.ai.experiment.libcoreevents;
     
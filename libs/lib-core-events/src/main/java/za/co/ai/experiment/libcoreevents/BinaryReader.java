@@ -0,0 +1,94 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the varint and string primitives of the binary event format from part of an array.
+ * Reading past the end throws {@link IllegalArgumentException}, so truncated input is
+ * reported the same way as any other malformed event.
+ */
+final class BinaryReader {
+    
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+    
+    BinaryReader(byte[] buf, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buf.length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length
+                    + ") out of bounds for length " + buf.length);
+        }
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+    
+    boolean hasRemaining() {
+        return pos < limit;
+    }
+    
+    int readByte() {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+    
+    int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary CloudEvent");
+    }
+    
+    long readVarlong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in binary CloudEvent");
+    }
+    
+    long readZigzag() {
+        long value = readVarlong();
+        return value >>> 1 ^ -(value & 1);
+    }
+    
+    byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+        pos += length;
+        return bytes;
+    }
+    
+    String readString(int length) {
+        require(length);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+    
+    /**
+     * Reads a string through a table, so repeated values share one instance.
+     */
+    String readString(int length, StringTable table) {
+        require(length);
+        String value = table.get(buf, pos, length);
+        pos += length;
+        return value;
+    }
+    
+    private void require(int length) {
+        if (length < 0 || limit - pos < length) {
+            throw new IllegalArgumentException("Truncated binary CloudEvent");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array with the varint and string primitives of the binary event format.
+ */
+final class BinaryWriter {
+    
+    private byte[] buf;
+    private int size;
+    
+    BinaryWriter(int capacity) {
+        this.buf = new byte[capacity];
+    }
+    
+    byte[] array() {
+        return buf;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int capacity() {
+        return buf.length;
+    }
+    
+    void reset() {
+        size = 0;
+    }
+    
+    void writeByte(int value) {
+        ensure(1);
+        buf[size++] = (byte) value;
+    }
+    
+    /**
+     * Writes an unsigned LEB128 varint: seven bits per byte, low bits first.
+     */
+    void writeVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buf[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte) value;
+    }
+    
+    void writeVarlong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte) value;
+    }
+    
+    void writeZigzag(long value) {
+        writeVarlong(value << 1 ^ value >> 63);
+    }
+    
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, size, length);
+        size += length;
+    }
+    
+    /**
+     * Writes a string as a varint header followed by its UTF-8 bytes, where the header
+     * is {@code (length + 1) << 1}. ASCII strings, the common case for event attributes,
+     * are copied without an intermediate byte array.
+     */
+    void writeLiteral(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(utf8.length + 1 << 1);
+                writeBytes(utf8, 0, utf8.length);
+                return;
+            }
+        }
+        writeVarint(length + 1 << 1);
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buf[size++] = (byte) value.charAt(i);
+        }
+    }
+    
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, size + extra));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes into a caller-supplied buffer, throwing {@link java.nio.BufferOverflowException}
+ * when it is full.
+ */
+final class ByteBufferOutputStream extends OutputStream {
+    
+    private final ByteBuffer buffer;
+    
+    ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+    
+    @Override
+    public void write(int b) {
+        buffer.put((byte) b);
+    }
+    
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        buffer.put(bytes, offset, length);
+    }
+}
@@ -1,9 +1,8 @@
 package za.co.ai.experiment.libcoreevents;
 
 import java.time.OffsetDateTime;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * CloudEvent implementation based on the CloudEvents specification.
@@ -26,7 +25,7 @@ public class CloudEvent {
     private final Object data;
     
     // Extension attributes
-    private final Map<String, Object> extensions;
+    private final Extensions extensions;
     
     /**
      * Creates a new CloudEvent builder.
@@ -46,7 +45,7 @@ public class CloudEvent {
         this.dataContentType = builder.dataContentType;
         this.dataSchema = builder.dataSchema;
         this.data = builder.data;
-        this.extensions = Map.copyOf(builder.extensions);
+        this.extensions = Extensions.of(builder.extensionNames, builder.extensionValues, builder.extensionCount);
     }
     
     /**
@@ -113,16 +112,31 @@ public class CloudEvent {
     }
     
     /**
-     * Gets the event data.
+     * Gets the event data. Data held as {@link EventData}, as decoded data is, is
+     * returned as a byte array of its encoded bytes.
      * 
      * @return The event data
      */
     public Object getData() {
-        return data;
+        return data instanceof EventData eventData ? eventData.toByteArray() : data;
     }
     
     /**
-     * Gets the extension attributes.
+     * Gets the event data as its encoded bytes, for typed access that decodes it on
+     * first use. Decoded events hold their data this way, so forwarding them writes
+     * the original bytes again.
+     * 
+     * @return The encoded data, or null if the data is absent or not held as bytes
+     */
+    public EventData getEventData() {
+        if (data instanceof EventData eventData) {
+            return eventData;
+        }
+        return data instanceof byte[] bytes ? EventData.of(bytes) : null;
+    }
+    
+    /**
+     * Gets the extension attributes as a read-only view, iterated in name order.
      * 
      * @return The extension attributes
      */
@@ -130,19 +144,39 @@ public class CloudEvent {
         return extensions;
     }
     
+    /**
+     * Gets an extension attribute.
+     * 
+     * @param name The extension name
+     * @return The extension value, or null if the event does not have the extension
+     */
+    public Object getExtension(String name) {
+        return extensions.get(name);
+    }
+    
+    Extensions extensions() {
+        return extensions;
+    }
+    
     /**
      * Builder for CloudEvent.
      */
     public static class Builder {
-        private String id = UUID.randomUUID().toString();
+        private String id;
         private String source;
         private String type;
-        private OffsetDateTime time = OffsetDateTime.now();
+        private OffsetDateTime time;
+        private boolean timeSet;
         private String subject;
         private String dataContentType;
         private String dataSchema;
         private Object data;
-        private final Map<String, Object> extensions = new HashMap<>();
+        // Allocated on the first extension, since most events have none
+        private String[] extensionNames;
+        private Object[] extensionValues;
+        private int extensionCount;
+        private EventIdGenerator idGenerator = EventIdGenerator.timeOrdered();
+        private EventClock clock = EventClock.coarse();
         
         private Builder() {
         }
@@ -188,6 +222,7 @@ public class CloudEvent {
          */
         public Builder time(OffsetDateTime time) {
             this.time = time;
+            this.timeSet = true;
             return this;
         }
         
@@ -227,7 +262,8 @@ public class CloudEvent {
         /**
          * Sets the event data.
          * 
-         * @param data The event data
+         * @param data The event data: a byte array or {@link EventData} holding encoded
+         *        data, a string, or for JSON content types, maps, lists and values
          * @return This builder
          */
         public Builder data(Object data) {
@@ -236,14 +272,68 @@ public class CloudEvent {
         }
         
         /**
-         * Adds an extension attribute.
+         * Adds an extension attribute, replacing any previous value.
          * 
          * @param name The extension name
-         * @param value The extension value
+         * @param value The extension value, or null to remove the extension
          * @return This builder
+         * @throws IllegalArgumentException if the name is null
          */
         public Builder extension(String name, Object value) {
-            this.extensions.put(name, value);
+            if (name == null) {
+                throw new IllegalArgumentException("Extension name cannot be null");
+            }
+            for (int i = 0; i < extensionCount; i++) {
+                if (extensionNames[i].equals(name)) {
+                    if (value != null) {
+                        extensionValues[i] = value;
+                    } else {
+                        extensionCount--;
+                        extensionNames[i] = extensionNames[extensionCount];
+                        extensionValues[i] = extensionValues[extensionCount];
+                        extensionNames[extensionCount] = null;
+                        extensionValues[extensionCount] = null;
+                    }
+                    return this;
+                }
+            }
+            if (value == null) {
+                return this;
+            }
+            if (extensionNames == null) {
+                extensionNames = new String[4];
+                extensionValues = new Object[4];
+            } else if (extensionCount == extensionNames.length) {
+                extensionNames = Arrays.copyOf(extensionNames, extensionCount << 1);
+                extensionValues = Arrays.copyOf(extensionValues, extensionCount << 1);
+            }
+            extensionNames[extensionCount] = name;
+            extensionValues[extensionCount] = value;
+            extensionCount++;
+            return this;
+        }
+        
+        /**
+         * Sets how the ID is generated when none is set. Defaults to
+         * {@link EventIdGenerator#timeOrdered()}.
+         * 
+         * @param idGenerator The ID generator
+         * @return This builder
+         */
+        public Builder idGenerator(EventIdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
+            return this;
+        }
+        
+        /**
+         * Sets the clock the time is read from when none is set. Defaults to
+         * {@link EventClock#coarse()}.
+         * 
+         * @param clock The clock
+         * @return This builder
+         */
+        public Builder clock(EventClock clock) {
+            this.clock = clock;
             return this;
         }
         
@@ -260,6 +350,13 @@ public class CloudEvent {
             if (type == null || type.isBlank()) {
                 throw new IllegalStateException("Type is required");
             }
+            // Defaults are only generated when they are needed, not for every builder
+            if (id == null) {
+                id = idGenerator.nextId();
+            }
+            if (!timeSet) {
+                time = clock.now();
+            }
             return new CloudEvent(this);
         }
     }
@@ -0,0 +1,121 @@
+package za.co.ai.experiment.libcoreevents;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a batch of events ({@code application/cloudevents-batch+json}) one event at a
+ * time. Only the event being parsed and the parser's buffer are held in memory, so a
+ * batch of any size can be processed without being materialized as a list.
+ * 
+ * Instances are created by {@link CloudEventJsonCodec#readBatch(java.io.InputStream)}
+ * and are not thread-safe. I/O errors are thrown as {@link UncheckedIOException} and
+ * malformed events as {@link IllegalArgumentException}.
+ */
+public final class CloudEventBatchReader implements Iterator<CloudEvent>, AutoCloseable {
+    
+    private final CloudEventJsonCodec codec;
+    private final JsonParser parser;
+    private JsonToken next;
+    private long count;
+    
+    CloudEventBatchReader(CloudEventJsonCodec codec, JsonParser parser) {
+        this.codec = codec;
+        this.parser = parser;
+    }
+    
+    /**
+     * Checks if the batch has another event, reading ahead to the start of it.
+     * 
+     * @return true if another event follows
+     * @throws IllegalArgumentException if the batch is malformed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = parser.nextToken();
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid CloudEvents batch: " + e.getOriginalMessage(), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (next != JsonToken.START_OBJECT && next != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException(next == null
+                        ? "Unterminated CloudEvents batch" : "CloudEvents batch entries must be JSON objects");
+            }
+        }
+        return next == JsonToken.START_OBJECT;
+    }
+    
+    /**
+     * Reads the next event.
+     * 
+     * @return The event
+     * @throws NoSuchElementException if the batch has no more events
+     * @throws IllegalArgumentException if the event is malformed
+     */
+    @Override
+    public CloudEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        next = null;
+        try {
+            CloudEvent event = codec.read(parser, null, 0);
+            count++;
+            return event;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid CloudEvent in batch: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Gets the number of events read.
+     * 
+     * @return The number of events read
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns the remaining events as a sequential stream that closes this reader when closed.
+     * 
+     * @return A stream of the remaining events
+     */
+    public Stream<CloudEvent> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::closeQuietly);
+    }
+    
+    /**
+     * Closes the reader and its stream.
+     * 
+     * @throws IOException if the stream cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+    
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
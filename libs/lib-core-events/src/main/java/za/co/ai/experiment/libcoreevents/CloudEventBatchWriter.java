@@ -0,0 +1,83 @@
+package za.co.ai.experiment.libcoreevents;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Writes a batch of events ({@code application/cloudevents-batch+json}) one event at a
+ * time. The generator's buffer is flushed to the stream as it fills, so memory use does
+ * not grow with the size of the batch. Closing the writer ends the JSON array.
+ * 
+ * Instances are created by {@link CloudEventJsonCodec#writeBatch(java.io.OutputStream)}
+ * and are not thread-safe.
+ */
+public final class CloudEventBatchWriter implements AutoCloseable {
+    
+    private final CloudEventJsonCodec codec;
+    private final JsonGenerator generator;
+    private long count;
+    private boolean closed;
+    
+    CloudEventBatchWriter(CloudEventJsonCodec codec, JsonGenerator generator) {
+        this.codec = codec;
+        this.generator = generator;
+    }
+    
+    /**
+     * Writes an event to the batch.
+     * 
+     * @param event The event
+     * @return This writer
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalStateException if the writer has been closed
+     * @throws IllegalArgumentException if the event data cannot be written as JSON
+     */
+    public CloudEventBatchWriter write(CloudEvent event) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Batch writer is closed");
+        }
+        codec.write(event, generator);
+        count++;
+        return this;
+    }
+    
+    /**
+     * Writes every event to the batch.
+     * 
+     * @param events The events
+     * @return This writer
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalStateException if the writer has been closed
+     * @throws IllegalArgumentException if an event's data cannot be written as JSON
+     */
+    public CloudEventBatchWriter writeAll(Iterable<CloudEvent> events) throws IOException {
+        for (CloudEvent event : events) {
+            write(event);
+        }
+        return this;
+    }
+    
+    /**
+     * Gets the number of events written.
+     * 
+     * @return The number of events written
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Ends the batch and flushes it. The underlying stream is not closed.
+     * 
+     * @throws IOException if the stream cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,579 @@
+package za.co.ai.experiment.libcoreevents;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes CloudEvents in the JSON event format, structured mode
+ * ({@code application/cloudevents+json}).
+ * 
+ * Events are written field by field with a streaming generator and read back with a
+ * streaming parser, so no intermediate map or tree is built for either. Data is handled
+ * by content type, where an absent content type means JSON as the specification says:
+ * <ul>
+ *   <li>For JSON content types, {@link java.util.Map}, {@link Iterable}, array, String,
+ *       Number and Boolean data is written as the matching JSON value. When reading, the
+ *       data member is returned as the {@code byte[]} of its JSON text without being
+ *       parsed, held as {@link EventData} marked as JSON, and written back unchanged.
+ *       Other {@code byte[]} data is taken to be encoded JSON only if the content type
+ *       is given; without one it is written as {@code data_base64}, so binary data
+ *       read from {@code data_base64} stays binary.</li>
+ *   <li>For other content types, String data is written as a JSON string and {@code byte[]}
+ *       data as {@code data_base64}, and they are read back as a String and a
+ *       {@code byte[]}.</li>
+ * </ul>
+ * Extension attributes are written as JSON strings, numbers or booleans and read back
+ * as String, Integer or Long, and Boolean. Instances are thread-safe.
+ */
+public final class CloudEventJsonCodec {
+    
+    /** The media type of a structured-mode JSON event. */
+    public static final String CONTENT_TYPE = "application/cloudevents+json";
+    
+    /** The CloudEvents specification version this codec reads and writes. */
+    public static final String SPEC_VERSION = "1.0";
+    
+    /** The media type of a batch of JSON events. */
+    public static final String BATCH_CONTENT_TYPE = "application/cloudevents-batch+json";
+    
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int MAX_REUSED_BUFFER = 64 * 1024;
+    
+    /** Encoding buffers kept per thread so only the final copy is allocated per event. */
+    private static final ThreadLocal<ReusableOutput> BUFFERS = ThreadLocal.withInitial(ReusableOutput::new);
+    private static final ThreadLocal<char[]> TIME_BUFFERS =
+            ThreadLocal.withInitial(() -> new char[Rfc3339.MAX_LENGTH]);
+    
+    /**
+     * Writes an event to a stream. The stream is flushed but not closed.
+     * 
+     * @param event The event
+     * @param out The stream to write to
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalArgumentException if the event data cannot be written as JSON
+     */
+    public void write(CloudEvent event, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(event, generator);
+        }
+    }
+    
+    /**
+     * Writes an event into a buffer, starting at its position.
+     * 
+     * @param event The event
+     * @param buffer The buffer to write into
+     * @return The number of bytes written
+     * @throws java.nio.BufferOverflowException if the event does not fit in the buffer
+     * @throws IllegalArgumentException if the event data cannot be written as JSON
+     */
+    public int encode(CloudEvent event, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            write(event, new ByteBufferOutputStream(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.position() - start;
+    }
+    
+    /**
+     * Writes an event to a new byte array.
+     * 
+     * @param event The event
+     * @return The encoded event
+     * @throws IllegalArgumentException if the event data cannot be written as JSON
+     */
+    public byte[] encode(CloudEvent event) {
+        ReusableOutput out = BUFFERS.get();
+        out.reset();
+        try {
+            write(event, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = out.toByteArray();
+        if (out.capacity() > MAX_REUSED_BUFFER) {
+            BUFFERS.remove();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Reads an event from a stream. The stream is read to its end but not closed.
+     * 
+     * @param in The stream to read from
+     * @return The event
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the input is not a valid JSON CloudEvent
+     */
+    public CloudEvent read(InputStream in) throws IOException {
+        return decode(in.readAllBytes());
+    }
+    
+    /**
+     * Reads an event from a buffer, from its position to its limit. The buffer's position
+     * is not changed. The data of an event read from a heap buffer refers to its array,
+     * as for {@link #decode(byte[], int, int)}.
+     * 
+     * @param buffer The buffer to read from
+     * @return The event
+     * @throws IllegalArgumentException if the input is not a valid JSON CloudEvent
+     */
+    public CloudEvent decode(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return decode(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), bytes);
+        return decode(bytes);
+    }
+    
+    /**
+     * Reads an event from a byte array. JSON data is not copied or parsed: the event's
+     * {@link EventData} refers to the array, which must not be modified while the event
+     * is in use.
+     * 
+     * @param bytes The encoded event
+     * @return The event
+     * @throws IllegalArgumentException if the input is not a valid JSON CloudEvent
+     */
+    public CloudEvent decode(byte[] bytes) {
+        return decode(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Reads an event from part of a byte array. JSON data is not copied or parsed: the
+     * event's {@link EventData} refers to the array, which must not be modified while the
+     * event is in use.
+     * 
+     * @param bytes The array holding the encoded event
+     * @param offset The offset of the event in the array
+     * @param length The length of the event
+     * @return The event
+     * @throws IllegalArgumentException if the input is not a valid JSON CloudEvent
+     */
+    public CloudEvent decode(byte[] bytes, int offset, int length) {
+        try (JsonParser parser = FACTORY.createParser(bytes, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("A JSON CloudEvent must be a JSON object");
+            }
+            CloudEvent event = read(parser, bytes, offset);
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the JSON CloudEvent");
+            }
+            return event;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON CloudEvent: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Starts writing a batch ({@code application/cloudevents-batch+json}) to a stream.
+     * Events are written as they are added, so a batch of any size is written in
+     * constant memory.
+     * 
+     * @param out The stream to write to; it is flushed but not closed when the batch is closed
+     * @return The batch writer
+     * @throws IOException if the stream cannot be written
+     */
+    public CloudEventBatchWriter writeBatch(OutputStream out) throws IOException {
+        JsonGenerator generator = FACTORY.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        return new CloudEventBatchWriter(this, generator);
+    }
+    
+    /**
+     * Starts reading a batch ({@code application/cloudevents-batch+json}) from a stream.
+     * Events are parsed one at a time as the reader is advanced, so a batch of any size
+     * is read in constant memory. JSON data is re-encoded from the stream rather than
+     * sliced from it, since the stream's bytes are not retained.
+     * 
+     * @param in The stream to read from; it is closed when the reader is closed
+     * @return The batch reader
+     * @throws IOException if the stream cannot be read
+     * @throws IllegalArgumentException if the stream does not start with a JSON array
+     */
+    public CloudEventBatchReader readBatch(InputStream in) throws IOException {
+        JsonParser parser = FACTORY.createParser(in);
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("A CloudEvents batch must be a JSON array");
+            }
+        } catch (JsonProcessingException e) {
+            parser.close();
+            throw new IllegalArgumentException("Invalid CloudEvents batch: " + e.getOriginalMessage(), e);
+        } catch (IllegalArgumentException e) {
+            parser.close();
+            throw e;
+        }
+        return new CloudEventBatchReader(this, parser);
+    }
+    
+    /**
+     * Checks if a data content type is JSON: absent, {@code application/json},
+     * {@code text/json} or any {@code +json} type, ignoring parameters.
+     * 
+     * @param contentType The data content type, or null
+     * @return true if data of this type is carried as JSON
+     */
+    public static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        int end = contentType.indexOf(';');
+        if (end < 0) {
+            end = contentType.length();
+        }
+        while (end > 0 && contentType.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return contentType.regionMatches(true, 0, "application/json", 0, end) && end == 16
+                || contentType.regionMatches(true, 0, "text/json", 0, end) && end == 9
+                || end >= 5 && contentType.regionMatches(true, end - 5, "+json", 0, 5);
+    }
+    
+    /**
+     * Writes an event as a JSON object with a generator positioned where a value may be written.
+     */
+    void write(CloudEvent event, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("specversion", SPEC_VERSION);
+        generator.writeStringField("id", event.getId());
+        generator.writeStringField("source", event.getSource());
+        generator.writeStringField("type", event.getType());
+        if (event.getTime() != null) {
+            char[] time = TIME_BUFFERS.get();
+            generator.writeFieldName("time");
+            generator.writeString(time, 0, Rfc3339.format(event.getTime(), time));
+        }
+        if (event.getSubject() != null) {
+            generator.writeStringField("subject", event.getSubject());
+        }
+        if (event.getDataContentType() != null) {
+            generator.writeStringField("datacontenttype", event.getDataContentType());
+        }
+        if (event.getDataSchema() != null) {
+            generator.writeStringField("dataschema", event.getDataSchema());
+        }
+        Extensions extensions = event.extensions();
+        for (int i = 0; i < extensions.count(); i++) {
+            writeExtension(generator, extensions.name(i), extensions.value(i));
+        }
+        EventData encoded = event.getEventData();
+        Object data = encoded != null ? encoded : event.getData();
+        if (data != null) {
+            boolean json = isJson(event.getDataContentType());
+            if (encoded != null) {
+                // Encoded data is copied to the output as it is, without being decoded
+                if (encoded.isJson() || json && event.getDataContentType() != null) {
+                    generator.writeFieldName("data");
+                    generator.writeRawValue(new RawJsonValue(encoded.array(), encoded.offset(), encoded.length()));
+                } else {
+                    generator.writeFieldName("data_base64");
+                    generator.writeBinary(encoded.array(), encoded.offset(), encoded.length());
+                }
+            } else if (json || data instanceof String) {
+                generator.writeFieldName("data");
+                writeValue(generator, data);
+            } else {
+                throw new IllegalArgumentException("Data of type " + data.getClass().getName()
+                        + " must be encoded as bytes for content type " + event.getDataContentType());
+            }
+        }
+        generator.writeEndObject();
+    }
+    
+    /**
+     * Reads the members of an event from a parser positioned on the event's START_OBJECT.
+     * 
+     * @param parser The parser
+     * @param bytes The array being parsed, so JSON data can be returned as its original bytes,
+     *        or null if the parser reads a stream, in which case JSON data is re-encoded
+     * @param offset The offset the parser was created with, since token offsets are relative to it
+     */
+    CloudEvent read(JsonParser parser, byte[] bytes, int offset) throws IOException {
+        CloudEvent.Builder builder = CloudEvent.builder().time(null);
+        String specVersion = null;
+        boolean hasId = false;
+        String contentType = null;
+        Object data = null;
+        JsonToken dataToken = null;
+        EventData raw = null;
+        
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "specversion" -> specVersion = text(parser, name);
+                case "id" -> {
+                    builder.id(text(parser, name));
+                    hasId = true;
+                }
+                case "source" -> builder.source(text(parser, name));
+                case "type" -> builder.type(text(parser, name));
+                case "time" -> builder.time(time(text(parser, name)));
+                case "subject" -> builder.subject(text(parser, name));
+                case "datacontenttype" -> {
+                    contentType = text(parser, name);
+                    builder.dataContentType(contentType);
+                }
+                case "dataschema" -> builder.dataSchema(text(parser, name));
+                case "data" -> {
+                    if (value == JsonToken.VALUE_STRING && contentType != null && !isJson(contentType)) {
+                        data = parser.getText();
+                        continue;
+                    }
+                    dataToken = value;
+                    raw = bytes != null ? slice(parser, bytes, offset) : copy(parser);
+                }
+                case "data_base64" -> data = parser.getBinaryValue();
+                default -> builder.extension(name, extension(parser, name));
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IllegalArgumentException("Unterminated JSON CloudEvent");
+        }
+        if (!SPEC_VERSION.equals(specVersion)) {
+            throw new IllegalArgumentException("Unsupported CloudEvents specversion " + specVersion);
+        }
+        if (!hasId) {
+            throw new IllegalArgumentException("Missing required attribute id");
+        }
+        if (dataToken != null) {
+            // The content type may follow the data, so the data is only interpreted at the end
+            data = dataToken == JsonToken.VALUE_STRING && !isJson(contentType) ? unquote(raw) : raw;
+        }
+        try {
+            return builder.data(data).build();
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException("Missing required attribute: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Wraps the JSON text of the current value in the array being parsed, without copying it.
+     */
+    private static EventData slice(JsonParser parser, byte[] bytes, int offset) throws IOException {
+        int start = offset + (int) parser.currentTokenLocation().getByteOffset();
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            parser.finishToken();
+        } else {
+            parser.skipChildren();
+        }
+        return EventData.wrapJson(bytes, start, offset + (int) parser.currentLocation().getByteOffset() - start);
+    }
+    
+    /**
+     * Re-encodes the current value, for parsers reading a stream whose bytes are not retained.
+     */
+    private static EventData copy(JsonParser parser) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.copyCurrentStructure(parser);
+        }
+        byte[] json = out.toByteArray();
+        return EventData.wrapJson(json, 0, json.length);
+    }
+    
+    /**
+     * Parses JSON into unmodifiable maps and lists, strings, numbers, booleans and nulls.
+     */
+    static Object parseJson(byte[] bytes, int offset, int length) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(bytes, offset, length)) {
+            parser.nextToken();
+            Object value = parseValue(parser);
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON value");
+            }
+            return value;
+        }
+    }
+    
+    private static Object parseValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new JsonParseException(parser, "No JSON value");
+        }
+        return switch (token) {
+            case START_OBJECT -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    map.put(name, parseValue(parser));
+                }
+                yield Collections.unmodifiableMap(map);
+            }
+            case START_ARRAY -> {
+                List<Object> list = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(parseValue(parser));
+                }
+                yield Collections.unmodifiableList(list);
+            }
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> throw new JsonParseException(parser, "Unexpected token " + token);
+        };
+    }
+    
+    private static String unquote(EventData json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json.array(), json.offset(), json.length())) {
+            parser.nextToken();
+            return parser.getText();
+        }
+    }
+    
+    private static String text(JsonParser parser, String name) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Attribute " + name + " must be a string");
+        }
+        return parser.getText();
+    }
+    
+    private static OffsetDateTime time(String value) {
+        try {
+            return Rfc3339.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Attribute time must be an RFC 3339 timestamp: " + value, e);
+        }
+    }
+    
+    private static Object extension(JsonParser parser, String name) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> parser.getNumberType() == JsonParser.NumberType.INT
+                    ? (Object) parser.getIntValue() : (Object) parser.getLongValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> throw new IllegalArgumentException("Extension " + name + " must be a string, integer or boolean");
+        };
+    }
+    
+    private static void writeExtension(JsonGenerator generator, String name, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        generator.writeFieldName(name);
+        if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof OffsetDateTime dateTime) {
+            char[] time = TIME_BUFFERS.get();
+            generator.writeString(time, 0, Rfc3339.format(dateTime, time));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+    
+    /**
+     * Writes a data value as length-prefixed JSON text, for the binary format, which
+     * carries JSON data as bytes.
+     */
+    static void writeJson(Object value, BinaryWriter writer) {
+        ReusableOutput out = BUFFERS.get();
+        out.reset();
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            writeValue(generator, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writer.writeVarint(out.size());
+        writer.writeBytes(out.array(), 0, out.size());
+        if (out.capacity() > MAX_REUSED_BUFFER) {
+            BUFFERS.remove();
+        }
+    }
+    
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String text) {
+            generator.writeString(text);
+        } else if (value instanceof Boolean bool) {
+            generator.writeBoolean(bool);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof BigInteger integer) {
+            generator.writeNumber(integer);
+        } else if (value instanceof Map<?, ?> map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                generator.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof Iterable<?> iterable) {
+            generator.writeStartArray();
+            for (Object element : iterable) {
+                writeValue(generator, element);
+            }
+            generator.writeEndArray();
+        } else if (value.getClass().isArray()) {
+            generator.writeStartArray();
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                writeValue(generator, Array.get(value, i));
+            }
+            generator.writeEndArray();
+        } else {
+            throw new IllegalArgumentException("Data of type " + value.getClass().getName()
+                    + " cannot be written as JSON; encode it to bytes first");
+        }
+    }
+    
+    /**
+     * A byte array stream whose capacity can be checked before it is kept for reuse.
+     */
+    private static final class ReusableOutput extends ByteArrayOutputStream {
+        
+        private ReusableOutput() {
+            super(1024);
+        }
+        
+        private int capacity() {
+            return buf.length;
+        }
+        
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package za.co.ai.experiment.libcoreevents;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * Vert.x event bus codec for CloudEvents using the {@link CloudEventBinaryCodec} format.
+ * 
+ * Local delivery passes the event itself, since events are immutable. Clustered delivery
+ * writes the binary encoding into the message buffer behind a 4-byte length, with no
+ * JSON in between. Register it once per Vert.x instance with {@link #register(EventBus)}
+ * so every {@link CloudEvent} sent on the bus uses it.
+ * 
+ * This class needs {@code io.vertx:vertx-core}, which is an optional dependency of this
+ * module.
+ */
+public final class CloudEventMessageCodec implements MessageCodec<CloudEvent, CloudEvent> {
+    
+    /** The name the codec is registered under. */
+    public static final String NAME = "cloudevent-binary";
+    
+    private static final int MAX_REUSED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[512]);
+    
+    private final CloudEventBinaryCodec codec;
+    
+    /**
+     * Creates a message codec with an empty dictionary.
+     */
+    public CloudEventMessageCodec() {
+        this(CloudEventBinaryCodec.builder().build());
+    }
+    
+    /**
+     * Creates a message codec. Every node of the cluster must use a binary codec built
+     * with the same dictionary.
+     * 
+     * @param codec The binary codec
+     */
+    public CloudEventMessageCodec(CloudEventBinaryCodec codec) {
+        this.codec = codec;
+    }
+    
+    /**
+     * Registers this codec as the default codec for {@link CloudEvent} messages.
+     * 
+     * @param eventBus The event bus
+     * @return This codec
+     */
+    public CloudEventMessageCodec register(EventBus eventBus) {
+        eventBus.registerDefaultCodec(CloudEvent.class, this);
+        return this;
+    }
+    
+    @Override
+    public void encodeToWire(Buffer buffer, CloudEvent event) {
+        BinaryWriter writer = codec.encodeReused(event);
+        try {
+            buffer.appendInt(writer.size());
+            buffer.appendBytes(writer.array(), 0, writer.size());
+        } finally {
+            CloudEventBinaryCodec.release(writer);
+        }
+    }
+    
+    @Override
+    public CloudEvent decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+            if (scratch.length <= MAX_REUSED_BUFFER) {
+                SCRATCH.set(scratch);
+            }
+        }
+        buffer.getBytes(pos + 4, pos + 4 + length, scratch, 0);
+        return codec.decode(scratch, 0, length);
+    }
+    
+    @Override
+    public CloudEvent transform(CloudEvent event) {
+        return event;
+    }
+    
+    @Override
+    public String name() {
+        return NAME;
+    }
+    
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * An event clock that truncates the time to a fixed resolution and caches it.
+ * 
+ * Every call reads the underlying clock's milliseconds, which for the system clock is
+ * {@link System#currentTimeMillis()}, but a new {@link OffsetDateTime} is only built
+ * when the time moves into the next tick; until then, every caller gets the same
+ * instance. The time is in a fixed offset, UTC by default, so no zone rules are looked up.
+ */
+public final class CoarseEventClock implements EventClock {
+    
+    static final CoarseEventClock SHARED = new CoarseEventClock(Clock.systemUTC(), Duration.ofMillis(1), ZoneOffset.UTC);
+    
+    private final Clock clock;
+    private final long resolutionMillis;
+    private final ZoneOffset offset;
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+    
+    /**
+     * Creates a coarse clock.
+     * 
+     * @param clock The underlying clock
+     * @param resolution The resolution the time is truncated to
+     * @param offset The offset of the returned times
+     * @throws IllegalArgumentException if the resolution is less than a millisecond
+     */
+    public CoarseEventClock(Clock clock, Duration resolution, ZoneOffset offset) {
+        if (resolution.toMillis() < 1) {
+            throw new IllegalArgumentException("Resolution must be at least one millisecond");
+        }
+        this.clock = clock;
+        this.resolutionMillis = resolution.toMillis();
+        this.offset = offset;
+    }
+    
+    @Override
+    public OffsetDateTime now() {
+        long millis = clock.millis();
+        millis -= Math.floorMod(millis, resolutionMillis);
+        Tick current = tick;
+        if (current.millis == millis) {
+            return current.time;
+        }
+        OffsetDateTime time = OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), offset);
+        tick = new Tick(millis, time);
+        return time;
+    }
+    
+    /**
+     * A truncated time and the instance built for it, published together.
+     */
+    private static final class Tick {
+        private final long millis;
+        private final OffsetDateTime time;
+        
+        private Tick(long millis, OffsetDateTime time) {
+            this.millis = millis;
+            this.time = time;
+        }
+    }
+}
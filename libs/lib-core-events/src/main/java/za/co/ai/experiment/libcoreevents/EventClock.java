@@ -0,0 +1,39 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Supplies the time of events built without one.
+ * 
+ * @see CloudEvent.Builder#clock(EventClock)
+ */
+@FunctionalInterface
+public interface EventClock {
+    
+    /**
+     * Gets the current time.
+     * 
+     * @return The current time
+     */
+    OffsetDateTime now();
+    
+    /**
+     * Gets the default clock, a UTC clock with millisecond resolution that reuses the
+     * time it returned last within the same millisecond.
+     * 
+     * @return The shared coarse clock
+     */
+    static EventClock coarse() {
+        return CoarseEventClock.SHARED;
+    }
+    
+    /**
+     * Gets a clock returning {@link OffsetDateTime#now()}: full precision in the system
+     * time zone, at the cost of an allocation and a zone lookup on every call.
+     * 
+     * @return The system clock
+     */
+    static EventClock system() {
+        return OffsetDateTime::now;
+    }
+}
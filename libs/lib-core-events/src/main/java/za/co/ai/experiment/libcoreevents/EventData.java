@@ -0,0 +1,253 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Event data held as its encoded bytes and decoded only when it is asked for.
+ * 
+ * Codecs decode data into an EventData over the bytes they read, which may be a slice
+ * of a larger array, such as the whole encoded event, without copying it. Routers and
+ * filters that only look at attributes never pay to decode the data, and writing the
+ * event again, in either format, copies the original bytes to the output as they are.
+ * 
+ * {@link #as(Decoder)} decodes the bytes on first use and caches the result, so repeated
+ * typed access with the same decoder returns the same value. The bytes must not be
+ * modified while the data is in use.
+ * 
+ * Data read from JSON text is marked as such with {@link #isJson()}, so the JSON format
+ * can write it back as JSON even without a content type. Other data, such as
+ * {@code data_base64} or a plain {@code byte[]}, is written as binary unless the event's
+ * content type says it is JSON.
+ */
+public final class EventData {
+    
+    /** Decodes JSON data into maps, lists, strings, numbers, booleans and nulls. */
+    public static final Decoder<Object> JSON = CloudEventJsonCodec::parseJson;
+    
+    /** Decodes data as UTF-8 text. */
+    public static final Decoder<String> TEXT = (bytes, offset, length) ->
+            new String(bytes, offset, length, StandardCharsets.UTF_8);
+    
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    private final boolean json;
+    private volatile Decoded<?> decoded;
+    private volatile byte[] copy;
+    
+    private EventData(byte[] bytes, int offset, int length, boolean json) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.json = json;
+    }
+    
+    /**
+     * Wraps a byte array.
+     * 
+     * @param bytes The encoded data
+     * @return The data
+     */
+    public static EventData of(byte[] bytes) {
+        return new EventData(bytes, 0, bytes.length, false);
+    }
+    
+    /**
+     * Wraps part of a byte array without copying it.
+     * 
+     * @param bytes The array holding the encoded data
+     * @param offset The offset of the data in the array
+     * @param length The length of the data
+     * @return The data
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static EventData wrap(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return new EventData(bytes, offset, length, false);
+    }
+    
+    /**
+     * Wraps part of a byte array holding JSON text without copying it.
+     * 
+     * @param bytes The array holding the JSON text
+     * @param offset The offset of the text in the array
+     * @param length The length of the text
+     * @return The data, marked as JSON
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static EventData wrapJson(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        return new EventData(bytes, offset, length, true);
+    }
+    
+    /**
+     * Checks if the data is known to be JSON text, because it was read from JSON or
+     * wrapped with {@link #wrapJson(byte[], int, int)}.
+     * 
+     * @return true if the data is JSON text
+     */
+    public boolean isJson() {
+        return json;
+    }
+    
+    /**
+     * Gets the length of the encoded data.
+     * 
+     * @return The number of bytes
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Decodes the data, or returns the value decoded before with the same decoder.
+     * 
+     * @param decoder The decoder, typically a constant such as {@link #JSON}
+     * @param <T> The decoded type
+     * @return The decoded value
+     * @throws IllegalArgumentException if the decoder fails
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T as(Decoder<T> decoder) {
+        Decoded<?> current = decoded;
+        if (current != null && current.decoder == decoder) {
+            return (T) current.value;
+        }
+        T value;
+        try {
+            value = decoder.decode(bytes, offset, length);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Event data cannot be decoded: " + e.getMessage(), e);
+        }
+        decoded = new Decoded<>(decoder, value);
+        return value;
+    }
+    
+    /**
+     * Decodes the data as JSON.
+     * 
+     * @return The decoded maps, lists and values, which cannot be modified
+     * @throws IllegalArgumentException if the data is not valid JSON
+     */
+    public Object asJson() {
+        return as(JSON);
+    }
+    
+    /**
+     * Decodes the data as UTF-8 text.
+     * 
+     * @return The text
+     */
+    public String asString() {
+        return as(TEXT);
+    }
+    
+    /**
+     * Gets the encoded data as a byte array. This is the wrapped array itself when the
+     * data spans all of it, and otherwise a copy made on first use.
+     * 
+     * @return The encoded data, which must not be modified
+     */
+    public byte[] toByteArray() {
+        if (offset == 0 && length == bytes.length) {
+            return bytes;
+        }
+        byte[] result = copy;
+        if (result == null) {
+            result = Arrays.copyOfRange(bytes, offset, offset + length);
+            copy = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Writes the encoded data to a stream.
+     * 
+     * @param out The stream to write to
+     * @throws UncheckedIOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) {
+        try {
+            out.write(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Opens a stream over the encoded data, for decoders that read streams.
+     * 
+     * @return A new stream
+     */
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(bytes, offset, length);
+    }
+    
+    byte[] array() {
+        return bytes;
+    }
+    
+    int offset() {
+        return offset;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EventData data
+                && Arrays.equals(bytes, offset, offset + length, data.bytes, data.offset, data.offset + data.length);
+    }
+    
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return "EventData[" + length + " bytes]";
+    }
+    
+    /**
+     * Decodes event data from its encoded bytes.
+     * 
+     * @param <T> The decoded type
+     */
+    @FunctionalInterface
+    public interface Decoder<T> {
+        
+        /**
+         * Decodes event data.
+         * 
+         * @param bytes The array holding the encoded data
+         * @param offset The offset of the data in the array
+         * @param length The length of the data
+         * @return The decoded value
+         * @throws IOException if the data cannot be decoded
+         */
+        T decode(byte[] bytes, int offset, int length) throws IOException;
+    }
+    
+    /**
+     * A decoded value and the decoder that produced it, published together.
+     */
+    private static final class Decoded<T> {
+        private final Decoder<T> decoder;
+        private final T value;
+        
+        private Decoded(Decoder<T> decoder, T value) {
+            this.decoder = decoder;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers events to subscribers in the same JVM through a preallocated ring buffer.
+ * 
+ * Producers on any thread claim a slot with one atomic increment, write the event into
+ * it and publish the slot by stamping it with the lap of the ring it was written in, so
+ * publishing takes no lock and allocates nothing. Each subscriber runs on its own thread
+ * and advances its own sequence, reading published slots in batches; a slow subscriber
+ * only holds back producers once the ring has wrapped around to it, never the other
+ * subscribers. Producers wait, or {@link #tryPublish(CloudEvent)} fails, while the ring
+ * is full.
+ * 
+ * Subscriptions are indexed by type and source. Publishing looks up the event's type and
+ * source in hash maps to find the subscribers it is for, and the subscribers whose
+ * {@link EventFilter} matches it through an {@link EventFilterIndex}, and stores them
+ * as a bitmask alongside the event; each subscriber tests its bit and skips the events
+ * that are not for it without looking at them. A dispatcher has at most
+ * {@value #MAX_SUBSCRIBERS} subscribers at a time.
+ * 
+ * Handlers are called on their subscriber's thread, one event at a time, in publication
+ * order. An exception thrown by a handler is logged and the next event is delivered.
+ */
+public final class EventDispatcher implements AutoCloseable {
+    
+    /** The maximum number of subscribers of one dispatcher. */
+    public static final int MAX_SUBSCRIBERS = Long.SIZE;
+    
+    private static final Logger LOGGER = Logger.getLogger(EventDispatcher.class.getName());
+    private static final VarHandle LAPS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final AtomicInteger DISPATCHERS = new AtomicInteger();
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private final CloudEvent[] events;
+    private final long[] targets;
+    private final int[] laps;
+    private final int indexMask;
+    private final int lapShift;
+    private final WaitStrategy waitStrategy;
+    private final ThreadFactory threadFactory;
+    
+    private final Sequence cursor = new Sequence(-1);
+    private volatile Gating gating = new Gating(new EventSubscription[0], Long.MAX_VALUE);
+    private volatile Routing routing = new Routing();
+    private volatile boolean closed;
+    
+    private final Object subscriptionLock = new Object();
+    private long usedBits;
+    
+    private final ReentrantLock blockLock = new ReentrantLock();
+    private final Condition published = blockLock.newCondition();
+    private final AtomicInteger blocked = new AtomicInteger();
+    
+    private EventDispatcher(Builder builder) {
+        this.events = new CloudEvent[builder.bufferSize];
+        this.targets = new long[builder.bufferSize];
+        this.laps = new int[builder.bufferSize];
+        Arrays.fill(laps, -1);
+        this.indexMask = builder.bufferSize - 1;
+        this.lapShift = Integer.numberOfTrailingZeros(builder.bufferSize);
+        this.waitStrategy = builder.waitStrategy;
+        this.threadFactory = builder.threadFactory != null ? builder.threadFactory : daemonThreads();
+    }
+    
+    /**
+     * Creates a new event dispatcher builder.
+     * 
+     * @return A new event dispatcher builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Publishes an event, waiting while the ring buffer is full.
+     * 
+     * @param event The event
+     * @throws IllegalStateException if the dispatcher is closed
+     */
+    public void publish(CloudEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Event dispatcher is closed");
+        }
+        long sequence = cursor.incrementAndGet();
+        awaitCapacity(sequence);
+        write(sequence, event);
+    }
+    
+    /**
+     * Publishes an event if the ring buffer has room for it.
+     * 
+     * @param event The event
+     * @return true if the event was published, false if the ring buffer is full
+     * @throws IllegalStateException if the dispatcher is closed
+     */
+    public boolean tryPublish(CloudEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Event dispatcher is closed");
+        }
+        long sequence;
+        do {
+            sequence = cursor.get() + 1;
+            if (!hasCapacity(sequence)) {
+                return false;
+            }
+        } while (!cursor.compareAndSet(sequence - 1, sequence));
+        write(sequence, event);
+        return true;
+    }
+    
+    /**
+     * Subscribes to every event.
+     * 
+     * @param handler The handler, called on the subscriber's thread
+     * @return The subscription
+     * @throws IllegalStateException if the dispatcher is closed or has the maximum number of subscribers
+     */
+    public EventSubscription subscribe(Consumer<CloudEvent> handler) {
+        return subscribe(null, null, handler);
+    }
+    
+    /**
+     * Subscribes to events of a type, a source, or both. The subscriber receives the
+     * matching events published after this method returns.
+     * 
+     * @param type The event type, or null for every type
+     * @param source The event source, or null for every source
+     * @param handler The handler, called on the subscriber's thread
+     * @return The subscription
+     * @throws IllegalStateException if the dispatcher is closed or has the maximum number of subscribers
+     */
+    public EventSubscription subscribe(String type, String source, Consumer<CloudEvent> handler) {
+        return subscribe(type, source, null, handler);
+    }
+    
+    /**
+     * Subscribes to events matching a filter. The subscriber receives the matching events
+     * published after this method returns.
+     * 
+     * Filtered subscriptions count towards the limit of {@value #MAX_SUBSCRIBERS}
+     * subscribers, like any other, since each has its own bit in the routing mask and its
+     * own thread. The filters are matched through an {@link EventFilterIndex}, which scales
+     * to thousands of filters, but a dispatcher does not: for that many, subscribe once and
+     * fan events out from an {@link EventFilterIndex} of the filters in the handler, for
+     * example with {@code index.match(event, handler -> handler.accept(event))}.
+     * 
+     * @param filter The filter
+     * @param handler The handler, called on the subscriber's thread
+     * @return The subscription
+     * @throws IllegalStateException if the dispatcher is closed or has the maximum number of subscribers
+     */
+    public EventSubscription subscribe(EventFilter filter, Consumer<CloudEvent> handler) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null");
+        }
+        return subscribe(null, null, filter, handler);
+    }
+    
+    private EventSubscription subscribe(String type, String source, EventFilter filter, Consumer<CloudEvent> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        EventSubscription subscription;
+        synchronized (subscriptionLock) {
+            if (closed) {
+                throw new IllegalStateException("Event dispatcher is closed");
+            }
+            if (usedBits == -1L) {
+                throw new IllegalStateException("An event dispatcher has at most " + MAX_SUBSCRIBERS + " subscribers");
+            }
+            int bit = Long.numberOfTrailingZeros(~usedBits);
+            usedBits |= 1L << bit;
+            // Gate producers on a sequence no later than the cursor before reading the
+            // cursor the subscriber starts from, so no producer can lap it in between
+            subscription = new EventSubscription(this, type, source, filter, handler, bit, cursor.get());
+            routing = routing.with(subscription);
+            gating = gating.with(subscription);
+            subscription.sequence.set(cursor.get());
+            subscription.thread = threadFactory.newThread(() -> consume(subscription));
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+    
+    /**
+     * Gets the sequence of the last event claimed by a producer.
+     * 
+     * @return The cursor, or -1 if nothing has been published
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+    
+    /**
+     * Gets the number of events the ring buffer holds.
+     * 
+     * @return The buffer size
+     */
+    public int getBufferSize() {
+        return events.length;
+    }
+    
+    /**
+     * Stops accepting events, waits for every subscriber to handle the events already
+     * published and stops the subscriber threads. Events published concurrently with
+     * closing may not be delivered.
+     */
+    @Override
+    public void close() {
+        EventSubscription[] subscriptions;
+        synchronized (subscriptionLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscriptions = gating.subscriptions;
+            long last = cursor.get();
+            for (EventSubscription subscription : subscriptions) {
+                subscription.stopAfter = last;
+            }
+        }
+        wakeBlocked();
+        for (EventSubscription subscription : subscriptions) {
+            join(subscription);
+        }
+    }
+    
+    void unsubscribe(EventSubscription subscription) {
+        synchronized (subscriptionLock) {
+            if ((usedBits & 1L << subscription.bit()) == 0 || !gating.contains(subscription)) {
+                return;
+            }
+            routing = routing.without(subscription);
+            subscription.stopAfter = -1;
+        }
+        wakeBlocked();
+        join(subscription);
+    }
+    
+    private void awaitCapacity(long sequence) {
+        Gating current = gating;
+        if (sequence - events.length <= current.cachedMinimum) {
+            return;
+        }
+        while (!hasCapacity(sequence)) {
+            LockSupport.parkNanos(1);
+        }
+    }
+    
+    private boolean hasCapacity(long sequence) {
+        long wrapPoint = sequence - events.length;
+        Gating current = gating;
+        if (wrapPoint <= current.cachedMinimum) {
+            return true;
+        }
+        long minimum = current.minimum();
+        current.cachedMinimum = minimum;
+        return wrapPoint <= minimum;
+    }
+    
+    private void write(long sequence, CloudEvent event) {
+        int index = (int) sequence & indexMask;
+        events[index] = event;
+        targets[index] = routing.targets(event);
+        LAPS.setRelease(laps, index, (int) (sequence >>> lapShift));
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            VarHandle.fullFence();
+            if (blocked.get() > 0) {
+                wakeBlocked();
+            }
+        }
+    }
+    
+    private boolean isPublished(long sequence) {
+        return (int) LAPS.getAcquire(laps, (int) sequence & indexMask) == (int) (sequence >>> lapShift);
+    }
+    
+    private void consume(EventSubscription subscription) {
+        long bit = 1L << subscription.bit();
+        Consumer<CloudEvent> handler = subscription.handler();
+        long next = subscription.sequence.get() + 1;
+        try {
+            while (true) {
+                long available = awaitPublished(next, subscription);
+                if (available < next) {
+                    return;
+                }
+                for (long sequence = next; sequence <= available; sequence++) {
+                    int index = (int) sequence & indexMask;
+                    if ((targets[index] & bit) != 0) {
+                        deliver(handler, events[index]);
+                    }
+                }
+                subscription.sequence.set(available);
+                next = available + 1;
+            }
+        } finally {
+            synchronized (subscriptionLock) {
+                gating = gating.without(subscription);
+                usedBits &= ~bit;
+            }
+        }
+    }
+    
+    /**
+     * Waits until the event at a sequence is published.
+     * 
+     * @return The last sequence of the contiguous run of published events starting at
+     *         the sequence, or -1 if the subscriber is stopping
+     */
+    private long awaitPublished(long next, EventSubscription subscription) {
+        int tries = 0;
+        while (next <= subscription.stopAfter) {
+            if (isPublished(next)) {
+                long last = next;
+                long limit = Math.min(next + events.length - 1, cursor.get());
+                while (last < limit && isPublished(last + 1)) {
+                    last++;
+                }
+                return last;
+            }
+            idle(tries++, next, subscription);
+        }
+        return -1;
+    }
+    
+    private void idle(int tries, long next, EventSubscription subscription) {
+        if (tries < SPIN_TRIES || waitStrategy == WaitStrategy.BUSY_SPIN) {
+            Thread.onSpinWait();
+        } else if (waitStrategy == WaitStrategy.YIELDING
+                || waitStrategy == WaitStrategy.SLEEPING && tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else if (waitStrategy == WaitStrategy.SLEEPING) {
+            LockSupport.parkNanos(SLEEP_NANOS);
+        } else {
+            blocked.incrementAndGet();
+            blockLock.lock();
+            try {
+                if (!isPublished(next) && next <= subscription.stopAfter) {
+                    // Timed, as a safety net for a wake-up that races with the check
+                    published.awaitNanos(BLOCK_NANOS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subscription.stopAfter = -1;
+            } finally {
+                blockLock.unlock();
+                blocked.decrementAndGet();
+            }
+        }
+    }
+    
+    private void wakeBlocked() {
+        blockLock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            blockLock.unlock();
+        }
+    }
+    
+    private static void deliver(Consumer<CloudEvent> handler, CloudEvent event) {
+        try {
+            handler.accept(event);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Subscriber failed to handle event " + event.getId());
+        }
+    }
+    
+    private static void join(EventSubscription subscription) {
+        Thread thread = subscription.thread;
+        if (thread == Thread.currentThread()) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static ThreadFactory daemonThreads() {
+        String prefix = "event-dispatcher-" + DISPATCHERS.incrementAndGet() + "-";
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * The subscribers producers must not lap, with a cached lower bound of their
+     * sequences. Each set of subscribers gets its own cache, so a bound computed from
+     * an old set is never applied to a new one.
+     */
+    private static final class Gating {
+        private final EventSubscription[] subscriptions;
+        private volatile long cachedMinimum;
+        
+        private Gating(EventSubscription[] subscriptions, long cachedMinimum) {
+            this.subscriptions = subscriptions;
+            this.cachedMinimum = cachedMinimum;
+        }
+        
+        private long minimum() {
+            return minimum(subscriptions);
+        }
+        
+        private static long minimum(EventSubscription[] subscriptions) {
+            long minimum = Long.MAX_VALUE;
+            for (EventSubscription subscription : subscriptions) {
+                minimum = Math.min(minimum, subscription.sequence.get());
+            }
+            return minimum;
+        }
+        
+        private boolean contains(EventSubscription subscription) {
+            for (EventSubscription candidate : subscriptions) {
+                if (candidate == subscription) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private Gating with(EventSubscription subscription) {
+            EventSubscription[] next = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            next[subscriptions.length] = subscription;
+            return new Gating(next, Math.min(minimum(), subscription.sequence.get()));
+        }
+        
+        private Gating without(EventSubscription subscription) {
+            EventSubscription[] next = Arrays.stream(subscriptions)
+                    .filter(candidate -> candidate != subscription)
+                    .toArray(EventSubscription[]::new);
+            return new Gating(next, minimum(next));
+        }
+    }
+    
+    /**
+     * The subscribers of each type and source, as bitmasks, and the index of filtered
+     * subscribers, replaced as a whole when subscriptions change.
+     */
+    private static final class Routing {
+        private final long everything;
+        private final Map<String, Long> byType;
+        private final Map<String, Long> bySource;
+        private final Map<String, Map<String, Long>> byTypeAndSource;
+        private final List<EventSubscription> filtered;
+        private final EventFilterIndex<EventSubscription> filters;
+        
+        private Routing() {
+            this(0, Map.of(), Map.of(), Map.of(), List.of());
+        }
+        
+        private Routing(long everything, Map<String, Long> byType, Map<String, Long> bySource,
+                Map<String, Map<String, Long>> byTypeAndSource, List<EventSubscription> filtered) {
+            this.everything = everything;
+            this.byType = byType;
+            this.bySource = bySource;
+            this.byTypeAndSource = byTypeAndSource;
+            this.filtered = filtered;
+            if (filtered.isEmpty()) {
+                this.filters = null;
+            } else {
+                EventFilterIndex.Builder<EventSubscription> builder = EventFilterIndex.builder();
+                filtered.forEach(subscription -> builder.add(subscription.getFilter(), subscription));
+                this.filters = builder.build();
+            }
+        }
+        
+        private long targets(CloudEvent event) {
+            String type = event.getType();
+            String source = event.getSource();
+            long targets = everything;
+            if (filters != null) {
+                targets |= filters.matchMask(event, subscription -> 1L << subscription.bit());
+            }
+            Long mask = byType.get(type);
+            if (mask != null) {
+                targets |= mask;
+            }
+            mask = bySource.get(source);
+            if (mask != null) {
+                targets |= mask;
+            }
+            Map<String, Long> sources = byTypeAndSource.get(type);
+            if (sources != null && (mask = sources.get(source)) != null) {
+                targets |= mask;
+            }
+            return targets;
+        }
+        
+        private Routing with(EventSubscription subscription) {
+            return update(subscription, true);
+        }
+        
+        private Routing without(EventSubscription subscription) {
+            return update(subscription, false);
+        }
+        
+        private Routing update(EventSubscription subscription, boolean add) {
+            long bit = 1L << subscription.bit();
+            String type = subscription.getType();
+            String source = subscription.getSource();
+            if (subscription.getFilter() != null) {
+                List<EventSubscription> next = new ArrayList<>(filtered);
+                if (add) {
+                    next.add(subscription);
+                } else {
+                    next.remove(subscription);
+                }
+                return new Routing(everything, byType, bySource, byTypeAndSource, List.copyOf(next));
+            }
+            if (type == null && source == null) {
+                return new Routing(add ? everything | bit : everything & ~bit, byType, bySource, byTypeAndSource,
+                        filtered);
+            }
+            if (source == null) {
+                return new Routing(everything, update(byType, type, bit, add), bySource, byTypeAndSource, filtered);
+            }
+            if (type == null) {
+                return new Routing(everything, byType, update(bySource, source, bit, add), byTypeAndSource, filtered);
+            }
+            Map<String, Map<String, Long>> next = new HashMap<>(byTypeAndSource);
+            Map<String, Long> sources = update(next.getOrDefault(type, Map.of()), source, bit, add);
+            if (sources.isEmpty()) {
+                next.remove(type);
+            } else {
+                next.put(type, sources);
+            }
+            return new Routing(everything, byType, bySource, next, filtered);
+        }
+        
+        private static Map<String, Long> update(Map<String, Long> masks, String key, long bit, boolean add) {
+            Map<String, Long> next = new HashMap<>(masks);
+            long mask = next.getOrDefault(key, 0L);
+            mask = add ? mask | bit : mask & ~bit;
+            if (mask == 0) {
+                next.remove(key);
+            } else {
+                next.put(key, mask);
+            }
+            return next;
+        }
+    }
+    
+    /**
+     * Builder for EventDispatcher.
+     */
+    public static class Builder {
+        private int bufferSize = 1024;
+        private WaitStrategy waitStrategy = WaitStrategy.SLEEPING;
+        private ThreadFactory threadFactory;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Sets the number of events the ring buffer holds.
+         * 
+         * @param bufferSize The buffer size, a power of two
+         * @return This builder
+         * @throws IllegalArgumentException if the size is not a positive power of two
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+                throw new IllegalArgumentException("Buffer size must be a positive power of two");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * Sets how subscribers wait for events. Defaults to {@link WaitStrategy#SLEEPING}.
+         * 
+         * @param waitStrategy The wait strategy
+         * @return This builder
+         */
+        public Builder waitStrategy(WaitStrategy waitStrategy) {
+            if (waitStrategy == null) {
+                throw new IllegalArgumentException("Wait strategy cannot be null");
+            }
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+        
+        /**
+         * Sets the factory of subscriber threads. Defaults to named daemon platform threads.
+         * 
+         * @param threadFactory The thread factory
+         * @return This builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+        
+        /**
+         * Builds the EventDispatcher.
+         * 
+         * @return The built EventDispatcher
+         */
+        public EventDispatcher build() {
+            return new EventDispatcher(this);
+        }
+    }
+}
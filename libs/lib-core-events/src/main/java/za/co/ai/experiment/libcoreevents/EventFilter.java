@@ -0,0 +1,383 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A filter over CloudEvent attributes, written in a subset of the CloudEvents SQL
+ * expression language (CESQL) and compiled once into a predicate.
+ * 
+ * <pre>{@code
+ * type LIKE 'com.example.order.%' AND (source = '/shop/eu' OR tenant = 'acme')
+ * }</pre>
+ * 
+ * The subset supports:
+ * <ul>
+ * <li>{@code attribute = 'value'}, and {@code !=} or {@code <>} for not equal;</li>
+ * <li>{@code attribute LIKE 'pattern'} and {@code NOT LIKE}, where the pattern may start
+ * or end with {@code %} for a prefix, suffix or contains match, and {@code \%} and
+ * {@code \\} escape a literal {@code %} or backslash;</li>
+ * <li>{@code EXISTS attribute};</li>
+ * <li>{@code AND}, {@code OR}, {@code NOT}, parentheses, {@code TRUE} and {@code FALSE}.</li>
+ * </ul>
+ * 
+ * Attributes are the context attributes {@code id}, {@code source}, {@code type},
+ * {@code subject}, {@code time}, {@code datacontenttype}, {@code dataschema} and
+ * {@code specversion}; any other name is an extension, compared by its string form.
+ * A comparison with an attribute the event does not have is false. Keywords are case
+ * insensitive; values are compared case sensitively.
+ * 
+ * An {@link EventFilterIndex} uses the exact and prefix matches a filter requires on
+ * {@code type} and {@code source} to find the filters that can match an event.
+ */
+public final class EventFilter implements Predicate<CloudEvent> {
+    
+    private final String expression;
+    private final Predicate<CloudEvent> predicate;
+    private final List<Match> required;
+    
+    private EventFilter(String expression, Predicate<CloudEvent> predicate, List<Match> required) {
+        this.expression = expression;
+        this.predicate = predicate;
+        this.required = required;
+    }
+    
+    /**
+     * Compiles a filter expression.
+     * 
+     * @param expression The filter expression
+     * @return The compiled filter
+     * @throws IllegalArgumentException if the expression is null or not valid
+     */
+    public static EventFilter parse(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Filter expression cannot be null");
+        }
+        Term term = new Parser(expression).parse();
+        return new EventFilter(expression, term.predicate, List.copyOf(term.required));
+    }
+    
+    /**
+     * Checks if an event matches this filter.
+     * 
+     * @param event The event
+     * @return true if the event matches
+     */
+    @Override
+    public boolean test(CloudEvent event) {
+        return predicate.test(event);
+    }
+    
+    /**
+     * Gets the expression this filter was compiled from.
+     * 
+     * @return The filter expression
+     */
+    public String getExpression() {
+        return expression;
+    }
+    
+    /**
+     * Gets the value an attribute must equal for an event to match, if the filter
+     * requires one.
+     */
+    String requiredValue(String attribute) {
+        for (Match match : required) {
+            if (match.kind == Kind.EXACT && match.attribute.equals(attribute)) {
+                return match.value;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the longest prefix an attribute must start with for an event to match, if
+     * the filter requires one.
+     */
+    String requiredPrefix(String attribute) {
+        String prefix = null;
+        for (Match match : required) {
+            if (match.kind == Kind.PREFIX && match.attribute.equals(attribute)
+                    && (prefix == null || match.value.length() > prefix.length())) {
+                prefix = match.value;
+            }
+        }
+        return prefix;
+    }
+    
+    @Override
+    public String toString() {
+        return expression;
+    }
+    
+    private static Function<CloudEvent, String> accessor(String attribute) {
+        return switch (attribute) {
+            case "id" -> CloudEvent::getId;
+            case "source" -> CloudEvent::getSource;
+            case "type" -> CloudEvent::getType;
+            case "subject" -> CloudEvent::getSubject;
+            case "datacontenttype" -> CloudEvent::getDataContentType;
+            case "dataschema" -> CloudEvent::getDataSchema;
+            case "specversion" -> event -> CloudEventJsonCodec.SPEC_VERSION;
+            case "time" -> EventFilter::time;
+            default -> event -> {
+                Object value = event.getExtension(attribute);
+                return value == null ? null : value.toString();
+            };
+        };
+    }
+    
+    private static String time(CloudEvent event) {
+        if (event.getTime() == null) {
+            return null;
+        }
+        char[] buffer = new char[Rfc3339.MAX_LENGTH];
+        return new String(buffer, 0, Rfc3339.format(event.getTime(), buffer));
+    }
+    
+    /**
+     * How a comparison matches an attribute value.
+     */
+    private enum Kind {
+        EXACT, PREFIX, SUFFIX, CONTAINS
+    }
+    
+    /**
+     * A comparison of one attribute with a value.
+     */
+    private static final class Match {
+        private final String attribute;
+        private final Kind kind;
+        private final String value;
+        
+        private Match(String attribute, Kind kind, String value) {
+            this.attribute = attribute;
+            this.kind = kind;
+            this.value = value;
+        }
+        
+        private Predicate<CloudEvent> compile() {
+            Function<CloudEvent, String> accessor = accessor(attribute);
+            String expected = value;
+            return switch (kind) {
+                case EXACT -> event -> expected.equals(accessor.apply(event));
+                case PREFIX -> event -> {
+                    String actual = accessor.apply(event);
+                    return actual != null && actual.startsWith(expected);
+                };
+                case SUFFIX -> event -> {
+                    String actual = accessor.apply(event);
+                    return actual != null && actual.endsWith(expected);
+                };
+                case CONTAINS -> event -> {
+                    String actual = accessor.apply(event);
+                    return actual != null && actual.contains(expected);
+                };
+            };
+        }
+    }
+    
+    /**
+     * A compiled subexpression, with the comparisons every matching event satisfies.
+     */
+    private static final class Term {
+        private final Predicate<CloudEvent> predicate;
+        private final List<Match> required;
+        
+        private Term(Predicate<CloudEvent> predicate, List<Match> required) {
+            this.predicate = predicate;
+            this.required = required;
+        }
+    }
+    
+    /**
+     * Recursive descent parser, compiling as it goes.
+     * 
+     * <pre>
+     * or         = and { OR and }
+     * and        = unary { AND unary }
+     * unary      = NOT unary | primary
+     * primary    = ( or ) | TRUE | FALSE | EXISTS name | name comparison
+     * comparison = ( = | != | &lt;&gt; ) string | [ NOT ] LIKE string
+     * </pre>
+     */
+    private static final class Parser {
+        private final String text;
+        private int position;
+        
+        private Parser(String text) {
+            this.text = text;
+        }
+        
+        private Term parse() {
+            Term term = or();
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("Unexpected " + text.substring(position));
+            }
+            return term;
+        }
+        
+        private Term or() {
+            Term left = and();
+            while (keyword("OR")) {
+                Term right = and();
+                left = new Term(left.predicate.or(right.predicate), List.of());
+            }
+            return left;
+        }
+        
+        private Term and() {
+            Term left = unary();
+            while (keyword("AND")) {
+                Term right = unary();
+                List<Match> required = new ArrayList<>(left.required);
+                required.addAll(right.required);
+                left = new Term(left.predicate.and(right.predicate), required);
+            }
+            return left;
+        }
+        
+        private Term unary() {
+            if (keyword("NOT")) {
+                return new Term(unary().predicate.negate(), List.of());
+            }
+            return primary();
+        }
+        
+        private Term primary() {
+            if (symbol("(")) {
+                Term term = or();
+                if (!symbol(")")) {
+                    throw error("Expected )");
+                }
+                return term;
+            }
+            if (keyword("TRUE")) {
+                return new Term(event -> true, List.of());
+            }
+            if (keyword("FALSE")) {
+                return new Term(event -> false, List.of());
+            }
+            if (keyword("EXISTS")) {
+                Function<CloudEvent, String> accessor = accessor(name());
+                return new Term(event -> accessor.apply(event) != null, List.of());
+            }
+            String attribute = name();
+            if (symbol("=")) {
+                return comparison(new Match(attribute, Kind.EXACT, string()), false);
+            }
+            if (symbol("!=") || symbol("<>")) {
+                return comparison(new Match(attribute, Kind.EXACT, string()), true);
+            }
+            boolean negated = keyword("NOT");
+            if (!keyword("LIKE")) {
+                throw error(negated ? "Expected LIKE" : "Expected =, !=, <> or LIKE");
+            }
+            return comparison(like(attribute, string()), negated);
+        }
+        
+        private Term comparison(Match match, boolean negated) {
+            if (!negated) {
+                return new Term(match.compile(), List.of(match));
+            }
+            // A missing attribute fails the comparison either way
+            Function<CloudEvent, String> accessor = accessor(match.attribute);
+            Predicate<CloudEvent> matches = match.compile();
+            return new Term(event -> accessor.apply(event) != null && !matches.test(event), List.of());
+        }
+        
+        private Match like(String attribute, String pattern) {
+            boolean leading = false;
+            boolean trailing = false;
+            StringBuilder literal = new StringBuilder(pattern.length());
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\' && i + 1 < pattern.length()) {
+                    literal.append(pattern.charAt(++i));
+                } else if (c == '%' && i == 0) {
+                    leading = true;
+                } else if (c == '%' && i == pattern.length() - 1) {
+                    trailing = true;
+                } else if (c == '%' || c == '_') {
+                    throw error("Only prefix, suffix and contains LIKE patterns are supported: " + pattern);
+                } else {
+                    literal.append(c);
+                }
+            }
+            Kind kind = leading && trailing || pattern.equals("%") ? Kind.CONTAINS
+                    : leading ? Kind.SUFFIX : trailing ? Kind.PREFIX : Kind.EXACT;
+            return new Match(attribute, kind, literal.toString());
+        }
+        
+        private String name() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && isNameChar(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected an attribute name");
+            }
+            return text.substring(start, position).toLowerCase(Locale.ROOT);
+        }
+        
+        private String string() {
+            skipWhitespace();
+            if (position >= text.length() || text.charAt(position) != '\'' && text.charAt(position) != '"') {
+                throw error("Expected a string");
+            }
+            char quote = text.charAt(position++);
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c != quote) {
+                    value.append(c);
+                } else if (position < text.length() && text.charAt(position) == quote) {
+                    value.append(quote);
+                    position++;
+                } else {
+                    return value.toString();
+                }
+            }
+            throw error("Unterminated string");
+        }
+        
+        private boolean keyword(String keyword) {
+            skipWhitespace();
+            int end = position + keyword.length();
+            if (end > text.length() || !text.regionMatches(true, position, keyword, 0, keyword.length())
+                    || end < text.length() && isNameChar(text.charAt(end))) {
+                return false;
+            }
+            position = end;
+            return true;
+        }
+        
+        private boolean symbol(String symbol) {
+            skipWhitespace();
+            if (!text.startsWith(symbol, position)) {
+                return false;
+            }
+            position += symbol.length();
+            return true;
+        }
+        
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid filter expression at " + position + ": " + message);
+        }
+        
+        private static boolean isNameChar(char c) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * An immutable set of {@link EventFilter}s, each with a value such as a subscriber,
+ * indexed so that matching an event only evaluates the filters that can match it.
+ * 
+ * Each filter is indexed by the first of these that it requires:
+ * <ol>
+ * <li>an exact {@code type}, in a hash map of types;</li>
+ * <li>an exact {@code source}, in a hash map of sources;</li>
+ * <li>a {@code type} prefix, in a trie of prefixes.</li>
+ * </ol>
+ * Matching an event looks up its type and source in the maps and walks the trie along
+ * its type, then evaluates the filters found there, and every filter that requires none
+ * of these. With filters that do, the cost grows with the number of filters sharing the
+ * event's type, source or type prefixes rather than with the total number of filters.
+ * 
+ * @param <T> The value type
+ */
+public final class EventFilterIndex<T> {
+    
+    private static final String TYPE = "type";
+    private static final String SOURCE = "source";
+    
+    private final Map<String, Entry<T>[]> byType;
+    private final Map<String, Entry<T>[]> bySource;
+    private final TrieNode<T> byTypePrefix;
+    private final Entry<T>[] unindexed;
+    private final int size;
+    
+    private EventFilterIndex(Builder<T> builder) {
+        Map<String, List<Entry<T>>> types = new HashMap<>();
+        Map<String, List<Entry<T>>> sources = new HashMap<>();
+        MutableTrieNode<T> prefixes = new MutableTrieNode<>();
+        List<Entry<T>> rest = new ArrayList<>();
+        for (Entry<T> entry : builder.entries) {
+            String type = entry.filter.requiredValue(TYPE);
+            String source = entry.filter.requiredValue(SOURCE);
+            String prefix = entry.filter.requiredPrefix(TYPE);
+            if (type != null) {
+                types.computeIfAbsent(type, key -> new ArrayList<>()).add(entry);
+            } else if (source != null) {
+                sources.computeIfAbsent(source, key -> new ArrayList<>()).add(entry);
+            } else if (prefix != null) {
+                prefixes.add(prefix, 0, entry);
+            } else {
+                rest.add(entry);
+            }
+        }
+        this.byType = freeze(types);
+        this.bySource = freeze(sources);
+        this.byTypePrefix = prefixes.freeze();
+        this.unindexed = toArray(rest);
+        this.size = builder.entries.size();
+    }
+    
+    /**
+     * Creates a new event filter index builder.
+     * 
+     * @param <T> The value type
+     * @return A new event filter index builder
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+    
+    /**
+     * Calls an action with the value of every filter matching an event, in no
+     * particular order.
+     * 
+     * @param event The event
+     * @param action The action
+     */
+    public void match(CloudEvent event, Consumer<? super T> action) {
+        visit(event, action, null);
+    }
+    
+    /**
+     * Gets the values of every filter matching an event, in no particular order.
+     * 
+     * @param event The event
+     * @return The matching values
+     */
+    public List<T> match(CloudEvent event) {
+        List<T> values = new ArrayList<>();
+        visit(event, values::add, null);
+        return values;
+    }
+    
+    /**
+     * Gets the number of filters in the index.
+     * 
+     * @return The number of filters
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Combines a bitmask of each value whose filter matches an event, without
+     * allocating.
+     */
+    long matchMask(CloudEvent event, ToLongFunction<? super T> mask) {
+        return visit(event, null, mask);
+    }
+    
+    private long visit(CloudEvent event, Consumer<? super T> action, ToLongFunction<? super T> mask) {
+        long combined = 0;
+        String type = event.getType();
+        if (type != null) {
+            combined |= visit(byType.get(type), event, action, mask);
+            TrieNode<T> node = byTypePrefix;
+            combined |= visit(node.entries, event, action, mask);
+            for (int i = 0; i < type.length() && (node = node.child(type.charAt(i))) != null; i++) {
+                combined |= visit(node.entries, event, action, mask);
+            }
+        }
+        String source = event.getSource();
+        if (source != null) {
+            combined |= visit(bySource.get(source), event, action, mask);
+        }
+        return combined | visit(unindexed, event, action, mask);
+    }
+    
+    private static <T> long visit(Entry<T>[] entries, CloudEvent event, Consumer<? super T> action,
+            ToLongFunction<? super T> mask) {
+        if (entries == null) {
+            return 0;
+        }
+        long combined = 0;
+        for (Entry<T> entry : entries) {
+            if (entry.filter.test(event)) {
+                if (action != null) {
+                    action.accept(entry.value);
+                } else {
+                    combined |= mask.applyAsLong(entry.value);
+                }
+            }
+        }
+        return combined;
+    }
+    
+    private static <T> Map<String, Entry<T>[]> freeze(Map<String, List<Entry<T>>> lists) {
+        Map<String, Entry<T>[]> arrays = new HashMap<>(lists.size() * 4 / 3 + 1);
+        lists.forEach((key, entries) -> arrays.put(key, toArray(entries)));
+        return arrays;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] toArray(List<Entry<T>> entries) {
+        return entries.toArray(new Entry[0]);
+    }
+    
+    /**
+     * A filter and its value.
+     */
+    private static final class Entry<T> {
+        private final EventFilter filter;
+        private final T value;
+        
+        private Entry(EventFilter filter, T value) {
+            this.filter = filter;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * A node of the type prefix trie, with its children in sorted arrays searched by
+     * binary search.
+     */
+    private static final class TrieNode<T> {
+        private final char[] labels;
+        private final TrieNode<T>[] children;
+        private final Entry<T>[] entries;
+        
+        private TrieNode(char[] labels, TrieNode<T>[] children, Entry<T>[] entries) {
+            this.labels = labels;
+            this.children = children;
+            this.entries = entries;
+        }
+        
+        private TrieNode<T> child(char label) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = labels[middle];
+                if (candidate < label) {
+                    low = middle + 1;
+                } else if (candidate > label) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * A node of the type prefix trie while the index is being built.
+     */
+    private static final class MutableTrieNode<T> {
+        private final TreeMap<Character, MutableTrieNode<T>> children = new TreeMap<>();
+        private final List<Entry<T>> entries = new ArrayList<>();
+        
+        private void add(String prefix, int depth, Entry<T> entry) {
+            if (depth == prefix.length()) {
+                entries.add(entry);
+            } else {
+                children.computeIfAbsent(prefix.charAt(depth), key -> new MutableTrieNode<>())
+                        .add(prefix, depth + 1, entry);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private TrieNode<T> freeze() {
+            char[] labels = new char[children.size()];
+            TrieNode<T>[] frozen = new TrieNode[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableTrieNode<T>> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                frozen[i++] = child.getValue().freeze();
+            }
+            return new TrieNode<>(labels, frozen, entries.isEmpty() ? null : toArray(entries));
+        }
+    }
+    
+    /**
+     * Builder for EventFilterIndex.
+     * 
+     * @param <T> The value type
+     */
+    public static class Builder<T> {
+        private final List<Entry<T>> entries = new ArrayList<>();
+        
+        private Builder() {
+        }
+        
+        /**
+         * Adds a filter.
+         * 
+         * @param filter The filter
+         * @param value The value returned when the filter matches
+         * @return This builder
+         */
+        public Builder<T> add(EventFilter filter, T value) {
+            if (filter == null) {
+                throw new IllegalArgumentException("Filter cannot be null");
+            }
+            entries.add(new Entry<>(filter, value));
+            return this;
+        }
+        
+        /**
+         * Compiles and adds a filter expression.
+         * 
+         * @param expression The filter expression
+         * @param value The value returned when the filter matches
+         * @return This builder
+         * @throws IllegalArgumentException if the expression is not valid
+         */
+        public Builder<T> add(String expression, T value) {
+            return add(EventFilter.parse(expression), value);
+        }
+        
+        /**
+         * Builds the EventFilterIndex.
+         * 
+         * @return The built EventFilterIndex
+         */
+        public EventFilterIndex<T> build() {
+            return new EventFilterIndex<>(this);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.UUID;
+
+/**
+ * Generates the IDs of events built without one.
+ * 
+ * @see CloudEvent.Builder#idGenerator(EventIdGenerator)
+ */
+@FunctionalInterface
+public interface EventIdGenerator {
+    
+    /**
+     * Generates a new event ID.
+     * 
+     * @return The ID, unique within the event source
+     */
+    String nextId();
+    
+    /**
+     * Gets the default generator, which produces time-ordered UUIDv7 IDs.
+     * 
+     * @return The shared UUIDv7 generator
+     */
+    static EventIdGenerator timeOrdered() {
+        return UuidV7Generator.SHARED;
+    }
+    
+    /**
+     * Gets a generator of random (version 4) UUIDs. These come from {@link java.security.SecureRandom},
+     * which is slower and contends under load, so prefer {@link #timeOrdered()} unless IDs
+     * must not reveal when events were created.
+     * 
+     * @return A random UUID generator
+     */
+    static EventIdGenerator randomUuid() {
+        return () -> UUID.randomUUID().toString();
+    }
+}
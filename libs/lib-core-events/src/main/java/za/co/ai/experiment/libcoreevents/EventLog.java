@@ -0,0 +1,598 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A durable, append-only log of events in a local directory, for replaying events after
+ * a restart or a crash without running a broker.
+ * 
+ * Each appended event gets the next offset, starting from 0, and is stamped with its
+ * append time. Events are stored in the compact binary format of a
+ * {@link CloudEventBinaryCodec}, in segment files that are memory-mapped, so appending
+ * copies the encoded event into the page cache and reading returns views of it without
+ * copying. When the active segment is full, it is sealed and a new one is started; sealed
+ * segments are deleted once the log exceeds its retention size or they are older than
+ * its retention age. The {@link LogSyncPolicy} decides when appended events are forced
+ * to disk.
+ * 
+ * Opening a log recovers it: the records of the last segment are checked and a record
+ * torn by a crash, with everything after it, is truncated.
+ * 
+ * Appends are serialized; any number of {@link EventLogReader}s can read concurrently,
+ * including the events being appended.
+ * 
+ * With {@link Builder#secondaryIndexes(boolean)}, the log also keeps posting lists of the
+ * offsets of the events with each type, subject and source, updated as events are
+ * appended, and answers {@link #query()}s from them.
+ */
+public final class EventLog implements AutoCloseable {
+    
+    private static final Pattern SEGMENT_FILE = Pattern.compile("(\\d{20})\\.log");
+    
+    private final Path directory;
+    private final int segmentSize;
+    private final int indexInterval;
+    private final LogSyncPolicy syncPolicy;
+    private final long retentionBytes;
+    private final Duration retentionAge;
+    private final Clock clock;
+    private final CloudEventBinaryCodec codec;
+    private final ScheduledExecutorService syncer;
+    private final EventLogIndex index;
+    
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private volatile List<LogSegment> segments;
+    private LogSegment active;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private volatile long endOffset;
+    private volatile long durableOffset = -1;
+    private volatile boolean closed;
+    private volatile Exception failure;
+    
+    private EventLog(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.indexInterval = builder.indexInterval;
+        this.syncPolicy = builder.syncPolicy;
+        this.retentionBytes = builder.retentionBytes;
+        this.retentionAge = builder.retentionAge;
+        this.clock = builder.clock;
+        this.codec = builder.codec;
+        
+        Files.createDirectories(directory);
+        List<Long> baseOffsets = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    baseOffsets.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        baseOffsets.sort(null);
+        List<LogSegment> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < baseOffsets.size() - 1; i++) {
+                opened.add(LogSegment.openSealed(directory, baseOffsets.get(i), indexInterval));
+            }
+            long activeBase = baseOffsets.isEmpty() ? 0 : baseOffsets.get(baseOffsets.size() - 1);
+            opened.add(LogSegment.openActive(directory, activeBase, segmentSize, indexInterval));
+        } catch (IOException | RuntimeException e) {
+            for (LogSegment segment : opened) {
+                segment.close();
+            }
+            throw e;
+        }
+        this.segments = List.copyOf(opened);
+        this.active = opened.get(opened.size() - 1);
+        this.endOffset = active.nextOffset();
+        this.durableOffset = endOffset - 1;
+        for (LogSegment segment : opened) {
+            lastTimestamp = Math.max(lastTimestamp, segment.lastTimestamp());
+        }
+        this.index = builder.secondaryIndexes ? new EventLogIndex() : null;
+        if (index != null) {
+            for (LogSegment segment : opened) {
+                index.startSegment(segment.baseOffset());
+                for (int position = 0; position < segment.end(); position += LogSegment.HEADER_SIZE
+                        + segment.length(position)) {
+                    index.add(segment.offset(position), codec.decode(segment.payload(position)));
+                }
+            }
+        }
+        
+        if (syncPolicy == LogSyncPolicy.PERIODIC) {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "event-log-sync-" + directory.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = builder.syncInterval.toNanos();
+            syncer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.syncer = null;
+        }
+    }
+    
+    /**
+     * Creates a new event log builder.
+     * 
+     * @param directory The directory holding the log's segment files
+     * @return A new event log builder
+     * @throws IllegalArgumentException if the directory is null
+     */
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+    
+    /**
+     * Appends an event. Under {@link LogSyncPolicy#GROUP_COMMIT}, waits until the event
+     * is on disk.
+     * 
+     * @param event The event
+     * @return The event's offset
+     * @throws IllegalArgumentException if the event cannot be encoded or is larger than a segment
+     * @throws IllegalStateException if the log is closed, or failed to roll a segment before
+     * @throws UncheckedIOException if a segment cannot be rolled
+     */
+    public long append(CloudEvent event) {
+        long offset;
+        BinaryWriter writer = codec.encodeReused(event);
+        try {
+            if (writer.size() > segmentSize - LogSegment.HEADER_SIZE) {
+                throw new IllegalArgumentException("Event of " + writer.size() + " bytes does not fit in a segment");
+            }
+            synchronized (appendLock) {
+                if (closed) {
+                    throw new IllegalStateException("Event log is closed");
+                }
+                if (failure != null) {
+                    throw new IllegalStateException("Event log failed to roll a segment and must be reopened",
+                            failure);
+                }
+                offset = endOffset;
+                long timestamp = Math.max(clock.millis(), lastTimestamp);
+                if (!active.append(offset, timestamp, writer.array(), writer.size())) {
+                    roll();
+                    active.append(offset, timestamp, writer.array(), writer.size());
+                }
+                if (index != null) {
+                    index.add(offset, event);
+                }
+                lastTimestamp = timestamp;
+                endOffset = offset + 1;
+            }
+        } finally {
+            CloudEventBinaryCodec.release(writer);
+        }
+        if (syncPolicy == LogSyncPolicy.GROUP_COMMIT) {
+            awaitDurable(offset);
+        }
+        return offset;
+    }
+    
+    /**
+     * Opens a reader at an offset. Offsets below the start of the log, because their
+     * segments were deleted, start at the first retained event.
+     * 
+     * @param offset The offset of the first event to read
+     * @return A reader positioned before the event
+     * @throws IllegalArgumentException if the offset is after the end of the log
+     */
+    public EventLogReader read(long offset) {
+        if (offset > endOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is after the end of the log " + endOffset);
+        }
+        List<LogSegment> snapshot = segments;
+        LogSegment segment = snapshot.get(0);
+        for (LogSegment candidate : snapshot) {
+            if (candidate.baseOffset() <= offset) {
+                segment = candidate;
+            }
+        }
+        return new EventLogReader(this, segment, segment.positionOf(offset));
+    }
+    
+    /**
+     * Opens a reader at the first event appended at or after a time.
+     * 
+     * @param time The time
+     * @return A reader positioned before the event, or at the end of the log if there is none
+     */
+    public EventLogReader read(Instant time) {
+        long timestamp = time.toEpochMilli();
+        List<LogSegment> snapshot = segments;
+        for (LogSegment segment : snapshot) {
+            if (segment.lastTimestamp() >= timestamp) {
+                return new EventLogReader(this, segment, segment.positionAt(timestamp));
+            }
+        }
+        LogSegment last = snapshot.get(snapshot.size() - 1);
+        return new EventLogReader(this, last, last.positionAt(timestamp));
+    }
+    
+    /**
+     * Starts a query answered from the secondary indexes.
+     * 
+     * @return A new query
+     * @throws IllegalStateException if the log was opened without secondary indexes
+     */
+    public EventQuery query() {
+        if (index == null) {
+            throw new IllegalStateException("Event log has no secondary indexes");
+        }
+        return new EventQuery(this, index);
+    }
+    
+    /**
+     * Gets the number of bytes the secondary index posting lists take.
+     * 
+     * @return The size of the secondary indexes, or 0 if there are none
+     */
+    public long getIndexSize() {
+        return index == null ? 0 : index.sizeInBytes();
+    }
+    
+    /**
+     * Forces every appended event to disk.
+     * 
+     * @throws UncheckedIOException if the events cannot be forced
+     */
+    public void flush() {
+        synchronized (syncLock) {
+            LogSegment segment;
+            long last;
+            synchronized (appendLock) {
+                segment = active;
+                last = endOffset - 1;
+            }
+            // Sealing forces a segment, so events in earlier segments are already on disk
+            segment.force();
+            durableOffset = Math.max(durableOffset, last);
+        }
+    }
+    
+    /**
+     * Deletes the oldest sealed segments while the log is larger than its retention size
+     * or they only hold events older than its retention age. This runs whenever a segment
+     * is sealed; call it to apply the retention age to a log that is not being appended to.
+     * 
+     * @return The number of segments deleted
+     * @throws UncheckedIOException if a segment cannot be deleted
+     */
+    public int enforceRetention() {
+        List<LogSegment> deleted = new ArrayList<>();
+        synchronized (appendLock) {
+            List<LogSegment> remaining = new ArrayList<>(segments);
+            long size = 0;
+            for (LogSegment segment : remaining) {
+                size += segment.end();
+            }
+            long expiredBefore = retentionAge == null ? Long.MIN_VALUE
+                    : clock.millis() - retentionAge.toMillis();
+            while (remaining.size() > 1) {
+                LogSegment oldest = remaining.get(0);
+                if (size <= retentionBytes && oldest.lastTimestamp() >= expiredBefore) {
+                    break;
+                }
+                remaining.remove(0);
+                deleted.add(oldest);
+                size -= oldest.end();
+            }
+            if (deleted.isEmpty()) {
+                return 0;
+            }
+            segments = List.copyOf(remaining);
+            if (index != null) {
+                deleted.forEach(segment -> index.removeSegment(segment.baseOffset()));
+            }
+        }
+        try {
+            for (LogSegment segment : deleted) {
+                segment.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return deleted.size();
+    }
+    
+    /**
+     * Gets the offset of the first retained event.
+     * 
+     * @return The start offset, equal to the end offset if the log is empty
+     */
+    public long getStartOffset() {
+        return segments.get(0).baseOffset();
+    }
+    
+    /**
+     * Gets the offset the next appended event will get.
+     * 
+     * @return The end offset
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+    
+    /**
+     * Gets the number of segment files.
+     * 
+     * @return The number of segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+    
+    /**
+     * Gets the codec events are stored with.
+     * 
+     * @return The codec
+     */
+    public CloudEventBinaryCodec getCodec() {
+        return codec;
+    }
+    
+    /**
+     * Forces appended events to disk and closes the segment files. Readers can still read
+     * the events that were appended.
+     * 
+     * @throws UncheckedIOException if the segments cannot be closed
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        try {
+            for (LogSegment segment : segments) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Gets the segment after another, for a reader that has reached the end of it.
+     * 
+     * @return The next segment, or null if the segment is the last one
+     */
+    LogSegment segmentAfter(LogSegment segment) {
+        for (LogSegment candidate : segments) {
+            if (candidate.baseOffset() > segment.baseOffset()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+    
+    private void awaitDurable(long offset) {
+        if (durableOffset >= offset) {
+            return;
+        }
+        synchronized (syncLock) {
+            // Another appender's force may have covered this offset while this one waited
+            if (durableOffset < offset) {
+                flush();
+            }
+        }
+    }
+    
+    /**
+     * Seals the active segment and starts the next one. The next segment is opened first,
+     * so failing to open it leaves the active segment appendable as it was. Either way a
+     * failed roll fails the log, since the state of the files is no longer known. A crash
+     * between the two leaves the segment unsealed, which opening the log recovers.
+     */
+    private void roll() {
+        try {
+            LogSegment next = LogSegment.openActive(directory, endOffset, segmentSize, indexInterval);
+            try {
+                active.seal();
+            } catch (IOException | RuntimeException e) {
+                try {
+                    next.delete();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            List<LogSegment> rolled = new ArrayList<>(segments);
+            rolled.add(next);
+            segments = List.copyOf(rolled);
+            active = next;
+            if (index != null) {
+                index.startSegment(next.baseOffset());
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+        enforceRetention();
+    }
+    
+    /**
+     * Builder for EventLog.
+     */
+    public static class Builder {
+        private final Path directory;
+        private int segmentSize = 64 * 1024 * 1024;
+        private int indexInterval = 4096;
+        private LogSyncPolicy syncPolicy = LogSyncPolicy.PERIODIC;
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private long retentionBytes = Long.MAX_VALUE;
+        private Duration retentionAge;
+        private Clock clock = Clock.systemUTC();
+        private CloudEventBinaryCodec codec;
+        private boolean secondaryIndexes;
+        
+        private Builder(Path directory) {
+            if (directory == null) {
+                throw new IllegalArgumentException("Directory cannot be null");
+            }
+            this.directory = directory;
+        }
+        
+        /**
+         * Sets the size of each segment file. Defaults to 64 MiB.
+         * 
+         * @param segmentSize The segment size in bytes
+         * @return This builder
+         * @throws IllegalArgumentException if the size is below 1 KiB
+         */
+        public Builder segmentSize(int segmentSize) {
+            if (segmentSize < 1024) {
+                throw new IllegalArgumentException("Segment size must be at least 1 KiB");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+        
+        /**
+         * Sets how many bytes of records there are between entries of the sparse offset
+         * and time indexes. Defaults to 4 KiB.
+         * 
+         * @param indexInterval The index interval in bytes
+         * @return This builder
+         * @throws IllegalArgumentException if the interval is not positive
+         */
+        public Builder indexInterval(int indexInterval) {
+            if (indexInterval <= 0) {
+                throw new IllegalArgumentException("Index interval must be positive");
+            }
+            this.indexInterval = indexInterval;
+            return this;
+        }
+        
+        /**
+         * Sets when appended events are forced to disk. Defaults to
+         * {@link LogSyncPolicy#PERIODIC}.
+         * 
+         * @param syncPolicy The sync policy
+         * @return This builder
+         */
+        public Builder syncPolicy(LogSyncPolicy syncPolicy) {
+            if (syncPolicy == null) {
+                throw new IllegalArgumentException("Sync policy cannot be null");
+            }
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+        
+        /**
+         * Sets the interval of {@link LogSyncPolicy#PERIODIC} syncs. Defaults to 1 second.
+         * 
+         * @param syncInterval The sync interval
+         * @return This builder
+         * @throws IllegalArgumentException if the interval is not positive
+         */
+        public Builder syncInterval(Duration syncInterval) {
+            if (syncInterval == null || syncInterval.isNegative() || syncInterval.isZero()) {
+                throw new IllegalArgumentException("Sync interval must be positive");
+            }
+            this.syncInterval = syncInterval;
+            return this;
+        }
+        
+        /**
+         * Sets the size above which the oldest segments are deleted. Unlimited by default.
+         * 
+         * @param retentionBytes The retention size in bytes
+         * @return This builder
+         */
+        public Builder retentionBytes(long retentionBytes) {
+            this.retentionBytes = retentionBytes;
+            return this;
+        }
+        
+        /**
+         * Sets the age after which segments are deleted, by the append time of their last
+         * event. Unlimited by default.
+         * 
+         * @param retentionAge The retention age, or null for unlimited
+         * @return This builder
+         */
+        public Builder retentionAge(Duration retentionAge) {
+            this.retentionAge = retentionAge;
+            return this;
+        }
+        
+        /**
+         * Sets the clock events are stamped and aged with.
+         * 
+         * @param clock The clock
+         * @return This builder
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+        
+        /**
+         * Sets the codec events are stored with. Defaults to a codec with no dictionary;
+         * a log must always be opened with the same dictionary.
+         * 
+         * @param codec The codec
+         * @return This builder
+         */
+        public Builder codec(CloudEventBinaryCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+        
+        /**
+         * Sets whether to keep secondary indexes by type, subject and source for
+         * {@link EventLog#query()}. They are held in memory and rebuilt from the segments
+         * when the log is opened. Off by default.
+         * 
+         * @param secondaryIndexes true to keep secondary indexes
+         * @return This builder
+         */
+        public Builder secondaryIndexes(boolean secondaryIndexes) {
+            this.secondaryIndexes = secondaryIndexes;
+            return this;
+        }
+        
+        /**
+         * Opens the EventLog, creating the directory if needed and recovering its segments.
+         * 
+         * @return The opened EventLog
+         * @throws UncheckedIOException if the log cannot be opened
+         */
+        public EventLog build() {
+            if (codec == null) {
+                codec = CloudEventBinaryCodec.builder().build();
+            }
+            try {
+                return new EventLog(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes of an {@link EventLog}: for each segment, a {@link PostingList} of
+ * the offsets of the events with each type, subject and source.
+ * 
+ * Postings are kept per segment so that deleting a segment drops its postings, and so
+ * that offsets within a list stay close to the segment's base offset. The indexes are
+ * held in memory, built as events are appended and rebuilt from the records when the
+ * log is opened. Only the log's appending thread adds to them.
+ */
+final class EventLogIndex {
+    
+    private final ConcurrentSkipListMap<Long, SegmentPostings> segments = new ConcurrentSkipListMap<>();
+    private SegmentPostings current;
+    
+    /**
+     * Starts indexing the events of a new segment.
+     */
+    void startSegment(long baseOffset) {
+        current = new SegmentPostings(baseOffset);
+        segments.put(baseOffset, current);
+    }
+    
+    void add(long offset, CloudEvent event) {
+        current.add(current.byType, event.getType(), offset);
+        current.add(current.bySubject, event.getSubject(), offset);
+        current.add(current.bySource, event.getSource(), offset);
+    }
+    
+    void removeSegment(long baseOffset) {
+        segments.remove(baseOffset);
+    }
+    
+    /**
+     * Finds the offsets of the events matching every given attribute, by intersecting
+     * their posting lists, without reading the events.
+     * 
+     * @param from The first offset to include
+     * @param to The offset to stop before
+     * @return The matching offsets, in order
+     */
+    long[] offsets(String type, String subject, String source, long from, long to, int limit) {
+        long[] offsets = new long[16];
+        int count = 0;
+        Long first = segments.floorKey(from);
+        for (SegmentPostings segment : segments.tailMap(first != null ? first : from).values()) {
+            if (segment.baseOffset >= to || count >= limit) {
+                break;
+            }
+            List<PostingList> lists = new ArrayList<>(3);
+            if (!segment.collect(segment.byType, type, lists) || !segment.collect(segment.bySubject, subject, lists)
+                    || !segment.collect(segment.bySource, source, lists)) {
+                continue;
+            }
+            // Drive the intersection from the shortest list
+            lists.sort(Comparator.comparingInt(PostingList::count));
+            PostingList.Cursor[] cursors = new PostingList.Cursor[lists.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = lists.get(i).cursor();
+            }
+            long candidate = cursors[0].advance(from);
+            while (candidate < to && count < limit) {
+                long agreed = candidate;
+                for (int i = 1; i < cursors.length && agreed == candidate; i++) {
+                    agreed = cursors[i].advance(candidate);
+                }
+                if (agreed == candidate) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = candidate;
+                    candidate = cursors[0].next();
+                } else {
+                    candidate = cursors[0].advance(agreed);
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+    
+    /**
+     * Gets the number of bytes the posting lists take.
+     */
+    long sizeInBytes() {
+        long size = 0;
+        for (SegmentPostings segment : segments.values()) {
+            for (Map<String, PostingList> lists : List.of(segment.byType, segment.bySubject, segment.bySource)) {
+                for (PostingList list : lists.values()) {
+                    size += list.sizeInBytes();
+                }
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * The posting lists of one segment.
+     */
+    private static final class SegmentPostings {
+        private final long baseOffset;
+        private final Map<String, PostingList> byType = new ConcurrentHashMap<>();
+        private final Map<String, PostingList> bySubject = new ConcurrentHashMap<>();
+        private final Map<String, PostingList> bySource = new ConcurrentHashMap<>();
+        
+        private SegmentPostings(long baseOffset) {
+            this.baseOffset = baseOffset;
+        }
+        
+        private void add(Map<String, PostingList> lists, String value, long offset) {
+            if (value != null) {
+                lists.computeIfAbsent(value, key -> new PostingList(baseOffset)).add(offset);
+            }
+        }
+        
+        /**
+         * Adds the posting list of a value, if the query gives one.
+         * 
+         * @return false if the segment has no events with the value
+         */
+        private boolean collect(Map<String, PostingList> lists, String value, List<PostingList> collected) {
+            if (value == null) {
+                return true;
+            }
+            PostingList list = lists.get(value);
+            if (list == null) {
+                return false;
+            }
+            collected.add(list);
+            return true;
+        }
+    }
+}
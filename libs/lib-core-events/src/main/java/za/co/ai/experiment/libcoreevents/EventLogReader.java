@@ -0,0 +1,103 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+/**
+ * A cursor over the events of an {@link EventLog}, from the position it was opened at
+ * to the end of the log.
+ * 
+ * {@link #next()} moves to the next event and returns false at the end of the log; it
+ * can be called again later to read events appended since, so a reader can also follow
+ * the log as it grows. The event's payload is a view of the segment mapping, read
+ * without copying; decoding it with {@link #getEvent()} is left to the caller, so
+ * events can be skipped or forwarded in their encoded form.
+ * 
+ * Readers are not thread-safe. A reader left behind by retention moves on to the first
+ * retained segment after the one it is reading.
+ */
+public final class EventLogReader {
+    
+    private final EventLog log;
+    private LogSegment segment;
+    private int position;
+    private LogSegment recordSegment;
+    private int record;
+    
+    EventLogReader(EventLog log, LogSegment segment, int position) {
+        this.log = log;
+        this.segment = segment;
+        this.position = position;
+    }
+    
+    /**
+     * Moves to the next event.
+     * 
+     * @return true if there is another event, false at the end of the log
+     */
+    public boolean next() {
+        while (true) {
+            // Read sealed before end, so the end of a sealed segment is its final end
+            boolean sealed = segment.isSealed();
+            if (position < segment.end()) {
+                recordSegment = segment;
+                record = position;
+                position += LogSegment.HEADER_SIZE + segment.length(position);
+                return true;
+            }
+            LogSegment following = sealed ? log.segmentAfter(segment) : null;
+            if (following == null) {
+                return false;
+            }
+            segment = following;
+            position = 0;
+        }
+    }
+    
+    /**
+     * Gets the offset of the current event.
+     * 
+     * @return The offset
+     * @throws IllegalStateException if {@link #next()} has not returned true
+     */
+    public long getOffset() {
+        return current().offset(record);
+    }
+    
+    /**
+     * Gets the time the current event was appended.
+     * 
+     * @return The append time
+     * @throws IllegalStateException if {@link #next()} has not returned true
+     */
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(current().timestamp(record));
+    }
+    
+    /**
+     * Gets the current event in its encoded form.
+     * 
+     * @return A read-only view of the encoded event
+     * @throws IllegalStateException if {@link #next()} has not returned true
+     */
+    public ByteBuffer getPayload() {
+        return current().payload(record);
+    }
+    
+    /**
+     * Decodes the current event.
+     * 
+     * @return The event
+     * @throws IllegalStateException if {@link #next()} has not returned true
+     */
+    public CloudEvent getEvent() {
+        return log.getCodec().decode(getPayload());
+    }
+    
+    private LogSegment current() {
+        if (recordSegment == null) {
+            throw new IllegalStateException("No current event");
+        }
+        return recordSegment;
+    }
+}
@@ -0,0 +1,510 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Flow.Publisher} of CloudEvents that delivers each published event to every
+ * subscriber as the subscriber requests them.
+ * 
+ * Each subscriber has a bounded buffer of events published but not yet requested. When
+ * a subscriber falls a whole buffer behind, the {@link OverflowPolicy} decides whether
+ * the publisher drops events, waits, or fails that subscriber, so a slow consumer never
+ * grows memory without bound.
+ * 
+ * <pre>{@code
+ * EventPublisher publisher = EventPublisher.builder()
+ *         .bufferSize(1024)
+ *         .overflowPolicy(OverflowPolicy.BLOCK)
+ *         .build();
+ * publisher.subscribe(new EventSubscriber(event -> store(event)));
+ * publisher.publish(event);
+ * }</pre>
+ * 
+ * Events are delivered on the executor, one at a time per subscriber, in publication
+ * order. Any number of threads can publish.
+ */
+public final class EventPublisher implements Flow.Publisher<CloudEvent>, AutoCloseable {
+    
+    private static final Logger LOGGER = Logger.getLogger(EventPublisher.class.getName());
+    
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<IntConsumer> drainListeners = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+    private Throwable closedWith;
+    
+    private EventPublisher(Builder builder) {
+        this.bufferSize = builder.bufferSize;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.executor = builder.executor != null ? builder.executor : virtualThreads();
+    }
+    
+    /**
+     * Creates a new event publisher builder.
+     * 
+     * @return A new event publisher builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Subscribes to the events published from now on. Subscribing after the publisher
+     * is closed completes the subscriber straight away.
+     * 
+     * @param subscriber The subscriber
+     * @throws NullPointerException if the subscriber is null
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super CloudEvent> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+        BufferedSubscription subscription = new BufferedSubscription(subscriber);
+        synchronized (subscriptions) {
+            if (closed) {
+                subscription.terminate(closedWith);
+            } else {
+                subscriptions.add(subscription);
+            }
+        }
+        subscription.signal();
+    }
+    
+    /**
+     * Publishes an event to every subscriber, applying the overflow policy to those
+     * whose buffers are full.
+     * 
+     * @param event The event
+     * @return true if every subscriber buffered the event, false if it was dropped for any
+     * @throws IllegalArgumentException if the event is null
+     * @throws IllegalStateException if the publisher is closed
+     */
+    public boolean publish(CloudEvent event) {
+        return publish(event, true);
+    }
+    
+    /**
+     * Publishes an event to every subscriber without waiting. Under
+     * {@link OverflowPolicy#BLOCK}, subscribers whose buffers are full miss the event, as
+     * under {@link OverflowPolicy#DROP_NEWEST}; the other policies apply as usual.
+     * 
+     * @param event The event
+     * @return true if every subscriber buffered the event, false if it was dropped for any
+     * @throws IllegalArgumentException if the event is null
+     * @throws IllegalStateException if the publisher is closed
+     */
+    public boolean tryPublish(CloudEvent event) {
+        return publish(event, false);
+    }
+    
+    /**
+     * Gets the number of current subscribers.
+     * 
+     * @return The number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+    
+    /**
+     * Gets the most events buffered for any one subscriber, which is how far the slowest
+     * subscriber lags behind.
+     * 
+     * @return The largest number of buffered events
+     */
+    public int getMaximumLag() {
+        int lag = 0;
+        for (BufferedSubscription subscription : subscriptions) {
+            lag = Math.max(lag, subscription.size);
+        }
+        return lag;
+    }
+    
+    /**
+     * Gets the number of events dropped for any subscriber by the overflow policy, counted
+     * once per subscriber that missed them.
+     * 
+     * @return The number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    /**
+     * Gets the number of events buffered for each subscriber.
+     * 
+     * @return The buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    /**
+     * Gets the overflow policy.
+     * 
+     * @return The overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
+    /**
+     * Stops publishing. Subscribers receive their buffered events, then
+     * {@link Flow.Subscriber#onComplete()}.
+     */
+    @Override
+    public void close() {
+        terminate(null);
+    }
+    
+    /**
+     * Stops publishing because of a failure. Subscribers are signalled
+     * {@link Flow.Subscriber#onError(Throwable)} without their buffered events.
+     * 
+     * @param failure The failure
+     * @throws IllegalArgumentException if the failure is null
+     */
+    public void closeExceptionally(Throwable failure) {
+        if (failure == null) {
+            throw new IllegalArgumentException("Failure cannot be null");
+        }
+        terminate(failure);
+    }
+    
+    /**
+     * Registers a listener called with a subscriber's number of buffered events each time
+     * the subscriber takes one, so producers that stopped on a full buffer know when to
+     * resume.
+     */
+    void addDrainListener(IntConsumer listener) {
+        drainListeners.add(listener);
+    }
+    
+    void removeDrainListener(IntConsumer listener) {
+        drainListeners.remove(listener);
+    }
+    
+    private boolean publish(CloudEvent event, boolean wait) {
+        if (event == null) {
+            throw new IllegalArgumentException("Event cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("Event publisher is closed");
+        }
+        boolean buffered = true;
+        for (BufferedSubscription subscription : subscriptions) {
+            buffered &= subscription.offer(event, wait);
+        }
+        return buffered;
+    }
+    
+    private void terminate(Throwable failure) {
+        synchronized (subscriptions) {
+            if (closed) {
+                return;
+            }
+            closedWith = failure;
+            closed = true;
+        }
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.terminate(failure);
+            subscription.signal();
+        }
+    }
+    
+    private void drained(int remaining) {
+        for (IntConsumer listener : drainListeners) {
+            listener.accept(remaining);
+        }
+    }
+    
+    private static Executor virtualThreads() {
+        ThreadFactory factory = Thread.ofVirtual().name("event-publisher-", 0).factory();
+        return runnable -> factory.newThread(runnable).start();
+    }
+    
+    /**
+     * A subscriber's buffer and demand. Publishers add events under the lock; a drain task
+     * on the executor delivers them while the subscriber has demand, with the work counter
+     * keeping a single drain task running at a time.
+     */
+    private final class BufferedSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super CloudEvent> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final CloudEvent[] buffer = new CloudEvent[bufferSize];
+        private final AtomicInteger work = new AtomicInteger();
+        private int head;
+        private volatile int size;
+        private long demand;
+        private boolean terminating;
+        private Throwable failure;
+        private boolean subscribed;
+        private volatile boolean cancelled;
+        
+        private BufferedSubscription(Flow.Subscriber<? super CloudEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        /**
+         * Buffers an event, applying the overflow policy if the buffer is full.
+         * 
+         * @param wait false to drop the event rather than block under {@link OverflowPolicy#BLOCK}
+         * @return false if the event was dropped
+         */
+        private boolean offer(CloudEvent event, boolean wait) {
+            boolean buffered;
+            boolean ready;
+            lock.lock();
+            try {
+                while (size == buffer.length && !cancelled && !terminating) {
+                    if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                        dropped.increment();
+                    } else if (overflowPolicy == OverflowPolicy.BLOCK && wait) {
+                        try {
+                            notFull.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            dropped.increment();
+                            return false;
+                        }
+                    } else if (overflowPolicy == OverflowPolicy.ERROR) {
+                        dropped.add(size);
+                        clear();
+                        failure = new IllegalStateException(
+                                "Subscriber fell more than " + buffer.length + " events behind");
+                        terminating = true;
+                    } else {
+                        dropped.increment();
+                        return false;
+                    }
+                }
+                buffered = !cancelled && !terminating;
+                if (buffered) {
+                    buffer[(head + size) % buffer.length] = event;
+                    size++;
+                    ready = demand > 0;
+                } else {
+                    dropped.increment();
+                    ready = terminating;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (ready) {
+                signal();
+            }
+            return buffered;
+        }
+        
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    clear();
+                    failure = new IllegalArgumentException("Requested events must be positive, was " + n);
+                    terminating = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            } finally {
+                lock.unlock();
+            }
+            signal();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            lock.lock();
+            try {
+                clear();
+            } finally {
+                lock.unlock();
+            }
+            subscriptions.remove(this);
+            drained(0);
+        }
+        
+        private void terminate(Throwable failure) {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    clear();
+                    this.failure = failure;
+                }
+                terminating = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                buffer[(head + i) % buffer.length] = null;
+            }
+            head = 0;
+            size = 0;
+            notFull.signalAll();
+        }
+        
+        private void signal() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+        
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    try {
+                        subscriber.onSubscribe(this);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, e, () -> "Subscriber failed on subscribe");
+                        cancel();
+                    }
+                }
+                drain();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+        
+        private void drain() {
+            while (!cancelled) {
+                CloudEvent event = null;
+                boolean done = false;
+                int remaining;
+                lock.lock();
+                try {
+                    if (size > 0 && demand > 0) {
+                        event = buffer[head];
+                        buffer[head] = null;
+                        head = (head + 1) % buffer.length;
+                        size--;
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                        notFull.signal();
+                    } else if (size == 0 && terminating) {
+                        done = true;
+                    } else {
+                        return;
+                    }
+                    remaining = size;
+                } finally {
+                    lock.unlock();
+                }
+                if (done) {
+                    cancelled = true;
+                    subscriptions.remove(this);
+                    complete();
+                    return;
+                }
+                drained(remaining);
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, e, () -> "Subscriber failed to handle event, cancelling it");
+                    cancel();
+                }
+            }
+        }
+        
+        private void complete() {
+            try {
+                if (failure != null) {
+                    subscriber.onError(failure);
+                } else {
+                    subscriber.onComplete();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Subscriber failed to handle completion");
+            }
+        }
+    }
+    
+    /**
+     * Builder for EventPublisher.
+     */
+    public static class Builder {
+        private int bufferSize = 256;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private Executor executor;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Sets the number of events buffered for each subscriber.
+         * 
+         * @param bufferSize The buffer size
+         * @return This builder
+         * @throws IllegalArgumentException if the size is not positive
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("Buffer size must be positive");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * Sets what happens when a subscriber's buffer is full. Defaults to
+         * {@link OverflowPolicy#BLOCK}.
+         * 
+         * @param overflowPolicy The overflow policy
+         * @return This builder
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            if (overflowPolicy == null) {
+                throw new IllegalArgumentException("Overflow policy cannot be null");
+            }
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+        
+        /**
+         * Sets the executor that delivers events to subscribers. Defaults to a virtual
+         * thread per delivery run, so subscribers may block.
+         * 
+         * @param executor The executor
+         * @return This builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+        
+        /**
+         * Builds the EventPublisher.
+         * 
+         * @return The built EventPublisher
+         */
+        public EventPublisher build() {
+            return new EventPublisher(this);
+        }
+    }
+}
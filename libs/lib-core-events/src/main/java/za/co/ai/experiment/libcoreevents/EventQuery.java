@@ -0,0 +1,155 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * A query for the events of an {@link EventLog} with a given type, subject or source,
+ * optionally within a time range, answered from the log's secondary indexes.
+ * 
+ * <pre>{@code
+ * List<CloudEvent> events = log.query()
+ *         .type("com.example.order.failed")
+ *         .subject("order-42")
+ *         .since(Instant.now().minus(Duration.ofHours(1)))
+ *         .events();
+ * }</pre>
+ * 
+ * The posting lists of the given attributes are intersected to find the matching
+ * offsets first; only the matching events are then read from the log. The time range
+ * is by append time and is turned into an offset range through the log's time index.
+ */
+public final class EventQuery {
+    
+    private final EventLog log;
+    private final EventLogIndex index;
+    private String type;
+    private String subject;
+    private String source;
+    private Instant since;
+    private Instant until;
+    private int limit = Integer.MAX_VALUE;
+    
+    EventQuery(EventLog log, EventLogIndex index) {
+        this.log = log;
+        this.index = index;
+    }
+    
+    /**
+     * Matches events of a type.
+     * 
+     * @param type The event type
+     * @return This query
+     */
+    public EventQuery type(String type) {
+        this.type = type;
+        return this;
+    }
+    
+    /**
+     * Matches events about a subject.
+     * 
+     * @param subject The event subject
+     * @return This query
+     */
+    public EventQuery subject(String subject) {
+        this.subject = subject;
+        return this;
+    }
+    
+    /**
+     * Matches events from a source.
+     * 
+     * @param source The event source
+     * @return This query
+     */
+    public EventQuery source(String source) {
+        this.source = source;
+        return this;
+    }
+    
+    /**
+     * Matches events appended at or after a time.
+     * 
+     * @param since The start of the time range
+     * @return This query
+     */
+    public EventQuery since(Instant since) {
+        this.since = since;
+        return this;
+    }
+    
+    /**
+     * Matches events appended before a time.
+     * 
+     * @param until The end of the time range, exclusive
+     * @return This query
+     */
+    public EventQuery until(Instant until) {
+        this.until = until;
+        return this;
+    }
+    
+    /**
+     * Limits the number of events returned, keeping the oldest.
+     * 
+     * @param limit The maximum number of events
+     * @return This query
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public EventQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    /**
+     * Finds the offsets of the matching events without reading them.
+     * 
+     * @return The offsets, in order
+     */
+    public long[] offsets() {
+        long from = since == null ? log.getStartOffset() : offsetAt(since);
+        long to = until == null ? log.getEndOffset() : offsetAt(until);
+        if (type == null && subject == null && source == null) {
+            return LongStream.range(from, from + Math.max(0, Math.min(to - from, limit))).toArray();
+        }
+        return index.offsets(type, subject, source, from, to, limit);
+    }
+    
+    /**
+     * Reads the matching events. Events deleted by retention since their offsets were
+     * found are left out.
+     * 
+     * @return The events, in offset order
+     */
+    public List<CloudEvent> events() {
+        long[] offsets = offsets();
+        List<CloudEvent> events = new ArrayList<>(offsets.length);
+        EventLogReader reader = null;
+        long position = Long.MAX_VALUE;
+        for (long offset : offsets) {
+            // Step through nearby events rather than seeking through the index again
+            if (reader == null || offset < position || offset - position > 16) {
+                reader = log.read(offset);
+                position = -1;
+            }
+            while (position < offset && reader.next()) {
+                position = reader.getOffset();
+            }
+            if (position == offset) {
+                events.add(reader.getEvent());
+            }
+        }
+        return events;
+    }
+    
+    private long offsetAt(Instant time) {
+        EventLogReader reader = log.read(time);
+        return reader.next() ? reader.getOffset() : log.getEndOffset();
+    }
+}
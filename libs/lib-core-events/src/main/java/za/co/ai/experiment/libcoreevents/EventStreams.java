@@ -0,0 +1,330 @@
+package za.co.ai.experiment.libcoreevents;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Bridges between {@link Flow} streams of CloudEvents and Vert.x streams, so that Vert.x
+ * endpoints such as HTTP requests and event bus consumers take part in backpressure.
+ * 
+ * <pre>{@code
+ * ReadStream<CloudEvent> events = EventStreams.toReadStream(context, publisher);
+ * events.pipeTo(EventStreams.toWriteStream(context, archive));
+ * }</pre>
+ * 
+ * A read stream requests events from its publisher only while it is flowing, a batch at
+ * a time, so pausing it stops the publisher at that subscriber's buffer. A write stream
+ * reports its queue as full while any subscriber of its publisher lags a buffer behind,
+ * so {@link ReadStream#pipeTo(WriteStream)} pauses its source until they catch up.
+ * Handlers are called on the given context, and the streams must be used from it.
+ * 
+ * This class needs {@code io.vertx:vertx-core}, which is an optional dependency of this
+ * module.
+ */
+public final class EventStreams {
+    
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    
+    private EventStreams() {
+    }
+    
+    /**
+     * Creates a read stream of the events of a publisher, requesting 64 at a time.
+     * 
+     * @param context The context to call handlers on
+     * @param publisher The publisher
+     * @return The read stream, subscribed when its handler is set
+     */
+    public static ReadStream<CloudEvent> toReadStream(Context context, Flow.Publisher<CloudEvent> publisher) {
+        return toReadStream(context, publisher, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Creates a read stream of the events of a publisher.
+     * 
+     * @param context The context to call handlers on
+     * @param publisher The publisher
+     * @param batchSize The most events to request ahead of the handler
+     * @return The read stream, subscribed when its handler is set
+     * @throws IllegalArgumentException if an argument is null or the batch size not positive
+     */
+    public static ReadStream<CloudEvent> toReadStream(Context context, Flow.Publisher<CloudEvent> publisher,
+            int batchSize) {
+        if (context == null || publisher == null) {
+            throw new IllegalArgumentException("Context and publisher cannot be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        return new PublisherReadStream(context, publisher, batchSize);
+    }
+    
+    /**
+     * Creates a write stream that publishes events to a publisher. Writes never block the
+     * context: they use {@link EventPublisher#tryPublish(CloudEvent)}, so writers should
+     * stop while {@link WriteStream#writeQueueFull()}, as pipes do. A write that finds a
+     * subscriber's buffer full anyway, because another producer filled it, is dropped for
+     * that subscriber under {@link OverflowPolicy#BLOCK} and {@link OverflowPolicy#DROP_NEWEST},
+     * and handled by the other policies as usual. Ending the stream closes the publisher.
+     * 
+     * @param context The context to call handlers on
+     * @param publisher The publisher
+     * @return The write stream
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static WriteStream<CloudEvent> toWriteStream(Context context, EventPublisher publisher) {
+        if (context == null || publisher == null) {
+            throw new IllegalArgumentException("Context and publisher cannot be null");
+        }
+        return new PublisherWriteStream(context, publisher);
+    }
+    
+    /**
+     * A read stream subscribed to a publisher. Every field is confined to the context,
+     * to which the subscriber signals are moved.
+     */
+    private static final class PublisherReadStream implements ReadStream<CloudEvent>, Flow.Subscriber<CloudEvent> {
+        private final Context context;
+        private final Flow.Publisher<CloudEvent> publisher;
+        private final int batchSize;
+        private final ArrayDeque<CloudEvent> pending = new ArrayDeque<>();
+        private Flow.Subscription subscription;
+        private Handler<CloudEvent> handler;
+        private Handler<Void> endHandler;
+        private Handler<Throwable> exceptionHandler;
+        private long demand = Long.MAX_VALUE;
+        private int requested;
+        private boolean subscribed;
+        private boolean ended;
+        private boolean terminated;
+        private boolean draining;
+        private boolean again;
+        private Throwable failure;
+        
+        private PublisherReadStream(Context context, Flow.Publisher<CloudEvent> publisher, int batchSize) {
+            this.context = context;
+            this.publisher = publisher;
+            this.batchSize = batchSize;
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> handler(Handler<CloudEvent> handler) {
+            this.handler = handler;
+            if (handler == null) {
+                terminated = true;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            } else if (!subscribed) {
+                subscribed = true;
+                publisher.subscribe(this);
+            }
+            return this;
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> exceptionHandler(Handler<Throwable> handler) {
+            this.exceptionHandler = handler;
+            return this;
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> endHandler(Handler<Void> endHandler) {
+            this.endHandler = endHandler;
+            return this;
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> pause() {
+            demand = 0;
+            return this;
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> resume() {
+            return fetch(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public ReadStream<CloudEvent> fetch(long amount) {
+            if (amount < 0) {
+                throw new IllegalArgumentException("Fetch amount cannot be negative");
+            }
+            demand = demand + amount < 0 ? Long.MAX_VALUE : demand + amount;
+            drain();
+            return this;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            context.runOnContext(v -> {
+                if (terminated || this.subscription != null) {
+                    subscription.cancel();
+                    return;
+                }
+                this.subscription = subscription;
+                drain();
+            });
+        }
+        
+        @Override
+        public void onNext(CloudEvent event) {
+            context.runOnContext(v -> {
+                requested--;
+                pending.add(event);
+                drain();
+            });
+        }
+        
+        @Override
+        public void onError(Throwable failure) {
+            context.runOnContext(v -> {
+                this.failure = failure;
+                ended = true;
+                drain();
+            });
+        }
+        
+        @Override
+        public void onComplete() {
+            context.runOnContext(v -> {
+                ended = true;
+                drain();
+            });
+        }
+        
+        private void drain() {
+            if (draining) {
+                // A handler paused, fetched or ended; the running drain picks it up
+                again = true;
+                return;
+            }
+            draining = true;
+            try {
+                do {
+                    again = false;
+                    while (demand > 0 && handler != null && !terminated && !pending.isEmpty()) {
+                        if (demand != Long.MAX_VALUE) {
+                            demand--;
+                        }
+                        handler.handle(pending.poll());
+                    }
+                    if (ended && pending.isEmpty() && !terminated) {
+                        terminated = true;
+                        if (failure != null) {
+                            if (exceptionHandler != null) {
+                                exceptionHandler.handle(failure);
+                            }
+                        } else if (endHandler != null) {
+                            endHandler.handle(null);
+                        }
+                    }
+                    // Request the next batch once half the outstanding events have arrived
+                    int outstanding = requested + pending.size();
+                    if (subscription != null && demand > 0 && !ended && !terminated
+                            && outstanding <= batchSize / 2) {
+                        requested += batchSize - outstanding;
+                        subscription.request(batchSize - outstanding);
+                    }
+                } while (again);
+            } finally {
+                draining = false;
+            }
+        }
+    }
+    
+    /**
+     * A write stream publishing to a publisher, told by the publisher's drain listener
+     * when the lagging subscribers have taken enough events to resume.
+     */
+    private static final class PublisherWriteStream implements WriteStream<CloudEvent> {
+        private final Context context;
+        private final EventPublisher publisher;
+        private final IntConsumer drainListener;
+        private final AtomicBoolean waiting = new AtomicBoolean();
+        private volatile int maxSize;
+        private Handler<Void> drainHandler;
+        private Handler<Throwable> exceptionHandler;
+        
+        private PublisherWriteStream(Context context, EventPublisher publisher) {
+            this.context = context;
+            this.publisher = publisher;
+            this.maxSize = publisher.getBufferSize();
+            this.drainListener = remaining -> {
+                if (remaining <= maxSize / 2 && waiting.get() && waiting.compareAndSet(true, false)) {
+                    context.runOnContext(v -> checkDrained());
+                }
+            };
+            publisher.addDrainListener(drainListener);
+        }
+        
+        @Override
+        public WriteStream<CloudEvent> exceptionHandler(Handler<Throwable> handler) {
+            this.exceptionHandler = handler;
+            return this;
+        }
+        
+        @Override
+        public Future<Void> write(CloudEvent event) {
+            try {
+                publisher.tryPublish(event);
+                return Future.succeededFuture();
+            } catch (RuntimeException e) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.handle(e);
+                }
+                return Future.failedFuture(e);
+            }
+        }
+        
+        @Override
+        public Future<Void> end() {
+            publisher.removeDrainListener(drainListener);
+            publisher.close();
+            return Future.succeededFuture();
+        }
+        
+        @Override
+        public WriteStream<CloudEvent> setWriteQueueMaxSize(int maxSize) {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("Write queue size must be positive");
+            }
+            this.maxSize = Math.min(maxSize, publisher.getBufferSize());
+            return this;
+        }
+        
+        @Override
+        public boolean writeQueueFull() {
+            if (publisher.getMaximumLag() < maxSize) {
+                return false;
+            }
+            // Set before checking again, so a drain in between is not missed
+            waiting.set(true);
+            return publisher.getMaximumLag() >= maxSize;
+        }
+        
+        @Override
+        public WriteStream<CloudEvent> drainHandler(Handler<Void> handler) {
+            this.drainHandler = handler;
+            return this;
+        }
+        
+        private void checkDrained() {
+            if (writeQueueFull()) {
+                return;
+            }
+            waiting.set(false);
+            if (drainHandler != null) {
+                drainHandler.handle(null);
+            }
+        }
+    }
+}
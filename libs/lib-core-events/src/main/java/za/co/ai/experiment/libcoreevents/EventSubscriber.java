@@ -0,0 +1,116 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Flow.Subscriber} that hands CloudEvents to a handler, requesting a bounded
+ * number of events at a time.
+ * 
+ * At most the prefetch count of events is requested ahead of the handler; after the
+ * handler has taken half of them, as many more are requested. A producer publishing to
+ * this subscriber therefore runs at the handler's pace, with the publisher's
+ * {@link OverflowPolicy} deciding what happens when it would run ahead.
+ * 
+ * If the handler throws, the subscription is cancelled and {@link #getCompletion()}
+ * completes with the exception.
+ */
+public final class EventSubscriber implements Flow.Subscriber<CloudEvent> {
+    
+    private final Consumer<CloudEvent> handler;
+    private final int prefetch;
+    private final int replenish;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile Flow.Subscription subscription;
+    private volatile boolean cancelled;
+    private int consumed;
+    
+    /**
+     * Creates a subscriber that requests 64 events at a time.
+     * 
+     * @param handler The handler, called on the publisher's delivery thread
+     */
+    public EventSubscriber(Consumer<CloudEvent> handler) {
+        this(handler, 64);
+    }
+    
+    /**
+     * Creates a subscriber.
+     * 
+     * @param handler The handler, called on the publisher's delivery thread
+     * @param prefetch The most events to request ahead of the handler
+     * @throws IllegalArgumentException if the handler is null or the prefetch not positive
+     */
+    public EventSubscriber(Consumer<CloudEvent> handler, int prefetch) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("Prefetch must be positive");
+        }
+        this.handler = handler;
+        this.prefetch = prefetch;
+        this.replenish = Math.max(1, prefetch / 2);
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+    
+    @Override
+    public void onNext(CloudEvent event) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            handler.accept(event);
+        } catch (RuntimeException e) {
+            completion.completeExceptionally(e);
+            cancel();
+            return;
+        }
+        if (++consumed == replenish) {
+            consumed = 0;
+            subscription.request(replenish);
+        }
+    }
+    
+    @Override
+    public void onError(Throwable failure) {
+        completion.completeExceptionally(failure);
+    }
+    
+    @Override
+    public void onComplete() {
+        completion.complete(null);
+    }
+    
+    /**
+     * Stops receiving events and completes {@link #getCompletion()}.
+     */
+    public void cancel() {
+        cancelled = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        completion.complete(null);
+    }
+    
+    /**
+     * Gets a future completed when the publisher completes or the subscriber is
+     * cancelled, or completed exceptionally when the publisher or the handler fails.
+     * 
+     * @return The completion future
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion.copy();
+    }
+}
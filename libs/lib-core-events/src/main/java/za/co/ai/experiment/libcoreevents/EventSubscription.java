@@ -0,0 +1,85 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.function.Consumer;
+
+/**
+ * A subscriber of an {@link EventDispatcher}, running on its own thread and ring buffer
+ * sequence. Closing the subscription stops delivery and the thread.
+ */
+public final class EventSubscription implements AutoCloseable {
+    
+    private final EventDispatcher dispatcher;
+    private final String type;
+    private final String source;
+    private final EventFilter filter;
+    private final Consumer<CloudEvent> handler;
+    private final int bit;
+    final Sequence sequence;
+    volatile long stopAfter = Long.MAX_VALUE;
+    Thread thread;
+    
+    EventSubscription(EventDispatcher dispatcher, String type, String source, EventFilter filter,
+            Consumer<CloudEvent> handler, int bit, long start) {
+        this.dispatcher = dispatcher;
+        this.type = type;
+        this.source = source;
+        this.filter = filter;
+        this.handler = handler;
+        this.bit = bit;
+        this.sequence = new Sequence(start);
+    }
+    
+    /**
+     * Gets the event type this subscription receives.
+     * 
+     * @return The type, or null for every type
+     */
+    public String getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the event source this subscription receives.
+     * 
+     * @return The source, or null for every source
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    /**
+     * Gets the filter events must match for this subscription to receive them.
+     * 
+     * @return The filter, or null if the subscription is by type and source
+     */
+    public EventFilter getFilter() {
+        return filter;
+    }
+    
+    /**
+     * Gets the sequence of the last event this subscriber has processed or skipped.
+     * Compared with {@link EventDispatcher#getCursor()}, this is how far it lags.
+     * 
+     * @return The subscriber's sequence
+     */
+    public long getSequence() {
+        return sequence.get();
+    }
+    
+    /**
+     * Stops delivery to this subscriber and waits for its thread to finish the event it
+     * is handling, unless called from the handler itself.
+     */
+    @Override
+    public void close() {
+        dispatcher.unsubscribe(this);
+    }
+    
+    int bit() {
+        return bit;
+    }
+    
+    Consumer<CloudEvent> handler() {
+        return handler;
+    }
+}
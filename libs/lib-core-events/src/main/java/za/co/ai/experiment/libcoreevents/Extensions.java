@@ -0,0 +1,138 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The extension attributes of an event, held as parallel arrays of names and values
+ * sorted by name. Events without extensions, the common case, share {@link #EMPTY}.
+ * 
+ * This is a read-only map view: lookups scan the few names directly, or binary search
+ * larger sets, and iteration walks the arrays without copying them. Codecs iterate by
+ * index instead, so writing an event allocates no entries.
+ */
+final class Extensions extends AbstractMap<String, Object> {
+    
+    static final Extensions EMPTY = new Extensions(new String[0], new Object[0]);
+    
+    private static final int LINEAR_SCAN_SIZE = 8;
+    
+    private final String[] names;
+    private final Object[] values;
+    
+    private Extensions(String[] names, Object[] values) {
+        this.names = names;
+        this.values = values;
+    }
+    
+    /**
+     * Creates extensions from the first {@code count} entries of a builder's arrays,
+     * which are copied, so the builder can keep using them.
+     */
+    static Extensions of(String[] names, Object[] values, int count) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        String[] sortedNames = Arrays.copyOf(names, count);
+        Object[] sortedValues = Arrays.copyOf(values, count);
+        // Insertion sort, since there are usually only a few extensions
+        for (int i = 1; i < count; i++) {
+            String name = sortedNames[i];
+            Object value = sortedValues[i];
+            int j = i - 1;
+            while (j >= 0 && sortedNames[j].compareTo(name) > 0) {
+                sortedNames[j + 1] = sortedNames[j];
+                sortedValues[j + 1] = sortedValues[j];
+                j--;
+            }
+            sortedNames[j + 1] = name;
+            sortedValues[j + 1] = value;
+        }
+        return new Extensions(sortedNames, sortedValues);
+    }
+    
+    int count() {
+        return names.length;
+    }
+    
+    String name(int index) {
+        return names[index];
+    }
+    
+    Object value(int index) {
+        return values[index];
+    }
+    
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+    
+    @Override
+    public int size() {
+        return names.length;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.length;
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (next >= names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(names[index], values[index]);
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+    
+    private int indexOf(Object key) {
+        if (!(key instanceof String name)) {
+            return -1;
+        }
+        if (names.length <= LINEAR_SCAN_SIZE) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int index = Arrays.binarySearch(names, name);
+        return index < 0 ? -1 : index;
+    }
+}
@@ -0,0 +1,473 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of an {@link EventLog}, holding the records from its base
+ * offset on, with a sparse index of them.
+ * 
+ * A record is a 24 byte header followed by the encoded event:
+ * 
+ * <pre>
+ * int   payload length
+ * int   CRC32C of the rest of the header and the payload
+ * long  offset
+ * long  append timestamp, epoch millis, never decreasing
+ * </pre>
+ * 
+ * The active segment is mapped at its full size up front, so the unwritten tail reads
+ * as zeros; a zero length marks the end of the records. Sealing a segment truncates the
+ * file to its records and writes the index beside it: {@code .index} holds relative
+ * offset and position pairs and {@code .timeindex} timestamp and relative offset pairs,
+ * one entry every index interval bytes plus one for the last record. The index of the
+ * active segment is kept in memory only and rebuilt by scanning the records on open.
+ * 
+ * Only the {@link EventLog}'s appending thread writes a segment. Readers on other
+ * threads see the records up to {@link #end()}, which is published after the record.
+ */
+final class LogSegment {
+    
+    static final int HEADER_SIZE = 24;
+    
+    private static final Logger LOGGER = Logger.getLogger(LogSegment.class.getName());
+    private static final int CRC = 4;
+    private static final int OFFSET = 8;
+    private static final int TIMESTAMP = 16;
+    private static final byte[] ZEROS = new byte[64 * 1024];
+    
+    private final long baseOffset;
+    private final Path directory;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer readOnly;
+    private final int indexInterval;
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private volatile int end;
+    private volatile long nextOffset;
+    private volatile long lastTimestamp = Long.MIN_VALUE;
+    private volatile boolean sealed;
+    
+    private long[] indexOffsets = new long[16];
+    private int[] indexPositions = new int[16];
+    private long[] indexTimestamps = new long[16];
+    private int indexCount;
+    private int indexedUpTo = -1;
+    
+    private LogSegment(long baseOffset, Path directory, FileChannel channel, MappedByteBuffer buffer,
+            int indexInterval) {
+        this.baseOffset = baseOffset;
+        this.directory = directory;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.readOnly = buffer.asReadOnlyBuffer();
+        this.indexInterval = indexInterval;
+        this.nextOffset = baseOffset;
+    }
+    
+    /**
+     * Opens the active segment, creating it if needed, and recovers its records,
+     * truncating a torn record at the tail and anything after it.
+     */
+    static LogSegment openActive(Path directory, long baseOffset, int size, int indexInterval) throws IOException {
+        FileChannel channel = FileChannel.open(path(directory, baseOffset, ".log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            LogSegment segment = new LogSegment(baseOffset, directory, channel, buffer, indexInterval);
+            segment.recover();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Opens a sealed segment read-only, loading its index, or rebuilding it if the index
+     * files are missing or do not match the records. A segment without index files whose
+     * records stop before the end of the file was not sealed before the next segment was
+     * started, and is recovered like the active segment and sealed.
+     */
+    static LogSegment openSealed(Path directory, long baseOffset, int indexInterval) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(directory, baseOffset, ".log"), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment " + baseOffset + " is larger than 2 GiB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            LogSegment segment = new LogSegment(baseOffset, directory, null, buffer, indexInterval);
+            if (!segment.loadIndex((int) size)) {
+                segment.resetIndex();
+                if (segment.scan() != size) {
+                    if (hasIndex(directory, baseOffset)) {
+                        throw new IOException("Sealed segment " + baseOffset + " has invalid records");
+                    }
+                    return openUnsealed(directory, baseOffset, indexInterval);
+                }
+            }
+            segment.sealed = true;
+            return segment;
+        }
+    }
+    
+    /**
+     * Recovers a segment left unsealed by a crash during a roll, truncating it to its
+     * valid records and writing its index.
+     */
+    private static LogSegment openUnsealed(Path directory, long baseOffset, int indexInterval) throws IOException {
+        FileChannel channel = FileChannel.open(path(directory, baseOffset, ".log"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            LogSegment segment = new LogSegment(baseOffset, directory, channel, buffer, indexInterval);
+            int valid = segment.scan();
+            LOGGER.warning(() -> "Sealing log segment " + baseOffset + " at position " + valid
+                    + ", since it was not sealed before the next segment was started");
+            segment.seal();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private static boolean hasIndex(Path directory, long baseOffset) {
+        return Files.exists(path(directory, baseOffset, ".index"))
+                && Files.exists(path(directory, baseOffset, ".timeindex"));
+    }
+    
+    static Path path(Path directory, long baseOffset, String suffix) {
+        return directory.resolve(String.format("%020d%s", baseOffset, suffix));
+    }
+    
+    /**
+     * Appends a record.
+     * 
+     * @return false if the record does not fit in the rest of the segment
+     * @throws IllegalStateException if the segment is sealed, since its file no longer
+     *         covers the mapping
+     */
+    boolean append(long offset, long timestamp, byte[] payload, int length) {
+        if (sealed) {
+            throw new IllegalStateException("Segment " + baseOffset + " is sealed");
+        }
+        int position = end;
+        if (buffer.capacity() - position < HEADER_SIZE + length) {
+            return false;
+        }
+        buffer.put(position + HEADER_SIZE, payload, 0, length);
+        buffer.putLong(position + OFFSET, offset);
+        buffer.putLong(position + TIMESTAMP, timestamp);
+        crc.reset();
+        crc.update(buffer.slice(position + OFFSET, HEADER_SIZE - OFFSET + length));
+        buffer.putInt(position + CRC, (int) crc.getValue());
+        buffer.putInt(position, length);
+        index(offset, position, timestamp);
+        lastTimestamp = timestamp;
+        nextOffset = offset + 1;
+        end = position + HEADER_SIZE + length;
+        return true;
+    }
+    
+    /**
+     * Forces the records written so far to disk.
+     */
+    void force() {
+        int length = end;
+        if (length > 0 && !buffer.isReadOnly()) {
+            buffer.force(0, length);
+        }
+    }
+    
+    /**
+     * Forces the records, truncates the file to them and writes the index files. The
+     * segment is read-only afterwards.
+     */
+    void seal() throws IOException {
+        synchronized (this) {
+            if (indexCount > 0 && indexOffsets[indexCount - 1] != nextOffset - 1) {
+                addIndexEntry(nextOffset - 1, lastRecordPosition(), lastTimestamp);
+            }
+        }
+        force();
+        channel.truncate(end);
+        writeIndex();
+        channel.close();
+        channel = null;
+        sealed = true;
+    }
+    
+    /**
+     * Forces the records and closes the file. The mapping stays readable.
+     */
+    void close() throws IOException {
+        force();
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    /**
+     * Closes and deletes the segment's files. Readers already positioned in the segment
+     * keep reading its mapping.
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path(directory, baseOffset, ".log"));
+        Files.deleteIfExists(path(directory, baseOffset, ".index"));
+        Files.deleteIfExists(path(directory, baseOffset, ".timeindex"));
+    }
+    
+    /**
+     * Finds the record with an offset, starting from the closest index entry.
+     * 
+     * @return The record's position, or {@link #end()} if the offset is not yet written
+     */
+    int positionOf(long offset) {
+        int position;
+        synchronized (this) {
+            int entry = floor(indexOffsets, offset);
+            position = entry < 0 ? 0 : indexPositions[entry];
+        }
+        int limit = end;
+        while (position < limit && offset(position) < offset) {
+            position += HEADER_SIZE + length(position);
+        }
+        return position;
+    }
+    
+    /**
+     * Finds the first record appended at or after a time, starting from the closest
+     * index entry before it.
+     * 
+     * @return The record's position, or {@link #end()} if there is none
+     */
+    int positionAt(long timestamp) {
+        int position;
+        synchronized (this) {
+            int entry = floor(indexTimestamps, timestamp - 1);
+            position = entry < 0 ? 0 : indexPositions[entry];
+        }
+        int limit = end;
+        while (position < limit && timestamp(position) < timestamp) {
+            position += HEADER_SIZE + length(position);
+        }
+        return position;
+    }
+    
+    int length(int position) {
+        return readOnly.getInt(position);
+    }
+    
+    long offset(int position) {
+        return readOnly.getLong(position + OFFSET);
+    }
+    
+    long timestamp(int position) {
+        return readOnly.getLong(position + TIMESTAMP);
+    }
+    
+    /**
+     * Gets a read-only view of a record's payload in the mapping, without copying it.
+     */
+    ByteBuffer payload(int position) {
+        return readOnly.slice(position + HEADER_SIZE, length(position));
+    }
+    
+    long baseOffset() {
+        return baseOffset;
+    }
+    
+    long nextOffset() {
+        return nextOffset;
+    }
+    
+    /**
+     * Gets the position after the last record, which is also the segment's size in bytes.
+     */
+    int end() {
+        return end;
+    }
+    
+    /**
+     * Gets the timestamp of the last record.
+     * 
+     * @return The timestamp, or {@link Long#MIN_VALUE} if the segment is empty
+     */
+    long lastTimestamp() {
+        return lastTimestamp;
+    }
+    
+    boolean isSealed() {
+        return sealed;
+    }
+    
+    private void recover() {
+        int valid = scan();
+        if (buffer.capacity() - valid >= HEADER_SIZE && length(valid) != 0) {
+            LOGGER.warning(() -> "Truncating torn records at position " + valid + " of log segment " + baseOffset);
+            for (int position = valid; position < buffer.capacity(); position += ZEROS.length) {
+                buffer.put(position, ZEROS, 0, Math.min(ZEROS.length, buffer.capacity() - position));
+            }
+        }
+    }
+    
+    /**
+     * Reads the records from the start of the segment, indexing each valid one, and
+     * stops at the end of the records or the first record that is torn or out of
+     * sequence.
+     * 
+     * @return The position after the last valid record
+     */
+    private int scan() {
+        int position = 0;
+        long expected = baseOffset;
+        int capacity = buffer.capacity();
+        CRC32C check = new CRC32C();
+        while (capacity - position >= HEADER_SIZE) {
+            int length = length(position);
+            if (length <= 0 || length > capacity - position - HEADER_SIZE || offset(position) != expected) {
+                break;
+            }
+            check.reset();
+            check.update(readOnly.slice(position + OFFSET, HEADER_SIZE - OFFSET + length));
+            if ((int) check.getValue() != readOnly.getInt(position + CRC)) {
+                break;
+            }
+            long timestamp = timestamp(position);
+            index(expected, position, timestamp);
+            lastTimestamp = timestamp;
+            expected++;
+            position += HEADER_SIZE + length;
+        }
+        nextOffset = expected;
+        end = position;
+        return position;
+    }
+    
+    private void index(long offset, int position, long timestamp) {
+        if (indexedUpTo < 0 || position - indexedUpTo >= indexInterval) {
+            synchronized (this) {
+                addIndexEntry(offset, position, timestamp);
+            }
+            indexedUpTo = position;
+        }
+    }
+    
+    private void addIndexEntry(long offset, int position, long timestamp) {
+        if (indexCount == indexOffsets.length) {
+            indexOffsets = Arrays.copyOf(indexOffsets, indexCount * 2);
+            indexPositions = Arrays.copyOf(indexPositions, indexCount * 2);
+            indexTimestamps = Arrays.copyOf(indexTimestamps, indexCount * 2);
+        }
+        indexOffsets[indexCount] = offset;
+        indexPositions[indexCount] = position;
+        indexTimestamps[indexCount] = timestamp;
+        indexCount++;
+    }
+    
+    private void resetIndex() {
+        indexCount = 0;
+        indexedUpTo = -1;
+    }
+    
+    private int lastRecordPosition() {
+        int position = indexPositions[indexCount - 1];
+        while (position + HEADER_SIZE + length(position) < end) {
+            position += HEADER_SIZE + length(position);
+        }
+        return position;
+    }
+    
+    /**
+     * Finds the last index entry at or below a key.
+     * 
+     * @return The entry, or -1 if every entry is above the key
+     */
+    private int floor(long[] keys, long key) {
+        int low = 0;
+        int high = indexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+    
+    private void writeIndex() throws IOException {
+        ByteBuffer offsets = ByteBuffer.allocate(indexCount * 8);
+        ByteBuffer timestamps = ByteBuffer.allocate(indexCount * 12);
+        for (int i = 0; i < indexCount; i++) {
+            int relative = (int) (indexOffsets[i] - baseOffset);
+            offsets.putInt(relative).putInt(indexPositions[i]);
+            timestamps.putLong(indexTimestamps[i]).putInt(relative);
+        }
+        write(path(directory, baseOffset, ".index"), offsets.flip());
+        write(path(directory, baseOffset, ".timeindex"), timestamps.flip());
+    }
+    
+    private static void write(Path path, ByteBuffer contents) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                file.write(contents);
+            }
+            file.force(false);
+        }
+    }
+    
+    /**
+     * Loads the index files of a sealed segment, checking that they agree with each other
+     * and that the last entry is the last record.
+     * 
+     * @return true if the index was loaded
+     */
+    private boolean loadIndex(int size) throws IOException {
+        if (!hasIndex(directory, baseOffset)) {
+            return false;
+        }
+        Path offsetsPath = path(directory, baseOffset, ".index");
+        Path timestampsPath = path(directory, baseOffset, ".timeindex");
+        ByteBuffer offsets = ByteBuffer.wrap(Files.readAllBytes(offsetsPath));
+        ByteBuffer timestamps = ByteBuffer.wrap(Files.readAllBytes(timestampsPath));
+        int count = offsets.remaining() / 8;
+        if (count == 0 || offsets.remaining() != count * 8 || timestamps.remaining() != count * 12) {
+            return false;
+        }
+        int last = 0;
+        for (int i = 0; i < count; i++) {
+            long offset = baseOffset + offsets.getInt();
+            int position = offsets.getInt();
+            long timestamp = timestamps.getLong();
+            if (timestamps.getInt() != offset - baseOffset || position < last || position > size - HEADER_SIZE
+                    || offset(position) != offset) {
+                resetIndex();
+                return false;
+            }
+            addIndexEntry(offset, position, timestamp);
+            last = position;
+        }
+        if (last + HEADER_SIZE + length(last) != size) {
+            resetIndex();
+            return false;
+        }
+        end = size;
+        nextOffset = indexOffsets[count - 1] + 1;
+        lastTimestamp = indexTimestamps[count - 1];
+        return true;
+    }
+}
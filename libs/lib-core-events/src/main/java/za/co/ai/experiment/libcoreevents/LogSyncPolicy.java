@@ -0,0 +1,24 @@
+package za.co.ai.experiment.libcoreevents;
+
+/**
+ * When an {@link EventLog} forces appended events from the page cache to disk.
+ * 
+ * Events written to the memory-mapped segments survive a crash of the process as soon
+ * as they are appended; the policy decides how many recent events a crash of the
+ * machine can lose.
+ */
+public enum LogSyncPolicy {
+    
+    /** Never forces explicitly, leaving write-back to the operating system. */
+    NONE,
+    
+    /** Forces from a background thread at a fixed interval. Appends do not wait. */
+    PERIODIC,
+    
+    /**
+     * Returns from an append once the event is on disk. Appends that arrive while the
+     * log is being forced wait for it and share the next force, so one fsync commits
+     * the whole group.
+     */
+    GROUP_COMMIT
+}
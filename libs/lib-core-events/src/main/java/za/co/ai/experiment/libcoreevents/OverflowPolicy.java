@@ -0,0 +1,31 @@
+package za.co.ai.experiment.libcoreevents;
+
+/**
+ * What an {@link EventPublisher} does with a new event when a subscriber's buffer is full,
+ * because the subscriber has not requested or consumed events as fast as they are
+ * published.
+ * 
+ * The policy applies to each subscriber on its own: a slow subscriber losing events does
+ * not affect what the others receive.
+ */
+public enum OverflowPolicy {
+    
+    /** Drops the oldest buffered event to make room for the new one. */
+    DROP_OLDEST,
+    
+    /** Drops the new event, keeping the buffered ones. */
+    DROP_NEWEST,
+    
+    /**
+     * Blocks the publishing thread until the subscriber makes room or cancels.
+     * {@link EventPublisher#tryPublish(CloudEvent)} drops the new event instead.
+     */
+    BLOCK,
+    
+    /**
+     * Drops the new event and the buffered ones and fails the subscriber, signalling
+     * {@link java.util.concurrent.Flow.Subscriber#onError(Throwable)} with an
+     * {@link IllegalStateException}.
+     */
+    ERROR
+}
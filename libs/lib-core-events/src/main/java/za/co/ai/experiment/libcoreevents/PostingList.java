@@ -0,0 +1,149 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.util.Arrays;
+
+/**
+ * The increasing offsets of the events of one segment sharing an attribute value,
+ * stored as varint gaps from the previous offset, so a list of nearby events takes
+ * about a byte per event.
+ * 
+ * Every {@value #SKIP_INTERVAL} offsets, the offset and its byte position are also
+ * kept as a skip entry, so a {@link Cursor} can jump ahead to an offset without
+ * decoding every gap on the way. Only the log's appending thread adds offsets; cursors
+ * on other threads see the offsets added before they were created.
+ */
+final class PostingList {
+    
+    private static final int SKIP_INTERVAL = 64;
+    
+    private final long baseOffset;
+    private byte[] gaps = new byte[16];
+    private long[] skipOffsets = new long[4];
+    private int[] skipPositions = new int[4];
+    private long last;
+    private int skipCount;
+    private volatile int length;
+    private volatile int count;
+    
+    PostingList(long baseOffset) {
+        this.baseOffset = baseOffset;
+        this.last = baseOffset;
+    }
+    
+    /**
+     * Adds an offset, which must be greater than every offset already added.
+     */
+    void add(long offset) {
+        int position = length;
+        if (count % SKIP_INTERVAL == 0 && count > 0) {
+            if (skipCount == skipOffsets.length) {
+                skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+                skipPositions = Arrays.copyOf(skipPositions, skipCount * 2);
+            }
+            // The entry skips to the gap after it, decoded from its offset
+            skipOffsets[skipCount] = last;
+            skipPositions[skipCount] = position;
+            skipCount++;
+        }
+        if (gaps.length - position < 5) {
+            gaps = Arrays.copyOf(gaps, gaps.length * 2);
+        }
+        int gap = (int) (offset - last);
+        while ((gap & ~0x7F) != 0) {
+            gaps[position++] = (byte) (gap & 0x7F | 0x80);
+            gap >>>= 7;
+        }
+        gaps[position++] = (byte) gap;
+        last = offset;
+        length = position;
+        count++;
+    }
+    
+    /**
+     * Gets the number of offsets.
+     */
+    int count() {
+        return count;
+    }
+    
+    /**
+     * Gets the number of bytes the gaps take.
+     */
+    int sizeInBytes() {
+        return length;
+    }
+    
+    Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Reads the offsets in order.
+     */
+    final class Cursor {
+        private final int count = PostingList.this.count;
+        private final int length = PostingList.this.length;
+        private final byte[] gaps = PostingList.this.gaps;
+        private final int skips = Math.max(0, (count - 1) / SKIP_INTERVAL);
+        private final long[] skipOffsets = PostingList.this.skipOffsets;
+        private final int[] skipPositions = PostingList.this.skipPositions;
+        private int position;
+        private int read;
+        private long current = baseOffset;
+        
+        /**
+         * Moves to the next offset.
+         * 
+         * @return The offset, or {@link Long#MAX_VALUE} after the last one
+         */
+        long next() {
+            if (position >= length) {
+                return current = Long.MAX_VALUE;
+            }
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = gaps[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            read++;
+            return current += gap;
+        }
+        
+        /**
+         * Moves to the first offset at or after a target, jumping over skip entries.
+         * 
+         * @return The offset, or {@link Long#MAX_VALUE} if there is none
+         */
+        long advance(long target) {
+            if (read > 0 && current >= target) {
+                return current;
+            }
+            // The last skip entry ahead of the cursor and before the target
+            int low = read / SKIP_INTERVAL;
+            int high = skips - 1;
+            int skip = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (skipOffsets[middle] < target) {
+                    skip = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (skip >= 0) {
+                current = skipOffsets[skip];
+                position = skipPositions[skip];
+                read = (skip + 1) * SKIP_INTERVAL;
+            }
+            long offset;
+            do {
+                offset = next();
+            } while (offset < target);
+            return offset;
+        }
+    }
+}
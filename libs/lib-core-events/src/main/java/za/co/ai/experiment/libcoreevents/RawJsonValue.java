@@ -0,0 +1,107 @@
+package za.co.ai.experiment.libcoreevents;
+
+import com.fasterxml.jackson.core.SerializableString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Already-encoded JSON handed to a generator with {@code writeRawValue}, so event data
+ * held as UTF-8 bytes is copied straight into the generator's output buffer without
+ * being decoded to a String first. Only the unquoted UTF-8 methods are used for raw
+ * values; the others are implemented for completeness.
+ */
+final class RawJsonValue implements SerializableString {
+    
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    
+    RawJsonValue(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int position) {
+        if (position + length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        return length;
+    }
+    
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return offset == 0 && length == bytes.length ? bytes : Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+    
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(bytes, offset, length);
+        return length;
+    }
+    
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) {
+        if (buffer.remaining() < length) {
+            return -1;
+        }
+        buffer.put(bytes, offset, length);
+        return length;
+    }
+    
+    @Override
+    public String getValue() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+    
+    @Override
+    public char[] asQuotedChars() {
+        return getValue().toCharArray();
+    }
+    
+    @Override
+    public byte[] asQuotedUTF8() {
+        return asUnquotedUTF8();
+    }
+    
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int position) {
+        return appendUnquotedUTF8(buffer, position);
+    }
+    
+    @Override
+    public int appendQuoted(char[] buffer, int position) {
+        return appendUnquoted(buffer, position);
+    }
+    
+    @Override
+    public int appendUnquoted(char[] buffer, int position) {
+        String value = getValue();
+        if (position + value.length() > buffer.length) {
+            return -1;
+        }
+        value.getChars(0, value.length(), buffer, position);
+        return value.length();
+    }
+    
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        return writeUnquotedUTF8(out);
+    }
+    
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) {
+        return putUnquotedUTF8(buffer);
+    }
+}
@@ -0,0 +1,170 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads and writes RFC 3339 timestamps without going through {@link DateTimeFormatter},
+ * whose parser builds a field map for every call. The output matches
+ * {@link DateTimeFormatter#ISO_OFFSET_DATE_TIME}, and anything this class does not handle,
+ * such as years outside 0000 to 9999, falls back to that formatter.
+ */
+final class Rfc3339 {
+    
+    /** The longest timestamp written: {@code yyyy-MM-ddTHH:mm:ss.nnnnnnnnn+HH:MM:SS}. */
+    static final int MAX_LENGTH = 38;
+    
+    private Rfc3339() {
+    }
+    
+    /**
+     * Parses a timestamp.
+     * 
+     * @param text The timestamp
+     * @return The parsed timestamp
+     * @throws DateTimeParseException if the text is not an RFC 3339 timestamp
+     */
+    static OffsetDateTime parse(String text) {
+        int length = text.length();
+        if (length < 20 || text.charAt(4) != '-' || text.charAt(7) != '-' || (text.charAt(10) | 0x20) != 't'
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        int position = 19;
+        int nanos = 0;
+        if (text.charAt(position) == '.') {
+            int start = ++position;
+            while (position < length && isDigit(text.charAt(position))) {
+                position++;
+            }
+            int count = position - start;
+            if (count == 0 || count > 9) {
+                return OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            }
+            nanos = digits(text, start, count);
+            for (int i = count; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || position >= length) {
+            return OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        }
+        ZoneOffset offset;
+        char sign = text.charAt(position);
+        if ((sign | 0x20) == 'z' && position + 1 == length) {
+            offset = ZoneOffset.UTC;
+        } else if ((sign == '+' || sign == '-') && position + 6 == length && text.charAt(position + 3) == ':') {
+            int hours = digits(text, position + 1, 2);
+            int minutes = digits(text, position + 4, 2);
+            if (hours < 0 || minutes < 0) {
+                return OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            }
+            int seconds = hours * 3600 + minutes * 60;
+            try {
+                offset = ZoneOffset.ofTotalSeconds(sign == '-' ? -seconds : seconds);
+            } catch (DateTimeException e) {
+                throw new DateTimeParseException(e.getMessage(), text, position, e);
+            }
+        } else {
+            return OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        }
+        try {
+            return OffsetDateTime.of(year, month, day, hour, minute, second, nanos, offset);
+        } catch (DateTimeException e) {
+            throw new DateTimeParseException(e.getMessage(), text, 0, e);
+        }
+    }
+    
+    /**
+     * Formats a timestamp into a buffer of at least {@link #MAX_LENGTH} chars.
+     * 
+     * @param time The timestamp
+     * @param buffer The buffer to write into
+     * @return The number of chars written
+     */
+    static int format(OffsetDateTime time, char[] buffer) {
+        int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            String text = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(time);
+            text.getChars(0, text.length(), buffer, 0);
+            return text.length();
+        }
+        put(buffer, 0, year, 4);
+        buffer[4] = '-';
+        put(buffer, 5, time.getMonthValue(), 2);
+        buffer[7] = '-';
+        put(buffer, 8, time.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        put(buffer, 11, time.getHour(), 2);
+        buffer[13] = ':';
+        put(buffer, 14, time.getMinute(), 2);
+        buffer[16] = ':';
+        put(buffer, 17, time.getSecond(), 2);
+        int position = 19;
+        int nanos = time.getNano();
+        if (nanos != 0) {
+            buffer[position++] = '.';
+            int digits = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digits--;
+            }
+            put(buffer, position, nanos, digits);
+            position += digits;
+        }
+        int offset = time.getOffset().getTotalSeconds();
+        if (offset == 0) {
+            buffer[position++] = 'Z';
+            return position;
+        }
+        buffer[position++] = offset < 0 ? '-' : '+';
+        offset = Math.abs(offset);
+        put(buffer, position, offset / 3600, 2);
+        buffer[position + 2] = ':';
+        put(buffer, position + 3, offset / 60 % 60, 2);
+        position += 5;
+        if (offset % 60 != 0) {
+            buffer[position] = ':';
+            put(buffer, position + 1, offset % 60, 2);
+            position += 3;
+        }
+        return position;
+    }
+    
+    private static void put(char[] buffer, int position, int value, int digits) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+    
+    /**
+     * Reads a run of decimal digits.
+     * 
+     * @return The value, or -1 if any char is not a digit
+     */
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,38 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A ring buffer sequence padded onto its own cache line. The sequences of producers and
+ * of each subscriber are written by different threads, so the value is kept in the middle
+ * of an array with a cache line of unused slots on either side, and no two sequences ever
+ * share a line.
+ */
+final class Sequence {
+    
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int PADDING = 8;
+    
+    private final long[] slots = new long[PADDING * 2 + 1];
+    
+    Sequence(long initial) {
+        SLOTS.setRelease(slots, PADDING, initial);
+    }
+    
+    long get() {
+        return (long) SLOTS.getAcquire(slots, PADDING);
+    }
+    
+    void set(long next) {
+        SLOTS.setRelease(slots, PADDING, next);
+    }
+    
+    long incrementAndGet() {
+        return (long) SLOTS.getAndAdd(slots, PADDING, 1L) + 1;
+    }
+    
+    boolean compareAndSet(long expected, long next) {
+        return SLOTS.compareAndSet(slots, PADDING, expected, next);
+    }
+}
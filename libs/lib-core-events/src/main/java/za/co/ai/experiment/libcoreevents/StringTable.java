@@ -0,0 +1,54 @@
+package za.co.ai.experiment.libcoreevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A fixed-size, direct-mapped cache from UTF-8 bytes to strings. Decoding the same
+ * type or source again finds it by hashing the bytes and returns the cached instance
+ * instead of allocating a new string. A slot holding a different value is overwritten,
+ * so the table never grows, and entries are immutable, so racing threads at worst
+ * decode a value twice.
+ */
+final class StringTable {
+    
+    private static final int MAX_LENGTH = 256;
+    
+    private final Entry[] entries;
+    private final int mask;
+    
+    StringTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1) << 1);
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+    
+    String get(byte[] bytes, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+        int hash = 1;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = (hash ^ hash >>> 16) & mask;
+        Entry entry = entries[slot];
+        if (entry != null && Arrays.equals(entry.utf8, 0, entry.utf8.length, bytes, offset, offset + length)) {
+            return entry.value;
+        }
+        entry = new Entry(Arrays.copyOfRange(bytes, offset, offset + length),
+                new String(bytes, offset, length, StandardCharsets.UTF_8));
+        entries[slot] = entry;
+        return entry.value;
+    }
+    
+    private static final class Entry {
+        private final byte[] utf8;
+        private final String value;
+        
+        private Entry(byte[] utf8, String value) {
+            this.utf8 = utf8;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package za.co.ai.experiment.libcoreevents;
+
+/**
+ * How an {@link EventDispatcher} subscriber waits for the next event when it has caught up.
+ * 
+ * The strategies trade CPU for latency. Each spins briefly first, since the next event
+ * often arrives within nanoseconds under load.
+ */
+public enum WaitStrategy {
+    
+    /** Spins on the CPU. Lowest latency, but each subscriber keeps a core busy. */
+    BUSY_SPIN,
+    
+    /** Spins, then yields the CPU to other threads between checks. */
+    YIELDING,
+    
+    /** Spins, yields, then parks for a few microseconds between checks. */
+    SLEEPING,
+    
+    /** Spins, then blocks until a producer signals a new event. Uses least CPU when idle. */
+    BLOCKING
+}
@@ -6,12 +6,15 @@
 module za.co.ai.experiment.libcoreevents.tests {
     // Required dependencies
     requires za.co.ai.experiment.libcoreevents;
-
+    requires io.vertx.core;
+    
     // Test dependencies
     requires org.junit.jupiter.api;
     requires org.junit.platform.commons;
     requires org.assertj.core;
-
+    requires com.fasterxml.jackson.databind;
+    requires jmh.core;
+    
     // Export test package to JUnit platform
     exports za.co.ai.experiment.libcoreevents.tests to org.junit.platform.commons;
     opens za.co.ai.experiment.libcoreevents.tests to org.junit.platform.commons;
@@ -0,0 +1,165 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CloudEventBatchReader;
+import za.co.ai.experiment.libcoreevents.CloudEventBatchWriter;
+import za.co.ai.experiment.libcoreevents.CloudEventJsonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CloudEventBatchReader and CloudEventBatchWriter classes.
+ */
+public class CloudEventBatchTest {
+    
+    private final CloudEventJsonCodec codec = new CloudEventJsonCodec();
+    
+    @Test
+    @DisplayName("Batches should round-trip events in order with their data")
+    void testRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CloudEventBatchWriter writer = codec.writeBatch(out)) {
+            writer.write(event(0, "application/json", "{\"n\":[1,2,{\"x\":null}]}"))
+                    .write(event(1, "text/plain", "plain text"))
+                    .write(CloudEvent.builder().id("evt-2").source("/batch").type("t").build());
+            assertEquals(3, writer.getCount(), "The writer should count events");
+        }
+        
+        try (CloudEventBatchReader reader = codec.readBatch(new ByteArrayInputStream(out.toByteArray()))) {
+            CloudEvent first = reader.next();
+            assertEquals("evt-0", first.getId(), "The first event should be read first");
+            assertEquals("{\"n\":[1,2,{\"x\":null}]}", new String((byte[]) first.getData(), StandardCharsets.UTF_8),
+                    "JSON data should be re-encoded from the stream");
+            assertEquals("plain text", reader.next().getData(), "Text data should be unquoted");
+            assertNull(reader.next().getData(), "Events without data should read back without data");
+            assertFalse(reader.hasNext(), "The batch should be exhausted");
+            assertEquals(3, reader.getCount(), "The reader should count events");
+            assertThrows(NoSuchElementException.class, reader::next, "Reading past the end should fail");
+        }
+    }
+    
+    @Test
+    @DisplayName("Empty batches should be written and read")
+    void testEmptyBatch() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeBatch(out).close();
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8), "An empty batch should be an empty array");
+        try (CloudEventBatchReader reader = codec.readBatch(new ByteArrayInputStream(out.toByteArray()))) {
+            assertFalse(reader.hasNext(), "An empty batch should have no events");
+        }
+    }
+    
+    @Test
+    @DisplayName("Large batches should stream through without being materialized")
+    void testLargeBatchStreams() throws IOException {
+        int count = 100_000;
+        CountingOutputStream sink = new CountingOutputStream();
+        try (CloudEventBatchWriter writer = codec.writeBatch(sink)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(event(i, "application/json", "{\"i\":" + i + "}"));
+            }
+        }
+        assertTrue(sink.bytes > 10_000_000L, "The batch should be larger than any buffer");
+        
+        try (CloudEventBatchReader reader = codec.readBatch(generate(count))) {
+            long sum = reader.stream().mapToLong(event -> Long.parseLong(event.getId().substring(4))).sum();
+            assertEquals((long) count * (count - 1) / 2, sum, "Every event should be read once, in any memory");
+            assertEquals(count, reader.getCount(), "The reader should count every event");
+        }
+    }
+    
+    @Test
+    @DisplayName("Malformed batches should be rejected")
+    void testMalformed() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> codec.readBatch(stream("{\"id\":\"x\"}")),
+                "A batch must be an array");
+        assertThrows(IllegalArgumentException.class, () -> codec.readBatch(stream("not json")),
+                "A batch must be JSON");
+        
+        try (CloudEventBatchReader reader = codec.readBatch(stream("[1]"))) {
+            assertThrows(IllegalArgumentException.class, reader::hasNext, "Entries must be objects");
+        }
+        try (CloudEventBatchReader reader = codec.readBatch(stream("[{\"specversion\":\"1.0\",\"id\":\"a\","
+                + "\"source\":\"/s\",\"type\":\"t\"},{\"specversion\":\"1.0\""))) {
+            assertEquals("a", reader.next().getId(), "Events before a truncation should be read");
+            assertThrows(IllegalArgumentException.class, reader::next, "A truncated event should be rejected");
+        }
+        try (CloudEventBatchReader reader = codec.readBatch(stream("[{\"specversion\":\"0.3\",\"id\":\"a\"}]"))) {
+            assertThrows(IllegalArgumentException.class, reader::next, "Invalid events should be rejected");
+        }
+    }
+    
+    private static CloudEvent event(int i, String contentType, String data) {
+        return CloudEvent.builder()
+                .id("evt-" + i)
+                .source("/batch")
+                .type("za.co.ai.batch.test")
+                .subject("subject-" + i)
+                .dataContentType(contentType)
+                .data(contentType.equals("application/json") ? data.getBytes(StandardCharsets.UTF_8) : data)
+                .extension("attempt", 1)
+                .build();
+    }
+    
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Generates a batch of events lazily, so the whole batch is never held in memory.
+     */
+    private InputStream generate(int count) {
+        Enumeration<InputStream> parts = new Enumeration<>() {
+            private int next = -1;
+            
+            @Override
+            public boolean hasMoreElements() {
+                return next <= count;
+            }
+            
+            @Override
+            public InputStream nextElement() {
+                int i = next++;
+                if (i < 0) {
+                    return stream("[");
+                }
+                if (i == count) {
+                    return stream("]");
+                }
+                byte[] json = codec.encode(event(i, "application/json", "{\"i\":" + i + "}"));
+                return i == 0 ? new ByteArrayInputStream(json)
+                        : new SequenceInputStream(stream(","), new ByteArrayInputStream(json));
+            }
+        };
+        return new SequenceInputStream(parts);
+    }
+    
+    /**
+     * Discards bytes and counts them.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+        
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CloudEventBinaryCodec;
+import za.co.ai.experiment.libcoreevents.CloudEventJsonCodec;
+import za.co.ai.experiment.libcoreevents.CloudEventMessageCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CloudEventBinaryCodec and CloudEventMessageCodec classes.
+ */
+public class CloudEventBinaryCodecTest {
+    
+    private static final OffsetDateTime TIME = OffsetDateTime.parse("2026-03-01T10:15:30.123456789+02:00");
+    private static final String SOURCE = "/apps/advanced-calculator";
+    private static final String TYPE = "za.co.ai.experiment.calculation.completed";
+    
+    private final CloudEventBinaryCodec codec = CloudEventBinaryCodec.builder().build();
+    
+    @Test
+    @DisplayName("Events should round-trip with every attribute and extension")
+    void testRoundTrip() {
+        CloudEvent event = CloudEvent.builder()
+                .id("evt-1")
+                .source(SOURCE)
+                .type(TYPE)
+                .time(TIME)
+                .subject("calc-42 é")
+                .dataContentType("application/octet-stream")
+                .dataSchema("https://schemas.test/calculation")
+                .data(new byte[] {0, 1, 2, (byte) 0xFF})
+                .extension("traceparent", "00-abc-def-01")
+                .extension("attempt", -3)
+                .extension("sequence", 5_000_000_000L)
+                .extension("replayed", true)
+                .build();
+        
+        CloudEvent decoded = codec.decode(codec.encode(event));
+        
+        assertEquals("evt-1", decoded.getId(), "ID should round-trip");
+        assertEquals(SOURCE, decoded.getSource(), "Source should round-trip");
+        assertEquals(TYPE, decoded.getType(), "Type should round-trip");
+        assertEquals(TIME, decoded.getTime(), "Time should round-trip with nanos and offset");
+        assertEquals("calc-42 é", decoded.getSubject(), "Non-ASCII subjects should round-trip");
+        assertEquals("application/octet-stream", decoded.getDataContentType(), "Content type should round-trip");
+        assertEquals("https://schemas.test/calculation", decoded.getDataSchema(), "Schema should round-trip");
+        assertArrayEquals(new byte[] {0, 1, 2, (byte) 0xFF}, (byte[]) decoded.getData(), "Data should round-trip");
+        assertEquals(event.getExtensions(), decoded.getExtensions(), "Extensions should round-trip with their types");
+        
+        CloudEvent bare = codec.decode(codec.encode(CloudEvent.builder().id("b").source("/s").type("t").time(null)
+                .data("plain").dataContentType("text/plain").build()));
+        assertNull(bare.getTime(), "Absent time should stay absent");
+        assertNull(bare.getSubject(), "Absent subject should stay absent");
+        assertEquals("plain", bare.getData(), "Text data should round-trip as text");
+    }
+    
+    @Test
+    @DisplayName("Structured data should be carried as JSON bytes")
+    void testStructuredData() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("result", 150.0);
+        data.put("currency", "ZAR");
+        CloudEvent event = CloudEvent.builder().source("/s").type("t").dataContentType("application/json")
+                .data(data).build();
+        
+        byte[] json = (byte[]) codec.decode(codec.encode(event)).getData();
+        assertEquals("{\"result\":150.0,\"currency\":\"ZAR\"}", new String(json, StandardCharsets.UTF_8),
+                "Structured data should be carried as JSON");
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(CloudEvent.builder().source("/s").type("t")
+                .dataContentType("text/plain").data(data).build()), "Structured non-JSON data should be rejected");
+    }
+    
+    @Test
+    @DisplayName("Dictionary entries and repeated strings should be interned")
+    void testInterning() {
+        CloudEventBinaryCodec interned = CloudEventBinaryCodec.builder().intern(SOURCE, TYPE).build();
+        CloudEvent event = CloudEvent.builder().id("evt-1").source(SOURCE).type(TYPE).time(TIME).build();
+        
+        byte[] plain = codec.encode(event);
+        byte[] compact = interned.encode(event);
+        assertEquals(plain.length - SOURCE.length() - TYPE.length(), compact.length,
+                "Dictionary entries should be written as one-byte indexes");
+        assertSame(SOURCE, interned.decode(compact).getSource(), "Dictionary entries should decode to the entry");
+        assertTrue(plain.length < new CloudEventJsonCodec().encode(event).length,
+                "The binary form should be smaller than JSON");
+        assertTrue(compact.length * 4 < new CloudEventJsonCodec().encode(event).length,
+                "The interned binary form should be much smaller than JSON");
+        
+        String type = codec.decode(plain).getType();
+        assertEquals(TYPE, type, "Types outside the dictionary should decode correctly");
+        assertSame(type, codec.decode(plain).getType(), "Repeated types should decode to one instance");
+        
+        CloudEventBinaryCodec other = CloudEventBinaryCodec.builder().intern(TYPE).build();
+        assertThrows(IllegalArgumentException.class, () -> other.decode(compact),
+                "Indexes outside the dictionary should be rejected");
+    }
+    
+    @Test
+    @DisplayName("Malformed input should be rejected")
+    void testMalformed() {
+        byte[] encoded = codec.encode(CloudEvent.builder().id("evt-1").source("/s").type("t").time(TIME).build());
+        
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> codec.decode(truncated),
+                    "Truncation at " + length + " should be rejected");
+        }
+        byte[] trailing = Arrays.copyOf(encoded, encoded.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(trailing), "Trailing bytes should be rejected");
+        byte[] version = encoded.clone();
+        version[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(version), "Unknown versions should be rejected");
+        
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        assertThrows(java.nio.BufferOverflowException.class,
+                () -> codec.encode(CloudEvent.builder().source("/s").type("t").build(), buffer),
+                "Events larger than the buffer should overflow");
+    }
+    
+    @Test
+    @DisplayName("The message codec should write to the wire and pass local events by reference")
+    void testMessageCodec() throws Exception {
+        CloudEventMessageCodec messageCodec = new CloudEventMessageCodec(
+                CloudEventBinaryCodec.builder().intern(SOURCE, TYPE).build());
+        CloudEvent event = CloudEvent.builder().id("evt-1").source(SOURCE).type(TYPE).time(TIME)
+                .data("{\"n\":1}".getBytes(StandardCharsets.UTF_8)).build();
+        
+        Buffer buffer = Buffer.buffer().appendString("header");
+        messageCodec.encodeToWire(buffer, event);
+        CloudEvent decoded = messageCodec.decodeFromWire(6, buffer);
+        assertEquals("evt-1", decoded.getId(), "Events should round-trip through a buffer");
+        assertEquals(TIME, decoded.getTime(), "Time should round-trip through a buffer");
+        assertSame(event, messageCodec.transform(event), "Local delivery should pass the event itself");
+        
+        Vertx vertx = Vertx.vertx();
+        try {
+            messageCodec.register(vertx.eventBus());
+            CompletableFuture<CloudEvent> received = new CompletableFuture<>();
+            vertx.eventBus().<CloudEvent>consumer("events", message -> received.complete(message.body()))
+                    .completion().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+            vertx.eventBus().send("events", event);
+            assertSame(event, received.get(5, TimeUnit.SECONDS), "The bus should deliver the event by reference");
+        } finally {
+            vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+    }
+}
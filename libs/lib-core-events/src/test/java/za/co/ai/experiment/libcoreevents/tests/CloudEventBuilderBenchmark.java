@@ -0,0 +1,61 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building an event with no extensions and with four, the common sizes.
+ * 
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main CloudEventBuilderBenchmark -prof gc}
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloudEventBuilderBenchmark {
+    
+    private static final OffsetDateTime TIME = OffsetDateTime.parse("2026-03-01T10:15:30.123Z");
+    
+    @Benchmark
+    public CloudEvent noExtensions() {
+        return CloudEvent.builder()
+                .id("evt-1")
+                .source("/apps/advanced-calculator")
+                .type("za.co.ai.experiment.calculation.completed")
+                .time(TIME)
+                .build();
+    }
+    
+    @Benchmark
+    public CloudEvent fourExtensions() {
+        return CloudEvent.builder()
+                .id("evt-1")
+                .source("/apps/advanced-calculator")
+                .type("za.co.ai.experiment.calculation.completed")
+                .time(TIME)
+                .extension("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .extension("partitionkey", "user-1234")
+                .extension("attempt", 1)
+                .extension("replayed", Boolean.FALSE)
+                .build();
+    }
+    
+    @Benchmark
+    public Object lookup() {
+        return fourExtensions().getExtensions().get("partitionkey");
+    }
+}
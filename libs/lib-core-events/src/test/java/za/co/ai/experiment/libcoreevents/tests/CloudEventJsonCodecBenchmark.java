@@ -0,0 +1,127 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CloudEventBinaryCodec;
+import za.co.ai.experiment.libcoreevents.CloudEventJsonCodec;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming structured-mode codec with building a Jackson map per event,
+ * which is how events were serialized before the codec existed, and with the binary
+ * codec used on the event bus.
+ * 
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main CloudEventJsonCodecBenchmark -prof gc}
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloudEventJsonCodecBenchmark {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    
+    private final CloudEventJsonCodec codec = new CloudEventJsonCodec();
+    private CloudEvent event;
+    private final CloudEventBinaryCodec binaryCodec = CloudEventBinaryCodec.builder()
+            .intern("/apps/advanced-calculator", "za.co.ai.experiment.calculation.completed")
+            .build();
+    private byte[] encoded;
+    private byte[] binaryEncoded;
+    
+    @Setup
+    public void setUp() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("calculationId", "calc-7f3a9c");
+        data.put("operation", "multiply");
+        data.put("operands", List.of(12.5, 4, 3));
+        data.put("result", 150.0);
+        data.put("currency", "ZAR");
+        event = CloudEvent.builder()
+                .id("4b1d3c1e-2f0a-4e5b-9d7c-3a2b1c0d9e8f")
+                .source("/apps/advanced-calculator")
+                .type("za.co.ai.experiment.calculation.completed")
+                .time(OffsetDateTime.parse("2026-03-01T10:15:30.123Z"))
+                .subject("user-1234")
+                .dataContentType("application/json")
+                .extension("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01")
+                .extension("partitionkey", "user-1234")
+                .data(data)
+                .build();
+        encoded = codec.encode(event);
+        binaryEncoded = binaryCodec.encode(event);
+    }
+    
+    @Benchmark
+    public byte[] mapEncode() throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("specversion", "1.0");
+        json.put("id", event.getId());
+        json.put("source", event.getSource());
+        json.put("type", event.getType());
+        json.put("time", event.getTime().toString());
+        json.put("subject", event.getSubject());
+        json.put("datacontenttype", event.getDataContentType());
+        json.putAll(event.getExtensions());
+        json.put("data", event.getData());
+        return MAPPER.writeValueAsBytes(json);
+    }
+    
+    @Benchmark
+    public byte[] streamingEncode() {
+        return codec.encode(event);
+    }
+    
+    @Benchmark
+    public CloudEvent mapDecode() throws IOException {
+        Map<String, Object> json = MAPPER.readValue(encoded, MAP_TYPE);
+        CloudEvent.Builder builder = CloudEvent.builder()
+                .id((String) json.remove("id"))
+                .source((String) json.remove("source"))
+                .type((String) json.remove("type"))
+                .time(OffsetDateTime.parse((String) json.remove("time")))
+                .subject((String) json.remove("subject"))
+                .dataContentType((String) json.remove("datacontenttype"))
+                .data(json.remove("data"));
+        json.remove("specversion");
+        json.forEach(builder::extension);
+        return builder.build();
+    }
+    
+    @Benchmark
+    public CloudEvent streamingDecode() {
+        return codec.decode(encoded);
+    }
+    
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binaryCodec.encode(event);
+    }
+    
+    @Benchmark
+    public CloudEvent binaryDecode() {
+        return binaryCodec.decode(binaryEncoded);
+    }
+}
@@ -0,0 +1,213 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CloudEventBinaryCodec;
+import za.co.ai.experiment.libcoreevents.CloudEventJsonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CloudEventJsonCodec class.
+ */
+public class CloudEventJsonCodecTest {
+    
+    private static final OffsetDateTime TIME = OffsetDateTime.parse("2026-03-01T10:15:30.123+02:00");
+    
+    private final CloudEventJsonCodec codec = new CloudEventJsonCodec();
+    
+    @Test
+    @DisplayName("Events should round-trip with every attribute and extension")
+    void testRoundTrip() throws IOException {
+        byte[] data = "{\"amount\":12.5,\"currency\":\"ZAR\",\"items\":[1,2,{\"x\":null}]}"
+                .getBytes(StandardCharsets.UTF_8);
+        CloudEvent event = CloudEvent.builder()
+                .id("evt-1")
+                .source("/calculator")
+                .type("za.co.ai.calculation.completed")
+                .time(TIME)
+                .subject("calc-42")
+                .dataContentType("application/json")
+                .dataSchema("https://schemas.test/calculation")
+                .data(data)
+                .extension("traceparent", "00-abc-def-01")
+                .extension("attempt", 3)
+                .extension("sequence", 5_000_000_000L)
+                .extension("replayed", true)
+                .build();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(event, out);
+        CloudEvent decoded = codec.read(new ByteArrayInputStream(out.toByteArray()));
+        
+        assertEquals("evt-1", decoded.getId(), "ID should round-trip");
+        assertEquals("/calculator", decoded.getSource(), "Source should round-trip");
+        assertEquals("za.co.ai.calculation.completed", decoded.getType(), "Type should round-trip");
+        assertEquals(TIME, decoded.getTime(), "Time should round-trip");
+        assertEquals("calc-42", decoded.getSubject(), "Subject should round-trip");
+        assertEquals("application/json", decoded.getDataContentType(), "Content type should round-trip");
+        assertEquals("https://schemas.test/calculation", decoded.getDataSchema(), "Schema should round-trip");
+        assertEquals(Map.of("traceparent", "00-abc-def-01", "attempt", 3, "sequence", 5_000_000_000L,
+                "replayed", true), decoded.getExtensions(), "Extensions should round-trip");
+        assertArrayEquals(data, (byte[]) decoded.getData(), "JSON data should be kept as its raw bytes");
+        assertArrayEquals(out.toByteArray(), codec.encode(decoded), "Re-encoding should give the same bytes");
+    }
+    
+    @Test
+    @DisplayName("Structured data should be written as JSON and read back as raw JSON")
+    void testStructuredData() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", "ai-app");
+        data.put("values", List.of(1, 2.5, true));
+        data.put("nested", Map.of("ok", false));
+        CloudEvent event = CloudEvent.builder().source("/s").type("t").data(data).build();
+        
+        String json = new String(codec.encode(event), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"data\":{\"name\":\"ai-app\",\"values\":[1,2.5,true],\"nested\":{\"ok\":false}}"),
+                "Map data should be written inline: " + json);
+        assertEquals("{\"name\":\"ai-app\",\"values\":[1,2.5,true],\"nested\":{\"ok\":false}}",
+                new String((byte[]) codec.decode(json.getBytes(StandardCharsets.UTF_8)).getData(), StandardCharsets.UTF_8),
+                "Data should be read back as its JSON text");
+        
+        CloudEvent unsupported = CloudEvent.builder().source("/s").type("t").data(new Object()).build();
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(unsupported), "Unknown data types");
+    }
+    
+    @Test
+    @DisplayName("Non-JSON data should use text or data_base64 in any member order")
+    void testNonJsonData() {
+        byte[] binary = {0, 1, 2, (byte) 0xFF};
+        CloudEvent event = CloudEvent.builder().source("/s").type("t")
+                .dataContentType("application/octet-stream").data(binary).build();
+        String json = new String(codec.encode(event), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"data_base64\":\"AAEC/w==\""), "Binary data should be base64: " + json);
+        assertArrayEquals(binary, (byte[]) codec.decode(json.getBytes(StandardCharsets.UTF_8)).getData(),
+                "Binary data should round-trip");
+        
+        String textFirst = "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\","
+                + "\"datacontenttype\":\"text/plain\",\"data\":\"hello \\\"world\\\"\"}";
+        String textLast = "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\","
+                + "\"data\":\"hello \\\"world\\\"\",\"datacontenttype\":\"text/plain; charset=utf-8\"}";
+        assertEquals("hello \"world\"", codec.decode(textFirst.getBytes(StandardCharsets.UTF_8)).getData(),
+                "Text data should be unescaped");
+        assertEquals("hello \"world\"", codec.decode(textLast.getBytes(StandardCharsets.UTF_8)).getData(),
+                "Text data should be unescaped when the content type comes last");
+    }
+    
+    @Test
+    @DisplayName("Binary data without a content type should stay data_base64 through a round trip")
+    void testBinaryDataWithoutContentType() {
+        String base64 = "{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\","
+                + "\"data_base64\":\"AAEC/w==\"}";
+        CloudEvent decoded = codec.decode(base64.getBytes(StandardCharsets.UTF_8));
+        assertFalse(decoded.getEventData().isJson(), "data_base64 should not be taken for JSON");
+        String json = new String(codec.encode(decoded), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"data_base64\":\"AAEC/w==\""), "Decoded binary data should stay base64: " + json);
+        assertArrayEquals(new byte[] {0, 1, 2, (byte) 0xFF},
+                (byte[]) codec.decode(json.getBytes(StandardCharsets.UTF_8)).getData(), "Binary data should round-trip");
+        
+        CloudEvent bytes = CloudEvent.builder().source("/s").type("t")
+                .data("hello".getBytes(StandardCharsets.UTF_8)).build();
+        json = new String(codec.encode(bytes), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"data_base64\":\"aGVsbG8=\""), "Plain bytes should be base64: " + json);
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8),
+                (byte[]) codec.decode(json.getBytes(StandardCharsets.UTF_8)).getData(), "Plain bytes should round-trip");
+        
+        CloudEventBinaryCodec binary = CloudEventBinaryCodec.builder().build();
+        assertTrue(new String(codec.encode(binary.decode(binary.encode(decoded))), StandardCharsets.UTF_8)
+                .contains("data_base64"), "The binary format should keep binary data binary");
+    }
+    
+    @Test
+    @DisplayName("Buffers should be encoded and decoded in place")
+    void testByteBuffers() {
+        CloudEvent event = CloudEvent.builder().id("1").source("/s").type("t").time(TIME)
+                .data("[1,2,3]".getBytes(StandardCharsets.UTF_8)).build();
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        buffer.put((byte) ' ');
+        int written = codec.encode(event, buffer);
+        
+        assertEquals(1 + written, buffer.position(), "The position should advance by the bytes written");
+        buffer.flip().position(1);
+        CloudEvent decoded = codec.decode(buffer);
+        assertEquals(1, buffer.position(), "Decoding should not move the buffer");
+        assertArrayEquals("[1,2,3]".getBytes(StandardCharsets.UTF_8), (byte[]) decoded.getData(), "Data");
+        
+        ByteBuffer direct = ByteBuffer.allocateDirect(512);
+        codec.encode(event, direct);
+        assertEquals("1", codec.decode(direct.flip()).getId(), "Direct buffers should decode");
+        assertThrows(BufferOverflowException.class, () -> codec.encode(event, ByteBuffer.allocate(16)),
+                "Events larger than the buffer should overflow");
+    }
+    
+    @Test
+    @DisplayName("Invalid events should be rejected")
+    void testInvalidEvents() {
+        assertThrows(IllegalArgumentException.class, () -> decode("[]"), "Not an object");
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\"}"),
+                "Missing specversion");
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"specversion\":\"1.0\",\"source\":\"/s\",\"type\":\"t\"}"), "Missing id");
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"type\":\"t\"}"), "Missing source");
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\",\"time\":\"soon\"}"),
+                "Invalid time");
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\",\"x\":{}}"),
+                "Object extension");
+        assertThrows(IllegalArgumentException.class, () -> decode("{\"specversion\":\"1.0\""), "Truncated");
+        assertNull(decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\"}").getTime(),
+                "Absent time should stay absent");
+    }
+    
+    @Test
+    @DisplayName("Times should be written like ISO_OFFSET_DATE_TIME and read back exactly")
+    void testTimes() {
+        for (String text : List.of("2026-03-01T10:15:30Z", "2026-03-01T10:15:00.5+02:00", "1999-12-31T23:59:59.000000001-05:30",
+                "2026-03-01T00:00:00.120+05:45", "0001-01-01T00:00:00Z", "2026-03-01T10:15:30.123456+14:00")) {
+            OffsetDateTime time = OffsetDateTime.parse(text);
+            CloudEvent event = CloudEvent.builder().id("1").source("/s").type("t").time(time).build();
+            String json = new String(codec.encode(event), StandardCharsets.UTF_8);
+            
+            assertTrue(json.contains("\"time\":\"" + DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(time) + "\""),
+                    "Time should match the ISO formatter: " + json);
+            assertEquals(time, codec.decode(json.getBytes(StandardCharsets.UTF_8)).getTime(), "Time " + text);
+        }
+        assertEquals(OffsetDateTime.parse("2026-03-01T10:15:30Z"),
+                decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\","
+                        + "\"time\":\"2026-03-01t10:15:30z\"}").getTime(), "Lower-case T and Z are valid RFC 3339");
+        assertThrows(IllegalArgumentException.class,
+                () -> decode("{\"specversion\":\"1.0\",\"id\":\"1\",\"source\":\"/s\",\"type\":\"t\","
+                        + "\"time\":\"2026-02-30T10:15:30Z\"}"), "Invalid dates should be rejected");
+    }
+    
+    @Test
+    @DisplayName("JSON content types should be recognised")
+    void testIsJson() {
+        assertTrue(CloudEventJsonCodec.isJson(null), "Absent means JSON");
+        assertTrue(CloudEventJsonCodec.isJson("application/json"), "application/json");
+        assertTrue(CloudEventJsonCodec.isJson("Application/JSON; charset=utf-8"), "Parameters and case");
+        assertTrue(CloudEventJsonCodec.isJson("application/vnd.ai+json"), "Structured suffix");
+        assertTrue(CloudEventJsonCodec.isJson("text/json"), "text/json");
+        assertFalse(CloudEventJsonCodec.isJson("application/jsonx"), "Longer type");
+        assertFalse(CloudEventJsonCodec.isJson("text/plain"), "Text");
+    }
+    
+    private CloudEvent decode(String json) {
+        return codec.decode(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import za.co.ai.experiment.libcoreevents.CloudEvent;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -85,4 +86,45 @@ public class CloudEventTest {
 
         assertEquals("Type is required", exception.getMessage());
     }
+
+    @Test
+    @DisplayName("Extensions should be a read-only view sorted by name")
+    void testExtensions() {
+        CloudEvent none = CloudEvent.builder().source(SOURCE).type(TYPE).build();
+        CloudEvent other = CloudEvent.builder().source(SOURCE).type(TYPE).build();
+        assertTrue(none.getExtensions().isEmpty(), "Events without extensions should have none");
+        assertSame(none.getExtensions(), other.getExtensions(), "Events without extensions should share one view");
+
+        CloudEvent event = CloudEvent.builder()
+                .source(SOURCE)
+                .type(TYPE)
+                .extension("zeta", 1)
+                .extension("alpha", "a")
+                .extension("mid", true)
+                .extension("alpha", "replaced")
+                .extension("removed", "x")
+                .extension("removed", null)
+                .build();
+
+        assertEquals(List.of("alpha", "mid", "zeta"), List.copyOf(event.getExtensions().keySet()),
+                "Extensions should iterate in name order");
+        assertEquals(Map.of("alpha", "replaced", "mid", true, "zeta", 1), event.getExtensions(),
+                "Later values should replace earlier ones and null should remove");
+        assertEquals("replaced", event.getExtension("alpha"), "Extensions should be looked up by name");
+        assertNull(event.getExtension("removed"), "Removed extensions should be absent");
+        assertSame(event.getExtensions(), event.getExtensions(), "The view should not be copied");
+        assertThrows(UnsupportedOperationException.class, () -> event.getExtensions().put("x", 1),
+                "The view should be read-only");
+
+        CloudEvent.Builder builder = CloudEvent.builder().source(SOURCE).type(TYPE);
+        for (int i = 20; i > 0; i--) {
+            builder.extension("ext" + (char) ('a' + i), i);
+        }
+        CloudEvent many = builder.build();
+        assertEquals(20, many.getExtensions().size(), "Builders should grow past their initial capacity");
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, many.getExtension("ext" + (char) ('a' + i)), "Larger sets should be searched by name");
+        }
+        assertFalse(many.getExtensions().containsKey("missing"), "Missing names should not be found");
+    }
 }
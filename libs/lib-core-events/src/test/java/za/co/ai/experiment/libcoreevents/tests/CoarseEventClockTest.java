@@ -0,0 +1,87 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CoarseEventClock;
+import za.co.ai.experiment.libcoreevents.EventClock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the CoarseEventClock class.
+ */
+public class CoarseEventClockTest {
+    
+    @Test
+    @DisplayName("Times within one tick should share an instance")
+    void testCachedWithinTick() {
+        SteppedClock clock = new SteppedClock(Instant.parse("2026-03-01T10:15:30.120Z"));
+        CoarseEventClock coarse = new CoarseEventClock(clock, Duration.ofMillis(10), ZoneOffset.ofHours(2));
+        
+        OffsetDateTime first = coarse.now();
+        assertEquals(OffsetDateTime.parse("2026-03-01T12:15:30.120+02:00"), first, "Time should be in the offset");
+        clock.instant = Instant.parse("2026-03-01T10:15:30.129Z");
+        assertSame(first, coarse.now(), "Times within a tick should be the cached instance");
+        clock.instant = Instant.parse("2026-03-01T10:15:30.131Z");
+        assertEquals(OffsetDateTime.parse("2026-03-01T12:15:30.130+02:00"), coarse.now(),
+                "The next tick should be truncated to the resolution");
+        assertThrows(IllegalArgumentException.class,
+                () -> new CoarseEventClock(clock, Duration.ofNanos(10), ZoneOffset.UTC), "Sub-millisecond resolution");
+    }
+    
+    @Test
+    @DisplayName("Builders should use the configured ID generator and clock")
+    void testBuilderStrategies() {
+        OffsetDateTime time = OffsetDateTime.parse("2026-03-01T10:15:30Z");
+        CloudEvent event = CloudEvent.builder()
+                .source("/s")
+                .type("t")
+                .idGenerator(() -> "fixed-id")
+                .clock(() -> time)
+                .build();
+        
+        assertEquals("fixed-id", event.getId(), "The ID generator should supply the ID");
+        assertSame(time, event.getTime(), "The clock should supply the time");
+        
+        CloudEvent defaults = CloudEvent.builder().source("/s").type("t").build();
+        assertEquals(ZoneOffset.UTC, defaults.getTime().getOffset(), "The default clock should be UTC");
+        assertEquals('7', defaults.getId().charAt(14), "The default IDs should be UUIDv7");
+        assertNotEquals(defaults.getId(), CloudEvent.builder().source("/s").type("t").build().getId(),
+                "Default IDs should be unique");
+        assertNotNull(EventClock.system().now(), "The system clock should be available");
+    }
+    
+    /**
+     * A clock whose time is set by the test.
+     */
+    private static final class SteppedClock extends Clock {
+        private Instant instant;
+        
+        private SteppedClock(Instant instant) {
+            this.instant = instant;
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.CloudEventBinaryCodec;
+import za.co.ai.experiment.libcoreevents.CloudEventJsonCodec;
+import za.co.ai.experiment.libcoreevents.EventData;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventData class.
+ */
+public class EventDataTest {
+    
+    private static final String EVENT = "{\"specversion\":\"1.0\",\"id\":\"evt-1\",\"source\":\"/s\",\"type\":\"t\","
+            + "\"data\": { \"amount\" : 12.5, \"items\" : [1, 2] } }";
+    
+    private final CloudEventJsonCodec codec = new CloudEventJsonCodec();
+    
+    @Test
+    @DisplayName("Data should be decoded on first typed access and cached")
+    void testLazyDecoding() {
+        EventData data = EventData.of("{\"n\":1}".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger decodes = new AtomicInteger();
+        EventData.Decoder<String> decoder = (bytes, offset, length) -> {
+            decodes.incrementAndGet();
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        };
+        
+        assertEquals(0, decodes.get(), "Nothing should be decoded before it is asked for");
+        String first = data.as(decoder);
+        assertSame(first, data.as(decoder), "Repeated access should return the cached value");
+        assertEquals(1, decodes.get(), "The data should be decoded once");
+        assertEquals(Map.of("n", 1), data.asJson(), "JSON data should decode to maps and values");
+        assertThrows(UnsupportedOperationException.class, () -> ((Map<?, ?>) data.asJson()).clear(),
+                "Decoded JSON should not be modifiable");
+        assertThrows(IllegalArgumentException.class, () -> EventData.of(new byte[] {'{'}).asJson(),
+                "Malformed JSON should be rejected");
+    }
+    
+    @Test
+    @DisplayName("Data should wrap a slice of a larger array without copying it")
+    void testSlice() {
+        byte[] buffer = "xx\"hello\"yy".getBytes(StandardCharsets.UTF_8);
+        EventData data = EventData.wrap(buffer, 2, 7);
+        
+        assertEquals(7, data.length(), "The length should be the slice's");
+        assertEquals("hello", data.asJson(), "The slice should decode on its own");
+        assertEquals("\"hello\"", data.asString(), "The slice should read as text");
+        assertSame(data.toByteArray(), data.toByteArray(), "The slice should be copied once");
+        assertEquals(EventData.of("\"hello\"".getBytes(StandardCharsets.UTF_8)), data, "Equality should be by content");
+        assertThrows(IndexOutOfBoundsException.class, () -> EventData.wrap(buffer, 8, 7), "Out of range slices");
+    }
+    
+    @Test
+    @DisplayName("Decoded events should hold their data as a slice and forward it unchanged")
+    void testForwarding() {
+        byte[] json = EVENT.getBytes(StandardCharsets.UTF_8);
+        CloudEvent event = codec.decode(json);
+        
+        EventData data = event.getEventData();
+        assertEquals("{ \"amount\" : 12.5, \"items\" : [1, 2] }", data.asString(),
+                "The data should be the original bytes");
+        assertEquals(List.of(1, 2), ((Map<?, ?>) data.asJson()).get("items"), "The data should decode on demand");
+        
+        String forwarded = new String(codec.encode(event), StandardCharsets.UTF_8);
+        assertTrue(forwarded.endsWith("\"data\":{ \"amount\" : 12.5, \"items\" : [1, 2] }}"),
+                "Forwarding should write the original bytes, not re-serialize them: " + forwarded);
+        
+        CloudEventBinaryCodec binary = CloudEventBinaryCodec.builder().build();
+        CloudEvent relayed = codec.decode(codec.encode(binary.decode(binary.encode(event))));
+        assertEquals(data, relayed.getEventData(), "Data should survive both formats byte for byte");
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.writeTo(out);
+        assertArrayEquals(data.toByteArray(), out.toByteArray(), "Data should be written as it is");
+        assertArrayEquals(data.toByteArray(), (byte[]) event.getData(), "getData should return the bytes");
+    }
+}
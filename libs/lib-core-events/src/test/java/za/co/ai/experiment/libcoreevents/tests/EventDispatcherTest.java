@@ -0,0 +1,174 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.EventDispatcher;
+import za.co.ai.experiment.libcoreevents.EventSubscription;
+import za.co.ai.experiment.libcoreevents.WaitStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventDispatcher class.
+ */
+public class EventDispatcherTest {
+    
+    @Test
+    @DisplayName("Events should be routed by type, source and both")
+    void testRouting() {
+        List<String> all = Collections.synchronizedList(new ArrayList<>());
+        List<String> created = Collections.synchronizedList(new ArrayList<>());
+        List<String> fromA = Collections.synchronizedList(new ArrayList<>());
+        List<String> createdFromA = Collections.synchronizedList(new ArrayList<>());
+        try (EventDispatcher dispatcher = EventDispatcher.builder().bufferSize(8).build()) {
+            dispatcher.subscribe(event -> all.add(event.getId()));
+            dispatcher.subscribe("created", null, event -> created.add(event.getId()));
+            dispatcher.subscribe(null, "/a", event -> fromA.add(event.getId()));
+            dispatcher.subscribe("created", "/a", event -> createdFromA.add(event.getId()));
+            
+            dispatcher.publish(event("1", "created", "/a"));
+            dispatcher.publish(event("2", "created", "/b"));
+            dispatcher.publish(event("3", "deleted", "/a"));
+            dispatcher.publish(event("4", "deleted", "/b"));
+        }
+        
+        assertEquals(List.of("1", "2", "3", "4"), all, "Unfiltered subscribers should receive every event");
+        assertEquals(List.of("1", "2"), created, "Type subscribers should receive their type");
+        assertEquals(List.of("1", "3"), fromA, "Source subscribers should receive their source");
+        assertEquals(List.of("1"), createdFromA, "Type and source subscribers should receive both");
+    }
+    
+    @Test
+    @DisplayName("Events from many producers should reach every subscriber in order")
+    void testMultipleProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 5_000;
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            List<CloudEvent> first = new ArrayList<>();
+            List<CloudEvent> second = new ArrayList<>();
+            try (EventDispatcher dispatcher = EventDispatcher.builder().bufferSize(64).waitStrategy(strategy).build()) {
+                dispatcher.subscribe(first::add);
+                dispatcher.subscribe(second::add);
+                List<Thread> threads = new ArrayList<>();
+                for (int p = 0; p < producers; p++) {
+                    String source = "/producer/" + p;
+                    threads.add(Thread.ofPlatform().start(() -> {
+                        for (int i = 0; i < perProducer; i++) {
+                            dispatcher.publish(event(Integer.toString(i), "t", source));
+                        }
+                    }));
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            
+            assertEquals(producers * perProducer, first.size(), strategy + " should deliver every event");
+            assertEquals(first, second, strategy + " should deliver the same order to every subscriber");
+            for (int p = 0; p < producers; p++) {
+                String source = "/producer/" + p;
+                int expected = 0;
+                for (CloudEvent event : first) {
+                    if (source.equals(event.getSource())) {
+                        assertEquals(Integer.toString(expected++), event.getId(),
+                                strategy + " should keep each producer's order");
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("A slow subscriber should not hold back others until the ring is full")
+    void testSlowSubscriber() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(8);
+        AtomicInteger slow = new AtomicInteger();
+        try (EventDispatcher dispatcher = EventDispatcher.builder().bufferSize(8).build()) {
+            dispatcher.subscribe("slow", null, event -> {
+                awaitQuietly(release);
+                slow.incrementAndGet();
+            });
+            dispatcher.subscribe("fast", null, event -> fastDone.countDown());
+            
+            dispatcher.publish(event("s", "slow", "/s"));
+            for (int i = 0; i < 7; i++) {
+                dispatcher.publish(event(Integer.toString(i), "fast", "/s"));
+            }
+            assertFalse(dispatcher.tryPublish(event("x", "fast", "/s")), "A full ring should refuse events");
+            release.countDown();
+            dispatcher.publish(event("7", "fast", "/s"));
+            assertTrue(fastDone.await(5, TimeUnit.SECONDS), "The fast subscriber should receive every event");
+        }
+        assertEquals(1, slow.get(), "The slow subscriber should receive its event");
+    }
+    
+    @Test
+    @DisplayName("Closed subscriptions and dispatchers should stop delivery")
+    void testClose() {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        EventDispatcher dispatcher = EventDispatcher.builder().bufferSize(4).waitStrategy(WaitStrategy.BLOCKING).build();
+        EventSubscription subscription = dispatcher.subscribe(event -> received.add(event.getId()));
+        dispatcher.subscribe(event -> {
+            failed.add(event.getId());
+            throw new IllegalStateException("Handler failure");
+        });
+        
+        dispatcher.publish(event("1", "t", "/s"));
+        dispatcher.publish(event("2", "t", "/s"));
+        subscription.close();
+        List<String> before = List.copyOf(received);
+        assertEquals(List.of("1", "2").subList(0, before.size()), before, "Unsubscribing should stop in order");
+        for (int i = 3; i <= 10; i++) {
+            dispatcher.publish(event(Integer.toString(i), "t", "/s"));
+        }
+        dispatcher.close();
+        
+        assertEquals(before, received, "A closed subscription should receive no more events");
+        assertEquals(10, failed.size(), "Handler failures should not stop delivery, and closing should drain");
+        assertTrue(subscription.getSequence() < 2, "The closed subscriber should stop advancing");
+        assertThrows(IllegalStateException.class, () -> dispatcher.publish(event("11", "t", "/s")), "Publish");
+        assertThrows(IllegalStateException.class, () -> dispatcher.subscribe(event -> { }), "Subscribe");
+        assertThrows(IllegalArgumentException.class, () -> EventDispatcher.builder().bufferSize(12), "Buffer size");
+    }
+    
+    @Test
+    @DisplayName("Subscriber slots should be limited and reused")
+    void testSubscriberLimit() {
+        try (EventDispatcher dispatcher = EventDispatcher.builder().build()) {
+            List<EventSubscription> subscriptions = new ArrayList<>();
+            for (int i = 0; i < EventDispatcher.MAX_SUBSCRIBERS; i++) {
+                subscriptions.add(dispatcher.subscribe("t" + i, null, event -> { }));
+            }
+            assertThrows(IllegalStateException.class, () -> dispatcher.subscribe(event -> { }), "Too many subscribers");
+            
+            subscriptions.get(3).close();
+            AtomicInteger received = new AtomicInteger();
+            dispatcher.subscribe("t3", null, event -> received.incrementAndGet());
+            dispatcher.publish(event("1", "t3", "/s"));
+            dispatcher.close();
+            assertEquals(1, received.get(), "A reused slot should route to its new subscriber");
+        }
+    }
+    
+    private static CloudEvent event(String id, String type, String source) {
+        return CloudEvent.builder().id(id).type(type).source(source).build();
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
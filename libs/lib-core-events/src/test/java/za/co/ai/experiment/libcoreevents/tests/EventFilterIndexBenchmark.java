@@ -0,0 +1,78 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.EventFilter;
+import za.co.ai.experiment.libcoreevents.EventFilterIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching an event against a set of subscription filters through an
+ * EventFilterIndex and by evaluating every filter in turn.
+ * 
+ * Run with {@code java -cp <test classpath> org.openjdk.jmh.Main EventFilterIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventFilterIndexBenchmark {
+    
+    @Param({"100", "10000"})
+    private int filters;
+    
+    private final List<EventFilter> all = new ArrayList<>();
+    private EventFilterIndex<Integer> index;
+    private CloudEvent event;
+    
+    @Setup
+    public void setUp() {
+        EventFilterIndex.Builder<Integer> builder = EventFilterIndex.builder();
+        for (int i = 0; i < filters; i++) {
+            EventFilter filter = EventFilter.parse(switch (i % 3) {
+                case 0 -> "type = 'za.co.ai.experiment.t" + i + "' AND subject LIKE 'user-%'";
+                case 1 -> "source = '/apps/a" + i + "'";
+                default -> "type LIKE 'za.co.ai.experiment.t" + i + ".%' AND NOT tenant = 't" + i + "'";
+            });
+            all.add(filter);
+            builder.add(filter, i);
+        }
+        index = builder.build();
+        event = CloudEvent.builder()
+                .source("/apps/a1")
+                .type("za.co.ai.experiment.t0")
+                .subject("user-1")
+                .build();
+    }
+    
+    @Benchmark
+    public int indexed() {
+        return index.match(event).size();
+    }
+    
+    @Benchmark
+    public int scan() {
+        int matches = 0;
+        for (EventFilter filter : all) {
+            if (filter.test(event)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,124 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.EventDispatcher;
+import za.co.ai.experiment.libcoreevents.EventFilter;
+import za.co.ai.experiment.libcoreevents.EventFilterIndex;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventFilter and EventFilterIndex classes.
+ */
+public class EventFilterTest {
+    
+    private static final CloudEvent EVENT = CloudEvent.builder()
+            .id("evt-1")
+            .source("/shop/eu")
+            .type("com.example.order.created")
+            .subject("order-42")
+            .time(OffsetDateTime.parse("2026-03-01T10:15:30Z"))
+            .extension("tenant", "acme")
+            .extension("attempt", 2)
+            .build();
+    
+    @Test
+    @DisplayName("Comparisons, patterns and logical operators should follow the expression")
+    void testExpressions() {
+        assertMatches(true, "type = 'com.example.order.created'");
+        assertMatches(false, "type = 'com.example.order'");
+        assertMatches(true, "type LIKE 'com.example.%'");
+        assertMatches(true, "subject LIKE '%-42'");
+        assertMatches(true, "source LIKE '%shop%'");
+        assertMatches(true, "id LIKE 'evt-1'");
+        assertMatches(true, "type NOT LIKE '%.deleted'");
+        assertMatches(true, "source != '/shop/us' AND source <> '/shop/za'");
+        assertMatches(true, "tenant = 'acme' and attempt = \"2\"");
+        assertMatches(false, "missing = 'x'");
+        assertMatches(false, "missing != 'x'");
+        assertMatches(true, "EXISTS tenant AND NOT EXISTS missing");
+        assertMatches(true, "time LIKE '2026-03-01T%' AND specversion = '1.0'");
+        assertMatches(true, "type = 'other' OR (source = '/shop/eu' AND NOT subject = 'order-1')");
+        assertMatches(false, "FALSE OR type = 'other' AND TRUE");
+        assertMatches(true, "subject = 'order-''42''' OR Subject = 'order-42'");
+    }
+    
+    @Test
+    @DisplayName("Invalid expressions should be rejected with their position")
+    void testInvalidExpressions() {
+        for (String expression : List.of("", "type", "type = ", "type = 'x", "type LIKE 'a%b'", "type LIKE 'a_b'",
+                "(type = 'x'", "type = 'x' type = 'y'", "type NOT = 'x'")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> EventFilter.parse(expression), expression);
+            assertTrue(e.getMessage().startsWith("Invalid filter expression at "), "Message should give the position");
+        }
+        assertEquals("type = 'x'", EventFilter.parse("type = 'x'").getExpression(), "The expression should be kept");
+    }
+    
+    @Test
+    @DisplayName("An index should match the same filters as evaluating each one")
+    void testIndexMatchesScan() {
+        List<String> expressions = List.of(
+                "type = 'com.example.order.created'",
+                "type = 'com.example.order.deleted'",
+                "type = 'com.example.order.created' AND tenant = 'other'",
+                "source = '/shop/eu'",
+                "source = '/shop/us'",
+                "type LIKE 'com.%'",
+                "type LIKE 'com.example.order.%' AND subject LIKE 'order-%'",
+                "type LIKE 'com.example.invoice.%'",
+                "type LIKE 'com.example.order.created%'",
+                "tenant = 'acme' OR type = 'x'",
+                "NOT type = 'x'",
+                "subject LIKE '%42'");
+        EventFilterIndex.Builder<String> builder = EventFilterIndex.builder();
+        List<String> expected = new ArrayList<>();
+        for (String expression : expressions) {
+            builder.add(expression, expression);
+            if (EventFilter.parse(expression).test(EVENT)) {
+                expected.add(expression);
+            }
+        }
+        EventFilterIndex<String> index = builder.build();
+        
+        List<String> matched = index.match(EVENT);
+        Collections.sort(matched);
+        Collections.sort(expected);
+        assertEquals(expected, matched, "Indexed matching should find exactly the matching filters");
+        assertEquals(8, matched.size(), "Eight filters should match");
+        assertEquals(expressions.size(), index.size(), "Every filter should be indexed");
+        assertEquals(List.of("NOT type = 'x'"),
+                index.match(CloudEvent.builder().id("2").source("/other").type("other").build()),
+                "Events matching no indexed key should only match unindexed filters");
+    }
+    
+    @Test
+    @DisplayName("Dispatcher subscriptions should receive the events matching their filter")
+    void testDispatcherFilters() {
+        List<String> orders = Collections.synchronizedList(new ArrayList<>());
+        List<String> acme = Collections.synchronizedList(new ArrayList<>());
+        try (EventDispatcher dispatcher = EventDispatcher.builder().bufferSize(8).build()) {
+            dispatcher.subscribe(EventFilter.parse("type LIKE 'com.example.order.%'"), event -> orders.add(event.getId()));
+            dispatcher.subscribe(EventFilter.parse("tenant = 'acme'"), event -> acme.add(event.getId()));
+            
+            dispatcher.publish(EVENT);
+            dispatcher.publish(CloudEvent.builder().id("evt-2").source("/s").type("com.example.order.paid").build());
+            dispatcher.publish(CloudEvent.builder().id("evt-3").source("/s").type("com.example.invoice.sent")
+                    .extension("tenant", "acme").build());
+        }
+        
+        assertEquals(List.of("evt-1", "evt-2"), orders, "The type prefix filter should receive orders");
+        assertEquals(List.of("evt-1", "evt-3"), acme, "The extension filter should receive the tenant's events");
+    }
+    
+    private static void assertMatches(boolean expected, String expression) {
+        assertEquals(expected, EventFilter.parse(expression).test(EVENT), expression);
+    }
+}
@@ -0,0 +1,321 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.EventLog;
+import za.co.ai.experiment.libcoreevents.EventLogReader;
+import za.co.ai.experiment.libcoreevents.LogSyncPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventLog, EventLogReader and EventQuery classes.
+ */
+public class EventLogTest {
+    
+    private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Events should be replayed by offset and time across segments and restarts")
+    void testReplay() {
+        SteppedClock clock = new SteppedClock(START);
+        try (EventLog log = open(clock).build()) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, log.append(event(i)), "Offsets should be sequential");
+                clock.instant = clock.instant.plusSeconds(1);
+            }
+            assertTrue(log.getSegmentCount() > 3, "Small segments should roll");
+            assertIds(log.read(0), 0, 100);
+            assertIds(log.read(57), 57, 100);
+            assertIds(log.read(START.plusMillis(41_500)), 42, 100);
+            assertFalse(log.read(START.plusSeconds(200)).next(), "Reading after the last event should be empty");
+            assertThrows(IllegalArgumentException.class, () -> log.read(101), "Offsets after the end");
+        }
+        
+        try (EventLog log = open(clock).build()) {
+            assertEquals(100, log.getEndOffset(), "Reopening should recover every event");
+            assertIds(log.read(START.plusSeconds(10)), 10, 100);
+            assertEquals(100, log.append(event(100)), "Appends should continue after the recovered events");
+            
+            EventLogReader reader = log.read(99);
+            assertTrue(reader.next(), "The reader should read the last event");
+            assertEquals(START.plusSeconds(99), reader.getTimestamp(), "Append times should be kept");
+            assertTrue(reader.next(), "The reader should read the new event");
+            assertFalse(reader.next(), "The reader should stop at the end of the log");
+            log.append(event(101));
+            assertTrue(reader.next(), "The reader should follow events appended later");
+            assertEquals("evt-101", reader.getEvent().getId(), "The followed event should be decoded");
+            assertTrue(reader.getPayload().isReadOnly(), "Payloads should be read-only views");
+        }
+    }
+    
+    @Test
+    @DisplayName("A torn record at the tail should be truncated on open")
+    void testTornTailRecovery() throws IOException {
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(64 * 1024).build()) {
+            for (int i = 0; i < 10; i++) {
+                log.append(event(i));
+            }
+        }
+        Path segment = directory.resolve(String.format("%020d.log", 0));
+        byte[] bytes = Files.readAllBytes(segment);
+        int last = bytes.length - 1;
+        while (bytes[last] == 0) {
+            last--;
+        }
+        bytes[last] ^= (byte) 0xFF;
+        bytes[last + 40] = 7;
+        Files.write(segment, bytes);
+        
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(64 * 1024).build()) {
+            assertEquals(9, log.getEndOffset(), "The torn record should be dropped");
+            assertEquals(9, log.append(event(9)), "The torn record's offset should be reused");
+            assertIds(log.read(0), 0, 10);
+        }
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(64 * 1024).build()) {
+            assertIds(log.read(0), 0, 10);
+        }
+    }
+    
+    @Test
+    @DisplayName("Missing index files should be rebuilt from the records")
+    void testIndexRebuild() throws IOException {
+        try (EventLog log = open(Clock.systemUTC()).build()) {
+            for (int i = 0; i < 50; i++) {
+                log.append(event(i));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith("index")).toList()) {
+                Files.write(file, new byte[] {1, 2, 3});
+            }
+        }
+        try (EventLog log = open(Clock.systemUTC()).build()) {
+            assertEquals(50, log.getEndOffset(), "Every event should be recovered");
+            assertIds(log.read(31), 31, 50);
+        }
+    }
+    
+    @Test
+    @DisplayName("Old segments should be deleted by size and by age")
+    void testRetention() {
+        SteppedClock clock = new SteppedClock(START);
+        try (EventLog log = open(clock).retentionBytes(3000).build()) {
+            for (int i = 0; i < 100; i++) {
+                log.append(event(i));
+            }
+            assertTrue(log.getStartOffset() > 0, "Segments over the retention size should be deleted");
+            assertIds(log.read(0), (int) log.getStartOffset(), 100);
+        }
+        
+        try (EventLog log = open(clock).retentionAge(Duration.ofHours(1)).build()) {
+            assertEquals(0, log.enforceRetention(), "Recent segments should be kept");
+            clock.instant = START.plus(Duration.ofHours(2));
+            int segments = log.getSegmentCount();
+            assertEquals(segments - 1, log.enforceRetention(), "Expired sealed segments should be deleted");
+            assertEquals(1, log.getSegmentCount(), "The active segment should be kept");
+            log.append(event(100));
+            assertIds(log.read(0), (int) log.getStartOffset(), 101);
+        }
+    }
+    
+    @Test
+    @DisplayName("Concurrent group commit appends should all be durable and distinct")
+    void testGroupCommit() throws InterruptedException {
+        Set<Long> offsets = ConcurrentHashMap.newKeySet();
+        try (EventLog log = open(Clock.systemUTC()).syncPolicy(LogSyncPolicy.GROUP_COMMIT).build()) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        offsets.add(log.append(event(i)));
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(200, log.getEndOffset(), "Every append should be in the log");
+        }
+        assertEquals(200, offsets.size(), "Every append should get its own offset");
+        assertEquals(199L, Collections.max(offsets), "Offsets should be dense");
+    }
+    
+    @Test
+    @DisplayName("A failed roll should keep the appended events and fail later appends")
+    void testFailedRoll() throws IOException {
+        try (EventLog log = open(Clock.systemUTC()).build()) {
+            // Directories where the next segment files would go make opening them fail
+            for (int i = 1; i < 100; i++) {
+                Files.createDirectory(directory.resolve(String.format("%020d.log", i)));
+            }
+            int appended = 0;
+            try {
+                for (; appended < 100; appended++) {
+                    log.append(event(appended));
+                }
+                fail("Appending past the first segment should fail to roll");
+            } catch (UncheckedIOException e) {
+                assertEquals(1, log.getSegmentCount(), "The failed roll should not add a segment");
+            }
+            assertThrows(IllegalStateException.class, () -> log.append(event(100)), "Appends after a failed roll");
+            assertIds(log.read(0), 0, appended);
+        }
+    }
+    
+    @Test
+    @DisplayName("A segment left unsealed by a crash during a roll should be recovered and sealed")
+    void testUnsealedSegmentRecovery() throws IOException {
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(4096).build()) {
+            for (int i = 0; i < 5; i++) {
+                log.append(event(i));
+            }
+        }
+        // The next segment was created and preallocated, but the crash came before the seal
+        Files.write(directory.resolve(String.format("%020d.log", 5)), new byte[4096]);
+        
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(4096).build()) {
+            assertEquals(2, log.getSegmentCount(), "Both segments should be opened");
+            assertEquals(5, log.getEndOffset(), "Every event should be recovered");
+            assertEquals(5, log.append(event(5)), "Appends should continue in the next segment");
+            assertIds(log.read(0), 0, 6);
+        }
+        assertTrue(Files.exists(directory.resolve(String.format("%020d.index", 0))),
+                "The recovered segment should be indexed");
+        try (EventLog log = open(Clock.systemUTC()).segmentSize(4096).build()) {
+            assertIds(log.read(0), 0, 6);
+        }
+    }
+    
+    @Test
+    @DisplayName("Queries should intersect the secondary indexes by type, subject, source and time")
+    void testQueries() {
+        SteppedClock clock = new SteppedClock(START);
+        try (EventLog log = open(clock).segmentSize(16 * 1024).secondaryIndexes(true).build()) {
+            for (int i = 0; i < 2000; i++) {
+                log.append(CloudEvent.builder()
+                        .id("evt-" + i)
+                        .source("/source/" + i % 2)
+                        .type("type." + i % 3)
+                        .subject("subject-" + i % 5)
+                        .build());
+                clock.instant = clock.instant.plusSeconds(1);
+            }
+            assertTrue(log.getSegmentCount() > 2, "The events should span segments");
+            assertTrue(log.getIndexSize() < 3 * 2000 * 2, "Posting lists should take about a byte per offset");
+            assertQuery(log);
+            
+            assertArrayEquals(expected(500, 800, i -> i % 3 == 2 && i % 5 == 0),
+                    log.query().type("type.2").subject("subject-0")
+                            .since(START.plusSeconds(500)).until(START.plusSeconds(800)).offsets(),
+                    "Time ranges should bound the offsets");
+            assertArrayEquals(new long[] {3, 18, 33}, log.query().type("type.0").subject("subject-3").limit(3).offsets(),
+                    "Limits should keep the oldest");
+            assertEquals(0, log.query().type("type.9").offsets().length, "Unknown values should match nothing");
+            assertEquals(10, log.query().since(START.plusSeconds(1990)).offsets().length,
+                    "Queries without attributes should match the time range");
+        }
+        
+        try (EventLog log = open(clock).segmentSize(16 * 1024).secondaryIndexes(true).retentionBytes(40_000).build()) {
+            assertQuery(log);
+            assertTrue(log.enforceRetention() > 0, "Retention should delete segments");
+            assertQuery(log);
+        }
+        try (EventLog log = open(clock).build()) {
+            assertThrows(IllegalStateException.class, log::query, "Logs without secondary indexes");
+        }
+    }
+    
+    private static void assertQuery(EventLog log) {
+        long start = log.getStartOffset();
+        long[] offsets = log.query().type("type.1").subject("subject-2").source("/source/1").offsets();
+        assertArrayEquals(expected(start, 2000, i -> i % 3 == 1 && i % 5 == 2 && i % 2 == 1), offsets,
+                "The intersection should find exactly the matching events");
+        List<CloudEvent> events = log.query().type("type.1").subject("subject-2").events();
+        assertEquals(expected(start, 2000, i -> i % 3 == 1 && i % 5 == 2).length, events.size(),
+                "Every matching event should be read");
+        for (CloudEvent event : events) {
+            assertEquals("type.1", event.getType(), "Read events should have the type");
+            assertEquals("subject-2", event.getSubject(), "Read events should have the subject");
+        }
+    }
+    
+    private static long[] expected(long from, long to, LongPredicate matches) {
+        return LongStream.range(from, to).filter(matches).toArray();
+    }
+    
+    private EventLog.Builder open(Clock clock) {
+        return EventLog.builder(directory)
+                .segmentSize(1024)
+                .indexInterval(128)
+                .syncPolicy(LogSyncPolicy.NONE)
+                .clock(clock);
+    }
+    
+    private static CloudEvent event(int i) {
+        return CloudEvent.builder()
+                .id("evt-" + i)
+                .source("/apps/log-test")
+                .type("za.co.ai.experiment.test")
+                .subject("subject-" + i)
+                .build();
+    }
+    
+    private static void assertIds(EventLogReader reader, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(reader.next(), "Event " + i + " should be read");
+            assertEquals(i, reader.getOffset(), "Offsets should be read in order");
+            assertEquals("evt-" + i, reader.getEvent().getId(), "Events should be decoded");
+        }
+        assertFalse(reader.next(), "The reader should stop at the end of the log");
+    }
+    
+    /**
+     * A clock whose time is set by the test.
+     */
+    private static final class SteppedClock extends Clock {
+        private volatile Instant instant;
+        
+        private SteppedClock(Instant instant) {
+            this.instant = instant;
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.CloudEvent;
+import za.co.ai.experiment.libcoreevents.EventPublisher;
+import za.co.ai.experiment.libcoreevents.EventStreams;
+import za.co.ai.experiment.libcoreevents.EventSubscriber;
+import za.co.ai.experiment.libcoreevents.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the EventPublisher, EventSubscriber and EventStreams classes.
+ */
+public class EventPublisherTest {
+    
+    @Test
+    @DisplayName("Events should only be delivered as subscribers request them")
+    void testDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        try (EventPublisher publisher = EventPublisher.builder().bufferSize(8).executor(Runnable::run).build()) {
+            publisher.subscribe(subscriber);
+            for (int i = 0; i < 5; i++) {
+                assertTrue(publisher.publish(event(i)), "Events should be buffered");
+            }
+            assertEquals(List.of(), subscriber.ids, "Nothing should be delivered before a request");
+            assertEquals(5, publisher.getMaximumLag(), "The subscriber should lag by the buffered events");
+            
+            subscriber.subscription.request(2);
+            assertEquals(List.of("evt-0", "evt-1"), subscriber.ids, "Only the requested events should be delivered");
+            subscriber.subscription.request(10);
+            assertEquals(5, subscriber.ids.size(), "Buffered events should be delivered on request");
+            publisher.publish(event(5));
+            assertEquals(6, subscriber.ids.size(), "Outstanding demand should deliver new events straight away");
+        }
+        assertTrue(subscriber.completed, "Closing should complete the subscriber");
+        
+        RecordingSubscriber late = new RecordingSubscriber();
+        EventPublisher closed = EventPublisher.builder().executor(Runnable::run).build();
+        closed.close();
+        closed.subscribe(late);
+        assertTrue(late.completed, "Subscribing after close should complete straight away");
+        assertThrows(IllegalStateException.class, () -> closed.publish(event(0)), "Publishing after close");
+    }
+    
+    @Test
+    @DisplayName("Full buffers should apply the overflow policy to the slow subscriber only")
+    void testOverflowPolicies() throws InterruptedException {
+        assertEquals(List.of("evt-6", "evt-7", "evt-8", "evt-9"), overflow(OverflowPolicy.DROP_OLDEST, 6).ids,
+                "Dropping the oldest should keep the latest events");
+        assertEquals(List.of("evt-0", "evt-1", "evt-2", "evt-3"), overflow(OverflowPolicy.DROP_NEWEST, 6).ids,
+                "Dropping the newest should keep the first events");
+        RecordingSubscriber failed = overflow(OverflowPolicy.ERROR, 5);
+        assertEquals(List.of(), failed.ids, "Failing should discard the buffered events");
+        assertInstanceOf(IllegalStateException.class, failed.error, "The subscriber should be failed");
+        
+        RecordingSubscriber slow = new RecordingSubscriber();
+        try (EventPublisher publisher = EventPublisher.builder().bufferSize(2).overflowPolicy(OverflowPolicy.BLOCK)
+                .executor(Runnable::run).build()) {
+            publisher.subscribe(slow);
+            Thread producer = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 6; i++) {
+                    publisher.publish(event(i));
+                }
+            });
+            producer.join(200);
+            assertTrue(producer.isAlive(), "The producer should block on the full buffer");
+            slow.subscription.request(4);
+            producer.join(5000);
+            assertFalse(producer.isAlive(), "The producer should resume once events are taken");
+            assertEquals(0, publisher.getDroppedCount(), "Blocking should not drop events");
+            
+            slow.subscription.request(2);
+            assertTrue(publisher.tryPublish(event(6)), "Trying should buffer while there is room");
+            assertTrue(publisher.tryPublish(event(7)), "Trying should fill the buffer");
+            assertFalse(publisher.tryPublish(event(8)), "Trying should not wait for a full buffer");
+            assertEquals(1, publisher.getDroppedCount(), "Events missed by trying should be counted");
+        }
+    }
+    
+    @Test
+    @DisplayName("Subscribers should pace a producer without dropping events")
+    void testSubscriberPacing() throws Exception {
+        List<String> ids = Collections.synchronizedList(new ArrayList<>());
+        EventSubscriber subscriber = new EventSubscriber(event -> {
+            ids.add(event.getId());
+            if (ids.size() % 100 == 0) {
+                Thread.onSpinWait();
+            }
+        }, 8);
+        try (EventPublisher publisher = EventPublisher.builder().bufferSize(16).build()) {
+            publisher.subscribe(subscriber);
+            for (int i = 0; i < 2000; i++) {
+                publisher.publish(event(i));
+                assertTrue(publisher.getMaximumLag() <= 16, "The buffer should stay bounded");
+            }
+        }
+        subscriber.getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(IntStream.range(0, 2000).mapToObj(i -> "evt-" + i).toList(), ids,
+                "Every event should arrive in order");
+        
+        EventSubscriber failing = new EventSubscriber(event -> {
+            throw new IllegalArgumentException("Bad event");
+        });
+        try (EventPublisher publisher = EventPublisher.builder().build()) {
+            publisher.subscribe(failing);
+            publisher.publish(event(0));
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> failing.getCompletion().get(5, TimeUnit.SECONDS), "Handler failures should complete");
+            assertInstanceOf(IllegalArgumentException.class, e.getCause(), "The handler's exception should be kept");
+        }
+    }
+    
+    @Test
+    @DisplayName("Vert.x pipes should carry backpressure between publishers")
+    void testVertxStreams() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            Context context = vertx.getOrCreateContext();
+            List<String> ids = Collections.synchronizedList(new ArrayList<>());
+            EventPublisher source = EventPublisher.builder().bufferSize(32).build();
+            EventPublisher target = EventPublisher.builder().bufferSize(8)
+                    .overflowPolicy(OverflowPolicy.DROP_NEWEST).build();
+            EventSubscriber sink = new EventSubscriber(event -> {
+                ids.add(event.getId());
+                try {
+                    Thread.sleep(0, 50_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 4);
+            target.subscribe(sink);
+            
+            context.runOnContext(v -> EventStreams.toReadStream(context, source, 16)
+                    .pipeTo(EventStreams.toWriteStream(context, target)));
+            while (source.getSubscriberCount() == 0) {
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 1000; i++) {
+                source.publish(event(i));
+            }
+            source.close();
+            
+            sink.getCompletion().get(10, TimeUnit.SECONDS);
+            assertEquals(0, target.getDroppedCount(), "The pipe should wait for the slow subscriber");
+            assertEquals(0, source.getDroppedCount(), "The read stream should keep up with its source");
+            assertEquals(IntStream.range(0, 1000).mapToObj(i -> "evt-" + i).toList(), ids,
+                    "Every event should pass through the pipe in order");
+        } finally {
+            vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+    }
+    
+    private static RecordingSubscriber overflow(OverflowPolicy policy, int dropped) {
+        RecordingSubscriber slow = new RecordingSubscriber();
+        RecordingSubscriber fast = new RecordingSubscriber();
+        try (EventPublisher publisher = EventPublisher.builder().bufferSize(4).overflowPolicy(policy)
+                .executor(Runnable::run).build()) {
+            publisher.subscribe(slow);
+            publisher.subscribe(fast);
+            fast.subscription.request(Long.MAX_VALUE);
+            for (int i = 0; i < 10; i++) {
+                publisher.publish(event(i));
+            }
+            assertEquals(10, fast.ids.size(), "Subscribers keeping up should receive every event");
+            assertEquals(dropped, publisher.getDroppedCount(), "Overflowing events should be counted");
+            slow.subscription.request(10);
+        }
+        return slow;
+    }
+    
+    private static CloudEvent event(int i) {
+        return CloudEvent.builder()
+                .id("evt-" + i)
+                .source("/apps/publisher-test")
+                .type("za.co.ai.experiment.test")
+                .build();
+    }
+    
+    /**
+     * A subscriber that records what it receives and requests only when told to.
+     */
+    private static final class RecordingSubscriber implements Flow.Subscriber<CloudEvent> {
+        private final List<String> ids = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+        
+        @Override
+        public void onNext(CloudEvent event) {
+            ids.add(event.getId());
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+        
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
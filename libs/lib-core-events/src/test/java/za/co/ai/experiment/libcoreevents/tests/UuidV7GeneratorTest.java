@@ -0,0 +1,114 @@
+package za.co.ai.experiment.libcoreevents.tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import za.co.ai.experiment.libcoreevents.UuidV7Generator;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the UuidV7Generator class.
+ */
+public class UuidV7GeneratorTest {
+    
+    private static final Instant NOW = Instant.parse("2026-03-01T10:15:30.123Z");
+    
+    @Test
+    @DisplayName("IDs should be version 7 UUIDs carrying the generation time")
+    void testLayout() {
+        UUID uuid = new UuidV7Generator(Clock.fixed(NOW, ZoneOffset.UTC)).next();
+        
+        assertEquals(7, uuid.version(), "The version should be 7");
+        assertEquals(2, uuid.variant(), "The variant should be RFC 9562");
+        assertEquals(NOW.toEpochMilli(), UuidV7Generator.timestampOf(uuid), "The timestamp should be the clock's");
+        assertThrows(IllegalArgumentException.class, () -> UuidV7Generator.timestampOf(UUID.randomUUID()),
+                "Other versions should be rejected");
+    }
+    
+    @Test
+    @DisplayName("IDs should sort in generation order within a millisecond and across clock steps back")
+    void testOrdering() {
+        MovableClock clock = new MovableClock();
+        UuidV7Generator generator = new UuidV7Generator(clock);
+        
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.millis -= 1_000;
+            }
+            ids.add(generator.nextId());
+        }
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(null);
+        assertEquals(ids, sorted, "IDs should sort as strings in generation order");
+        assertEquals(NOW.toEpochMilli() + 10_000 / 4096, UuidV7Generator.timestampOf(UUID.fromString(ids.get(9_999))),
+                "A full counter should carry into the timestamp");
+    }
+    
+    @Test
+    @DisplayName("Concurrent generation should not produce duplicates")
+    void testConcurrentUniqueness() throws InterruptedException {
+        UuidV7Generator generator = new UuidV7Generator(Clock.fixed(NOW, ZoneOffset.UTC));
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                Set<String> local = new HashSet<>();
+                for (int i = 0; i < 25_000; i++) {
+                    local.add(generator.nextId());
+                }
+                ids.addAll(local);
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100_000, ids.size(), "Every ID should be unique");
+    }
+    
+    /**
+     * A clock whose time is set by the test.
+     */
+    private static final class MovableClock extends Clock {
+        private long millis = NOW.toEpochMilli();
+        
+        @Override
+        public long millis() {
+            return millis;
+        }
+        
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}